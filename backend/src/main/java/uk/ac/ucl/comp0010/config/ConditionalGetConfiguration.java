@@ -0,0 +1,55 @@
+package uk.ac.ucl.comp0010.config;
+
+import java.util.List;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * Configures conditional GET support: the tracker of the data versions
+ * inspects the statements Hibernate prepares, and the read endpoints
+ * listed in gms.conditional-get.paths are tagged with the version of the
+ * tables gms.data-version.reads lists for them.
+ */
+@Configuration
+public class ConditionalGetConfiguration {
+
+  /**
+   * Makes Hibernate pass every statement it prepares to the tracker.
+   *
+   * @param tracker the tracker of the data versions
+   * @return the customizer of the Hibernate properties
+   */
+  @Bean
+  public HibernatePropertiesCustomizer dataVersionInspector(
+      final DataVersionTracker tracker) {
+    return properties ->
+        properties.put(AvailableSettings.STATEMENT_INSPECTOR, tracker);
+  }
+
+  /**
+   * Registers the filter answering conditional GET requests.
+   *
+   * @param tracker the tracker of the data versions
+   * @param paths   the Ant-style path patterns of the endpoints answered
+   * @return the registration of the filter
+   */
+  @Bean
+  public FilterRegistrationBean<ConditionalGetFilter> conditionalGetFilter(
+      final DataVersionTracker tracker,
+      @Value("${gms.conditional-get.paths:/students,/modules,"
+          + "/modules/search/first,/modules/search/after,"
+          + "/students/search/first,/students/search/after,"
+          + "/modules/*/registrations,/students/*/transcript}")
+      final List<String> paths) {
+    FilterRegistrationBean<ConditionalGetFilter> registration =
+        new FilterRegistrationBean<>(
+            new ConditionalGetFilter(tracker, paths));
+    registration.setOrder(Ordered.LOWEST_PRECEDENCE - 1);
+    return registration;
+  }
+}
@@ -0,0 +1,106 @@
+package uk.ac.ucl.comp0010.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.List;
+import org.springframework.http.HttpHeaders;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.PathMatcher;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.UrlPathHelper;
+
+/**
+ * Answers GET requests for the configured read endpoints with the entity
+ * tag of the current version of the tables the endpoint reads, and
+ * answers those whose If-None-Match header holds that tag with 304 Not
+ * Modified before the endpoint runs, so an unchanged collection is
+ * neither queried nor serialized.
+ *
+ * Responses also carry Last-Modified, and Cache-Control: no-cache so that
+ * browsers keep them and revalidate them on every use. If-Modified-Since
+ * is not honoured: HTTP dates have a resolution of one second, so a
+ * change made in the same second as a response would go unnoticed.
+ */
+public final class ConditionalGetFilter extends OncePerRequestFilter {
+
+  /**
+   * The request attribute holding the data version the request was tagged
+   * with, so that later filters need not read it again.
+   */
+  public static final String VERSION_ATTRIBUTE =
+      ConditionalGetFilter.class.getName() + ".version";
+
+  /** Resolves the path of a request within the application. */
+  private static final UrlPathHelper PATH_HELPER = new UrlPathHelper();
+
+  /** Matches request paths against the configured patterns. */
+  private static final PathMatcher PATH_MATCHER = new AntPathMatcher();
+
+  /** Provides the current data versions. */
+  private final DataVersionTracker tracker;
+
+  /** The Ant-style path patterns of the endpoints answered. */
+  private final List<String> paths;
+
+  /**
+   * Constructs a ConditionalGetFilter.
+   *
+   * @param versionTracker the tracker of the data version
+   * @param pathPatterns   the Ant-style path patterns of the endpoints
+   */
+  public ConditionalGetFilter(final DataVersionTracker versionTracker,
+      final List<String> pathPatterns) {
+    this.tracker = versionTracker;
+    this.paths = List.copyOf(pathPatterns);
+  }
+
+  /**
+   * Skips requests other than GET and HEAD, and those for other paths.
+   *
+   * @param request the request
+   * @return true if the request is not answered by this filter
+   */
+  @Override
+  protected boolean shouldNotFilter(final HttpServletRequest request) {
+    String method = request.getMethod();
+    if (!method.equals("GET") && !method.equals("HEAD")) {
+      return true;
+    }
+    String path = PATH_HELPER.getPathWithinApplication(request);
+    return paths.stream().noneMatch(p -> PATH_MATCHER.match(p, path));
+  }
+
+  /**
+   * Answers 304 if the client holds the current version, and otherwise
+   * tags the response and passes the request on.
+   *
+   * @param request  the request
+   * @param response the response
+   * @param chain    the rest of the filter chain
+   * @throws ServletException if the rest of the chain fails
+   * @throws IOException      if the rest of the chain fails
+   */
+  @Override
+  protected void doFilterInternal(final HttpServletRequest request,
+      final HttpServletResponse response, final FilterChain chain)
+      throws ServletException, IOException {
+    // The version is read before the endpoint queries, so a write
+    // committed in between can only pair newer data with an older tag.
+    DataVersionTracker.Version version =
+        tracker.current(PATH_HELPER.getPathWithinApplication(request));
+    request.setAttribute(VERSION_ATTRIBUTE, version);
+
+    response.setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+    ServletWebRequest webRequest = new ServletWebRequest(request, response);
+    if (webRequest.checkNotModified(version.etag())) {
+      return;
+    }
+    response.setDateHeader(HttpHeaders.LAST_MODIFIED,
+        version.lastModified().toEpochMilli());
+    chain.doFilter(request, response);
+  }
+}
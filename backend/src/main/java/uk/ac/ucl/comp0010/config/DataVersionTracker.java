@@ -0,0 +1,337 @@
+package uk.ac.ucl.comp0010.config;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.PathMatcher;
+
+/**
+ * Tracks a version of each of the student, module, registration and grade
+ * tables, which changes whenever a transaction that wrote to the table
+ * commits, and the version of the data read by each tagged endpoint.
+ *
+ * The tracker inspects every statement Hibernate prepares, including
+ * native and bulk statements that entity listeners would not see, and
+ * counts the tables a transaction wrote once it commits. Counting only
+ * after the commit means a reader never pairs the new version with data
+ * read before the write became visible. Writes made outside Hibernate,
+ * such as through a JdbcTemplate, are not seen, so their writers report
+ * them with recordExternalWrite.
+ *
+ * The versions are kept in the data_version table rather than in memory,
+ * so that instances sharing the database see each other's writes: each
+ * committed write advances the rows of the tables it wrote with one
+ * update, in its own short transaction so that writers do not hold their
+ * locks, and writers of different tables never wait for each other.
+ *
+ * gms.data-version.reads lists the tables each endpoint reads, as
+ * pattern=table table entries, and an endpoint's version, read with one
+ * query, sums the versions of those tables only, so that it changes with
+ * every write to them and with no other. An endpoint not listed depends on
+ * every table. Its tag also carries the time the rows were created, so
+ * that a recreated database never reuses a tag.
+ */
+@Component
+public class DataVersionTracker implements StatementInspector {
+
+  /** The version of the serialized form. */
+  private static final long serialVersionUID = 1L;
+
+  /** Logs a version that could not be advanced. */
+  private static final Logger LOG =
+      LoggerFactory.getLogger(DataVersionTracker.class);
+
+  /** The tables whose versions are tracked. */
+  public static final Set<String> TABLES =
+      Set.of("student", "module", "registration", "grade");
+
+  /** The tables an endpoint not listed depends on, in name order. */
+  private static final List<String> ALL_TABLES =
+      List.copyOf(new TreeSet<>(TABLES));
+
+  /**
+   * Matches statements that write, capturing the table written: those
+   * starting with a write keyword, and queries over the rows changed by a
+   * write, such as SELECT ... FROM OLD TABLE (MERGE INTO grade ...).
+   */
+  private static final Pattern WRITE = Pattern.compile(
+      "(?:^\\s*|\\b(?:old|new|final)\\s+table\\s*\\(\\s*)"
+          + "(?:insert\\s+into|update|delete\\s+from|merge\\s+into"
+          + "|truncate\\s+table)\\s+\"?(\\w+)",
+      Pattern.CASE_INSENSITIVE);
+
+  /** Matches request paths against the patterns of the endpoints. */
+  private static final PathMatcher PATH_MATCHER = new AntPathMatcher();
+
+  /** Reads and advances the versions. */
+  private final transient JdbcTemplate jdbc;
+
+  /** The tables read by each endpoint, by Ant-style path pattern. */
+  private final transient Map<String, List<String>> reads =
+      new LinkedHashMap<>();
+
+  /**
+   * Constructs a DataVersionTracker.
+   *
+   * @param jdbcTemplate reads and advances the versions
+   * @param endpointReads the tables read by each endpoint, as
+   *                      pattern=table table entries, the first matching
+   *                      entry applying
+   * @throws IllegalArgumentException if an entry is malformed or names a
+   *                                  table that is not tracked
+   */
+  public DataVersionTracker(final JdbcTemplate jdbcTemplate,
+      @Value("${gms.data-version.reads:/students=student,"
+          + "/students/search/*=student,"
+          + "/modules=module registration,"
+          + "/modules/search/*=module registration,"
+          + "/modules/*/registrations=module registration student,"
+          + "/students/*/transcript=student module registration grade}")
+      final List<String> endpointReads) {
+    this.jdbc = jdbcTemplate;
+    for (String entry : endpointReads) {
+      String[] parts = entry.split("=", 2);
+      if (parts.length < 2 || parts[1].isBlank()) {
+        throw new IllegalArgumentException(
+            "Expected pattern=table table but found '" + entry + "'");
+      }
+      Set<String> tables = new TreeSet<>();
+      for (String table : parts[1].trim().split("\\s+")) {
+        if (!TABLES.contains(table)) {
+          throw new IllegalArgumentException(
+              "Table '" + table + "' is not tracked");
+        }
+        tables.add(table);
+      }
+      reads.put(parts[0].trim(), List.copyOf(tables));
+    }
+  }
+
+  /**
+   * Records a write to the table the statement writes, if it writes a
+   * tracked table, and returns the statement unchanged.
+   *
+   * @param sql the statement about to be prepared
+   * @return the same statement
+   */
+  @Override
+  public String inspect(final String sql) {
+    Matcher matcher = WRITE.matcher(sql);
+    if (matcher.find()) {
+      String table = matcher.group(1).toLowerCase(Locale.ROOT);
+      if (TABLES.contains(table)) {
+        recordWrite(List.of(table));
+      }
+    }
+    return sql;
+  }
+
+  /**
+   * Records writes made outside Hibernate, counted once the current
+   * transaction commits, or at once outside a transaction.
+   *
+   * @param tables the tracked tables written
+   */
+  public void recordExternalWrite(final String... tables) {
+    recordWrite(List.of(tables));
+  }
+
+  /**
+   * Returns the version of the data read by the endpoint at a path, with
+   * its tag and the time it was reached.
+   *
+   * @param path the path of the endpoint within the application
+   * @return the current version of the tables the endpoint reads
+   */
+  public Version current(final String path) {
+    List<String> tables = reads.entrySet().stream()
+        .filter(e -> PATH_MATCHER.match(e.getKey(), path))
+        .map(Map.Entry::getValue)
+        .findFirst()
+        .orElse(ALL_TABLES);
+    return jdbc.queryForObject("SELECT MAX(created) AS created,"
+        + " SUM(version) AS version, MAX(last_modified) AS last_modified"
+        + " FROM data_version WHERE table_name IN ("
+        + String.join(", ", Collections.nCopies(tables.size(), "?")) + ")",
+        (rs, row) -> new Version(tables,
+            rs.getTimestamp("created").toInstant(), rs.getLong("version"),
+            rs.getTimestamp("last_modified").toInstant()),
+        tables.toArray());
+  }
+
+  /**
+   * Counts a change to tables once the current transaction commits,
+   * registering at most one callback per transaction. JPA only writes in
+   * a transaction, so a write without one is counted at once.
+   *
+   * @param tables the tables written
+   */
+  private void recordWrite(final Collection<String> tables) {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      changed(tables);
+      return;
+    }
+    for (TransactionSynchronization s
+        : TransactionSynchronizationManager.getSynchronizations()) {
+      if (s instanceof ChangeOnCommit change) {
+        change.tables.addAll(tables);
+        return;
+      }
+    }
+    ChangeOnCommit change = new ChangeOnCommit();
+    change.tables.addAll(tables);
+    TransactionSynchronizationManager.registerSynchronization(change);
+  }
+
+  /**
+   * Advances the versions of tables in a transaction of its own, committed
+   * at once.
+   *
+   * When called after a commit, the connection of the committed
+   * transaction is still bound to the thread, and is reused rather than
+   * taking a second connection from the pool, which writers holding one
+   * each could exhaust; as Spring no longer commits it, it is committed
+   * here. The write has already committed, so a failure is logged rather
+   * than reported to its writer, and the versions then advance with the
+   * next write.
+   *
+   * @param tables the tables written
+   */
+  private void changed(final Collection<String> tables) {
+    if (tables.isEmpty()) {
+      return;
+    }
+    List<String> names = new ArrayList<>(new TreeSet<>(tables));
+    String advance = "UPDATE data_version SET version = version + 1,"
+        + " last_modified = ? WHERE table_name IN ("
+        + String.join(", ", Collections.nCopies(names.size(), "?")) + ")";
+    try {
+      jdbc.execute((ConnectionCallback<Void>) con -> {
+        try (PreparedStatement ps = con.prepareStatement(advance)) {
+          ps.setTimestamp(1, Timestamp.from(Instant.now()));
+          for (int i = 0; i < names.size(); i++) {
+            ps.setString(i + 2, names.get(i));
+          }
+          ps.executeUpdate();
+        }
+        if (!con.getAutoCommit()) {
+          con.commit();
+        }
+        return null;
+      });
+    } catch (DataAccessException e) {
+      LOG.warn("Could not advance the data version", e);
+    }
+  }
+
+  /**
+   * A version of the data read by an endpoint.
+   */
+  public static final class Version {
+
+    /** The tables the version covers, in name order. */
+    private final List<String> tables;
+
+    /** The time the version rows were created. */
+    private final Instant created;
+
+    /** The number of writes to the tables committed. */
+    private final long number;
+
+    /** The time the last write to the tables committed. */
+    private final Instant lastModified;
+
+    /**
+     * Constructs a Version.
+     *
+     * @param tableNames     the tables the version covers, in name order
+     * @param createdAt      the time the version rows were created
+     * @param count          the number of writes to the tables committed
+     * @param lastModifiedAt the time the last write to the tables
+     *                       committed
+     */
+    Version(final List<String> tableNames, final Instant createdAt,
+        final long count, final Instant lastModifiedAt) {
+      this.tables = tableNames;
+      this.created = createdAt;
+      this.number = count;
+      this.lastModified = lastModifiedAt;
+    }
+
+    /**
+     * Returns the tables this version covers. Only versions of the same
+     * tables can be compared by number.
+     *
+     * @return the table names, in name order
+     */
+    public List<String> tables() {
+      return tables;
+    }
+
+    /**
+     * Returns the number of this version.
+     *
+     * @return the number of writes to the tables committed
+     */
+    public long number() {
+      return number;
+    }
+
+    /**
+     * Returns the strong entity tag of this version.
+     *
+     * @return the quoted tag
+     */
+    public String etag() {
+      return "\"" + Long.toString(created.toEpochMilli(), 36) + "-" + number
+          + "\"";
+    }
+
+    /**
+     * Returns the time the data last changed, or the time the version rows
+     * were created if it has not changed since.
+     *
+     * @return the time of the last change
+     */
+    public Instant lastModified() {
+      return lastModified;
+    }
+  }
+
+  /**
+   * Advances the versions of the tables a transaction wrote after it
+   * commits.
+   */
+  private final class ChangeOnCommit implements TransactionSynchronization {
+
+    /** The tables the transaction wrote. */
+    private final Set<String> tables = new TreeSet<>();
+
+    @Override
+    public void afterCommit() {
+      changed(tables);
+    }
+  }
+}
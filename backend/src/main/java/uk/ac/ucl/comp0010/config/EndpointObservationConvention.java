@@ -0,0 +1,57 @@
+package uk.ac.ucl.comp0010.config;
+
+import io.micrometer.common.KeyValue;
+import jakarta.servlet.http.HttpServletRequest;
+import java.util.List;
+import java.util.Map;
+import org.springframework.http.server.observation.DefaultServerRequestObservationConvention;
+import org.springframework.http.server.observation.ServerRequestObservationContext;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * Names the endpoint of each request in the uri tag of the
+ * http.server.requests metrics, so that every endpoint has its own latency
+ * histogram.
+ *
+ * The default convention tags a request with the path pattern of its
+ * handler. Spring Data REST puts the repository into its patterns, but
+ * leaves the query method and association variable, as in
+ * /students/search/{search} and /grades/{id}/{property}, which would put
+ * every query method, or association, of a repository in one histogram.
+ * Their names are put back into the pattern; both come from a fixed set,
+ * so the number of tags stays bounded.
+ */
+public final class EndpointObservationConvention
+    extends DefaultServerRequestObservationConvention {
+
+  /** The path variables naming query methods and associations. */
+  private static final List<String> RESOURCE_VARIABLES =
+      List.of("search", "property");
+
+  /**
+   * Returns the uri tag of a request.
+   *
+   * @param context the observation of the request
+   * @return the uri tag
+   */
+  @Override
+  protected KeyValue uri(final ServerRequestObservationContext context) {
+    HttpServletRequest request = context.getCarrier();
+    String pattern = context.getPathPattern();
+    if (request == null || pattern == null) {
+      return super.uri(context);
+    }
+    Object variables = request.getAttribute(
+        HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+    if (!(variables instanceof Map<?, ?> map)) {
+      return super.uri(context);
+    }
+    String uri = pattern;
+    for (String name : RESOURCE_VARIABLES) {
+      if (map.get(name) instanceof String value) {
+        uri = uri.replace("{" + name + "}", value);
+      }
+    }
+    return uri.equals(pattern) ? super.uri(context) : KeyValue.of("uri", uri);
+  }
+}
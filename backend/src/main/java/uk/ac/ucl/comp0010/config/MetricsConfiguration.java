@@ -0,0 +1,95 @@
+package uk.ac.ucl.comp0010.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.persistence.EntityManagerFactory;
+import java.util.function.ToDoubleFunction;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.server.observation.ServerRequestObservationConvention;
+
+/**
+ * Configures the metrics published under /actuator/metrics, alongside
+ * those Spring Boot binds itself: per-endpoint latency of
+ * http.server.requests, per-method latency of Spring Data repository calls
+ * (spring.data.repository.invocations), and the use of the connection pool
+ * (hikaricp.connections.*, where pending counts requests waiting for a
+ * connection). Their percentiles are set in application.properties.
+ *
+ * The work Hibernate does is published from its statistics, which
+ * hibernate.generate_statistics enables: entity loads and fetches per
+ * entity, collection loads and fetches, statements prepared and queries
+ * run. Hibernate keeps its statistics in lock-free counters, and the
+ * meters read them only when metrics are collected, so a request pays
+ * only for the counting.
+ */
+@Configuration
+public class MetricsConfiguration {
+
+  /**
+   * Returns the convention naming the endpoint of each request.
+   *
+   * @return the convention
+   */
+  @Bean
+  public ServerRequestObservationConvention endpointObservationConvention() {
+    return new EndpointObservationConvention();
+  }
+
+  /**
+   * Binds metrics read from the Hibernate statistics.
+   *
+   * @param emf the entity manager factory
+   * @return the binder for the statistics
+   */
+  @Bean
+  public MeterBinder hibernateStatisticsMetrics(
+      final EntityManagerFactory emf) {
+    Statistics statistics =
+        emf.unwrap(SessionFactory.class).getStatistics();
+    return registry -> {
+      for (String entity : statistics.getEntityNames()) {
+        String name = entity.substring(entity.lastIndexOf('.') + 1);
+        FunctionCounter.builder("hibernate.entity.loads", statistics,
+                s -> s.getEntityStatistics(entity).getLoadCount())
+            .description("Entities loaded from the database")
+            .tag("entity", name)
+            .register(registry);
+        FunctionCounter.builder("hibernate.entity.fetches", statistics,
+                s -> s.getEntityStatistics(entity).getFetchCount())
+            .description("Entities fetched lazily by a separate statement")
+            .tag("entity", name)
+            .register(registry);
+      }
+      counter(registry, statistics, "hibernate.collections.loads",
+          "Collections loaded", Statistics::getCollectionLoadCount);
+      counter(registry, statistics, "hibernate.collections.fetches",
+          "Collections fetched lazily by a separate statement",
+          Statistics::getCollectionFetchCount);
+      counter(registry, statistics, "hibernate.statements.prepared",
+          "JDBC statements prepared", Statistics::getPrepareStatementCount);
+      counter(registry, statistics, "hibernate.query.executions",
+          "HQL and native queries run", Statistics::getQueryExecutionCount);
+    };
+  }
+
+  /**
+   * Registers a counter read from the Hibernate statistics.
+   *
+   * @param registry    the registry
+   * @param statistics  the statistics
+   * @param name        the name of the counter
+   * @param description the description of the counter
+   * @param count       reads the count from the statistics
+   */
+  private static void counter(final MeterRegistry registry,
+      final Statistics statistics, final String name,
+      final String description, final ToDoubleFunction<Statistics> count) {
+    FunctionCounter.builder(name, statistics, count)
+        .description(description)
+        .register(registry);
+  }
+}
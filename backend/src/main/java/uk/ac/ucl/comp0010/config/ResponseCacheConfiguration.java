@@ -0,0 +1,84 @@
+package uk.ac.ucl.comp0010.config;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.time.Duration;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.util.unit.DataSize;
+import uk.ac.ucl.comp0010.config.ResponseCacheFilter.CachedResponse;
+import uk.ac.ucl.comp0010.config.ResponseCacheFilter.Key;
+
+/**
+ * Configures the cache of serialized responses for the read endpoints
+ * listed in gms.response-cache.paths, bounded to gms.response-cache.max-size
+ * bytes, and publishes its hit, miss and eviction counts as cache.* metrics
+ * tagged cache:responses.
+ *
+ * The filter is ordered after the conditional GET filter, so requests
+ * holding the current tag are answered with 304 before the cache is read.
+ */
+@Configuration
+public class ResponseCacheConfiguration {
+
+  /**
+   * Returns the cache of serialized responses.
+   *
+   * @param maxSize the total size of the bodies and keys held
+   * @return the cache
+   */
+  @Bean
+  public AsyncCache<Key, CachedResponse> responseCache(
+      @Value("${gms.response-cache.max-size:64MB}") final DataSize maxSize) {
+    return Caffeine.newBuilder()
+        .maximumWeight(maxSize.toBytes())
+        .weigher((Key k, CachedResponse r) -> k.size() + r.size())
+        .recordStats()
+        .buildAsync();
+  }
+
+  /**
+   * Binds metrics for the cache of serialized responses.
+   *
+   * @param cache the cache
+   * @return the binder for the cache
+   */
+  @Bean
+  public MeterBinder responseCacheMetrics(
+      final AsyncCache<Key, CachedResponse> cache) {
+    return registry ->
+        CaffeineCacheMetrics.monitor(registry, cache, "responses");
+  }
+
+  /**
+   * Registers the filter serving cached responses.
+   *
+   * @param tracker the tracker of the data version
+   * @param cache   the cache of serialized responses
+   * @param paths   the Ant-style path patterns of the endpoints cached
+   * @param timeout the longest time a request waits for another to render
+   *                the same response
+   * @return the registration of the filter
+   */
+  @Bean
+  public FilterRegistrationBean<ResponseCacheFilter> responseCacheFilter(
+      final DataVersionTracker tracker,
+      final AsyncCache<Key, CachedResponse> cache,
+      @Value("${gms.response-cache.paths:/modules,"
+          + "/modules/*/registrations,/students/*/transcript}")
+      final List<String> paths,
+      @Value("${gms.response-cache.wait-timeout:PT5S}")
+      final Duration timeout) {
+    FilterRegistrationBean<ResponseCacheFilter> registration =
+        new FilterRegistrationBean<>(
+            new ResponseCacheFilter(tracker, paths, cache, timeout));
+    registration.setOrder(Ordered.LOWEST_PRECEDENCE);
+    return registration;
+  }
+}
@@ -0,0 +1,369 @@
+package uk.ac.ucl.comp0010.config;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.PathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+import org.springframework.web.util.UrlPathHelper;
+
+/**
+ * Serves GET requests for the configured read endpoints from a cache of
+ * their serialized responses, keyed by the request URI, its Accept header,
+ * the origin it was addressed to and the version of the tables the
+ * endpoint reads. HAL bodies hold
+ * absolute links, built from the scheme, host and port of the request, or
+ * from the Forwarded and X-Forwarded-* headers set by a proxy, so a body
+ * is only served to requests addressed to the same origin.
+ *
+ * A write committed through any path advances the versions of the tables
+ * it wrote, so the responses cached for older versions of those tables
+ * are never served again, and are dropped by the first request that sees
+ * the new version. Responses of endpoints reading none of the tables stay
+ * cached. When several
+ * requests miss the same entry at once, only the first runs the endpoint,
+ * and the others wait for and share its response, for at most
+ * gms.response-cache.wait-timeout, after which each renders the response
+ * itself rather than queueing behind a slow one. Only OK responses are
+ * cached, with their status, content type and body; other responses are
+ * rendered by each request itself.
+ */
+public final class ResponseCacheFilter extends OncePerRequestFilter {
+
+  /** Resolves the path of a request within the application. */
+  private static final UrlPathHelper PATH_HELPER = new UrlPathHelper();
+
+  /** Matches request paths against the configured patterns. */
+  private static final PathMatcher PATH_MATCHER = new AntPathMatcher();
+
+  /** Provides the current data versions. */
+  private final DataVersionTracker tracker;
+
+  /** The Ant-style path patterns of the endpoints cached. */
+  private final List<String> paths;
+
+  /** The cached responses, each completed by the request rendering it. */
+  private final AsyncCache<Key, CachedResponse> cache;
+
+  /**
+   * The headers naming the origin a request was addressed to, beyond its
+   * scheme, server name and port.
+   */
+  private static final List<String> ORIGIN_HEADERS = List.of(
+      HttpHeaders.HOST, "Forwarded", "X-Forwarded-Host",
+      "X-Forwarded-Proto", "X-Forwarded-Port", "X-Forwarded-Prefix");
+
+  /** The longest time a request waits for another to render. */
+  private final Duration waitTimeout;
+
+  /** The newest version of each set of tables seen by a request. */
+  private final ConcurrentMap<List<String>, Long> newestVersions =
+      new ConcurrentHashMap<>();
+
+  /**
+   * Constructs a ResponseCacheFilter.
+   *
+   * @param versionTracker the tracker of the data version
+   * @param pathPatterns   the Ant-style path patterns of the endpoints
+   * @param responseCache  the cache holding the responses
+   * @param timeout        the longest time a request waits for another
+   *                       to render
+   */
+  public ResponseCacheFilter(final DataVersionTracker versionTracker,
+      final List<String> pathPatterns,
+      final AsyncCache<Key, CachedResponse> responseCache,
+      final Duration timeout) {
+    this.tracker = versionTracker;
+    this.paths = List.copyOf(pathPatterns);
+    this.cache = responseCache;
+    this.waitTimeout = timeout;
+  }
+
+  /**
+   * Skips requests other than GET, and those for other paths.
+   *
+   * @param request the request
+   * @return true if the request is not cached by this filter
+   */
+  @Override
+  protected boolean shouldNotFilter(final HttpServletRequest request) {
+    if (!request.getMethod().equals("GET")) {
+      return true;
+    }
+    String path = PATH_HELPER.getPathWithinApplication(request);
+    return paths.stream().noneMatch(p -> PATH_MATCHER.match(p, path));
+  }
+
+  /**
+   * Returns the version of the data the endpoint reads, as tagged by the
+   * conditional GET filter if it ran, so that the version is read once per
+   * request.
+   *
+   * @param request the request
+   * @return the current version of the tables the endpoint reads
+   */
+  private DataVersionTracker.Version currentVersion(
+      final HttpServletRequest request) {
+    if (request.getAttribute(ConditionalGetFilter.VERSION_ATTRIBUTE)
+        instanceof DataVersionTracker.Version version) {
+      return version;
+    }
+    return tracker.current(PATH_HELPER.getPathWithinApplication(request));
+  }
+
+  /**
+   * Writes the cached response for the request, rendering and caching it
+   * first if no other request is doing so, and rendering it without the
+   * cache if the request rendering it fails or is too slow.
+   *
+   * @param request  the request
+   * @param response the response
+   * @param chain    the rest of the filter chain
+   * @throws ServletException if the rest of the chain fails
+   * @throws IOException      if the rest of the chain fails
+   */
+  @Override
+  protected void doFilterInternal(final HttpServletRequest request,
+      final HttpServletResponse response, final FilterChain chain)
+      throws ServletException, IOException {
+    DataVersionTracker.Version version = currentVersion(request);
+    dropOlderThan(version);
+    Key key = new Key(version.tables(), version.number(),
+        request.getRequestURI(),
+        request.getQueryString(), request.getHeader(HttpHeaders.ACCEPT),
+        origin(request));
+
+    CompletableFuture<CachedResponse> mine = new CompletableFuture<>();
+    CompletableFuture<CachedResponse> shared =
+        cache.asMap().putIfAbsent(key, mine);
+    if (shared == null) {
+      render(request, response, chain, mine);
+      return;
+    }
+
+    CachedResponse cached;
+    try {
+      // A copy is timed out, so that the shared entry is still completed
+      // by the request rendering it.
+      cached = shared.copy().orTimeout(waitTimeout.toMillis(),
+          TimeUnit.MILLISECONDS).join();
+    } catch (CompletionException e) {
+      cached = null;
+    }
+    if (cached == null) {
+      chain.doFilter(request, response);
+    } else {
+      cached.writeTo(response);
+    }
+  }
+
+  /**
+   * Returns the origin a request was addressed to: its scheme, server name
+   * and port, and the headers naming them, as a proxy may set.
+   *
+   * @param request the request
+   * @return the parts of the origin, each null if absent
+   */
+  private static List<String> origin(final HttpServletRequest request) {
+    List<String> origin = new ArrayList<>(ORIGIN_HEADERS.size() + 2);
+    origin.add(request.getScheme());
+    origin.add(request.getServerName() + ":" + request.getServerPort());
+    for (String header : ORIGIN_HEADERS) {
+      origin.add(request.getHeader(header));
+    }
+    return origin;
+  }
+
+  /**
+   * Runs the endpoint, and completes the pending entry with its response
+   * if OK, or with null, which removes the entry, otherwise.
+   *
+   * @param request  the request
+   * @param response the response
+   * @param chain    the rest of the filter chain
+   * @param pending  the pending entry
+   * @throws ServletException if the rest of the chain fails
+   * @throws IOException      if the rest of the chain fails
+   */
+  private void render(final HttpServletRequest request,
+      final HttpServletResponse response, final FilterChain chain,
+      final CompletableFuture<CachedResponse> pending)
+      throws ServletException, IOException {
+    ContentCachingResponseWrapper wrapper =
+        new ContentCachingResponseWrapper(response);
+    try {
+      chain.doFilter(request, wrapper);
+    } catch (ServletException | IOException | RuntimeException e) {
+      pending.completeExceptionally(e);
+      throw e;
+    }
+    pending.complete(wrapper.getStatus() == HttpStatus.OK.value()
+        ? new CachedResponse(wrapper.getContentType(),
+            wrapper.getContentAsByteArray())
+        : null);
+    wrapper.copyBodyToResponse();
+  }
+
+  /**
+   * Drops the responses cached for older versions of the same tables than
+   * the given one, the first time a request sees it.
+   *
+   * @param version the current version of some tables
+   */
+  private void dropOlderThan(final DataVersionTracker.Version version) {
+    List<String> tables = version.tables();
+    long number = version.number();
+    Long seen = newestVersions.get(tables);
+    boolean newer = seen == null
+        ? newestVersions.putIfAbsent(tables, number) == null
+        : number > seen && newestVersions.replace(tables, seen, number);
+    if (newer) {
+      cache.asMap().keySet().removeIf(
+          k -> k.tables.equals(tables) && k.version < number);
+    }
+  }
+
+  /**
+   * Identifies a response by the version of the tables it was read from
+   * and the request it answers.
+   */
+  static final class Key {
+
+    /** The tables the response was read from. */
+    private final List<String> tables;
+
+    /** The version of the tables. */
+    private final long version;
+
+    /** The request URI. */
+    private final String uri;
+
+    /** The query string, or null if none. */
+    private final String query;
+
+    /** The Accept header, or null if none. */
+    private final String accept;
+
+    /** The parts of the origin the request was addressed to. */
+    private final List<String> origin;
+
+    /**
+     * Constructs a Key.
+     *
+     * @param tableNames  the tables the response was read from
+     * @param dataVersion the version of the tables
+     * @param requestUri  the request URI
+     * @param queryString the query string, or null if none
+     * @param acceptValue the Accept header, or null if none
+     * @param originParts the parts of the origin, each null if absent
+     */
+    Key(final List<String> tableNames, final long dataVersion,
+        final String requestUri, final String queryString,
+        final String acceptValue, final List<String> originParts) {
+      this.tables = tableNames;
+      this.version = dataVersion;
+      this.uri = requestUri;
+      this.query = queryString;
+      this.accept = acceptValue;
+      this.origin = originParts;
+    }
+
+    /**
+     * Returns an estimate of the bytes held by this key.
+     *
+     * @return the estimate
+     */
+    int size() {
+      int size = uri.length() + (query == null ? 0 : query.length())
+          + (accept == null ? 0 : accept.length());
+      for (String part : origin) {
+        size += part == null ? 0 : part.length();
+      }
+      return size;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof Key)) {
+        return false;
+      }
+      Key other = (Key) o;
+      return version == other.version && tables.equals(other.tables)
+          && uri.equals(other.uri)
+          && Objects.equals(query, other.query)
+          && Objects.equals(accept, other.accept)
+          && origin.equals(other.origin);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(tables, version, uri, query, accept, origin);
+    }
+  }
+
+  /**
+   * The content type and body of an OK response.
+   */
+  static final class CachedResponse {
+
+    /** The content type, or null if none. */
+    private final String contentType;
+
+    /** The serialized body. */
+    private final byte[] body;
+
+    /**
+     * Constructs a CachedResponse.
+     *
+     * @param type  the content type, or null if none
+     * @param bytes the serialized body
+     */
+    CachedResponse(final String type, final byte[] bytes) {
+      this.contentType = type;
+      this.body = bytes;
+    }
+
+    /**
+     * Returns the number of bytes in the body.
+     *
+     * @return the body length
+     */
+    int size() {
+      return body.length;
+    }
+
+    /**
+     * Writes this response.
+     *
+     * @param response the response to write to
+     * @throws IOException if the body cannot be written
+     */
+    void writeTo(final HttpServletResponse response) throws IOException {
+      response.setStatus(HttpStatus.OK.value());
+      if (contentType != null) {
+        response.setContentType(contentType);
+      }
+      response.setContentLength(body.length);
+      response.getOutputStream().write(body);
+    }
+  }
+}
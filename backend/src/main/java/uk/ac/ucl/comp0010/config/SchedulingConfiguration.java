@@ -0,0 +1,36 @@
+package uk.ac.ucl.comp0010.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.task.ThreadPoolTaskSchedulerBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+/**
+ * Enables scheduled background tasks, such as the periodic reconciliation
+ * of grade aggregates and the flushing of queued grade submissions.
+ *
+ * The tasks run on a pool of gms.scheduling.pool-size threads rather than
+ * on the single thread Spring provides by default, so that a long
+ * reconciliation does not hold up the flushes, which run every tenth of
+ * a second by default and leave submissions queued until they do.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfiguration {
+
+  /**
+   * Returns the scheduler running the scheduled tasks.
+   *
+   * @param builder  the builder configured from spring.task.scheduling.*
+   * @param poolSize the number of threads, at least one per scheduled task
+   * @return the scheduler
+   */
+  @Bean
+  public ThreadPoolTaskScheduler taskScheduler(
+      final ThreadPoolTaskSchedulerBuilder builder,
+      @Value("${gms.scheduling.pool-size:2}") final int poolSize) {
+    return builder.poolSize(poolSize).build();
+  }
+}
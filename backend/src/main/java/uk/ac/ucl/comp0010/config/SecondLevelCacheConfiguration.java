@@ -0,0 +1,92 @@
+package uk.ac.ucl.comp0010.config;
+
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.JCacheMetrics;
+import java.io.FileNotFoundException;
+import java.net.URI;
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.cache.spi.CachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.ObjectUtils;
+
+/**
+ * Configures the Caffeine cache manager behind Hibernate's second-level
+ * cache, and publishes the hit, miss, put and eviction counts of its
+ * regions as cache.* metrics tagged with the region name, e.g.
+ * /actuator/metrics/cache.gets?tag=cache:students.
+ *
+ * Each application context has a cache manager of its own, named by the
+ * classpath URI of its configuration with the context as the fragment,
+ * and closed with the context. Contexts in one JVM, such as those of
+ * tests, therefore never read each other's regions, which may hold rows
+ * of another database. Contexts that do not load this configuration, such
+ * as JPA test slices, have Hibernate create the regions from the same file,
+ * named by hibernate.javax.cache.uri.
+ */
+@Configuration
+public class SecondLevelCacheConfiguration {
+
+  /**
+   * Returns the cache manager holding the second-level cache regions of
+   * this application context.
+   *
+   * @param context the application context
+   * @param config  the classpath location of the Caffeine configuration
+   * @return the cache manager
+   * @throws FileNotFoundException if the configuration does not exist
+   */
+  @Bean
+  public CacheManager secondLevelCacheManager(
+      final ApplicationContext context,
+      @Value("${gms.cache.config:caffeine.conf}") final String config)
+      throws FileNotFoundException {
+    ClassLoader classLoader = getClass().getClassLoader();
+    if (classLoader.getResource(config) == null) {
+      throw new FileNotFoundException(config);
+    }
+    CachingProvider provider = Caching.getCachingProvider(
+        CaffeineCachingProvider.class.getName(), classLoader);
+    URI uri = URI.create("classpath:" + config + "#"
+        + ObjectUtils.getIdentityHexString(context));
+    return provider.getCacheManager(uri, classLoader);
+  }
+
+  /**
+   * Makes Hibernate use the context's cache manager for its regions,
+   * rather than one it creates itself.
+   *
+   * @param cacheManager the cache manager
+   * @return the customizer of the Hibernate properties
+   */
+  @Bean
+  public HibernatePropertiesCustomizer secondLevelCacheCustomizer(
+      final CacheManager cacheManager) {
+    return properties ->
+        properties.put(ConfigSettings.CACHE_MANAGER, cacheManager);
+  }
+
+  /**
+   * Binds metrics for every region of the second-level cache.
+   *
+   * @param cacheManager the cache manager
+   * @return the binder for the cache regions
+   */
+  @Bean
+  public MeterBinder secondLevelCacheMetrics(
+      final CacheManager cacheManager) {
+    return registry -> {
+      for (String name : cacheManager.getCacheNames()) {
+        JCacheMetrics.monitor(registry, cacheManager.getCache(name),
+            Tags.of("cacheManager", "hibernate"));
+      }
+    };
+  }
+}
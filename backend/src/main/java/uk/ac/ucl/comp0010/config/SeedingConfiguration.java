@@ -0,0 +1,57 @@
+package uk.ac.ucl.comp0010.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import uk.ac.ucl.comp0010.service.DatasetSeeder;
+import uk.ac.ucl.comp0010.service.SyntheticDataset;
+
+/**
+ * Seeds an empty database with a synthetic dataset on startup, when
+ * gms.seed.enabled is true. The sizes of the dataset are set by
+ * gms.seed.students, gms.seed.modules, gms.seed.grades and gms.seed.years,
+ * and the same gms.seed.random-seed always seeds the same data. A database
+ * that already holds data is left as it is.
+ */
+@Configuration
+@ConditionalOnProperty(name = "gms.seed.enabled", havingValue = "true")
+public class SeedingConfiguration {
+
+  /** Logs a skipped seeding. */
+  private static final Logger LOG =
+      LoggerFactory.getLogger(SeedingConfiguration.class);
+
+  /**
+   * Returns the runner seeding the database on startup.
+   *
+   * @param seeder     the seeder
+   * @param students   the number of students
+   * @param modules    the number of modules
+   * @param grades     the number of grades
+   * @param years      the number of academic years the grades span
+   * @param firstYear  the calendar year the first academic year starts in
+   * @param randomSeed the seed of the random generator
+   * @return the runner
+   */
+  @Bean
+  public ApplicationRunner seedOnStartup(final DatasetSeeder seeder,
+      @Value("${gms.seed.students:100000}") final int students,
+      @Value("${gms.seed.modules:2000}") final int modules,
+      @Value("${gms.seed.grades:1000000}") final long grades,
+      @Value("${gms.seed.years:3}") final int years,
+      @Value("${gms.seed.first-year:2022}") final int firstYear,
+      @Value("${gms.seed.random-seed:42}") final long randomSeed) {
+    return args -> {
+      if (!seeder.isEmpty()) {
+        LOG.info("Not seeding: the database already holds data");
+        return;
+      }
+      seeder.seed(new SyntheticDataset(students, modules, grades, years,
+          firstYear, randomSeed));
+    };
+  }
+}
@@ -0,0 +1,67 @@
+package uk.ac.ucl.comp0010.controller;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * Converts between entity versions and the entity tags of the ETag and
+ * If-Match headers. A version v is tagged "v", as Spring Data REST tags
+ * the versioned entities it returns, so a tag read from either API can be
+ * sent back to both.
+ */
+final class ETags {
+
+  /**
+   * Prevents instantiation.
+   */
+  private ETags() {
+  }
+
+  /**
+   * Returns the entity tag of a version.
+   *
+   * @param version the version
+   * @return the quoted version
+   */
+  static String of(final long version) {
+    return "\"" + version + "\"";
+  }
+
+  /**
+   * Returns the version an If-Match header requires, given as a single
+   * entity tag, weak or strong.
+   *
+   * @param ifMatch the If-Match header, or null if absent
+   * @return the required version, null if any version is accepted, or -1
+   *         if the tag names no version, which no entity has
+   */
+  static Long expectedVersion(final String ifMatch) {
+    if (ifMatch == null || ifMatch.trim().equals("*")) {
+      return null;
+    }
+    String tag = ifMatch.trim();
+    if (tag.startsWith("W/")) {
+      tag = tag.substring(2);
+    }
+    if (tag.length() >= 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+      tag = tag.substring(1, tag.length() - 1);
+    }
+    try {
+      return Long.valueOf(tag);
+    } catch (NumberFormatException e) {
+      return -1L;
+    }
+  }
+
+  /**
+   * Returns the status answering an update that lost a race with another
+   * update of the same entity: PRECONDITION_FAILED if the client made the
+   * update conditional, and CONFLICT otherwise.
+   *
+   * @param ifMatch the If-Match header, or null if absent
+   * @return the status
+   */
+  static HttpStatus conflictStatus(final String ifMatch) {
+    return ifMatch == null ? HttpStatus.CONFLICT
+        : HttpStatus.PRECONDITION_FAILED;
+  }
+}
@@ -1,72 +1,256 @@
 package uk.ac.ucl.comp0010.controller;
 
+import java.net.URI;
 import java.util.Map;
 import java.util.Optional;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.rest.webmvc.RepositoryRestController;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
-import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.ResponseBody;
+import uk.ac.ucl.comp0010.model.AcademicYear;
 import uk.ac.ucl.comp0010.model.Grade;
 import uk.ac.ucl.comp0010.model.Module;
 import uk.ac.ucl.comp0010.model.Student;
-import uk.ac.ucl.comp0010.repository.GradeRepository;
 import uk.ac.ucl.comp0010.repository.ModuleRepository;
 import uk.ac.ucl.comp0010.repository.StudentRepository;
+import uk.ac.ucl.comp0010.service.GradeIngestionService;
+import uk.ac.ucl.comp0010.service.GradeService;
+import uk.ac.ucl.comp0010.service.IngestionTicket;
 
 /**
  * Controller for handling Grade-related operations.
- * Provides endpoints for adding and updating a Grade.
+ * Provides endpoints for adding, upserting, reading, updating and deleting
+ * a Grade.
+ *
+ * Grade writes go through GradeService, which keeps the per-student and
+ * per-module grade aggregates in step in the same transaction. Grades may
+ * instead be submitted for asynchronous ingestion through
+ * GradeIngestionService, which acknowledges them with a ticket and writes
+ * them in batches.
  */
-@RestController
+@RepositoryRestController
+@ResponseBody
 public final class GradeController {
 
   /** Repository for Student entities. */
   private final StudentRepository studentRepository;
   /** Repository for Module entities. */
   private final ModuleRepository moduleRepository;
-  /** Repository for Grade entities. */
-  private final GradeRepository gradeRepository;
+  /** Service for writing Grade entities. */
+  private final GradeService gradeService;
+  /** Service ingesting submitted grades asynchronously. */
+  private final GradeIngestionService ingestionService;
 
   /**
-   * Constructs a GradeController with the required repositories.
+   * Constructs a GradeController with the required repositories and
+   * service.
    *
    * @param studentRepo the repository for Student entities
    * @param moduleRepo  the repository for Module entities
-   * @param gradeRepo   the repository for Grade entities
+   * @param gradeSvc    the service for writing Grade entities
+   * @param ingestSvc   the service ingesting submitted grades
    */
   public GradeController(final StudentRepository studentRepo,
-      final ModuleRepository moduleRepo, final GradeRepository gradeRepo) {
+      final ModuleRepository moduleRepo, final GradeService gradeSvc,
+      final GradeIngestionService ingestSvc) {
     this.studentRepository = studentRepo;
     this.moduleRepository = moduleRepo;
-    this.gradeRepository = gradeRepo;
+    this.gradeService = gradeSvc;
+    this.ingestionService = ingestSvc;
   }
 
   /**
    * Adds a new Grade based on the provided parameters.
    * Expects "student_id", "module_code", "score", and
-   * "academic_year" in the request body. Ensures the student is
+   * "academic_year" in the request body, the academic year naming two
+   * consecutive years (e.g. "2024/2025"). Ensures the student is
    * registered in the module before adding the grade.
    *
    * @param params a map of parameter names to values:
    *               "student_id", "module_code", "score",
    *               "academic_year"
    * @return a ResponseEntity containing the saved Grade if successful,
-   *         BAD_REQUEST if parameters are missing or the student is
-   *         not enrolled, NOT_FOUND if the student or module does not exist.
+   *         BAD_REQUEST if parameters are missing or invalid, the student
+   *         is not enrolled or already has a grade in the module for the
+   *         academic year, NOT_FOUND if the student or module does not
+   *         exist.
    */
   @PostMapping("/grades/addGrade")
   public ResponseEntity<Grade> addGrade(
       @RequestBody final Map<String, String> params) {
+    try {
+      return writeGrade(params, (student, module, score, year) ->
+          ResponseEntity.ok(gradeService.add(student, module, score, year)));
+    } catch (DataIntegrityViolationException e) {
+      return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+    }
+  }
+
+  /**
+   * Records a grade, replacing the score of the grade the student already
+   * holds in the module for the academic year, if any. Re-submitting the
+   * same parameters is safe and leaves a single grade.
+   * Expects "student_id", "module_code", "score", and
+   * "academic_year" in the request body. Ensures the student is
+   * registered in the module before recording the grade.
+   *
+   * @param params a map of parameter names to values:
+   *               "student_id", "module_code", "score",
+   *               "academic_year"
+   * @return a ResponseEntity containing the saved Grade if successful,
+   *         BAD_REQUEST if parameters are missing or invalid or the
+   *         student is not enrolled, NOT_FOUND if the student or module
+   *         does not exist.
+   */
+  @PutMapping("/grades/upsertGrade")
+  public ResponseEntity<Grade> upsertGrade(
+      @RequestBody final Map<String, String> params) {
+    return writeGrade(params, (student, module, score, year) ->
+        ResponseEntity.ok(gradeService.upsert(student, module, score, year)));
+  }
+
+  /**
+   * Submits a grade for asynchronous ingestion. The grade is validated as
+   * by addGrade, acknowledged with a ticket, and written later in a batch
+   * with other submitted grades; the ticket's status reports whether it has
+   * been committed. Expects "student_id", "module_code", "score", and
+   * "academic_year" in the request body.
+   *
+   * @param params a map of parameter names to values:
+   *               "student_id", "module_code", "score",
+   *               "academic_year"
+   * @return a ResponseEntity containing the QUEUED ticket, with its
+   *         location, if accepted, BAD_REQUEST if parameters are missing or
+   *         invalid or the student is not enrolled, NOT_FOUND if the
+   *         student or module does not exist, or SERVICE_UNAVAILABLE if the
+   *         ingestion queue is full and the grade should be submitted again
+   *         later.
+   */
+  @PostMapping("/grades/submitGrade")
+  public ResponseEntity<IngestionTicket> submitGrade(
+      @RequestBody final Map<String, String> params) {
+    return writeGrade(params, (student, module, score, year) ->
+        ingestionService.submit(student.getId(), module.getCode(), score,
+            year)
+        .map(t -> ResponseEntity.accepted()
+            .location(URI.create("/grades/submissions/" + t.getId()))
+            .body(t))
+        .orElseGet(() -> ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+            .header(HttpHeaders.RETRY_AFTER, "1").build()));
+  }
+
+  /**
+   * Returns the status of a grade submitted for asynchronous ingestion.
+   *
+   * @param ticket the ID of the ticket
+   * @return OK with the ticket, whose status is QUEUED, COMMITTED with the
+   *         grade's ID, or REJECTED with the reason, or NOT_FOUND if no
+   *         such ticket was issued or it has expired.
+   */
+  @GetMapping("/grades/submissions/{ticket}")
+  public ResponseEntity<IngestionTicket> getSubmission(
+      @PathVariable final String ticket) {
+    return ingestionService.find(ticket)
+        .map(ResponseEntity::ok)
+        .orElseGet(() -> ResponseEntity.notFound().build());
+  }
+
+  /**
+   * Updates an existing Grade.
+   * Expects optional "score" and "academic_year" in the request body.
+   * If provided, these fields are updated accordingly.
+   *
+   * An If-Match header carrying the ETag the client read makes the update
+   * conditional: it is refused if the grade has changed since, so that two
+   * markers editing the same grade cannot overwrite each other unawares.
+   *
+   * @param id      the ID of the grade to update
+   * @param ifMatch the ETag the update is based on, or null to update
+   *                whichever version is current
+   * @param params  a map of parameters that may include "score" and/or
+   *                "academic_year"
+   * @return a ResponseEntity containing the updated Grade and its ETag,
+   *         BAD_REQUEST if the academic year is not valid, NOT_FOUND if no
+   *         such Grade exists, PRECONDITION_FAILED if the
+   *         grade no longer matches the If-Match header, or CONFLICT if
+   *         another update of the grade was saved first or the student
+   *         already has a grade for the module in the new academic year.
+   */
+  @PutMapping("/grades/{id}")
+  public ResponseEntity<Grade> updateGrade(
+      @PathVariable final Long id,
+      @RequestHeader(value = HttpHeaders.IF_MATCH, required = false)
+      final String ifMatch,
+      @RequestBody final Map<String, String> params) {
+    Integer score = params.containsKey("score")
+        ? Integer.valueOf(params.get("score"))
+        : null;
+    String academicYear = params.get("academic_year");
+    if (academicYear != null && !AcademicYear.isValid(academicYear)) {
+      return ResponseEntity.badRequest().build();
+    }
+    Optional<Grade> saved;
+    try {
+      saved = gradeService.update(id, ETags.expectedVersion(ifMatch), score,
+          academicYear);
+    } catch (OptimisticLockingFailureException e) {
+      return ResponseEntity.status(ETags.conflictStatus(ifMatch)).build();
+    } catch (DataIntegrityViolationException e) {
+      return ResponseEntity.status(HttpStatus.CONFLICT).build();
+    }
+    if (!saved.isPresent()) {
+      return ResponseEntity.notFound().build();
+    }
+    return ResponseEntity.ok().eTag(ETags.of(saved.get().getVersion()))
+        .body(saved.get());
+  }
+
+  /**
+   * Deletes a Grade, replacing the default REST repository delete so that
+   * the grade aggregates are updated in the same transaction.
+   *
+   * @param id the ID of the grade to delete
+   * @return NO_CONTENT if the grade was deleted, or NOT_FOUND if no such
+   *         Grade exists.
+   */
+  @DeleteMapping("/grades/{id}")
+  public ResponseEntity<Void> deleteGrade(@PathVariable final Long id) {
+    if (!gradeService.delete(id)) {
+      return ResponseEntity.notFound().build();
+    }
+    return ResponseEntity.noContent().build();
+  }
+
+  /**
+   * Validates the parameters of a grade and writes it.
+   *
+   * @param <T>    the type of the response body
+   * @param params the request parameters
+   * @param writer writes the grade
+   * @return the writer's response if the grade is valid, BAD_REQUEST if
+   *         parameters are missing, the academic year is not valid or the
+   *         student is not enrolled, NOT_FOUND if the student or module
+   *         does not exist.
+   */
+  private <T> ResponseEntity<T> writeGrade(final Map<String, String> params,
+      final GradeWriter<T> writer) {
     String studentIdStr = params.get("student_id");
     String moduleCode = params.get("module_code");
     String scoreStr = params.get("score");
     String academicYear = params.get("academic_year");
 
     if (studentIdStr == null || moduleCode == null
-        || scoreStr == null || academicYear == null) {
+        || scoreStr == null || !AcademicYear.isValid(academicYear)) {
       return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
     }
 
@@ -84,55 +268,33 @@ public final class GradeController {
     Student student = studentOpt.get();
     Module module = moduleOpt.get();
 
-    boolean registered = student.getRegistrations().stream()
-        .anyMatch(r -> r.getModule().getCode()
-            .equals(module.getCode()));
-
-    if (!registered) {
+    if (!student.isRegisteredFor(module.getCode())) {
       return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
     }
 
-    Grade g = new Grade();
-    g.setStudent(student);
-    g.setModule(module);
-    g.setScore(Integer.parseInt(scoreStr));
-    g.setAcademicYear(academicYear);
-
-    Grade savedGrade = gradeRepository.save(g);
-
-    return new ResponseEntity<>(savedGrade, HttpStatus.OK);
+    return writer.write(student, module, Integer.parseInt(scoreStr),
+        academicYear);
   }
 
   /**
-   * Updates an existing Grade.
-   * Expects optional "score" and "academic_year" in the request body.
-   * If provided, these fields are updated accordingly.
+   * Writes a validated grade through GradeService or
+   * GradeIngestionService.
    *
-   * @param id     the ID of the grade to update
-   * @param params a map of parameters that may include "score" and/or
-   *               "academic_year"
-   * @return a ResponseEntity containing the updated Grade, or NOT_FOUND
-   *         if no such Grade exists.
+   * @param <T> the type of the response body
    */
-  @PutMapping("/grades/{id}")
-  public ResponseEntity<Grade> updateGrade(
-      @PathVariable final Long id,
-      @RequestBody final Map<String, String> params) {
-    Optional<Grade> gradeOpt = gradeRepository.findById(id);
-    if (!gradeOpt.isPresent()) {
-      return ResponseEntity.notFound().build();
-    }
-
-    Grade grade = gradeOpt.get();
-
-    if (params.containsKey("score")) {
-      grade.setScore(Integer.parseInt(params.get("score")));
-    }
-    if (params.containsKey("academic_year")) {
-      grade.setAcademicYear(params.get("academic_year"));
-    }
+  @FunctionalInterface
+  private interface GradeWriter<T> {
 
-    Grade saved = gradeRepository.save(grade);
-    return ResponseEntity.ok(saved);
+    /**
+     * Writes a grade.
+     *
+     * @param student      the student awarded the grade
+     * @param module       the module the grade is for
+     * @param score        the score
+     * @param academicYear the academic year
+     * @return the response to the request
+     */
+    ResponseEntity<T> write(Student student, Module module, int score,
+        String academicYear);
   }
 }
@@ -0,0 +1,103 @@
+package uk.ac.ucl.comp0010.controller;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import uk.ac.ucl.comp0010.service.CsvImportService;
+
+/**
+ * Controller for bulk-loading students, registrations and grades from CSV.
+ *
+ * Each endpoint reads the raw request body as UTF-8 CSV with a header row,
+ * streaming it through CsvImportService, and responds with an ImportReport
+ * listing per-row errors and the import throughput.
+ */
+@RestController
+@RequestMapping("/import")
+public final class ImportController {
+
+  /** Service performing the imports. */
+  private final CsvImportService importService;
+
+  /**
+   * Constructs an ImportController with the required service.
+   *
+   * @param service the service performing the imports
+   */
+  public ImportController(final CsvImportService service) {
+    this.importService = service;
+  }
+
+  /**
+   * Imports students from CSV with the columns id, firstName, lastName,
+   * username and email.
+   *
+   * @param body the CSV request body
+   * @return OK with the ImportReport, or BAD_REQUEST if the header is
+   *         missing or lacks a column
+   * @throws IOException if the request body cannot be read
+   */
+  @PostMapping("/students")
+  public ResponseEntity<?> importStudents(final InputStream body)
+      throws IOException {
+    try (Reader in = utf8(body)) {
+      return ResponseEntity.ok(importService.importStudents(in));
+    } catch (IllegalArgumentException e) {
+      return ResponseEntity.badRequest().body(e.getMessage());
+    }
+  }
+
+  /**
+   * Imports registrations from CSV with the columns student_id and
+   * module_code.
+   *
+   * @param body the CSV request body
+   * @return OK with the ImportReport, or BAD_REQUEST if the header is
+   *         missing or lacks a column
+   * @throws IOException if the request body cannot be read
+   */
+  @PostMapping("/registrations")
+  public ResponseEntity<?> importRegistrations(final InputStream body)
+      throws IOException {
+    try (Reader in = utf8(body)) {
+      return ResponseEntity.ok(importService.importRegistrations(in));
+    } catch (IllegalArgumentException e) {
+      return ResponseEntity.badRequest().body(e.getMessage());
+    }
+  }
+
+  /**
+   * Imports grades from CSV with the columns student_id, module_code,
+   * score and academic_year.
+   *
+   * @param body the CSV request body
+   * @return OK with the ImportReport, or BAD_REQUEST if the header is
+   *         missing or lacks a column
+   * @throws IOException if the request body cannot be read
+   */
+  @PostMapping("/grades")
+  public ResponseEntity<?> importGrades(final InputStream body)
+      throws IOException {
+    try (Reader in = utf8(body)) {
+      return ResponseEntity.ok(importService.importGrades(in));
+    } catch (IllegalArgumentException e) {
+      return ResponseEntity.badRequest().body(e.getMessage());
+    }
+  }
+
+  /**
+   * Wraps a request body in a UTF-8 reader.
+   *
+   * @param body the request body
+   * @return a reader over the body
+   */
+  private static Reader utf8(final InputStream body) {
+    return new InputStreamReader(body, StandardCharsets.UTF_8);
+  }
+}
@@ -1,11 +1,15 @@
 package uk.ac.ucl.comp0010.controller;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.rest.webmvc.RepositoryRestController;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -14,24 +18,33 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
-import org.springframework.web.bind.annotation.RequestMapping;
-import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
 
+import uk.ac.ucl.comp0010.exception.ModuleFullException;
+import uk.ac.ucl.comp0010.model.AcademicYear;
 import uk.ac.ucl.comp0010.model.Grade;
 import uk.ac.ucl.comp0010.model.Module;
+import uk.ac.ucl.comp0010.model.ModuleGradeAggregate;
 import uk.ac.ucl.comp0010.model.Registration;
 import uk.ac.ucl.comp0010.model.Student;
+import uk.ac.ucl.comp0010.projection.RosterEntry;
 import uk.ac.ucl.comp0010.repository.GradeRepository;
+import uk.ac.ucl.comp0010.repository.ModuleGradeAggregateRepository;
 import uk.ac.ucl.comp0010.repository.ModuleRepository;
 import uk.ac.ucl.comp0010.repository.RegistrationRepository;
 import uk.ac.ucl.comp0010.repository.StudentRepository;
+import uk.ac.ucl.comp0010.service.BulkRegistration;
+import uk.ac.ucl.comp0010.service.ModuleStatisticsService;
+import uk.ac.ucl.comp0010.service.RegistrationService;
 
 /**
  * Controller for managing modules, including registering/removing students
  * and retrieving enrollment data.
  */
-@RestController
-@RequestMapping("/modules")
+@RepositoryRestController
+@ResponseBody
 public final class ModuleController {
 
   /** Repository for Module entities. */
@@ -42,33 +55,47 @@ public final class ModuleController {
   private final RegistrationRepository registrationRepository;
   /** Repository for Grade entities. */
   private final GradeRepository gradeRepository;
+  /** Service registering many students at once. */
+  private final RegistrationService registrationService;
+  /** Repository for per-module grade aggregates. */
+  private final ModuleGradeAggregateRepository aggregateRepository;
+  /** Service computing per-year module statistics. */
+  private final ModuleStatisticsService statisticsService;
 
   /**
    * Constructs a ModuleController with the required repositories.
    *
-   * @param modRepo  the repository for Module entities
-   * @param studRepo the repository for Student entities
-   * @param regRepo  the repository for Registration entities
-   * @param gRepo    the repository for Grade entities
+   * @param modRepo     the repository for Module entities
+   * @param studRepo    the repository for Student entities
+   * @param regRepo     the repository for Registration entities
+   * @param gRepo       the repository for Grade entities
+   * @param regService  the service registering many students at once
+   * @param modAggRepo  the repository for per-module grade aggregates
+   * @param statService the service computing per-year module statistics
    */
   public ModuleController(final ModuleRepository modRepo,
       final StudentRepository studRepo,
       final RegistrationRepository regRepo,
-      final GradeRepository gRepo) {
+      final GradeRepository gRepo,
+      final RegistrationService regService,
+      final ModuleGradeAggregateRepository modAggRepo,
+      final ModuleStatisticsService statService) {
     this.moduleRepository = modRepo;
     this.studentRepository = studRepo;
     this.registrationRepository = regRepo;
     this.gradeRepository = gRepo;
-
-    // Use the gradeRepository to stop the IDE
-    // from complaining about unused fields
-    this.gradeRepository.findAll();
+    this.registrationService = regService;
+    this.aggregateRepository = modAggRepo;
+    this.statisticsService = statService;
   }
 
   /**
    * Registers a student to a specified module if the module has available seats
    * and the student is not already registered.
    *
+   * Seats are counted under a lock on the module, so concurrent requests
+   * cannot overbook it.
+   *
    * Expects "studentId" in the request body.
    *
    * @param code the module code
@@ -78,7 +105,7 @@ public final class ModuleController {
    *         registered,
    *         NOT_FOUND if the module or student does not exist
    */
-  @PostMapping("/{code}/registerStudent")
+  @PostMapping("/modules/{code}/registerStudent")
   public ResponseEntity<?> registerStudent(
       @PathVariable final String code,
       @RequestBody final Map<String, String> body) {
@@ -87,39 +114,96 @@ public final class ModuleController {
     }
 
     Long studentId = Long.valueOf(body.get("studentId"));
-    Optional<Module> modOpt = moduleRepository.findById(code);
-    Optional<Student> studOpt = studentRepository.findById(studentId);
-
-    if (!modOpt.isPresent() || !studOpt.isPresent()) {
-      return ResponseEntity.notFound().build();
+    RegistrationService.Outcome outcome;
+    try {
+      outcome = registrationService.register(code, studentId);
+    } catch (ModuleFullException e) {
+      return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+          .body(e.getMessage());
     }
 
-    Module m = modOpt.get();
-    Student s = studOpt.get();
+    switch (outcome) {
+      case NOT_FOUND:
+        return ResponseEntity.notFound().build();
+      case ALREADY_REGISTERED:
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+            .body("Student already registered in this module");
+      default:
+        return ResponseEntity.ok().build();
+    }
+  }
 
-    int enrolledCount = m.getRegistrations().size();
-    if (enrolledCount >= m.getMaxSeats()) {
-      return ResponseEntity.status(HttpStatus.BAD_REQUEST)
-          .body("Module capacity reached");
+  /**
+   * Registers many students to a specified module in one request.
+   *
+   * Expects "studentIds" in the request body as a list of student IDs.
+   * Students already registered are skipped, as are IDs not matching any
+   * student, which are listed in the response. Capacity is checked once
+   * for the whole list: if it does not fit in the free seats, no student
+   * is registered.
+   *
+   * @param code the module code
+   * @param body a map containing "studentIds"
+   * @return OK with the number of registrations created and skipped and
+   *         the unknown student IDs,
+   *         BAD_REQUEST if "studentIds" is missing or the students do not
+   *         fit in the module,
+   *         NOT_FOUND if the module does not exist
+   */
+  @PostMapping("/modules/{code}/registerStudents")
+  public ResponseEntity<?> registerStudents(
+      @PathVariable final String code,
+      @RequestBody final Map<String, List<Long>> body) {
+    if (body.get("studentIds") == null) {
+      return ResponseEntity.badRequest()
+          .body("Missing 'studentIds' parameter");
     }
 
-    boolean alreadyRegistered = m.getRegistrations().stream()
-        .anyMatch(r -> r.getStudent().getId().equals(s.getId()));
-    if (alreadyRegistered) {
-      return ResponseEntity.status(HttpStatus.BAD_REQUEST)
-          .body("Student already registered in this module");
+    try {
+      Optional<BulkRegistration> result =
+          registrationService.registerAll(code, body.get("studentIds"));
+      if (!result.isPresent()) {
+        return ResponseEntity.notFound().build();
+      }
+      return ResponseEntity.ok(result.get());
+    } catch (ModuleFullException e) {
+      return ResponseEntity.badRequest().body(e.getMessage());
     }
+  }
 
-    Registration r = new Registration();
-    r.setStudent(s);
-    r.setModule(m);
-    registrationRepository.save(r);
+  /**
+   * Registers a cohort of students to every mandatory non-condonable (MNC)
+   * module in one request.
+   *
+   * Expects "studentIds" in the request body as a list of student IDs.
+   * Existing registrations are skipped, as are IDs not matching any
+   * student. If any MNC module cannot take the whole cohort, no student is
+   * registered.
+   *
+   * @param body a map containing "studentIds"
+   * @return OK with the MNC module codes, the number of registrations
+   *         created and skipped and the unknown student IDs,
+   *         BAD_REQUEST if "studentIds" is missing or an MNC module is full
+   */
+  @PostMapping("/modules/mnc/registerStudents")
+  public ResponseEntity<?> registerStudentsInMncModules(
+      @RequestBody final Map<String, List<Long>> body) {
+    if (body.get("studentIds") == null) {
+      return ResponseEntity.badRequest()
+          .body("Missing 'studentIds' parameter");
+    }
 
-    return ResponseEntity.ok().build();
+    try {
+      return ResponseEntity.ok(registrationService
+          .registerAllInMncModules(body.get("studentIds")));
+    } catch (ModuleFullException e) {
+      return ResponseEntity.badRequest().body(e.getMessage());
+    }
   }
 
   /**
-   * Removes a student from a specified module.
+   * Removes a student from a specified module. The registration is looked
+   * up by its key, so the module's cohort is not loaded.
    *
    * @param code the module code
    * @param id   the ID of the student to remove
@@ -127,7 +211,7 @@ public final class ModuleController {
    *         BAD_REQUEST if the student is not registered in the module,
    *         NOT_FOUND if the module or student does not exist
    */
-  @DeleteMapping("/{code}/students/{id}")
+  @DeleteMapping("/modules/{code}/students/{id}")
   public ResponseEntity<?> removeStudent(
       @PathVariable final String code,
       @PathVariable final Long id) {
@@ -138,12 +222,8 @@ public final class ModuleController {
       return ResponseEntity.notFound().build();
     }
 
-    Module m = modOpt.get();
-    Student s = studOpt.get();
-
-    Optional<Registration> regOpt = m.getRegistrations().stream()
-        .filter(reg -> reg.getStudent().getId().equals(s.getId()))
-        .findFirst();
+    Optional<Registration> regOpt =
+        registrationRepository.findByStudentIdAndModuleCode(id, code);
 
     if (!regOpt.isPresent()) {
       return ResponseEntity.status(HttpStatus.BAD_REQUEST)
@@ -158,6 +238,9 @@ public final class ModuleController {
    * Retrieves a list of enrolled students for a specified module
    * along with their grades (if available).
    *
+   * The roster is read with one joined query, so the number of statements
+   * does not depend on the size of the cohort.
+   *
    * Returns a JSON object containing "enrolledStudents" as a list
    * of student details, including:
    * - id, firstName, lastName, email
@@ -167,50 +250,135 @@ public final class ModuleController {
    * @return OK with a JSON object containing the enrolled students and their
    *         grades, NOT_FOUND if the module does not exist
    */
-  @GetMapping("/{code}/registrations")
+  @GetMapping("/modules/{code}/registrations")
   public ResponseEntity<?> getModuleRegistrations(
       @PathVariable final String code) {
-    Optional<Module> modOpt = moduleRepository.findById(code);
-    if (!modOpt.isPresent()) {
+    if (!moduleRepository.existsById(code)) {
       return ResponseEntity.notFound().build();
     }
 
-    Module m = modOpt.get();
-    List<Map<String, Object>> enrolledStudents = m.getRegistrations().stream()
-        .map(reg -> {
-          Student st = reg.getStudent();
-          Optional<Grade> gOpt = m.getGrades().stream()
-              .filter(gr -> gr.getStudent().getId().equals(st.getId()))
-              .findFirst();
-
-          Map<String, Object> stuMap = new HashMap<>();
-          stuMap.put("id", st.getId());
-          stuMap.put("firstName", st.getFirstName());
-          stuMap.put("lastName", st.getLastName());
-          stuMap.put("email", st.getEmail());
-          stuMap.put("grade", gOpt.map(Grade::getScore).orElse(null));
-          stuMap.put("gradeId", gOpt.map(Grade::getId).orElse(null));
-          return stuMap;
-        }).collect(Collectors.toList());
+    Map<Long, Map<String, Object>> enrolledById = new LinkedHashMap<>();
+    for (RosterEntry row
+        : registrationRepository.findRosterByModuleCode(code)) {
+      enrolledById.computeIfAbsent(row.getId(), id -> {
+        Map<String, Object> stuMap = new HashMap<>();
+        stuMap.put("id", row.getId());
+        stuMap.put("firstName", row.getFirstName());
+        stuMap.put("lastName", row.getLastName());
+        stuMap.put("email", row.getEmail());
+        stuMap.put("grade", row.getGrade());
+        stuMap.put("gradeId", row.getGradeId());
+        return stuMap;
+      });
+    }
+
+    Map<String, Object> result = new HashMap<>();
+    result.put("enrolledStudents", new ArrayList<>(enrolledById.values()));
+    return ResponseEntity.ok(result);
+  }
+
+  /**
+   * Returns the grade statistics of a module: the number of grades, their
+   * average, standard deviation, lowest and highest score.
+   *
+   * The statistics are read from the module's grade aggregate, so the cost
+   * does not depend on how many grades the module holds.
+   *
+   * @param code the module code
+   * @return OK with the module's grade aggregate, whose average is null if
+   *         the module has no grades, or NOT_FOUND if the module does not
+   *         exist
+   */
+  @GetMapping("/modules/{code}/average")
+  public ResponseEntity<ModuleGradeAggregate> getAverage(
+      @PathVariable final String code) {
+    if (!moduleRepository.existsById(code)) {
+      return ResponseEntity.notFound().build();
+    }
+    return ResponseEntity.ok(aggregateRepository.findById(code)
+        .orElseGet(() -> new ModuleGradeAggregate(code)));
+  }
+
+  /**
+   * Returns the score statistics of a module for each academic year: the
+   * grade count, mean, median, standard deviation, quartiles, range, pass
+   * rate and a 10-bucket histogram.
+   *
+   * The statistics are aggregated in the database; no grade is loaded.
+   * An optional "academicYear" parameter restricts them to one year.
+   *
+   * @param code         the module code
+   * @param academicYear the academic year to restrict to, if any
+   * @return OK with a JSON object containing "moduleCode", "passMark" and
+   *         "years", the statistics of each academic year in year order,
+   *         BAD_REQUEST if the academic year is not valid, or NOT_FOUND if
+   *         the module does not exist
+   */
+  @GetMapping("/modules/{code}/statistics")
+  public ResponseEntity<?> getStatistics(
+      @PathVariable final String code,
+      @RequestParam(required = false) final String academicYear) {
+    if (academicYear != null && !AcademicYear.isValid(academicYear)) {
+      return ResponseEntity.badRequest().build();
+    }
+    if (!moduleRepository.existsById(code)) {
+      return ResponseEntity.notFound().build();
+    }
 
     Map<String, Object> result = new HashMap<>();
-    result.put("enrolledStudents", enrolledStudents);
+    result.put("moduleCode", code);
+    result.put("passMark", statisticsService.getPassMark());
+    result.put("years", statisticsService.statistics(code, academicYear));
     return ResponseEntity.ok(result);
   }
 
+  /**
+   * Returns the grades of a module in one academic year, with their
+   * students, in student ID order. Only that year's grades are read,
+   * however many earlier years are stored.
+   *
+   * @param code         the module code
+   * @param academicYear the academic year, such as "2024/2025"
+   * @return OK with the grades, BAD_REQUEST if the academic year is not
+   *         valid, or NOT_FOUND if the module does not exist
+   */
+  @GetMapping("/modules/{code}/grades")
+  public ResponseEntity<List<Grade>> getGrades(
+      @PathVariable final String code,
+      @RequestParam final String academicYear) {
+    if (!AcademicYear.isValid(academicYear)) {
+      return ResponseEntity.badRequest().build();
+    }
+    if (!moduleRepository.existsById(code)) {
+      return ResponseEntity.notFound().build();
+    }
+    return ResponseEntity.ok(
+        gradeRepository.findByModuleInYear(code, academicYear));
+  }
+
   /**
    * Updates module information such as name, mandatory non-condonable (mnc)
    * field, and maxSeats.
    * Expects optional "name", "mnc", and "maxSeats" in the request body.
    *
-   * @param code the module code
-   * @param body a map containing optional "name", "mnc", and "maxSeats" values
-   * @return OK with the updated module entity, or NOT_FOUND if the module does
-   *         not exist
+   * An If-Match header carrying the ETag the client read makes the update
+   * conditional: it is refused if the module has changed since.
+   *
+   * @param code    the module code
+   * @param ifMatch the ETag the update is based on, or null to update
+   *                whichever version is current
+   * @param body    a map containing optional "name", "mnc", and "maxSeats"
+   *                values
+   * @return OK with the updated module entity and its ETag, NOT_FOUND if
+   *         the module does not exist, PRECONDITION_FAILED if the module no
+   *         longer matches the If-Match header, or CONFLICT if another
+   *         update of the module was saved first
    */
-  @PutMapping("/{code}")
+  @PutMapping("/modules/{code}")
   public ResponseEntity<Module> updateModule(
       @PathVariable final String code,
+      @RequestHeader(value = HttpHeaders.IF_MATCH, required = false)
+      final String ifMatch,
       @RequestBody final Map<String, String> body) {
     Optional<Module> modOpt = moduleRepository.findById(code);
     if (!modOpt.isPresent()) {
@@ -218,6 +386,10 @@ public final class ModuleController {
     }
 
     Module m = modOpt.get();
+    Long expected = ETags.expectedVersion(ifMatch);
+    if (expected != null && expected != m.getVersion()) {
+      return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
+    }
 
     if (body.containsKey("name")) {
       m.setName(body.get("name"));
@@ -232,7 +404,13 @@ public final class ModuleController {
       }
     }
 
-    moduleRepository.save(m);
-    return ResponseEntity.ok(m);
+    Module saved;
+    try {
+      saved = moduleRepository.save(m);
+    } catch (OptimisticLockingFailureException e) {
+      return ResponseEntity.status(ETags.conflictStatus(ifMatch)).build();
+    }
+    return ResponseEntity.ok().eTag(ETags.of(saved.getVersion()))
+        .body(saved);
   }
 }
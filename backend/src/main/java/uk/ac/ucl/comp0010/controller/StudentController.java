@@ -1,34 +1,98 @@
 package uk.ac.ucl.comp0010.controller;
 
 import java.util.Optional;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.rest.webmvc.RepositoryRestController;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
-import org.springframework.web.bind.annotation.RequestMapping;
-import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.ResponseBody;
 
 import uk.ac.ucl.comp0010.model.Student;
+import uk.ac.ucl.comp0010.model.StudentGradeAggregate;
+import uk.ac.ucl.comp0010.repository.StudentGradeAggregateRepository;
 import uk.ac.ucl.comp0010.repository.StudentRepository;
+import uk.ac.ucl.comp0010.service.Transcript;
+import uk.ac.ucl.comp0010.service.TranscriptService;
 
 /**
  * Controller for managing Student entities.
- * Provides endpoints to view and update student information.
+ * Provides endpoints to view and update student information, and to read
+ * a student's transcript.
  */
-@RestController
-@RequestMapping("/students")
+@RepositoryRestController
+@ResponseBody
 public final class StudentController {
 
   /** Repository for Student entities. */
   private final StudentRepository studentRepository;
+  /** Repository for per-student grade aggregates. */
+  private final StudentGradeAggregateRepository aggregateRepository;
+  /** Service building student transcripts. */
+  private final TranscriptService transcriptService;
 
   /**
-   * Constructs a StudentController with the required repository.
+   * Constructs a StudentController with the required repositories and
+   * services.
    *
-   * @param studRepo the repository for Student entities
+   * @param studRepo    the repository for Student entities
+   * @param studAggRepo the repository for per-student grade aggregates
+   * @param transcripts the service building student transcripts
    */
-  public StudentController(final StudentRepository studRepo) {
+  public StudentController(final StudentRepository studRepo,
+      final StudentGradeAggregateRepository studAggRepo,
+      final TranscriptService transcripts) {
     this.studentRepository = studRepo;
+    this.aggregateRepository = studAggRepo;
+    this.transcriptService = transcripts;
+  }
+
+  /**
+   * Returns the grade statistics of a student: the number of grades, their
+   * average, standard deviation, lowest and highest score.
+   *
+   * The statistics are read from the student's grade aggregate, so the
+   * cost does not depend on how many grades the student holds.
+   *
+   * @param id the ID of the student
+   * @return OK with the student's grade aggregate, whose average is null
+   *         if the student has no grades, or NOT_FOUND if no such student
+   *         exists
+   */
+  @GetMapping("/students/{id}/average")
+  public ResponseEntity<StudentGradeAggregate> getAverage(
+      @PathVariable final Long id) {
+    if (!studentRepository.existsById(id)) {
+      return ResponseEntity.notFound().build();
+    }
+    return ResponseEntity.ok(aggregateRepository.findById(id)
+        .orElseGet(() -> new StudentGradeAggregate(id)));
+  }
+
+  /**
+   * Returns the transcript of a student: the modules they are registered
+   * in or hold grades for, their grades grouped by academic year, and the
+   * average score of each year and overall.
+   *
+   * The transcript is read with a fixed number of queries, and is listed
+   * in gms.conditional-get.paths and gms.response-cache.paths by default,
+   * so repeated reads are answered from the response cache, or with 304,
+   * until the data changes.
+   *
+   * @param id the ID of the student
+   * @return OK with the transcript, or NOT_FOUND if no such student exists
+   */
+  @GetMapping("/students/{id}/transcript")
+  public ResponseEntity<Transcript> getTranscript(
+      @PathVariable final Long id) {
+    return transcriptService.getTranscript(id)
+        .map(ResponseEntity::ok)
+        .orElseGet(() -> ResponseEntity.notFound().build());
   }
 
   /**
@@ -36,15 +100,25 @@ public final class StudentController {
    * Only non-null fields in the provided 'updated' object will be used
    * to update the existing Student's fields.
    *
+   * An If-Match header carrying the ETag the client read makes the update
+   * conditional: it is refused if the student has changed since.
+   *
    * @param id      the ID of the student to update
+   * @param ifMatch the ETag the update is based on, or null to update
+   *                whichever version is current
    * @param updated a Student object containing updated fields (e.g.,
    *                firstName, lastName, username, email)
-   * @return OK with the updated Student if the student exists,
-   *         or NOT_FOUND if no such student is found
+   * @return OK with the updated Student and its ETag if the student
+   *         exists, NOT_FOUND if no such student is found,
+   *         PRECONDITION_FAILED if the student no longer matches the
+   *         If-Match header, or CONFLICT if another update of the student
+   *         was saved first
    */
-  @PutMapping("/{id}")
+  @PutMapping("/students/{id}")
   public ResponseEntity<Student> updateStudent(
       @PathVariable final Long id,
+      @RequestHeader(value = HttpHeaders.IF_MATCH, required = false)
+      final String ifMatch,
       @RequestBody final Student updated) {
     Optional<Student> opt = studentRepository.findById(id);
     if (!opt.isPresent()) {
@@ -52,6 +126,10 @@ public final class StudentController {
     }
 
     Student s = opt.get();
+    Long expected = ETags.expectedVersion(ifMatch);
+    if (expected != null && expected != s.getVersion()) {
+      return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
+    }
     if (updated.getFirstName() != null) {
       s.setFirstName(updated.getFirstName());
     }
@@ -65,7 +143,13 @@ public final class StudentController {
       s.setEmail(updated.getEmail());
     }
 
-    studentRepository.save(s);
-    return ResponseEntity.ok(s);
+    Student saved;
+    try {
+      saved = studentRepository.save(s);
+    } catch (OptimisticLockingFailureException e) {
+      return ResponseEntity.status(ETags.conflictStatus(ifMatch)).build();
+    }
+    return ResponseEntity.ok().eTag(ETags.of(saved.getVersion()))
+        .body(saved);
   }
 }
@@ -1,5 +1,10 @@
 /**
  * This package contains controller classes for handling HTTP requests
  * related to grades, modules, and students.
+ *
+ * The grade, module and student controllers are REST repository
+ * controllers, so that their updates of an item, such as PUT /grades/{id},
+ * do not hide the repository's own GET of the item, which serves its links
+ * and its ETag.
  */
 package uk.ac.ucl.comp0010.controller;
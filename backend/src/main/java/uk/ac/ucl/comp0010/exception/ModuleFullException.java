@@ -0,0 +1,20 @@
+package uk.ac.ucl.comp0010.exception;
+
+/**
+ * Exception thrown when registering students would take one or more modules
+ * beyond their maximum number of seats. No registration is made when it is
+ * thrown.
+ */
+public class ModuleFullException extends Exception {
+
+  private static final long serialVersionUID = 1L;
+
+  /**
+   * Constructs a ModuleFullException with the given message.
+   *
+   * @param message a detail message naming the full modules
+   */
+  public ModuleFullException(final String message) {
+    super(message);
+  }
+}
@@ -0,0 +1,63 @@
+package uk.ac.ucl.comp0010.model;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Converts academic years between their label, such as "2024/2025", and
+ * the calendar year they start in, which is how grades store them.
+ *
+ * A label is valid only if it names two consecutive four-digit years, so
+ * that every label is recovered exactly from the year it starts in.
+ */
+public final class AcademicYear {
+
+  /** Matches a label, capturing its two years. */
+  private static final Pattern LABEL = Pattern.compile("(\\d{4})/(\\d{4})");
+
+  /**
+   * Prevents instantiation.
+   */
+  private AcademicYear() {
+  }
+
+  /**
+   * Returns whether a label names an academic year.
+   *
+   * @param label the label, such as "2024/2025"
+   * @return true if the label names two consecutive four-digit years
+   */
+  public static boolean isValid(final String label) {
+    if (label == null) {
+      return false;
+    }
+    Matcher m = LABEL.matcher(label);
+    return m.matches()
+        && Integer.parseInt(m.group(2)) == Integer.parseInt(m.group(1)) + 1;
+  }
+
+  /**
+   * Returns the calendar year an academic year starts in.
+   *
+   * @param label the label, such as "2024/2025"
+   * @return the starting year, such as 2024
+   * @throws IllegalArgumentException if the label is not valid
+   */
+  public static short startYear(final String label) {
+    if (!isValid(label)) {
+      throw new IllegalArgumentException(
+          "Invalid academic year '" + label + "'");
+    }
+    return Short.parseShort(label.substring(0, 4));
+  }
+
+  /**
+   * Returns the label of the academic year starting in a calendar year.
+   *
+   * @param startYear the starting year, such as 2024
+   * @return the label, such as "2024/2025"
+   */
+  public static String label(final short startYear) {
+    return startYear + "/" + (startYear + 1);
+  }
+}
@@ -0,0 +1,36 @@
+package uk.ac.ucl.comp0010.model;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/**
+ * Stores an academic year label, such as "2024/2025", as the SMALLINT
+ * calendar year it starts in, and reads it back as the label.
+ */
+@Converter
+public final class AcademicYearConverter
+    implements AttributeConverter<String, Short> {
+
+  /**
+   * Returns the starting year of an academic year.
+   *
+   * @param label the label, or null
+   * @return the starting year, or null if the label is null
+   * @throws IllegalArgumentException if the label is not valid
+   */
+  @Override
+  public Short convertToDatabaseColumn(final String label) {
+    return label == null ? null : AcademicYear.startYear(label);
+  }
+
+  /**
+   * Returns the label of an academic year.
+   *
+   * @param startYear the starting year, or null
+   * @return the label, or null if the starting year is null
+   */
+  @Override
+  public String convertToEntityAttribute(final Short startYear) {
+    return startYear == null ? null : AcademicYear.label(startYear);
+  }
+}
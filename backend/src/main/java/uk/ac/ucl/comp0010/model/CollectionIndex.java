@@ -0,0 +1,101 @@
+package uk.ac.ucl.comp0010.model;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * A hash index over one of an entity's collections, giving O(1) lookups by
+ * a key derived from each element. Where several elements share a key, the
+ * first in the collection is indexed.
+ *
+ * The index is built on first use and kept up to date by the entity's own
+ * mutators through added. The entity must expose the collection only as
+ * an unmodifiable view, so that its mutators are the only way to change
+ * it; a change the index cannot see, such as a remove followed by an add,
+ * would otherwise leave it stale. It is rebuilt whenever the collection is
+ * replaced, as Hibernate does when loading an entity, or changes size, as
+ * when Hibernate initializes a lazy collection.
+ *
+ * @param <K> the key type
+ * @param <V> the element type
+ */
+final class CollectionIndex<K, V> {
+
+  /** Derives the key of an element. */
+  private final Function<V, K> keyOf;
+
+  /** The collection last indexed, or null if none has been. */
+  private List<V> source;
+
+  /** The size of the collection when last indexed. */
+  private int indexedSize;
+
+  /** The first element of the collection for each key. */
+  private final Map<K, V> index = new HashMap<>();
+
+  /**
+   * Constructs an empty CollectionIndex.
+   *
+   * @param newKeyOf derives the key of an element
+   */
+  CollectionIndex(final Function<V, K> newKeyOf) {
+    this.keyOf = newKeyOf;
+  }
+
+  /**
+   * Returns the first element of a collection with the given key.
+   *
+   * @param elements the indexed collection
+   * @param key      the key
+   * @return the element, or null if there is none
+   */
+  V get(final List<V> elements, final K key) {
+    return current(elements).get(key);
+  }
+
+  /**
+   * Returns whether a collection has an element with the given key.
+   *
+   * @param elements the indexed collection
+   * @param key      the key
+   * @return true if such an element exists
+   */
+  boolean contains(final List<V> elements, final K key) {
+    return current(elements).containsKey(key);
+  }
+
+  /**
+   * Records an element just appended to a collection.
+   *
+   * @param elements the indexed collection, already holding the element
+   * @param element  the element appended
+   */
+  void added(final List<V> elements, final V element) {
+    if (elements == source && elements.size() == indexedSize + 1) {
+      index.putIfAbsent(keyOf.apply(element), element);
+      indexedSize++;
+    } else {
+      source = null;
+    }
+  }
+
+  /**
+   * Returns the index of a collection, rebuilding it if it is stale.
+   *
+   * @param elements the indexed collection
+   * @return the first element for each key
+   */
+  private Map<K, V> current(final List<V> elements) {
+    if (elements != source || elements.size() != indexedSize) {
+      index.clear();
+      for (V element : elements) {
+        index.putIfAbsent(keyOf.apply(element), element);
+      }
+      source = elements;
+      indexedSize = elements.size();
+    }
+    return index;
+  }
+}
@@ -1,10 +1,17 @@
 package uk.ac.ucl.comp0010.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import jakarta.persistence.Convert;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import jakarta.persistence.Version;
 
 /**
  * Represents a grade awarded to a student for a given module in a specific
@@ -14,31 +21,69 @@ import jakarta.persistence.ManyToOne;
  * - Is associated with a particular Student and Module.
  * - Records the student's score for that module.
  * - Includes the academic year during which the grade was awarded.
+ * - Is the only grade of its student in its module for that academic year.
  *
  * Note:
  * - Average computation and exception handling related to no available grades
  * are handled in other classes (e.g., Student and Module), not directly here.
+ * - The GradeController endpoints return grades as JSON with their student
+ * and module inline, as the /grades collection excerpt does, but without
+ * the student's and module's grades and registrations. Those lead back to
+ * the grade, and would otherwise nest until Jackson gives up.
  */
 @Entity
+@Table(indexes = {
+    @Index(name = "idx_grade_module_student",
+        columnList = "module_code, student_id"),
+    @Index(name = "idx_grade_year_module",
+        columnList = "academic_year, module_code, score")},
+    uniqueConstraints = @UniqueConstraint(
+        name = "uq_grade_student_module_year",
+        columnNames = {"student_id", "module_code", "academic_year"}))
 public final class Grade {
 
-  /** The unique identifier of this grade. */
+  /**
+   * The unique identifier of this grade, taken from a block of 50
+   * reserved in one sequence call, so that inserts can be batched.
+   */
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE,
+      generator = "grade_seq")
+  @SequenceGenerator(name = "grade_seq", sequenceName = "grade_seq",
+      allocationSize = 50)
   private Long id;
 
+  /**
+   * The version of this grade, incremented by every update, so that an
+   * update based on an outdated copy is rejected.
+   */
+  @Version
+  private long version;
+
   /** The score assigned to this grade. */
   private int score;
 
-  /** The academic year in which the grade was awarded. */
+  /**
+   * The academic year in which the grade was awarded, stored as the
+   * calendar year it starts in.
+   */
+  @Convert(converter = AcademicYearConverter.class)
   private String academicYear;
 
-  /** The student who received this grade. */
+  /**
+   * The student who received this grade. Serialized without the student's
+   * grades and registrations, which would lead back to this grade.
+   */
   @ManyToOne
+  @JsonIgnoreProperties({"grades", "registrations"})
   private Student student;
 
-  /** The module for which this grade was awarded. */
+  /**
+   * The module for which this grade was awarded. Serialized without the
+   * module's grades and registrations, which would lead back to this grade.
+   */
   @ManyToOne
+  @JsonIgnoreProperties({"grades", "registrations"})
   private Module module;
 
   /**
@@ -59,6 +104,24 @@ public final class Grade {
     this.id = newId;
   }
 
+  /**
+   * Returns the version of this grade.
+   *
+   * @return the version, incremented by every update
+   */
+  public long getVersion() {
+    return version;
+  }
+
+  /**
+   * Sets the version of this grade, as held by the copy being saved.
+   *
+   * @param newVersion the version the copy was read at
+   */
+  public void setVersion(final long newVersion) {
+    this.version = newVersion;
+  }
+
   /**
    * Returns the score assigned for this grade.
    *
@@ -89,7 +152,8 @@ public final class Grade {
   /**
    * Sets the academic year for this grade.
    *
-   * @param newAcademicYear the academic year string (e.g., "2024/2025")
+   * @param newAcademicYear the academic year string (e.g., "2024/2025"),
+   *                        naming two consecutive years
    */
   public void setAcademicYear(final String newAcademicYear) {
     this.academicYear = newAcademicYear;
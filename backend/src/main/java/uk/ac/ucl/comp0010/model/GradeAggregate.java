@@ -0,0 +1,101 @@
+package uk.ac.ucl.comp0010.model;
+
+import jakarta.persistence.MappedSuperclass;
+
+/**
+ * Running statistics over a set of grades: their count, the sum and sum of
+ * squares of their scores, and the lowest and highest score.
+ *
+ * The fields are kept up to date with atomic UPDATE statements as grades
+ * are added, changed and removed, so averages can be read from a single
+ * row instead of streaming every grade.
+ */
+@MappedSuperclass
+public abstract class GradeAggregate {
+
+  /** The number of grades. */
+  private long gradeCount;
+
+  /** The sum of the scores. */
+  private long scoreSum;
+
+  /** The sum of the squared scores. */
+  private long scoreSumSquares;
+
+  /** The lowest score, or null if there are no grades. */
+  private Integer minScore;
+
+  /** The highest score, or null if there are no grades. */
+  private Integer maxScore;
+
+  /**
+   * Returns the number of grades.
+   *
+   * @return the grade count
+   */
+  public long getGradeCount() {
+    return gradeCount;
+  }
+
+  /**
+   * Returns the sum of the scores.
+   *
+   * @return the score sum
+   */
+  public long getScoreSum() {
+    return scoreSum;
+  }
+
+  /**
+   * Returns the sum of the squared scores.
+   *
+   * @return the sum of squares
+   */
+  public long getScoreSumSquares() {
+    return scoreSumSquares;
+  }
+
+  /**
+   * Returns the lowest score.
+   *
+   * @return the lowest score, or null if there are no grades
+   */
+  public Integer getMinScore() {
+    return minScore;
+  }
+
+  /**
+   * Returns the highest score.
+   *
+   * @return the highest score, or null if there are no grades
+   */
+  public Integer getMaxScore() {
+    return maxScore;
+  }
+
+  /**
+   * Returns the mean score.
+   *
+   * @return the mean score, or null if there are no grades
+   */
+  public Double getAverage() {
+    if (gradeCount == 0) {
+      return null;
+    }
+    return (double) scoreSum / gradeCount;
+  }
+
+  /**
+   * Returns the population standard deviation of the scores.
+   *
+   * @return the standard deviation, or null if there are no grades
+   */
+  public Double getStandardDeviation() {
+    if (gradeCount == 0) {
+      return null;
+    }
+    double mean = (double) scoreSum / gradeCount;
+    double variance = (double) scoreSumSquares / gradeCount - mean * mean;
+    return Math.sqrt(Math.max(variance, 0));
+  }
+}
@@ -1,10 +1,14 @@
 package uk.ac.ucl.comp0010.model;
 
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Id;
 import jakarta.persistence.OneToMany;
+import jakarta.persistence.Version;
 import java.util.ArrayList;
 import java.util.List;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import uk.ac.ucl.comp0010.exception.NoGradeAvailableException;
 
 /**
@@ -22,12 +26,21 @@ import uk.ac.ucl.comp0010.exception.NoGradeAvailableException;
  * grade if no grades are provided.
  */
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "modules")
 public final class Module {
 
   /** The unique code of this module (e.g., "COM0001"). */
   @Id
   private String code;
 
+  /**
+   * The version of this module, incremented by every update, so that an
+   * update based on an outdated copy is rejected.
+   */
+  @Version
+  private long version;
+
   /** The name of the module (e.g., "Software Engineering"). */
   private String name;
 
@@ -69,6 +82,24 @@ public final class Module {
     this.code = newCode;
   }
 
+  /**
+   * Returns the version of this module.
+   *
+   * @return the version, incremented by every update
+   */
+  public long getVersion() {
+    return version;
+  }
+
+  /**
+   * Sets the version of this module, as held by the copy being saved.
+   *
+   * @param newVersion the version the copy was read at
+   */
+  public void setVersion(final long newVersion) {
+    this.version = newVersion;
+  }
+
   /**
    * Returns the name of this module.
    *
@@ -0,0 +1,40 @@
+package uk.ac.ucl.comp0010.model;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+
+/**
+ * Running statistics over all grades awarded in one module, used to answer
+ * average queries without reading the module's grades.
+ */
+@Entity
+public final class ModuleGradeAggregate extends GradeAggregate {
+
+  /** The code of the module these statistics describe. */
+  @Id
+  private String moduleCode;
+
+  /**
+   * Constructs an empty ModuleGradeAggregate, for JPA.
+   */
+  protected ModuleGradeAggregate() {
+  }
+
+  /**
+   * Constructs an aggregate over no grades for the given module.
+   *
+   * @param newModuleCode the module code
+   */
+  public ModuleGradeAggregate(final String newModuleCode) {
+    this.moduleCode = newModuleCode;
+  }
+
+  /**
+   * Returns the code of the module these statistics describe.
+   *
+   * @return the module code
+   */
+  public String getModuleCode() {
+    return moduleCode;
+  }
+}
@@ -1,10 +1,15 @@
 package uk.ac.ucl.comp0010.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
 
 /**
  * Represents a registration linking a Student to a Module.
@@ -19,21 +24,44 @@ import jakarta.persistence.ManyToOne;
  * - No exceptions are thrown directly from Registration. Validations
  * and exception handling occur at the logic level (in Student or in
  * services that manage these entities).
+ * - The database holds at most one registration per student and module.
  */
 @Entity
+@Table(uniqueConstraints = @UniqueConstraint(
+        name = "uq_registration_module_student",
+        columnNames = {"module_code", "student_id"}),
+    indexes = @Index(name = "idx_registration_student",
+        columnList = "student_id, module_code"))
 public final class Registration {
 
-  /** The unique identifier of this registration. */
+  /**
+   * The unique identifier of this registration, taken from a block of 50
+   * reserved in one sequence call, so that inserts can be batched.
+   */
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE,
+      generator = "registration_seq")
+  @SequenceGenerator(name = "registration_seq",
+      sequenceName = "registration_seq",
+      allocationSize = 50)
   private Long id;
 
-  /** The student associated with this registration. */
+  /**
+   * The student associated with this registration. Serialized without the
+   * student's grades and registrations, which would lead back to this
+   * registration.
+   */
   @ManyToOne
+  @JsonIgnoreProperties({"grades", "registrations"})
   private Student student;
 
-  /** The module associated with this registration. */
+  /**
+   * The module associated with this registration. Serialized without the
+   * module's grades and registrations, which would lead back to this
+   * registration.
+   */
   @ManyToOne
+  @JsonIgnoreProperties({"grades", "registrations"})
   private Module module;
 
   /**
@@ -1,10 +1,16 @@
 package uk.ac.ucl.comp0010.model;
 
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Id;
 import jakarta.persistence.OneToMany;
+import jakarta.persistence.Transient;
+import jakarta.persistence.Version;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import uk.ac.ucl.comp0010.exception.NoGradeAvailableException;
 import uk.ac.ucl.comp0010.exception.NoRegistrationException;
 
@@ -26,12 +32,21 @@ import uk.ac.ucl.comp0010.exception.NoRegistrationException;
  * grades are available.
  */
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "students")
 public final class Student {
 
   /** The unique identifier of this student. */
   @Id
   private Long id;
 
+  /**
+   * The version of this student, incremented by every update, so that an
+   * update based on an outdated copy is rejected.
+   */
+  @Version
+  private long version;
+
   /** The first name of the student. */
   private String firstName;
 
@@ -58,6 +73,16 @@ public final class Student {
   @OneToMany(mappedBy = "student")
   private List<Registration> registrations = new ArrayList<>();
 
+  /** Indexes the registrations by module code. */
+  @Transient
+  private final CollectionIndex<String, Registration> registrationsByModule =
+      new CollectionIndex<>(r -> r.getModule().getCode());
+
+  /** Indexes the grades by module code. */
+  @Transient
+  private final CollectionIndex<String, Grade> gradesByModule =
+      new CollectionIndex<>(g -> g.getModule().getCode());
+
   /**
    * Returns the unique identifier of this student.
    *
@@ -76,6 +101,24 @@ public final class Student {
     this.id = newId;
   }
 
+  /**
+   * Returns the version of this student.
+   *
+   * @return the version, incremented by every update
+   */
+  public long getVersion() {
+    return version;
+  }
+
+  /**
+   * Sets the version of this student, as held by the copy being saved.
+   *
+   * @param newVersion the version the copy was read at
+   */
+  public void setVersion(final long newVersion) {
+    this.version = newVersion;
+  }
+
   /**
    * Returns the first name of this student.
    *
@@ -158,6 +201,18 @@ public final class Student {
     r.setStudent(this);
     r.setModule(newModule);
     registrations.add(r);
+    registrationsByModule.added(registrations, r);
+  }
+
+  /**
+   * Returns whether this student is registered for the module with the
+   * given code.
+   *
+   * @param code the module code
+   * @return true if a registration for the module exists
+   */
+  public boolean isRegisteredFor(final String code) {
+    return registrationsByModule.contains(registrations, code);
   }
 
   /**
@@ -169,16 +224,13 @@ public final class Student {
    *                                 module in the given grade
    */
   public void addGrade(final Grade newGrade) throws NoRegistrationException {
-    boolean registered = registrations.stream()
-        .anyMatch(reg -> reg.getModule().getCode()
-            .equals(newGrade.getModule().getCode()));
-
-    if (!registered) {
+    if (!isRegisteredFor(newGrade.getModule().getCode())) {
       throw new NoRegistrationException("Not registered for module");
     }
 
     newGrade.setStudent(this);
     grades.add(newGrade);
+    gradesByModule.added(grades, newGrade);
   }
 
   /**
@@ -193,27 +245,26 @@ public final class Student {
    */
   public Grade getGrade(final Module newModule)
       throws NoRegistrationException, NoGradeAvailableException {
-    boolean registered = registrations.stream()
-        .anyMatch(reg -> reg.getModule().getCode()
-            .equals(newModule.getCode()));
-    if (!registered) {
+    if (!isRegisteredFor(newModule.getCode())) {
       throw new NoRegistrationException("Not registered for this module");
     }
 
-    return grades.stream()
-        .filter(g -> g.getModule().getCode().equals(newModule.getCode()))
-        .findFirst()
-        .orElseThrow(() -> new NoGradeAvailableException("No grade available"));
-
+    Grade grade = gradesByModule.get(grades, newModule.getCode());
+    if (grade == null) {
+      throw new NoGradeAvailableException("No grade available");
+    }
+    return grade;
   }
 
   /**
-   * Returns the list of grades associated with this student.
+   * Returns the list of grades associated with this student. The list
+   * cannot be modified; grades are added through addGrade, which keeps the
+   * index by module in step.
    *
-   * @return a list of Grade objects related to this student
+   * @return an unmodifiable list of Grade objects related to this student
    */
   public List<Grade> getGrades() {
-    return grades;
+    return Collections.unmodifiableList(grades);
   }
 
   /**
@@ -235,12 +286,15 @@ public final class Student {
   }
 
   /**
-   * Returns the list of registrations associated with this student.
+   * Returns the list of registrations associated with this student. The
+   * list cannot be modified; registrations are added through
+   * registerModule, which keeps the index by module in step.
    *
-   * @return a list of Registration objects related to this student
+   * @return an unmodifiable list of Registration objects related to this
+   *         student
    */
   public List<Registration> getRegistrations() {
-    return registrations;
+    return Collections.unmodifiableList(registrations);
   }
 
   /**
@@ -0,0 +1,40 @@
+package uk.ac.ucl.comp0010.model;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+
+/**
+ * Running statistics over all grades of one student, used to answer
+ * average queries without reading the student's grades.
+ */
+@Entity
+public final class StudentGradeAggregate extends GradeAggregate {
+
+  /** The ID of the student these statistics describe. */
+  @Id
+  private Long studentId;
+
+  /**
+   * Constructs an empty StudentGradeAggregate, for JPA.
+   */
+  protected StudentGradeAggregate() {
+  }
+
+  /**
+   * Constructs an aggregate over no grades for the given student.
+   *
+   * @param newStudentId the student ID
+   */
+  public StudentGradeAggregate(final Long newStudentId) {
+    this.studentId = newStudentId;
+  }
+
+  /**
+   * Returns the ID of the student these statistics describe.
+   *
+   * @return the student ID
+   */
+  public Long getStudentId() {
+    return studentId;
+  }
+}
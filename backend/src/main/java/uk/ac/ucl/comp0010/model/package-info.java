@@ -1,6 +1,7 @@
 /**
  * This package contains the domain model classes for the grade management
  * system,
- * including entities for students, modules, grades, and registrations.
+ * including entities for students, modules, grades, and registrations,
+ * and the running grade aggregates kept per student and per module.
  */
 package uk.ac.ucl.comp0010.model;
@@ -0,0 +1,30 @@
+package uk.ac.ucl.comp0010.projection;
+
+/**
+ * The natural key of a grade: which student holds it, in which module and
+ * academic year. Used to find existing grades in bulk without loading
+ * Grade entities.
+ */
+public interface GradeKey {
+
+  /**
+   * Returns the ID of the student holding the grade.
+   *
+   * @return the student's ID
+   */
+  Long getStudentId();
+
+  /**
+   * Returns the code of the module the grade is for.
+   *
+   * @return the module code
+   */
+  String getModuleCode();
+
+  /**
+   * Returns the academic year of the grade.
+   *
+   * @return the academic year
+   */
+  String getAcademicYear();
+}
@@ -0,0 +1,77 @@
+package uk.ac.ucl.comp0010.projection;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.rest.core.config.Projection;
+import uk.ac.ucl.comp0010.model.Grade;
+
+/**
+ * Excerpt of a Grade used when listing the /grades collection.
+ *
+ * Inlines the identifying fields of the grade's student and module so a
+ * client can render a grade list from a single response, instead of
+ * following the student and module links of every row.
+ */
+@Projection(name = "gradeSummary", types = Grade.class)
+public interface GradeSummary {
+
+  /**
+   * Returns the ID of the grade.
+   *
+   * @return the grade's ID
+   */
+  Long getId();
+
+  /**
+   * Returns the score of the grade.
+   *
+   * @return the score
+   */
+  int getScore();
+
+  /**
+   * Returns the academic year in which the grade was awarded.
+   *
+   * @return the academic year string (e.g., "2024/2025")
+   */
+  String getAcademicYear();
+
+  /**
+   * Returns the ID of the student who received the grade.
+   *
+   * @return the student's ID, or null if no student is linked
+   */
+  @Value("#{target.student?.id}")
+  Long getStudentId();
+
+  /**
+   * Returns the first name of the student who received the grade.
+   *
+   * @return the student's first name, or null if no student is linked
+   */
+  @Value("#{target.student?.firstName}")
+  String getStudentFirstName();
+
+  /**
+   * Returns the last name of the student who received the grade.
+   *
+   * @return the student's last name, or null if no student is linked
+   */
+  @Value("#{target.student?.lastName}")
+  String getStudentLastName();
+
+  /**
+   * Returns the code of the module the grade was awarded for.
+   *
+   * @return the module code, or null if no module is linked
+   */
+  @Value("#{target.module?.code}")
+  String getModuleCode();
+
+  /**
+   * Returns the name of the module the grade was awarded for.
+   *
+   * @return the module name, or null if no module is linked
+   */
+  @Value("#{target.module?.name}")
+  String getModuleName();
+}
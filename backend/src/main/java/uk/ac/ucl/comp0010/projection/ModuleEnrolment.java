@@ -0,0 +1,21 @@
+package uk.ac.ucl.comp0010.projection;
+
+/**
+ * The number of students enrolled in a module.
+ */
+public interface ModuleEnrolment {
+
+  /**
+   * Returns the code of the module.
+   *
+   * @return the module code
+   */
+  String getModuleCode();
+
+  /**
+   * Returns the number of registrations for the module.
+   *
+   * @return the number of enrolled students
+   */
+  long getEnrolled();
+}
@@ -0,0 +1,23 @@
+package uk.ac.ucl.comp0010.projection;
+
+/**
+ * The natural key of a registration: which student is enrolled in which
+ * module. Used to check enrolment in bulk without loading Registration
+ * entities.
+ */
+public interface RegistrationKey {
+
+  /**
+   * Returns the ID of the enrolled student.
+   *
+   * @return the student's ID
+   */
+  Long getStudentId();
+
+  /**
+   * Returns the code of the module the student is enrolled in.
+   *
+   * @return the module code
+   */
+  String getModuleCode();
+}
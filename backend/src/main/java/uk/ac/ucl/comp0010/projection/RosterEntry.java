@@ -0,0 +1,53 @@
+package uk.ac.ucl.comp0010.projection;
+
+/**
+ * A single row of a module roster: an enrolled student together with the
+ * grade they hold for that module, if any.
+ *
+ * Rows are produced by one joined query over registrations, students and
+ * grades, so the roster never loads Student or Grade entities.
+ */
+public interface RosterEntry {
+
+  /**
+   * Returns the ID of the enrolled student.
+   *
+   * @return the student's ID
+   */
+  Long getId();
+
+  /**
+   * Returns the first name of the enrolled student.
+   *
+   * @return the student's first name
+   */
+  String getFirstName();
+
+  /**
+   * Returns the last name of the enrolled student.
+   *
+   * @return the student's last name
+   */
+  String getLastName();
+
+  /**
+   * Returns the email of the enrolled student.
+   *
+   * @return the student's email
+   */
+  String getEmail();
+
+  /**
+   * Returns the student's score for the module.
+   *
+   * @return the score, or null if no grade has been recorded
+   */
+  Integer getGrade();
+
+  /**
+   * Returns the ID of the student's grade for the module.
+   *
+   * @return the grade's ID, or null if no grade has been recorded
+   */
+  Long getGradeId();
+}
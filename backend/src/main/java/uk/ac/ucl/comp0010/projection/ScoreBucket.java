@@ -0,0 +1,30 @@
+package uk.ac.ucl.comp0010.projection;
+
+/**
+ * The number of scores awarded in a module in one academic year that fall
+ * into one histogram bucket.
+ */
+public interface ScoreBucket {
+
+  /**
+   * Returns the academic year the scores were awarded in, as stored.
+   *
+   * @return the calendar year the academic year starts in
+   */
+  short getAcademicYear();
+
+  /**
+   * Returns the bucket index, from 0 for scores below 10 to 9 for scores
+   * of 90 and above.
+   *
+   * @return the bucket index
+   */
+  int getBucket();
+
+  /**
+   * Returns the number of scores in the bucket.
+   *
+   * @return the score count
+   */
+  long getGradeCount();
+}
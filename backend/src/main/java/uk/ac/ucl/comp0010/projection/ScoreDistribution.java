@@ -0,0 +1,78 @@
+package uk.ac.ucl.comp0010.projection;
+
+/**
+ * Summary statistics of the scores awarded in a module in one academic
+ * year, computed by the database.
+ */
+public interface ScoreDistribution {
+
+  /**
+   * Returns the academic year the scores were awarded in, as stored.
+   *
+   * @return the calendar year the academic year starts in
+   */
+  short getAcademicYear();
+
+  /**
+   * Returns the number of grades.
+   *
+   * @return the grade count
+   */
+  long getGradeCount();
+
+  /**
+   * Returns the mean score.
+   *
+   * @return the mean
+   */
+  Double getMean();
+
+  /**
+   * Returns the population standard deviation of the scores.
+   *
+   * @return the standard deviation
+   */
+  Double getStandardDeviation();
+
+  /**
+   * Returns the lowest score.
+   *
+   * @return the minimum
+   */
+  Integer getMinScore();
+
+  /**
+   * Returns the first quartile, interpolated between scores.
+   *
+   * @return the 25th percentile
+   */
+  Double getLowerQuartile();
+
+  /**
+   * Returns the median, interpolated between scores.
+   *
+   * @return the 50th percentile
+   */
+  Double getMedian();
+
+  /**
+   * Returns the third quartile, interpolated between scores.
+   *
+   * @return the 75th percentile
+   */
+  Double getUpperQuartile();
+
+  /**
+   * Returns the highest score.
+   *
+   * @return the maximum
+   */
+  Integer getMaxScore();
+
+  /**
+   * Returns the number of grades at or above the pass mark.
+   *
+   * @return the number of passes
+   */
+  long getPassed();
+}
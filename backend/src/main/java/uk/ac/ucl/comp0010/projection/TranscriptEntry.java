@@ -0,0 +1,46 @@
+package uk.ac.ucl.comp0010.projection;
+
+/**
+ * A single grade on a student's transcript, together with the name of the
+ * module it was awarded in.
+ *
+ * Entries are produced by one query joining grades with their modules, so
+ * a transcript never loads Grade or Module entities one at a time.
+ */
+public interface TranscriptEntry {
+
+  /**
+   * Returns the ID of the grade.
+   *
+   * @return the grade's ID
+   */
+  Long getGradeId();
+
+  /**
+   * Returns the code of the module the grade was awarded in.
+   *
+   * @return the module code
+   */
+  String getModuleCode();
+
+  /**
+   * Returns the name of the module the grade was awarded in.
+   *
+   * @return the module name
+   */
+  String getModuleName();
+
+  /**
+   * Returns the academic year the grade was awarded in.
+   *
+   * @return the academic year (e.g., "2024/2025")
+   */
+  String getAcademicYear();
+
+  /**
+   * Returns the score of the grade.
+   *
+   * @return the score
+   */
+  int getScore();
+}
@@ -0,0 +1,5 @@
+/**
+ * This package contains read-only projections over the domain model,
+ * used to fetch exactly the columns an endpoint needs in a single query.
+ */
+package uk.ac.ucl.comp0010.projection;
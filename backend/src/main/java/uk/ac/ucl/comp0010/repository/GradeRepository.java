@@ -1,16 +1,348 @@
 package uk.ac.ucl.comp0010.repository;
 
+import jakarta.persistence.QueryHint;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.PagingAndSortingRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.data.rest.core.annotation.RepositoryRestResource;
+import org.springframework.data.rest.core.annotation.RestResource;
 import uk.ac.ucl.comp0010.model.Grade;
+import uk.ac.ucl.comp0010.projection.GradeKey;
+import uk.ac.ucl.comp0010.projection.GradeSummary;
+import uk.ac.ucl.comp0010.projection.ScoreBucket;
+import uk.ac.ucl.comp0010.projection.ScoreDistribution;
+import uk.ac.ucl.comp0010.projection.TranscriptEntry;
 
 /**
  * Repository interface for managing Grade entities.
  *
- * Grade data can be accessed at /grades
+ * Grade data can be accessed at /grades, which supports the page, size and
+ * sort parameters. Collection responses use the GradeSummary excerpt, which
+ * inlines student and module details. Deep pages are better read with the
+ * keyset searches, each of which reads its first page with a search of its
+ * own: /grades/search/first then /grades/search/after in ID order,
+ * /grades/search/firstByYear then /grades/search/afterYear in academic
+ * year order, and the grades of one academic year with
+ * /grades/search/firstInYear then /grades/search/inYear.
  */
 @RepositoryRestResource(path = "grades", collectionResourceRel = "grades",
-                                        itemResourceRel = "grade")
-public interface GradeRepository extends CrudRepository<Grade, Long> {
-  // Additional custom queries can be defined here if needed.
+                                        itemResourceRel = "grade",
+                                        excerptProjection = GradeSummary.class)
+public interface GradeRepository extends CrudRepository<Grade, Long>,
+    PagingAndSortingRepository<Grade, Long> {
+
+  /**
+   * Selects the summary statistics of a module's scores, grouped by the
+   * query appending it.
+   */
+  String SCORE_DISTRIBUTIONS = "SELECT g.academic_year AS academicYear,"
+      + " COUNT(*) AS gradeCount,"
+      + " AVG(CAST(g.score AS DOUBLE PRECISION)) AS mean,"
+      + " STDDEV_POP(g.score) AS standardDeviation,"
+      + " MIN(g.score) AS minScore,"
+      + " PERCENTILE_CONT(0.25) WITHIN GROUP (ORDER BY g.score)"
+      + " AS lowerQuartile,"
+      + " PERCENTILE_CONT(0.5) WITHIN GROUP (ORDER BY g.score) AS median,"
+      + " PERCENTILE_CONT(0.75) WITHIN GROUP (ORDER BY g.score)"
+      + " AS upperQuartile,"
+      + " MAX(g.score) AS maxScore,"
+      + " SUM(CASE WHEN g.score >= :passMark THEN 1 ELSE 0 END) AS passed"
+      + " FROM grade g WHERE g.module_code = :code";
+
+  /**
+   * Selects the histogram buckets of a module's scores, closed and
+   * counted by the query appending it.
+   */
+  String SCORE_HISTOGRAM = "SELECT b.academic_year AS academicYear,"
+      + " b.bucket AS bucket, COUNT(*) AS gradeCount"
+      + " FROM (SELECT g.academic_year,"
+      + " LEAST(GREATEST(g.score, 0) / 10, 9) AS bucket"
+      + " FROM grade g WHERE g.module_code = :code";
+
+  /**
+   * Returns all grades, fetching their student and module in the same
+   * query so that rendering the GradeSummary excerpt needs no further
+   * statements.
+   *
+   * @return all grades with student and module loaded
+   */
+  @Override
+  @EntityGraph(attributePaths = {"student", "module"})
+  Iterable<Grade> findAll();
+
+  /**
+   * Returns a page of grades with their student and module loaded.
+   *
+   * @param pageable the requested page, size and sort
+   * @return the page of grades
+   */
+  @Override
+  @EntityGraph(attributePaths = {"student", "module"})
+  Page<Grade> findAll(Pageable pageable);
+
+  /**
+   * Returns the first page of grades in ID order. Only the page size of
+   * the pageable is used.
+   *
+   * @param pageable the requested page size
+   * @return the first grades in ID order
+   */
+  @RestResource(path = "first", rel = "first")
+  @EntityGraph(attributePaths = {"student", "module"})
+  @Query("SELECT g FROM Grade g ORDER BY g.id")
+  Slice<Grade> findFirstPage(Pageable pageable);
+
+  /**
+   * Returns the page of grades following the given ID, in ID order.
+   * Only the page size of the pageable is used.
+   *
+   * The first page is read with findFirstPage rather than a null ID, so
+   * that the condition here is a plain range the primary key can seek.
+   *
+   * @param after    the last ID already read
+   * @param pageable the requested page size
+   * @return the next grades in ID order
+   */
+  @RestResource(path = "after", rel = "after")
+  @EntityGraph(attributePaths = {"student", "module"})
+  @Query("SELECT g FROM Grade g WHERE g.id > :after ORDER BY g.id")
+  Slice<Grade> findPageAfter(@Param("after") Long after, Pageable pageable);
+
+  /**
+   * Returns the first page of grades ordered by academic year and then
+   * ID. Only the page size of the pageable is used.
+   *
+   * @param pageable the requested page size
+   * @return the first grades in academic year and ID order
+   */
+  @RestResource(path = "firstByYear", rel = "firstByYear")
+  @EntityGraph(attributePaths = {"student", "module"})
+  @Query("SELECT g FROM Grade g ORDER BY g.academicYear, g.id")
+  Slice<Grade> findFirstPageByYear(Pageable pageable);
+
+  /**
+   * Returns the page of grades following the given academic year and ID,
+   * ordered by academic year and then ID. Only the page size of the
+   * pageable is used.
+   *
+   * The first page is read with findFirstPageByYear, and the year is also
+   * bounded on its own, so that idx_grade_year_module is sought from the
+   * given year rather than read from the start.
+   *
+   * @param year     the academic year of the last grade already read
+   * @param after    the ID of the last grade already read
+   * @param pageable the requested page size
+   * @return the next grades in academic year and ID order
+   */
+  @RestResource(path = "afterYear", rel = "afterYear")
+  @EntityGraph(attributePaths = {"student", "module"})
+  @Query("SELECT g FROM Grade g WHERE g.academicYear >= :year"
+      + " AND (g.academicYear > :year OR g.id > :after)"
+      + " ORDER BY g.academicYear, g.id")
+  Slice<Grade> findPageAfterYear(@Param("year") String year,
+      @Param("after") Long after, Pageable pageable);
+
+  /**
+   * Returns the first page of grades of one academic year, in ID order.
+   * Only the page size of the pageable is used.
+   *
+   * @param year     the academic year, such as "2024/2025"
+   * @param pageable the requested page size
+   * @return the first grades of the year in ID order
+   */
+  @RestResource(path = "firstInYear", rel = "firstInYear")
+  @EntityGraph(attributePaths = {"student", "module"})
+  @Query("SELECT g FROM Grade g WHERE g.academicYear = :year ORDER BY g.id")
+  Slice<Grade> findFirstPageInYear(@Param("year") String year,
+      Pageable pageable);
+
+  /**
+   * Returns the page of grades of one academic year following the given
+   * ID, in ID order. Only that year's entries of idx_grade_year_module are
+   * read, however many other years are stored. Only the page size of the
+   * pageable is used.
+   *
+   * @param year     the academic year, such as "2024/2025"
+   * @param after    the last ID already read
+   * @param pageable the requested page size
+   * @return the next grades of the year in ID order
+   */
+  @RestResource(path = "inYear", rel = "inYear")
+  @EntityGraph(attributePaths = {"student", "module"})
+  @Query("SELECT g FROM Grade g WHERE g.academicYear = :year"
+      + " AND g.id > :after ORDER BY g.id")
+  Slice<Grade> findPageInYear(@Param("year") String year,
+      @Param("after") Long after, Pageable pageable);
+
+  /**
+   * Returns the grades of a module in one academic year, with their
+   * students, in student ID order.
+   *
+   * @param code the module code
+   * @param year the academic year, such as "2024/2025"
+   * @return the grades of the module in the year
+   */
+  @RestResource(exported = false)
+  @EntityGraph(attributePaths = {"student"})
+  @Query("SELECT g FROM Grade g WHERE g.academicYear = :year"
+      + " AND g.module.code = :code ORDER BY g.student.id")
+  List<Grade> findByModuleInYear(@Param("code") String code,
+      @Param("year") String year);
+
+  /**
+   * Returns the grade of a student in a module for an academic year.
+   *
+   * @param studentId    the student ID
+   * @param code         the module code
+   * @param academicYear the academic year
+   * @return the grade, or empty if none is recorded
+   */
+  @RestResource(exported = false)
+  @Query("SELECT g FROM Grade g WHERE g.student.id = :studentId"
+      + " AND g.module.code = :code AND g.academicYear = :academicYear")
+  Optional<Grade> findByKey(@Param("studentId") Long studentId,
+      @Param("code") String code,
+      @Param("academicYear") String academicYear);
+
+  /**
+   * Returns the keys of the grades of the given students, for checking
+   * many grades at once.
+   *
+   * @param studentIds the IDs of the students
+   * @return one key per grade of those students
+   */
+  @RestResource(exported = false)
+  @Query("SELECT g.student.id AS studentId, g.module.code AS moduleCode,"
+      + " g.academicYear AS academicYear"
+      + " FROM Grade g WHERE g.student.id IN :studentIds")
+  List<GradeKey> findKeysByStudentIds(
+      @Param("studentIds") Collection<Long> studentIds);
+
+  /**
+   * Returns every grade of a student joined with the name of its module,
+   * in a single query, for building the student's transcript.
+   *
+   * @param studentId the student ID
+   * @return the student's grades, ordered by academic year and then module
+   *         code
+   */
+  @RestResource(exported = false)
+  @Query("SELECT g.id AS gradeId, m.code AS moduleCode,"
+      + " m.name AS moduleName, g.academicYear AS academicYear,"
+      + " g.score AS score"
+      + " FROM Grade g JOIN g.module m WHERE g.student.id = :studentId"
+      + " ORDER BY g.academicYear, m.code")
+  List<TranscriptEntry> findTranscriptByStudentId(
+      @Param("studentId") Long studentId);
+
+  /**
+   * Writes the grade of a student in a module for an academic year with a
+   * single MERGE on the grade's unique key: the score of an existing grade
+   * is replaced, and otherwise a new grade is inserted. The statement reads
+   * back the rows it replaced, so the caller learns the previous score
+   * without a query of its own.
+   *
+   * Two writers inserting the same new key at once make one of them fail
+   * with a duplicate key, after which retrying updates the row the other
+   * inserted.
+   *
+   * The statement names the grade table as the only one it touches, so
+   * that Hibernate neither flushes nor invalidates cached data of other
+   * tables around it.
+   *
+   * @param studentId the student ID
+   * @param code      the module code
+   * @param startYear the calendar year the academic year starts in
+   * @param score     the score
+   * @return the previous score, or an empty list if the grade was inserted
+   */
+  @RestResource(exported = false)
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES,
+      value = "grade"))
+  @Query(nativeQuery = true, value = "SELECT score FROM OLD TABLE ("
+      + " MERGE INTO grade g USING (VALUES (CAST(:studentId AS BIGINT),"
+      + " CAST(:code AS VARCHAR), CAST(:startYear AS SMALLINT),"
+      + " CAST(:score AS INTEGER)))"
+      + " v (student_id, module_code, academic_year, score)"
+      + " ON g.student_id = v.student_id AND g.module_code = v.module_code"
+      + " AND g.academic_year = v.academic_year"
+      + " WHEN MATCHED THEN UPDATE SET score = v.score,"
+      + " version = g.version + 1"
+      + " WHEN NOT MATCHED THEN INSERT"
+      + " (student_id, module_code, academic_year, score)"
+      + " VALUES (v.student_id, v.module_code, v.academic_year, v.score))")
+  List<Integer> upsert(@Param("studentId") Long studentId,
+      @Param("code") String code,
+      @Param("startYear") short startYear,
+      @Param("score") int score);
+
+  /**
+   * Returns summary statistics of a module's scores for each academic
+   * year, aggregated in the database so no grade is loaded.
+   *
+   * @param code     the module code
+   * @param passMark the lowest passing score
+   * @return one row per academic year, in year order
+   */
+  @RestResource(exported = false)
+  @Query(nativeQuery = true, value = SCORE_DISTRIBUTIONS
+      + " GROUP BY g.academic_year ORDER BY g.academic_year")
+  List<ScoreDistribution> findScoreDistributions(@Param("code") String code,
+      @Param("passMark") int passMark);
+
+  /**
+   * Returns summary statistics of a module's scores in one academic year.
+   * The year is matched with a plain equality, so that the query reads
+   * only that year's entries of idx_grade_year_module.
+   *
+   * @param code      the module code
+   * @param startYear the calendar year the academic year starts in
+   * @param passMark  the lowest passing score
+   * @return one row, or none if the module has no grades in the year
+   */
+  @RestResource(exported = false)
+  @Query(nativeQuery = true, value = SCORE_DISTRIBUTIONS
+      + " AND g.academic_year = :startYear GROUP BY g.academic_year")
+  List<ScoreDistribution> findScoreDistributionsInYear(
+      @Param("code") String code, @Param("startYear") short startYear,
+      @Param("passMark") int passMark);
+
+  /**
+   * Returns a 10-bucket histogram of a module's scores for each academic
+   * year, counted in the database. Bucket i holds scores from 10 * i to
+   * 10 * i + 9; scores of 100 fall into the last bucket. Empty buckets are
+   * omitted.
+   *
+   * @param code the module code
+   * @return one row per academic year and non-empty bucket
+   */
+  @RestResource(exported = false)
+  @Query(nativeQuery = true, value = SCORE_HISTOGRAM + ") b"
+      + " GROUP BY b.academic_year, b.bucket")
+  List<ScoreBucket> findScoreHistogram(@Param("code") String code);
+
+  /**
+   * Returns a 10-bucket histogram of a module's scores in one academic
+   * year, as for every year.
+   *
+   * @param code      the module code
+   * @param startYear the calendar year the academic year starts in
+   * @return one row per non-empty bucket
+   */
+  @RestResource(exported = false)
+  @Query(nativeQuery = true, value = SCORE_HISTOGRAM
+      + " AND g.academic_year = :startYear) b"
+      + " GROUP BY b.academic_year, b.bucket")
+  List<ScoreBucket> findScoreHistogramInYear(@Param("code") String code,
+      @Param("startYear") short startYear);
 }
@@ -0,0 +1,121 @@
+package uk.ac.ucl.comp0010.repository;
+
+import java.util.Collection;
+import java.util.List;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.data.rest.core.annotation.RepositoryRestResource;
+import uk.ac.ucl.comp0010.model.ModuleGradeAggregate;
+
+/**
+ * Repository interface for managing ModuleGradeAggregate entities.
+ *
+ * The aggregates are maintained by GradeAggregateService and are not
+ * exported over REST; they are read through /modules/{code}/average.
+ * Every update is a single atomic statement, so concurrent grade changes
+ * for the same module cannot lose increments.
+ */
+@RepositoryRestResource(exported = false)
+public interface ModuleGradeAggregateRepository
+    extends CrudRepository<ModuleGradeAggregate, String> {
+
+  /**
+   * Adds a batch of grades to the aggregate of a module.
+   *
+   * @param id      the module code
+   * @param count   the number of grades added
+   * @param sum     the sum of their scores
+   * @param squares the sum of their squared scores
+   * @param min     the lowest of their scores
+   * @param max     the highest of their scores
+   * @return the number of aggregates updated: 0 if the aggregate does not
+   *         exist yet
+   */
+  @Modifying
+  @Query("UPDATE ModuleGradeAggregate a"
+      + " SET a.gradeCount = a.gradeCount + :count,"
+      + " a.scoreSum = a.scoreSum + :sum,"
+      + " a.scoreSumSquares = a.scoreSumSquares + :squares,"
+      + " a.minScore = CASE WHEN a.minScore IS NULL OR a.minScore > :min"
+      + " THEN :min ELSE a.minScore END,"
+      + " a.maxScore = CASE WHEN a.maxScore IS NULL OR a.maxScore < :max"
+      + " THEN :max ELSE a.maxScore END"
+      + " WHERE a.moduleCode = :id")
+  int add(@Param("id") String id, @Param("count") long count,
+      @Param("sum") long sum, @Param("squares") long squares,
+      @Param("min") int min, @Param("max") int max);
+
+  /**
+   * Removes a grade from the aggregate of a module. The grade must already
+   * be deleted or changed in the database: if it held the lowest or
+   * highest score, that bound is re-read from the module's grades.
+   *
+   * @param id    the module code
+   * @param score the score of the grade removed
+   * @return the number of aggregates updated: 0 if the aggregate does not
+   *         exist
+   */
+  @Modifying(flushAutomatically = true)
+  @Query("UPDATE ModuleGradeAggregate a SET a.gradeCount = a.gradeCount - 1,"
+      + " a.scoreSum = a.scoreSum - :score,"
+      + " a.scoreSumSquares = a.scoreSumSquares - :score * :score,"
+      + " a.minScore = CASE WHEN a.minScore < :score THEN a.minScore"
+      + " ELSE (SELECT MIN(g.score) FROM Grade g"
+      + " WHERE g.module.code = a.moduleCode) END,"
+      + " a.maxScore = CASE WHEN a.maxScore > :score THEN a.maxScore"
+      + " ELSE (SELECT MAX(g.score) FROM Grade g"
+      + " WHERE g.module.code = a.moduleCode) END"
+      + " WHERE a.moduleCode = :id")
+  int remove(@Param("id") String id, @Param("score") int score);
+
+  /**
+   * Recomputes the aggregates of the given modules from their grades.
+   *
+   * @param ids the module codes
+   * @return the number of aggregates updated
+   */
+  @Modifying(flushAutomatically = true)
+  @Query("UPDATE ModuleGradeAggregate a SET"
+      + " a.gradeCount = (SELECT COUNT(g) FROM Grade g"
+      + " WHERE g.module.code = a.moduleCode),"
+      + " a.scoreSum = (SELECT COALESCE(SUM(g.score), 0) FROM Grade g"
+      + " WHERE g.module.code = a.moduleCode),"
+      + " a.scoreSumSquares = (SELECT COALESCE(SUM(g.score * g.score), 0)"
+      + " FROM Grade g WHERE g.module.code = a.moduleCode),"
+      + " a.minScore = (SELECT MIN(g.score) FROM Grade g"
+      + " WHERE g.module.code = a.moduleCode),"
+      + " a.maxScore = (SELECT MAX(g.score) FROM Grade g"
+      + " WHERE g.module.code = a.moduleCode)"
+      + " WHERE a.moduleCode IN :ids")
+  int refresh(@Param("ids") Collection<String> ids);
+
+  /**
+   * Returns the modules whose aggregate no longer matches their grades.
+   *
+   * @return the module codes of drifted aggregates
+   */
+  @Query("SELECT a.moduleCode FROM ModuleGradeAggregate a"
+      + " WHERE a.gradeCount <> (SELECT COUNT(g) FROM Grade g"
+      + " WHERE g.module.code = a.moduleCode)"
+      + " OR a.scoreSum <> (SELECT COALESCE(SUM(g.score), 0) FROM Grade g"
+      + " WHERE g.module.code = a.moduleCode)"
+      + " OR a.scoreSumSquares <> (SELECT COALESCE(SUM(g.score * g.score),"
+      + " 0) FROM Grade g WHERE g.module.code = a.moduleCode)"
+      + " OR COALESCE(a.minScore, -1) <> COALESCE((SELECT MIN(g.score)"
+      + " FROM Grade g WHERE g.module.code = a.moduleCode), -1)"
+      + " OR COALESCE(a.maxScore, -1) <> COALESCE((SELECT MAX(g.score)"
+      + " FROM Grade g WHERE g.module.code = a.moduleCode), -1)")
+  List<String> findDrifted();
+
+  /**
+   * Returns the modules that have grades but no aggregate.
+   *
+   * @return the module codes lacking an aggregate
+   */
+  @Query("SELECT DISTINCT g.module.code FROM Grade g WHERE NOT EXISTS"
+      + " (SELECT 1 FROM ModuleGradeAggregate a"
+      + " WHERE a.moduleCode = g.module.code)")
+  List<String> findMissing();
+}
@@ -1,17 +1,99 @@
 package uk.ac.ucl.comp0010.repository;
 
+import jakarta.persistence.LockModeType;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.PagingAndSortingRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.data.rest.core.annotation.RepositoryRestResource;
+import org.springframework.data.rest.core.annotation.RestResource;
 import uk.ac.ucl.comp0010.model.Module;
 
 /**
  * Repository interface for managing Module entities.
  *
- * Module data can be accessed at /modules
+ * Module data can be accessed at /modules, which supports the
+ * page, size and sort parameters. Deep pages are better read with
+ * /modules/search/first and then /modules/search/after, which seeks past
+ * the last code seen.
  */
 @RepositoryRestResource(path = "modules", collectionResourceRel = "modules",
                                           itemResourceRel = "module")
 public interface ModuleRepository
-  extends CrudRepository<Module, String> {
-  // Additional custom queries can be defined here if needed.
+  extends CrudRepository<Module, String>,
+    PagingAndSortingRepository<Module, String> {
+
+  /**
+   * Returns the first page of modules in code order. Only the page size of
+   * the pageable is used.
+   *
+   * @param pageable the requested page size
+   * @return the first modules in code order
+   */
+  @RestResource(path = "first", rel = "first")
+  @Query("SELECT m FROM Module m ORDER BY m.code")
+  Slice<Module> findFirstPage(Pageable pageable);
+
+  /**
+   * Returns the page of modules following the given code, in code order.
+   * Only the page size of the pageable is used.
+   *
+   * The first page is read with findFirstPage rather than a null code, so
+   * that the condition here is a plain range the primary key can seek.
+   *
+   * @param after    the last code already read
+   * @param pageable the requested page size
+   * @return the next modules in code order
+   */
+  @RestResource(path = "after", rel = "after")
+  @Query("SELECT m FROM Module m WHERE m.code > :after ORDER BY m.code")
+  Slice<Module> findPageAfter(@Param("after") String after,
+      Pageable pageable);
+
+  /**
+   * Returns a module, holding a database row lock on it until the current
+   * transaction ends.
+   *
+   * Registrations take this lock before counting a module's seats, so
+   * capacity checks are serialised per module across every application
+   * instance sharing the database.
+   *
+   * @param code the module code
+   * @return the locked module, or empty if it does not exist
+   */
+  @RestResource(exported = false)
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @Query("SELECT m FROM Module m WHERE m.code = :code")
+  Optional<Module> findByIdForUpdate(@Param("code") String code);
+
+  /**
+   * Returns the given modules, holding a row lock on each until the
+   * current transaction ends. Rows are locked in code order so that
+   * concurrent callers cannot deadlock.
+   *
+   * @param codes the module codes
+   * @return the locked modules that exist, in code order
+   */
+  @RestResource(exported = false)
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @Query("SELECT m FROM Module m WHERE m.code IN :codes ORDER BY m.code")
+  List<Module> findAllByIdForUpdate(@Param("codes") Collection<String> codes);
+
+  /**
+   * Returns all mandatory non-condonable (MNC) modules, holding a row lock
+   * on each until the current transaction ends. Rows are locked in code
+   * order so that concurrent callers cannot deadlock.
+   *
+   * @return the locked MNC modules, in code order
+   */
+  @RestResource(exported = false)
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @Query("SELECT m FROM Module m WHERE m.mnc = true ORDER BY m.code")
+  List<Module> findMncForUpdate();
 }
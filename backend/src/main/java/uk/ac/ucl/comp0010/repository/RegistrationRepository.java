@@ -1,18 +1,233 @@
 package uk.ac.ucl.comp0010.repository;
 
+import jakarta.persistence.QueryHint;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.PagingAndSortingRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.data.rest.core.annotation.RepositoryRestResource;
+import org.springframework.data.rest.core.annotation.RestResource;
+import uk.ac.ucl.comp0010.model.Module;
 import uk.ac.ucl.comp0010.model.Registration;
+import uk.ac.ucl.comp0010.projection.ModuleEnrolment;
+import uk.ac.ucl.comp0010.projection.RegistrationKey;
+import uk.ac.ucl.comp0010.projection.RosterEntry;
 
 /**
  * Repository interface for managing Registration entities.
  *
- * Registration data can be accessed at /registrations
+ * Registration data can be accessed at /registrations, which supports the
+ * page, size and sort parameters. Deep pages are better read with
+ * /registrations/search/first and then /registrations/search/after, which
+ * seeks past the last ID seen.
  */
 @RepositoryRestResource(path = "registrations",
             collectionResourceRel = "registrations",
             itemResourceRel = "registration")
 public interface RegistrationRepository
-  extends CrudRepository<Registration, Long> {
-  // Additional custom queries can be defined here if needed.
+  extends CrudRepository<Registration, Long>,
+    PagingAndSortingRepository<Registration, Long> {
+
+  /**
+   * Returns the first page of registrations in ID order. Only the page
+   * size of the pageable is used.
+   *
+   * @param pageable the requested page size
+   * @return the first registrations in ID order
+   */
+  @RestResource(path = "first", rel = "first")
+  @Query("SELECT r FROM Registration r ORDER BY r.id")
+  Slice<Registration> findFirstPage(Pageable pageable);
+
+  /**
+   * Returns the page of registrations following the given ID, in ID order.
+   * Only the page size of the pageable is used.
+   *
+   * The first page is read with findFirstPage rather than a null ID, so
+   * that the condition here is a plain range the primary key can seek.
+   *
+   * @param after    the last ID already read
+   * @param pageable the requested page size
+   * @return the next registrations in ID order
+   */
+  @RestResource(path = "after", rel = "after")
+  @Query("SELECT r FROM Registration r WHERE r.id > :after ORDER BY r.id")
+  Slice<Registration> findPageAfter(@Param("after") Long after,
+      Pageable pageable);
+
+  /**
+   * Returns the roster of a module: every enrolled student joined with
+   * their grade for that module, in a single query.
+   *
+   * A student holding several grades for the module yields one row per
+   * grade, ordered by grade ID, so callers keep the first row per student.
+   *
+   * @param code the module code
+   * @return the roster rows, ordered by registration and then grade ID
+   */
+  @RestResource(exported = false)
+  @Query("SELECT s.id AS id, s.firstName AS firstName,"
+      + " s.lastName AS lastName, s.email AS email,"
+      + " g.score AS grade, g.id AS gradeId"
+      + " FROM Registration r JOIN r.student s"
+      + " LEFT JOIN Grade g ON g.student = s AND g.module = r.module"
+      + " WHERE r.module.code = :code"
+      + " ORDER BY r.id, g.id")
+  List<RosterEntry> findRosterByModuleCode(@Param("code") String code);
+
+  /**
+   * Returns the modules a student is registered in, in a single query.
+   *
+   * @param studentId the student ID
+   * @return the student's modules, ordered by module code
+   */
+  @RestResource(exported = false)
+  @Query("SELECT m FROM Registration r JOIN r.module m"
+      + " WHERE r.student.id = :studentId ORDER BY m.code")
+  List<Module> findModulesByStudentId(@Param("studentId") Long studentId);
+
+  /**
+   * Returns the registration keys of the given students, for checking
+   * enrolment of many students at once.
+   *
+   * @param studentIds the IDs of the students
+   * @return one key per registration of those students
+   */
+  @RestResource(exported = false)
+  @Query("SELECT r.student.id AS studentId, r.module.code AS moduleCode"
+      + " FROM Registration r WHERE r.student.id IN :studentIds")
+  List<RegistrationKey> findKeysByStudentIds(
+      @Param("studentIds") Collection<Long> studentIds);
+
+  /**
+   * Returns the number of students enrolled in each of the given modules.
+   * Modules without registrations are omitted.
+   *
+   * @param codes the module codes
+   * @return the enrolment count of each module that has registrations
+   */
+  @RestResource(exported = false)
+  @Query("SELECT r.module.code AS moduleCode, COUNT(r) AS enrolled"
+      + " FROM Registration r WHERE r.module.code IN :codes"
+      + " GROUP BY r.module.code")
+  List<ModuleEnrolment> countByModuleCodes(
+      @Param("codes") Collection<String> codes);
+
+  /**
+   * Returns the number of students enrolled in a module, without loading
+   * the module's registrations.
+   *
+   * @param code the module code
+   * @return the number of registrations for the module
+   */
+  @RestResource(exported = false)
+  long countByModuleCode(String code);
+
+  /**
+   * Returns whether a student is registered in a module, without loading
+   * the module's registrations.
+   *
+   * @param studentId the student ID
+   * @param code      the module code
+   * @return true if the registration exists
+   */
+  @RestResource(exported = false)
+  boolean existsByStudentIdAndModuleCode(Long studentId, String code);
+
+  /**
+   * Returns a student's registration in a module, without loading the
+   * module's registrations.
+   *
+   * @param studentId the student ID
+   * @param code      the module code
+   * @return the registration, or empty if the student is not registered
+   */
+  @RestResource(exported = false)
+  Optional<Registration> findByStudentIdAndModuleCode(Long studentId,
+      String code);
+
+  /**
+   * Returns which of the given students are registered in a module.
+   *
+   * @param code       the module code
+   * @param studentIds the IDs of the students to check
+   * @return the IDs of those students registered in the module
+   */
+  @RestResource(exported = false)
+  @Query("SELECT r.student.id FROM Registration r"
+      + " WHERE r.module.code = :code AND r.student.id IN :studentIds")
+  List<Long> findRegisteredStudentIds(@Param("code") String code,
+      @Param("studentIds") Collection<Long> studentIds);
+
+  /**
+   * Returns, for each MNC module, how many of the given students are
+   * already registered in it. Modules none of them are registered in are
+   * omitted.
+   *
+   * @param studentIds the IDs of the students
+   * @return the number of those students registered in each MNC module
+   */
+  @RestResource(exported = false)
+  @Query("SELECT r.module.code AS moduleCode, COUNT(r) AS enrolled"
+      + " FROM Registration r"
+      + " WHERE r.module.mnc = true AND r.student.id IN :studentIds"
+      + " GROUP BY r.module.code")
+  List<ModuleEnrolment> countMncRegistrationsOf(
+      @Param("studentIds") Collection<Long> studentIds);
+
+  /**
+   * Registers every given student in a module with one INSERT ... SELECT
+   * statement. Unknown students and students already registered are
+   * skipped. Capacity is not checked here.
+   *
+   * The statement is native so that the IDs come from the column default
+   * in the same statement; a JPQL insert would fetch them from the pooled
+   * generator a row at a time. It names the registration table as the only
+   * one it touches, so the second-level cache is left intact.
+   *
+   * @param code       the module code
+   * @param studentIds the IDs of the students to register
+   * @return the number of registrations created
+   */
+  @RestResource(exported = false)
+  @Modifying
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES,
+      value = "registration"))
+  @Query(nativeQuery = true, value = "INSERT INTO registration"
+      + " (student_id, module_code)"
+      + " SELECT s.id, m.code FROM student s, module m"
+      + " WHERE m.code = :code AND s.id IN :studentIds"
+      + " AND NOT EXISTS (SELECT 1 FROM registration r"
+      + " WHERE r.student_id = s.id AND r.module_code = m.code)")
+  int insertAll(@Param("code") String code,
+      @Param("studentIds") Collection<Long> studentIds);
+
+  /**
+   * Registers every given student in every MNC module with one
+   * INSERT ... SELECT statement, native for the same reasons as
+   * insertAll. Unknown students and existing registrations are skipped.
+   * Capacity is not checked here.
+   *
+   * @param studentIds the IDs of the students to register
+   * @return the number of registrations created
+   */
+  @RestResource(exported = false)
+  @Modifying
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES,
+      value = "registration"))
+  @Query(nativeQuery = true, value = "INSERT INTO registration"
+      + " (student_id, module_code)"
+      + " SELECT s.id, m.code FROM student s, module m"
+      + " WHERE m.mnc = TRUE AND s.id IN :studentIds"
+      + " AND NOT EXISTS (SELECT 1 FROM registration r"
+      + " WHERE r.student_id = s.id AND r.module_code = m.code)")
+  int insertAllIntoMncModules(@Param("studentIds") Collection<Long> studentIds);
 }
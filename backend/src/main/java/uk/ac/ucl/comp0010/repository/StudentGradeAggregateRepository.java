@@ -0,0 +1,121 @@
+package uk.ac.ucl.comp0010.repository;
+
+import java.util.Collection;
+import java.util.List;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.data.rest.core.annotation.RepositoryRestResource;
+import uk.ac.ucl.comp0010.model.StudentGradeAggregate;
+
+/**
+ * Repository interface for managing StudentGradeAggregate entities.
+ *
+ * The aggregates are maintained by GradeAggregateService and are not
+ * exported over REST; they are read through /students/{id}/average.
+ * Every update is a single atomic statement, so concurrent grade changes
+ * for the same student cannot lose increments.
+ */
+@RepositoryRestResource(exported = false)
+public interface StudentGradeAggregateRepository
+    extends CrudRepository<StudentGradeAggregate, Long> {
+
+  /**
+   * Adds a batch of grades to the aggregate of a student.
+   *
+   * @param id      the student ID
+   * @param count   the number of grades added
+   * @param sum     the sum of their scores
+   * @param squares the sum of their squared scores
+   * @param min     the lowest of their scores
+   * @param max     the highest of their scores
+   * @return the number of aggregates updated: 0 if the aggregate does not
+   *         exist yet
+   */
+  @Modifying
+  @Query("UPDATE StudentGradeAggregate a"
+      + " SET a.gradeCount = a.gradeCount + :count,"
+      + " a.scoreSum = a.scoreSum + :sum,"
+      + " a.scoreSumSquares = a.scoreSumSquares + :squares,"
+      + " a.minScore = CASE WHEN a.minScore IS NULL OR a.minScore > :min"
+      + " THEN :min ELSE a.minScore END,"
+      + " a.maxScore = CASE WHEN a.maxScore IS NULL OR a.maxScore < :max"
+      + " THEN :max ELSE a.maxScore END"
+      + " WHERE a.studentId = :id")
+  int add(@Param("id") Long id, @Param("count") long count,
+      @Param("sum") long sum, @Param("squares") long squares,
+      @Param("min") int min, @Param("max") int max);
+
+  /**
+   * Removes a grade from the aggregate of a student. The grade must already
+   * be deleted or changed in the database: if it held the lowest or
+   * highest score, that bound is re-read from the student's grades.
+   *
+   * @param id    the student ID
+   * @param score the score of the grade removed
+   * @return the number of aggregates updated: 0 if the aggregate does not
+   *         exist
+   */
+  @Modifying(flushAutomatically = true)
+  @Query("UPDATE StudentGradeAggregate a SET a.gradeCount = a.gradeCount - 1,"
+      + " a.scoreSum = a.scoreSum - :score,"
+      + " a.scoreSumSquares = a.scoreSumSquares - :score * :score,"
+      + " a.minScore = CASE WHEN a.minScore < :score THEN a.minScore"
+      + " ELSE (SELECT MIN(g.score) FROM Grade g"
+      + " WHERE g.student.id = a.studentId) END,"
+      + " a.maxScore = CASE WHEN a.maxScore > :score THEN a.maxScore"
+      + " ELSE (SELECT MAX(g.score) FROM Grade g"
+      + " WHERE g.student.id = a.studentId) END"
+      + " WHERE a.studentId = :id")
+  int remove(@Param("id") Long id, @Param("score") int score);
+
+  /**
+   * Recomputes the aggregates of the given students from their grades.
+   *
+   * @param ids the student IDs
+   * @return the number of aggregates updated
+   */
+  @Modifying(flushAutomatically = true)
+  @Query("UPDATE StudentGradeAggregate a SET"
+      + " a.gradeCount = (SELECT COUNT(g) FROM Grade g"
+      + " WHERE g.student.id = a.studentId),"
+      + " a.scoreSum = (SELECT COALESCE(SUM(g.score), 0) FROM Grade g"
+      + " WHERE g.student.id = a.studentId),"
+      + " a.scoreSumSquares = (SELECT COALESCE(SUM(g.score * g.score), 0)"
+      + " FROM Grade g WHERE g.student.id = a.studentId),"
+      + " a.minScore = (SELECT MIN(g.score) FROM Grade g"
+      + " WHERE g.student.id = a.studentId),"
+      + " a.maxScore = (SELECT MAX(g.score) FROM Grade g"
+      + " WHERE g.student.id = a.studentId)"
+      + " WHERE a.studentId IN :ids")
+  int refresh(@Param("ids") Collection<Long> ids);
+
+  /**
+   * Returns the students whose aggregate no longer matches their grades.
+   *
+   * @return the student IDs of drifted aggregates
+   */
+  @Query("SELECT a.studentId FROM StudentGradeAggregate a"
+      + " WHERE a.gradeCount <> (SELECT COUNT(g) FROM Grade g"
+      + " WHERE g.student.id = a.studentId)"
+      + " OR a.scoreSum <> (SELECT COALESCE(SUM(g.score), 0) FROM Grade g"
+      + " WHERE g.student.id = a.studentId)"
+      + " OR a.scoreSumSquares <> (SELECT COALESCE(SUM(g.score * g.score),"
+      + " 0) FROM Grade g WHERE g.student.id = a.studentId)"
+      + " OR COALESCE(a.minScore, -1) <> COALESCE((SELECT MIN(g.score)"
+      + " FROM Grade g WHERE g.student.id = a.studentId), -1)"
+      + " OR COALESCE(a.maxScore, -1) <> COALESCE((SELECT MAX(g.score)"
+      + " FROM Grade g WHERE g.student.id = a.studentId), -1)")
+  List<Long> findDrifted();
+
+  /**
+   * Returns the students that have grades but no aggregate.
+   *
+   * @return the student IDs lacking an aggregate
+   */
+  @Query("SELECT DISTINCT g.student.id FROM Grade g WHERE NOT EXISTS"
+      + " (SELECT 1 FROM StudentGradeAggregate a"
+      + " WHERE a.studentId = g.student.id)")
+  List<Long> findMissing();
+}
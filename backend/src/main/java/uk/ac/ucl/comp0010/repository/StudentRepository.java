@@ -1,17 +1,94 @@
 package uk.ac.ucl.comp0010.repository;
 
+import jakarta.persistence.QueryHint;
+import java.util.Collection;
+import java.util.List;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.PagingAndSortingRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.data.rest.core.annotation.RepositoryRestResource;
+import org.springframework.data.rest.core.annotation.RestResource;
 import uk.ac.ucl.comp0010.model.Student;
 
 /**
  * Repository interface for managing Student entities.
  *
- * Student data can be accessed at /students
+ * Student data can be accessed at /students, which supports the
+ * page, size and sort parameters. Deep pages are better read with
+ * /students/search/first and then /students/search/after, which seeks
+ * past the last ID seen.
+ *
+ * Lookups by username and email are served from the query cache until a
+ * student is next written.
  */
 @RepositoryRestResource(path = "students",
       collectionResourceRel = "students",
       itemResourceRel = "student")
-public interface StudentRepository extends CrudRepository<Student, Long> {
-  // Additional custom queries can be defined here if needed.
+public interface StudentRepository extends CrudRepository<Student, Long>,
+    PagingAndSortingRepository<Student, Long> {
+
+  /**
+   * Returns the first page of students in ID order. Only the page size of
+   * the pageable is used.
+   *
+   * @param pageable the requested page size
+   * @return the first students in ID order
+   */
+  @RestResource(path = "first", rel = "first")
+  @Query("SELECT s FROM Student s ORDER BY s.id")
+  Slice<Student> findFirstPage(Pageable pageable);
+
+  /**
+   * Returns the page of students following the given ID, in ID order.
+   * Only the page size of the pageable is used.
+   *
+   * The first page is read with findFirstPage rather than a null ID, so
+   * that the condition here is a plain range the primary key can seek.
+   *
+   * @param after    the last ID already read
+   * @param pageable the requested page size
+   * @return the next students in ID order
+   */
+  @RestResource(path = "after", rel = "after")
+  @Query("SELECT s FROM Student s WHERE s.id > :after ORDER BY s.id")
+  Slice<Student> findPageAfter(@Param("after") Long after,
+      Pageable pageable);
+
+  /**
+   * Returns which of the given IDs belong to existing students, without
+   * loading the students.
+   *
+   * @param ids the IDs to check
+   * @return the IDs that exist
+   */
+  @RestResource(exported = false)
+  @Query("SELECT s.id FROM Student s WHERE s.id IN :ids")
+  List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+  /**
+   * Returns the students with the given username.
+   *
+   * @param username the username
+   * @return the matching students
+   */
+  @RestResource(path = "byUsername", rel = "byUsername")
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE,
+      value = "true"))
+  List<Student> findByUsername(@Param("username") String username);
+
+  /**
+   * Returns the students with the given email.
+   *
+   * @param email the email
+   * @return the matching students
+   */
+  @RestResource(path = "byEmail", rel = "byEmail")
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE,
+      value = "true"))
+  List<Student> findByEmail(@Param("email") String email);
 }
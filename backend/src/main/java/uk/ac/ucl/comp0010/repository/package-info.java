@@ -1,6 +1,7 @@
 /**
  * This package contains repository interfaces for managing entities
  * such as grades, modules, registrations, and students.
- * These repositories extend CrudRepository and may be exposed over REST.
+ * These repositories extend CrudRepository and PagingAndSortingRepository
+ * and may be exposed over REST.
  */
 package uk.ac.ucl.comp0010.repository;
@@ -0,0 +1,75 @@
+package uk.ac.ucl.comp0010.service;
+
+import java.util.List;
+
+/**
+ * Summarises the outcome of registering many students at once: how many
+ * registrations were created, how many already existed, and which student
+ * IDs did not match any student.
+ */
+public final class BulkRegistration {
+
+  /** The codes of the modules students were registered in. */
+  private final List<String> modules;
+
+  /** The number of registrations created. */
+  private final int registered;
+
+  /** The number of requested registrations that already existed. */
+  private final int alreadyRegistered;
+
+  /** The requested IDs that do not belong to any student. */
+  private final List<Long> unknownStudents;
+
+  /**
+   * Constructs a BulkRegistration.
+   *
+   * @param moduleCodes     the codes of the modules registered in
+   * @param created         the number of registrations created
+   * @param existing        the number of registrations that already existed
+   * @param unknownIds      the requested IDs not matching any student
+   */
+  BulkRegistration(final List<String> moduleCodes, final int created,
+      final int existing, final List<Long> unknownIds) {
+    this.modules = List.copyOf(moduleCodes);
+    this.registered = created;
+    this.alreadyRegistered = existing;
+    this.unknownStudents = List.copyOf(unknownIds);
+  }
+
+  /**
+   * Returns the codes of the modules students were registered in.
+   *
+   * @return the module codes
+   */
+  public List<String> getModules() {
+    return modules;
+  }
+
+  /**
+   * Returns the number of registrations created.
+   *
+   * @return the number of registrations created
+   */
+  public int getRegistered() {
+    return registered;
+  }
+
+  /**
+   * Returns the number of requested registrations that already existed.
+   *
+   * @return the number of existing registrations skipped
+   */
+  public int getAlreadyRegistered() {
+    return alreadyRegistered;
+  }
+
+  /**
+   * Returns the requested IDs that do not belong to any student.
+   *
+   * @return the unknown student IDs, in request order
+   */
+  public List<Long> getUnknownStudents() {
+    return unknownStudents;
+  }
+}
@@ -0,0 +1,618 @@
+package uk.ac.ucl.comp0010.service;
+
+import jakarta.persistence.EntityManager;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import uk.ac.ucl.comp0010.model.AcademicYear;
+import uk.ac.ucl.comp0010.model.Grade;
+import uk.ac.ucl.comp0010.model.Module;
+import uk.ac.ucl.comp0010.model.Registration;
+import uk.ac.ucl.comp0010.model.Student;
+import uk.ac.ucl.comp0010.projection.ModuleEnrolment;
+import uk.ac.ucl.comp0010.projection.GradeKey;
+import uk.ac.ucl.comp0010.projection.RegistrationKey;
+import uk.ac.ucl.comp0010.repository.GradeRepository;
+import uk.ac.ucl.comp0010.repository.ModuleRepository;
+import uk.ac.ucl.comp0010.repository.RegistrationRepository;
+import uk.ac.ucl.comp0010.repository.StudentRepository;
+
+/**
+ * Imports students, registrations and grades from CSV.
+ *
+ * Input is streamed: rows are read in chunks, each chunk resolves its
+ * student and module references with one findAllById call per repository,
+ * checks enrolment against a set preloaded for the chunk, and is written
+ * in its own transaction. Memory use therefore depends on the chunk size,
+ * not on the size of the file. Invalid rows are rejected individually and
+ * listed in the returned ImportReport; they never abort the import. If a
+ * chunk's transaction fails regardless, its rows that were not rejected
+ * are written again one per transaction, so only the rows that fail on
+ * their own are rejected.
+ *
+ * Expected headers (columns may appear in any order):
+ * - students: id, firstName, lastName, username, email
+ * - registrations: student_id, module_code
+ * - grades: student_id, module_code, score, academic_year
+ */
+@Service
+public class CsvImportService {
+
+  /** Columns of a student import. */
+  private static final List<String> STUDENT_COLUMNS =
+      List.of("id", "firstName", "lastName", "username", "email");
+
+  /** Columns of a registration import. */
+  private static final List<String> REGISTRATION_COLUMNS =
+      List.of("student_id", "module_code");
+
+  /** Columns of a grade import. */
+  private static final List<String> GRADE_COLUMNS =
+      List.of("student_id", "module_code", "score", "academic_year");
+
+  /** The lowest score a grade may hold. */
+  private static final int MIN_SCORE = 0;
+
+  /** The highest score a grade may hold. */
+  private static final int MAX_SCORE = 100;
+
+  /** Repository for Student entities. */
+  private final StudentRepository studentRepository;
+  /** Repository for Module entities. */
+  private final ModuleRepository moduleRepository;
+  /** Repository for Registration entities. */
+  private final RegistrationRepository registrationRepository;
+  /** Repository for Grade entities. */
+  private final GradeRepository gradeRepository;
+  /** Service maintaining the grade aggregates. */
+  private final GradeAggregateService aggregateService;
+  /** Entity manager used to persist and detach imported rows. */
+  private final EntityManager entityManager;
+  /** Runs each chunk in its own transaction. */
+  private final TransactionTemplate transactionTemplate;
+  /** The number of rows written per transaction. */
+  private final int chunkSize;
+
+  /**
+   * Constructs a CsvImportService.
+   *
+   * @param studRepo      the repository for Student entities
+   * @param modRepo       the repository for Module entities
+   * @param regRepo       the repository for Registration entities
+   * @param gRepo         the repository for Grade entities
+   * @param aggService    the service maintaining the grade aggregates
+   * @param em            the entity manager
+   * @param txManager     the transaction manager
+   * @param newChunkSize  the number of rows written per transaction
+   */
+  public CsvImportService(final StudentRepository studRepo,
+      final ModuleRepository modRepo,
+      final RegistrationRepository regRepo,
+      final GradeRepository gRepo,
+      final GradeAggregateService aggService,
+      final EntityManager em,
+      final PlatformTransactionManager txManager,
+      @Value("${gms.import.chunk-size:1000}") final int newChunkSize) {
+    this.studentRepository = studRepo;
+    this.moduleRepository = modRepo;
+    this.registrationRepository = regRepo;
+    this.gradeRepository = gRepo;
+    this.aggregateService = aggService;
+    this.entityManager = em;
+    this.transactionTemplate = new TransactionTemplate(txManager);
+    this.chunkSize = newChunkSize;
+  }
+
+  /**
+   * Imports students. Rows whose ID already exists, or with a blank name,
+   * username or email, are rejected.
+   *
+   * @param in the CSV input
+   * @return the import report
+   * @throws IOException              if the input cannot be read
+   * @throws IllegalArgumentException if the header is missing a column
+   */
+  public ImportReport importStudents(final Reader in) throws IOException {
+    return importRows(in, STUDENT_COLUMNS, this::writeStudents);
+  }
+
+  /**
+   * Imports registrations. Rows referring to unknown students or modules,
+   * duplicating an existing registration, or exceeding a module's
+   * capacity are rejected.
+   *
+   * @param in the CSV input
+   * @return the import report
+   * @throws IOException              if the input cannot be read
+   * @throws IllegalArgumentException if the header is missing a column
+   */
+  public ImportReport importRegistrations(final Reader in)
+      throws IOException {
+    return importRows(in, REGISTRATION_COLUMNS, this::writeRegistrations);
+  }
+
+  /**
+   * Imports grades. Rows with a score outside 0 to 100, referring to
+   * unknown students or modules, to a student not registered in the
+   * module, or to a grade already recorded for the student in the module
+   * and academic year, are rejected. The grade aggregates are updated with
+   * each chunk, in its transaction.
+   *
+   * @param in the CSV input
+   * @return the import report
+   * @throws IOException              if the input cannot be read
+   * @throws IllegalArgumentException if the header is missing a column
+   */
+  public ImportReport importGrades(final Reader in) throws IOException {
+    return importRows(in, GRADE_COLUMNS, this::writeGrades);
+  }
+
+  /**
+   * Reads the header, then streams the remaining rows through the writer
+   * one chunk at a time.
+   *
+   * @param in      the CSV input
+   * @param columns the required columns, in the order the writer expects
+   * @param writer  writes one chunk of rows
+   * @return the import report
+   * @throws IOException if the input cannot be read
+   */
+  private ImportReport importRows(final Reader in, final List<String> columns,
+      final ChunkWriter writer) throws IOException {
+    long start = System.nanoTime();
+    ImportReport report = new ImportReport();
+    CsvRecordReader reader = new CsvRecordReader(in);
+
+    List<String> header = reader.readRecord();
+    if (header == null) {
+      throw new IllegalArgumentException("Missing header row");
+    }
+    int[] positions = new int[columns.size()];
+    for (int i = 0; i < columns.size(); i++) {
+      positions[i] = indexOfIgnoreCase(header, columns.get(i));
+      if (positions[i] < 0) {
+        throw new IllegalArgumentException(
+            "Missing column '" + columns.get(i) + "'");
+      }
+    }
+
+    List<CsvRow> chunk = new ArrayList<>(chunkSize);
+    List<String> record;
+    while ((record = reader.readRecord()) != null) {
+      report.rowRead();
+      if (record.size() < header.size()) {
+        report.reject(reader.getLineNumber(), "Expected " + header.size()
+            + " fields but found " + record.size());
+        continue;
+      }
+      String[] fields = new String[positions.length];
+      for (int i = 0; i < positions.length; i++) {
+        fields[i] = record.get(positions[i]);
+      }
+      chunk.add(new CsvRow(reader.getLineNumber(), fields));
+      if (chunk.size() == chunkSize) {
+        writeChunk(chunk, writer, report);
+        chunk.clear();
+      }
+    }
+    if (!chunk.isEmpty()) {
+      writeChunk(chunk, writer, report);
+    }
+
+    report.finish((System.nanoTime() - start) / 1_000_000);
+    return report;
+  }
+
+  /**
+   * Writes one chunk in its own transaction. If the transaction fails, the
+   * rows the writer had not rejected, including any it never reached, are
+   * written again one at a time, each in its own transaction, and a row
+   * failing on its own is rejected with the cause. One bad row thus costs
+   * the chunk a retry, not its other rows.
+   *
+   * @param chunk  the rows to write
+   * @param writer writes the rows
+   * @param report the report to record the outcome in
+   */
+  private void writeChunk(final List<CsvRow> chunk, final ChunkWriter writer,
+      final ImportReport report) {
+    List<CsvRow> accepted = new ArrayList<>(chunk.size());
+    Map<CsvRow, String> rejected = new LinkedHashMap<>();
+    try {
+      transactionTemplate.executeWithoutResult(status -> {
+        writer.write(chunk, accepted, rejected);
+        entityManager.flush();
+      });
+      report.rowsImported(accepted.size());
+    } catch (RuntimeException e) {
+      entityManager.clear();
+      if (chunk.size() > 1) {
+        for (CsvRow row : chunk) {
+          if (!rejected.containsKey(row)) {
+            writeChunk(List.of(row), writer, report);
+          }
+        }
+      } else if (rejected.isEmpty()) {
+        rejected.put(chunk.get(0), rootCauseMessage(e));
+      }
+    } finally {
+      entityManager.clear();
+    }
+    rejected.forEach((row, message) -> report.reject(row.line, message));
+  }
+
+  /**
+   * Writes a chunk of student rows.
+   *
+   * @param chunk    the rows to write
+   * @param accepted collects the rows that were persisted
+   * @param rejected collects the rows rejected, with the reason for each
+   */
+  private void writeStudents(final List<CsvRow> chunk,
+      final List<CsvRow> accepted, final Map<CsvRow, String> rejected) {
+    Map<CsvRow, Long> ids = new HashMap<>();
+    for (CsvRow row : chunk) {
+      Long id = parseLong(row.fields[0]);
+      if (id == null) {
+        rejected.put(row, "Invalid student id '" + row.fields[0] + "'");
+      } else {
+        ids.put(row, id);
+      }
+    }
+
+    Set<Long> taken = new HashSet<>();
+    studentRepository.findAllById(ids.values())
+        .forEach(s -> taken.add(s.getId()));
+
+    for (CsvRow row : chunk) {
+      Long id = ids.get(row);
+      if (id == null) {
+        continue;
+      }
+      String blank = firstBlank(row, STUDENT_COLUMNS);
+      if (blank != null) {
+        rejected.put(row, "Missing " + blank);
+        continue;
+      }
+      if (!taken.add(id)) {
+        rejected.put(row, "Student " + id + " already exists");
+        continue;
+      }
+      Student s = new Student();
+      s.setId(id);
+      s.setFirstName(row.fields[1]);
+      s.setLastName(row.fields[2]);
+      s.setUsername(row.fields[3]);
+      s.setEmail(row.fields[4]);
+      entityManager.persist(s);
+      accepted.add(row);
+    }
+  }
+
+  /**
+   * Writes a chunk of registration rows.
+   *
+   * @param chunk    the rows to write
+   * @param accepted collects the rows that were persisted
+   * @param rejected collects the rows rejected, with the reason for each
+   */
+  private void writeRegistrations(final List<CsvRow> chunk,
+      final List<CsvRow> accepted, final Map<CsvRow, String> rejected) {
+    References refs = resolve(chunk, rejected, true);
+
+    Map<String, Long> enrolled = new HashMap<>();
+    for (ModuleEnrolment e
+        : registrationRepository.countByModuleCodes(refs.modules.keySet())) {
+      enrolled.put(e.getModuleCode(), e.getEnrolled());
+    }
+
+    for (CsvRow row : chunk) {
+      Student s = refs.students.get(row);
+      Module m = refs.modules.get(row.fields[1]);
+      if (s == null || m == null) {
+        continue;
+      }
+      if (!refs.registered(s.getId()).add(m.getCode())) {
+        rejected.put(row, "Student " + s.getId()
+            + " already registered in " + m.getCode());
+        continue;
+      }
+      long count = enrolled.getOrDefault(m.getCode(), 0L);
+      if (count >= m.getMaxSeats()) {
+        rejected.put(row, "Module " + m.getCode()
+            + " capacity reached");
+        continue;
+      }
+      enrolled.put(m.getCode(), count + 1);
+
+      Registration r = new Registration();
+      r.setStudent(s);
+      r.setModule(m);
+      entityManager.persist(r);
+      accepted.add(row);
+    }
+  }
+
+  /**
+   * Writes a chunk of grade rows.
+   *
+   * @param chunk    the rows to write
+   * @param accepted collects the rows that were persisted
+   * @param rejected collects the rows rejected, with the reason for each
+   */
+  private void writeGrades(final List<CsvRow> chunk,
+      final List<CsvRow> accepted, final Map<CsvRow, String> rejected) {
+    References refs = resolve(chunk, rejected, false);
+
+    Set<List<Object>> recorded = new HashSet<>();
+    for (GradeKey key : gradeRepository.findKeysByStudentIds(
+        refs.students.values().stream().map(Student::getId).distinct()
+            .toList())) {
+      recorded.add(List.of(key.getStudentId(), key.getModuleCode(),
+          key.getAcademicYear()));
+    }
+
+    List<Grade> grades = new ArrayList<>(chunk.size());
+    for (CsvRow row : chunk) {
+      Student s = refs.students.get(row);
+      Module m = refs.modules.get(row.fields[1]);
+      if (s == null || m == null) {
+        continue;
+      }
+      Integer score = parseInt(row.fields[2]);
+      if (score == null) {
+        rejected.put(row, "Invalid score '" + row.fields[2] + "'");
+        continue;
+      }
+      if (score < MIN_SCORE || score > MAX_SCORE) {
+        rejected.put(row, "Score " + score + " is not between "
+            + MIN_SCORE + " and " + MAX_SCORE);
+        continue;
+      }
+      if (row.fields[3].isEmpty()) {
+        rejected.put(row, "Missing academic_year");
+        continue;
+      }
+      if (!AcademicYear.isValid(row.fields[3])) {
+        rejected.put(row,
+            "Invalid academic_year '" + row.fields[3] + "'");
+        continue;
+      }
+      if (!refs.registered(s.getId()).contains(m.getCode())) {
+        rejected.put(row, "Student " + s.getId()
+            + " not registered in " + m.getCode());
+        continue;
+      }
+      if (!recorded.add(List.of(s.getId(), m.getCode(), row.fields[3]))) {
+        rejected.put(row, "Student " + s.getId() + " already has a"
+            + " grade in " + m.getCode() + " for " + row.fields[3]);
+        continue;
+      }
+
+      Grade g = new Grade();
+      g.setStudent(s);
+      g.setModule(m);
+      g.setScore(score);
+      g.setAcademicYear(row.fields[3]);
+      entityManager.persist(g);
+      grades.add(g);
+      accepted.add(row);
+    }
+    aggregateService.recordAdded(grades);
+  }
+
+  /**
+   * Resolves the student_id and module_code columns of a chunk with one
+   * findAllById call per repository, and preloads the registrations of
+   * the chunk's students. Rows with an invalid or unknown reference are
+   * rejected and left out of the result.
+   *
+   * When registering, the modules are locked before the registrations are
+   * read, so seat counts and enrolment checks cannot race with other
+   * registrations into the same modules.
+   *
+   * @param chunk       the rows to resolve; fields 0 and 1 hold the
+   *                    references
+   * @param rejected    collects the rows rejected, with the reason for each
+   * @param lockModules whether to lock the chunk's modules
+   * @return the resolved students and modules
+   */
+  private References resolve(final List<CsvRow> chunk,
+      final Map<CsvRow, String> rejected, final boolean lockModules) {
+    Map<CsvRow, Long> studentIds = new HashMap<>();
+    Set<String> codes = new HashSet<>();
+    for (CsvRow row : chunk) {
+      Long id = parseLong(row.fields[0]);
+      if (id == null) {
+        rejected.put(row, "Invalid student_id '" + row.fields[0] + "'");
+      } else {
+        studentIds.put(row, id);
+        codes.add(row.fields[1]);
+      }
+    }
+
+    References refs = new References();
+    Iterable<Module> modules = lockModules
+        ? moduleRepository.findAllByIdForUpdate(codes)
+        : moduleRepository.findAllById(codes);
+    modules.forEach(m -> refs.modules.put(m.getCode(), m));
+    Map<Long, Student> students = new HashMap<>();
+    studentRepository.findAllById(new HashSet<>(studentIds.values()))
+        .forEach(s -> students.put(s.getId(), s));
+    for (RegistrationKey key
+        : registrationRepository.findKeysByStudentIds(students.keySet())) {
+      refs.registered(key.getStudentId()).add(key.getModuleCode());
+    }
+
+    for (CsvRow row : chunk) {
+      Long id = studentIds.get(row);
+      if (id == null) {
+        continue;
+      }
+      Student s = students.get(id);
+      if (s == null) {
+        rejected.put(row, "Student " + id + " not found");
+      } else if (!refs.modules.containsKey(row.fields[1])) {
+        rejected.put(row, "Module " + row.fields[1] + " not found");
+      } else {
+        refs.students.put(row, s);
+      }
+    }
+    return refs;
+  }
+
+  /**
+   * Returns the message of the innermost cause of an exception.
+   *
+   * @param e the exception
+   * @return the root cause's message
+   */
+  private static String rootCauseMessage(final Throwable e) {
+    Throwable cause = e;
+    while (cause.getCause() != null && cause.getCause() != cause) {
+      cause = cause.getCause();
+    }
+    return cause.getMessage() != null ? cause.getMessage()
+        : cause.getClass().getSimpleName();
+  }
+
+  /**
+   * Returns the first of a row's fields, after the key in field 0, that
+   * is blank.
+   *
+   * @param row     the row
+   * @param columns the names of the row's fields
+   * @return the column name of the first blank field, or null if none is
+   */
+  private static String firstBlank(final CsvRow row,
+      final List<String> columns) {
+    for (int i = 1; i < row.fields.length; i++) {
+      if (row.fields[i].isBlank()) {
+        return columns.get(i);
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Finds a column in a header row, ignoring case.
+   *
+   * @param header the header fields
+   * @param column the column name
+   * @return the column's index, or -1 if absent
+   */
+  private static int indexOfIgnoreCase(final List<String> header,
+      final String column) {
+    for (int i = 0; i < header.size(); i++) {
+      if (header.get(i).toLowerCase(Locale.ROOT)
+          .equals(column.toLowerCase(Locale.ROOT))) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Parses a long, returning null instead of throwing.
+   *
+   * @param value the text to parse
+   * @return the parsed value, or null if the text is not a long
+   */
+  private static Long parseLong(final String value) {
+    try {
+      return Long.valueOf(value);
+    } catch (NumberFormatException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Parses an int, returning null instead of throwing.
+   *
+   * @param value the text to parse
+   * @return the parsed value, or null if the text is not an int
+   */
+  private static Integer parseInt(final String value) {
+    try {
+      return Integer.valueOf(value);
+    } catch (NumberFormatException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Writes one chunk of rows inside a transaction.
+   */
+  @FunctionalInterface
+  private interface ChunkWriter {
+
+    /**
+     * Persists the valid rows of a chunk.
+     *
+     * @param chunk    the rows to write
+     * @param accepted collects the rows that were persisted
+     * @param report   the report to record rejections in
+     */
+    void write(List<CsvRow> chunk, List<CsvRow> accepted,
+        Map<CsvRow, String> rejected);
+  }
+
+  /**
+   * A data row of the input, with its fields ordered as the writer expects.
+   */
+  private static final class CsvRow {
+
+    /** The line number the row was read from. */
+    private final long line;
+
+    /** The row's fields, in the order of the required columns. */
+    private final String[] fields;
+
+    /**
+     * Constructs a CsvRow.
+     *
+     * @param newLine   the line number the row was read from
+     * @param newFields the row's fields
+     */
+    CsvRow(final long newLine, final String[] newFields) {
+      this.line = newLine;
+      this.fields = newFields;
+    }
+  }
+
+  /**
+   * The entities a chunk refers to, resolved in bulk.
+   */
+  private static final class References {
+
+    /** The resolved student of each row with valid references. */
+    private final Map<CsvRow, Student> students = new HashMap<>();
+
+    /** The referenced modules, by code. */
+    private final Map<String, Module> modules = new HashMap<>();
+
+    /** The module codes each student is registered in. */
+    private final Map<Long, Set<String>> registrations = new HashMap<>();
+
+    /**
+     * Returns the mutable set of module codes a student is registered in.
+     *
+     * @param studentId the student's ID
+     * @return the set of module codes
+     */
+    Set<String> registered(final Long studentId) {
+      return registrations.computeIfAbsent(studentId, id -> new HashSet<>());
+    }
+  }
+}
@@ -0,0 +1,95 @@
+package uk.ac.ucl.comp0010.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads comma-separated records one line at a time, so that arbitrarily
+ * large inputs can be processed without holding them in memory.
+ *
+ * Fields may be wrapped in double quotes to contain commas; a doubled
+ * quote inside a quoted field stands for one quote. Records may not span
+ * several lines. Blank lines are skipped.
+ */
+public final class CsvRecordReader {
+
+  /** The underlying line reader. */
+  private final BufferedReader reader;
+
+  /** The 1-based number of the last line read. */
+  private long lineNumber;
+
+  /**
+   * Constructs a CsvRecordReader over the given character stream.
+   *
+   * @param in the stream to read records from
+   */
+  public CsvRecordReader(final Reader in) {
+    this.reader = in instanceof BufferedReader
+        ? (BufferedReader) in : new BufferedReader(in);
+  }
+
+  /**
+   * Reads the next non-blank record.
+   *
+   * @return the record's fields, trimmed, or null at the end of the input
+   * @throws IOException if the underlying stream fails
+   */
+  public List<String> readRecord() throws IOException {
+    String line;
+    do {
+      line = reader.readLine();
+      if (line == null) {
+        return null;
+      }
+      lineNumber++;
+    } while (line.isBlank());
+    return parseLine(line);
+  }
+
+  /**
+   * Returns the number of the line the last record was read from.
+   *
+   * @return the 1-based line number
+   */
+  public long getLineNumber() {
+    return lineNumber;
+  }
+
+  /**
+   * Splits one line into its fields.
+   *
+   * @param line the line to split
+   * @return the trimmed fields of the line
+   */
+  static List<String> parseLine(final String line) {
+    List<String> fields = new ArrayList<>();
+    StringBuilder field = new StringBuilder();
+    boolean quoted = false;
+    for (int i = 0; i < line.length(); i++) {
+      char c = line.charAt(i);
+      if (quoted) {
+        if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+          field.append('"');
+          i++;
+        } else if (c == '"') {
+          quoted = false;
+        } else {
+          field.append(c);
+        }
+      } else if (c == '"') {
+        quoted = true;
+      } else if (c == ',') {
+        fields.add(field.toString().trim());
+        field.setLength(0);
+      } else {
+        field.append(c);
+      }
+    }
+    fields.add(field.toString().trim());
+    return fields;
+  }
+}
@@ -0,0 +1,247 @@
+package uk.ac.ucl.comp0010.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import java.util.Arrays;
+import java.util.StringJoiner;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import uk.ac.ucl.comp0010.config.DataVersionTracker;
+
+/**
+ * Loads a synthetic dataset into an empty database.
+ *
+ * Rows bypass the entities and are written a batch at a time, one
+ * transaction per batch, so memory use depends on the batch size only.
+ * Each batch is a single INSERT ... SELECT from H2's TABLE function, which
+ * binds one array per column and is faster than a JDBC batch of one-row
+ * inserts. Grade and registration IDs are assigned by the dataset, and
+ * their sequences are restarted past them afterwards, as the schema
+ * migrations do. The grade aggregates are then computed in the database
+ * with one statement each. Finally the second-level cache is cleared and
+ * the change is reported to the data version tracker, because none of
+ * these writes pass through Hibernate.
+ */
+@Service
+public class DatasetSeeder {
+
+  /** Logs the size and duration of each load. */
+  private static final Logger LOG =
+      LoggerFactory.getLogger(DatasetSeeder.class);
+
+  /** Writes SQL directly. */
+  private final JdbcTemplate jdbc;
+  /** Runs each batch in its own transaction. */
+  private final TransactionTemplate transactionTemplate;
+  /** The entity manager factory, whose second-level cache is cleared. */
+  private final EntityManagerFactory entityManagerFactory;
+  /** The tracker of the data version. */
+  private final DataVersionTracker versionTracker;
+  /** The number of rows inserted per batch. */
+  private final int batchSize;
+
+  /**
+   * Constructs a DatasetSeeder.
+   *
+   * @param jdbcTemplate the template writing SQL
+   * @param txManager    the transaction manager
+   * @param emf          the entity manager factory
+   * @param tracker      the tracker of the data version
+   * @param newBatchSize the number of rows inserted per batch
+   */
+  public DatasetSeeder(final JdbcTemplate jdbcTemplate,
+      final PlatformTransactionManager txManager,
+      final EntityManagerFactory emf, final DataVersionTracker tracker,
+      @Value("${gms.seed.batch-size:10000}") final int newBatchSize) {
+    this.jdbc = jdbcTemplate;
+    this.transactionTemplate = new TransactionTemplate(txManager);
+    this.entityManagerFactory = emf;
+    this.versionTracker = tracker;
+    this.batchSize = newBatchSize;
+  }
+
+  /**
+   * Returns whether the database holds no students and no modules, and so
+   * no registrations or grades either.
+   *
+   * @return true if the database is empty
+   */
+  public boolean isEmpty() {
+    return jdbc.queryForObject("SELECT NOT EXISTS (SELECT 1 FROM student)"
+        + " AND NOT EXISTS (SELECT 1 FROM module)", Boolean.class);
+  }
+
+  /**
+   * Loads a dataset, with its grade aggregates.
+   *
+   * @param dataset the dataset
+   * @return the number of rows inserted, excluding aggregates
+   * @throws IllegalStateException if the database is not empty
+   */
+  public long seed(final SyntheticDataset dataset) {
+    if (!isEmpty()) {
+      throw new IllegalStateException("The database is not empty");
+    }
+    long start = System.nanoTime();
+    BatchingSink sink = new BatchingSink();
+    try {
+      dataset.generate(sink);
+      sink.flushAll();
+      transactionTemplate.executeWithoutResult(status -> {
+        jdbc.update("ALTER SEQUENCE grade_seq"
+            + " RESTART WITH (SELECT COALESCE(MAX(id), 0) + 50 FROM grade)");
+        jdbc.update("ALTER SEQUENCE registration_seq RESTART WITH"
+            + " (SELECT COALESCE(MAX(id), 0) + 50 FROM registration)");
+        jdbc.update("INSERT INTO student_grade_aggregate (student_id,"
+            + " grade_count, score_sum, score_sum_squares, min_score,"
+            + " max_score) SELECT student_id, COUNT(*), SUM(score),"
+            + " SUM(score * score), MIN(score), MAX(score)"
+            + " FROM grade GROUP BY student_id");
+        jdbc.update("INSERT INTO module_grade_aggregate (module_code,"
+            + " grade_count, score_sum, score_sum_squares, min_score,"
+            + " max_score) SELECT module_code, COUNT(*), SUM(score),"
+            + " SUM(score * score), MIN(score), MAX(score)"
+            + " FROM grade GROUP BY module_code");
+      });
+    } finally {
+      entityManagerFactory.getCache().evictAll();
+      versionTracker.recordExternalWrite("student", "module",
+          "registration", "grade");
+    }
+
+    LOG.info("Seeded {} modules, {} students, {} registrations and {}"
+        + " grades in {} ms", sink.modules.count, sink.students.count,
+        sink.registrations.count, sink.grades.count,
+        (System.nanoTime() - start) / 1_000_000);
+    return sink.modules.count + sink.students.count
+        + sink.registrations.count + sink.grades.count;
+  }
+
+  /**
+   * Collects the rows of each table, and inserts them a batch at a time.
+   */
+  private final class BatchingSink implements SyntheticDataset.Sink {
+
+    /** The pending modules. */
+    private final Batch modules = new Batch("module", "code VARCHAR",
+        "name VARCHAR", "mnc BOOLEAN", "max_seats INT");
+    /** The pending students. */
+    private final Batch students = new Batch("student", "id BIGINT",
+        "first_name VARCHAR", "last_name VARCHAR", "username VARCHAR",
+        "email VARCHAR");
+    /** The pending registrations. */
+    private final Batch registrations = new Batch("registration",
+        "id BIGINT", "student_id BIGINT", "module_code VARCHAR");
+    /** The pending grades. */
+    private final Batch grades = new Batch("grade", "id BIGINT",
+        "student_id BIGINT", "module_code VARCHAR", "score INT",
+        "academic_year SMALLINT");
+
+    @Override
+    public void module(final String code, final String name,
+        final boolean mnc, final int maxSeats) {
+      modules.add(code, name, mnc, maxSeats);
+    }
+
+    @Override
+    public void student(final long id, final String firstName,
+        final String lastName, final String username, final String email) {
+      modules.flush();
+      students.add(id, firstName, lastName, username, email);
+    }
+
+    @Override
+    public void registration(final long id, final long studentId,
+        final String code) {
+      students.flush();
+      registrations.add(id, studentId, code);
+    }
+
+    @Override
+    public void grade(final long id, final long studentId, final String code,
+        final int score, final short startYear) {
+      registrations.flush();
+      grades.add(id, studentId, code, score, startYear);
+    }
+
+    /**
+     * Inserts every pending row, parents first.
+     */
+    void flushAll() {
+      modules.flush();
+      students.flush();
+      registrations.flush();
+      grades.flush();
+    }
+  }
+
+  /**
+   * The pending rows of one table, held column by column so that a batch
+   * is inserted by a single statement binding one array per column.
+   */
+  private final class Batch {
+
+    /** The insert statement. */
+    private final String sql;
+    /** The values of the pending rows, by column. */
+    private final Object[][] columns;
+    /** The number of pending rows. */
+    private int size;
+    /** The number of rows added. */
+    private long count;
+
+    /**
+     * Constructs a Batch.
+     *
+     * @param table        the table
+     * @param typedColumns the columns, each followed by its SQL type
+     */
+    Batch(final String table, final String... typedColumns) {
+      StringJoiner names = new StringJoiner(", ");
+      StringJoiner params = new StringJoiner(", ");
+      for (String column : typedColumns) {
+        names.add(column.substring(0, column.indexOf(' ')));
+        params.add(column + " = ?");
+      }
+      this.sql = "INSERT INTO " + table + " (" + names + ")"
+          + " SELECT * FROM TABLE(" + params + ")";
+      this.columns = new Object[typedColumns.length][batchSize];
+    }
+
+    /**
+     * Adds a row, inserting the batch once it is full.
+     *
+     * @param values the values of the row, in column order
+     */
+    void add(final Object... values) {
+      for (int c = 0; c < columns.length; c++) {
+        columns[c][size] = values[c];
+      }
+      size++;
+      count++;
+      if (size == batchSize) {
+        flush();
+      }
+    }
+
+    /**
+     * Inserts the pending rows in one transaction.
+     */
+    void flush() {
+      if (size == 0) {
+        return;
+      }
+      Object[] args = new Object[columns.length];
+      for (int c = 0; c < columns.length; c++) {
+        args[c] = Arrays.copyOf(columns[c], size);
+      }
+      transactionTemplate.executeWithoutResult(
+          status -> jdbc.update(sql, args));
+      size = 0;
+    }
+  }
+}
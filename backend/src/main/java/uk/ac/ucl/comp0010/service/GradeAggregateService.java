@@ -0,0 +1,350 @@
+package uk.ac.ucl.comp0010.service;
+
+import jakarta.persistence.EntityManager;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import uk.ac.ucl.comp0010.model.Grade;
+import uk.ac.ucl.comp0010.model.ModuleGradeAggregate;
+import uk.ac.ucl.comp0010.model.StudentGradeAggregate;
+import uk.ac.ucl.comp0010.repository.ModuleGradeAggregateRepository;
+import uk.ac.ucl.comp0010.repository.StudentGradeAggregateRepository;
+
+/**
+ * Maintains the per-student and per-module grade aggregates.
+ *
+ * Grade writes call the record methods inside their own transaction, so an
+ * aggregate changes exactly when its grades do. Each change is one atomic
+ * UPDATE per aggregate, applied in key order so that concurrent writers
+ * cannot deadlock. The first grade of a student or module creates its
+ * aggregate row in a separate short transaction, which tolerates another
+ * writer creating the same row concurrently.
+ *
+ * Writes that bypass the record methods, such as direct repository use,
+ * make the aggregates drift. A scheduled reconciliation compares every
+ * aggregate with its grades, logs any drift found and recomputes the
+ * drifted aggregates.
+ */
+@Service
+public class GradeAggregateService {
+
+  /** Logs drift found by reconciliation. */
+  private static final Logger LOG =
+      LoggerFactory.getLogger(GradeAggregateService.class);
+
+  /** The number of attempts made to create missing aggregate rows. */
+  private static final int CREATE_ATTEMPTS = 3;
+
+  /** Repository for per-student aggregates. */
+  private final StudentGradeAggregateRepository studentAggregates;
+  /** Repository for per-module aggregates. */
+  private final ModuleGradeAggregateRepository moduleAggregates;
+  /** Entity manager used to insert missing aggregate rows. */
+  private final EntityManager entityManager;
+  /** Runs the creation of missing aggregate rows in its own transaction. */
+  private final TransactionTemplate newTransaction;
+  /** Runs reconciliation in a transaction. */
+  private final TransactionTemplate transaction;
+
+  /**
+   * Constructs a GradeAggregateService.
+   *
+   * @param studAggRepo the repository for per-student aggregates
+   * @param modAggRepo  the repository for per-module aggregates
+   * @param em          the entity manager
+   * @param txManager   the transaction manager
+   */
+  public GradeAggregateService(
+      final StudentGradeAggregateRepository studAggRepo,
+      final ModuleGradeAggregateRepository modAggRepo,
+      final EntityManager em,
+      final PlatformTransactionManager txManager) {
+    this.studentAggregates = studAggRepo;
+    this.moduleAggregates = modAggRepo;
+    this.entityManager = em;
+    this.newTransaction = new TransactionTemplate(txManager);
+    this.newTransaction.setPropagationBehavior(
+        TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    this.transaction = new TransactionTemplate(txManager);
+  }
+
+  /**
+   * Adds new grades to the aggregates of their students and modules,
+   * with one UPDATE per student and per module.
+   *
+   * @param grades the grades added
+   */
+  @Transactional
+  public void recordAdded(final Collection<Grade> grades) {
+    Map<Long, Totals> byStudent = new TreeMap<>();
+    Map<String, Totals> byModule = new TreeMap<>();
+    for (Grade g : grades) {
+      byStudent.computeIfAbsent(g.getStudent().getId(), id -> new Totals())
+          .add(g.getScore());
+      byModule.computeIfAbsent(g.getModule().getCode(), c -> new Totals())
+          .add(g.getScore());
+    }
+
+    for (Map.Entry<Long, Totals> e : byStudent.entrySet()) {
+      Totals t = e.getValue();
+      if (addToStudent(e.getKey(), t) == 0) {
+        createStudents(List.of(e.getKey()));
+        addToStudent(e.getKey(), t);
+      }
+    }
+    for (Map.Entry<String, Totals> e : byModule.entrySet()) {
+      Totals t = e.getValue();
+      if (addToModule(e.getKey(), t) == 0) {
+        createModules(List.of(e.getKey()));
+        addToModule(e.getKey(), t);
+      }
+    }
+  }
+
+  /**
+   * Removes a grade that has just been deleted from the aggregates of its
+   * student and module.
+   *
+   * @param grade the grade deleted
+   */
+  @Transactional
+  public void recordRemoved(final Grade grade) {
+    removeScore(grade, grade.getScore());
+  }
+
+  /**
+   * Replaces the old score of a grade with its new score in the aggregates
+   * of its student and module.
+   *
+   * @param grade    the grade, holding its new score
+   * @param oldScore the score the grade held before
+   */
+  @Transactional
+  public void recordScoreChanged(final Grade grade, final int oldScore) {
+    if (grade.getScore() == oldScore) {
+      return;
+    }
+    removeScore(grade, oldScore);
+    recordAdded(List.of(grade));
+  }
+
+  /**
+   * Recomputes the aggregates of the given students and modules from their
+   * grades, creating any that do not exist yet.
+   *
+   * @param studentIds the IDs of the students
+   * @param codes      the codes of the modules
+   */
+  @Transactional
+  public void refresh(final Collection<Long> studentIds,
+      final Collection<String> codes) {
+    if (!studentIds.isEmpty()) {
+      createStudents(studentIds);
+      studentAggregates.refresh(studentIds);
+    }
+    if (!codes.isEmpty()) {
+      createModules(codes);
+      moduleAggregates.refresh(codes);
+    }
+  }
+
+  /**
+   * Creates empty aggregates for the given student and module where none
+   * exist, each in its own short transaction. Writers that hold locks in a
+   * transaction of their own call this first, so that recording their
+   * grades never waits for a second connection while holding those locks.
+   *
+   * @param studentId the student ID
+   * @param code      the module code
+   */
+  public void ensureExists(final Long studentId, final String code) {
+    ensureExists(List.of(studentId), List.of(code));
+  }
+
+  /**
+   * Creates empty aggregates for the given students and modules where none
+   * exist, as for a single student and module, so that a batch of grades
+   * can be recorded in one transaction needing no other connection.
+   *
+   * @param studentIds the student IDs
+   * @param codes      the module codes
+   */
+  public void ensureExists(final Collection<Long> studentIds,
+      final Collection<String> codes) {
+    createStudents(studentIds);
+    createModules(codes);
+  }
+
+  /**
+   * Compares every aggregate with its grades, and recomputes those that
+   * have drifted or are missing.
+   *
+   * @return the number of aggregates recomputed
+   */
+  public int reconcile() {
+    Integer fixed = transaction.execute(status -> {
+      Set<Long> studentIds = new TreeSet<>(studentAggregates.findDrifted());
+      studentIds.addAll(studentAggregates.findMissing());
+      Set<String> codes = new TreeSet<>(moduleAggregates.findDrifted());
+      codes.addAll(moduleAggregates.findMissing());
+      if (!studentIds.isEmpty() || !codes.isEmpty()) {
+        LOG.warn("Grade aggregates drifted for students {} and modules {}",
+            studentIds, codes);
+        refresh(studentIds, codes);
+      }
+      return studentIds.size() + codes.size();
+    });
+    return fixed == null ? 0 : fixed;
+  }
+
+  /**
+   * Runs reconciliation periodically.
+   */
+  @Scheduled(fixedDelayString = "${gms.aggregates.reconcile-interval:PT15M}",
+      initialDelayString = "${gms.aggregates.reconcile-interval:PT15M}")
+  public void scheduledReconcile() {
+    reconcile();
+  }
+
+  /**
+   * Removes a score from the aggregates of a grade's student and module,
+   * recomputing them instead if they are missing.
+   *
+   * @param grade the grade
+   * @param score the score to remove
+   */
+  private void removeScore(final Grade grade, final int score) {
+    Long studentId = grade.getStudent().getId();
+    String code = grade.getModule().getCode();
+    if (studentAggregates.remove(studentId, score) == 0) {
+      refresh(List.of(studentId), List.of());
+    }
+    if (moduleAggregates.remove(code, score) == 0) {
+      refresh(List.of(), List.of(code));
+    }
+  }
+
+  /**
+   * Adds totals to a student's aggregate.
+   *
+   * @param studentId the student ID
+   * @param t         the totals to add
+   * @return the number of aggregates updated
+   */
+  private int addToStudent(final Long studentId, final Totals t) {
+    return studentAggregates.add(studentId, t.count, t.sum, t.squares,
+        t.min, t.max);
+  }
+
+  /**
+   * Adds totals to a module's aggregate.
+   *
+   * @param code the module code
+   * @param t    the totals to add
+   * @return the number of aggregates updated
+   */
+  private int addToModule(final String code, final Totals t) {
+    return moduleAggregates.add(code, t.count, t.sum, t.squares,
+        t.min, t.max);
+  }
+
+  /**
+   * Creates empty aggregates for the given students where none exist.
+   *
+   * @param studentIds the student IDs
+   */
+  private void createStudents(final Collection<Long> studentIds) {
+    createMissing(() -> {
+      Set<Long> missing = new HashSet<>(studentIds);
+      studentAggregates.findAllById(studentIds)
+          .forEach(a -> missing.remove(a.getStudentId()));
+      for (Long id : missing) {
+        entityManager.persist(new StudentGradeAggregate(id));
+      }
+    });
+  }
+
+  /**
+   * Creates empty aggregates for the given modules where none exist.
+   *
+   * @param codes the module codes
+   */
+  private void createModules(final Collection<String> codes) {
+    createMissing(() -> {
+      Set<String> missing = new HashSet<>(codes);
+      moduleAggregates.findAllById(codes)
+          .forEach(a -> missing.remove(a.getModuleCode()));
+      for (String code : missing) {
+        entityManager.persist(new ModuleGradeAggregate(code));
+      }
+    });
+  }
+
+  /**
+   * Runs an insertion of missing aggregates in its own transaction, so
+   * that the rows are visible to concurrent writers as soon as possible.
+   * If another transaction inserts the same rows first, the insertion is
+   * retried, and then finds them present.
+   *
+   * @param insert the insertion to run
+   */
+  private void createMissing(final Runnable insert) {
+    for (int attempt = 1;; attempt++) {
+      try {
+        newTransaction.executeWithoutResult(status -> insert.run());
+        return;
+      } catch (DataIntegrityViolationException e) {
+        if (attempt == CREATE_ATTEMPTS) {
+          throw e;
+        }
+      }
+    }
+  }
+
+  /**
+   * The count, sum, sum of squares, minimum and maximum of some scores.
+   */
+  private static final class Totals {
+
+    /** The number of scores. */
+    private long count;
+
+    /** The sum of the scores. */
+    private long sum;
+
+    /** The sum of the squared scores. */
+    private long squares;
+
+    /** The lowest score. */
+    private int min = Integer.MAX_VALUE;
+
+    /** The highest score. */
+    private int max = Integer.MIN_VALUE;
+
+    /**
+     * Adds a score.
+     *
+     * @param score the score
+     */
+    void add(final int score) {
+      count++;
+      sum += score;
+      squares += (long) score * score;
+      min = Math.min(min, score);
+      max = Math.max(max, score);
+    }
+  }
+}
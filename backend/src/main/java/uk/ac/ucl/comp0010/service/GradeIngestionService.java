@@ -0,0 +1,313 @@
+package uk.ac.ucl.comp0010.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import uk.ac.ucl.comp0010.model.Grade;
+import uk.ac.ucl.comp0010.model.Module;
+import uk.ac.ucl.comp0010.model.Student;
+import uk.ac.ucl.comp0010.projection.GradeKey;
+import uk.ac.ucl.comp0010.projection.RegistrationKey;
+import uk.ac.ucl.comp0010.repository.GradeRepository;
+import uk.ac.ucl.comp0010.repository.ModuleRepository;
+import uk.ac.ucl.comp0010.repository.RegistrationRepository;
+import uk.ac.ucl.comp0010.repository.StudentRepository;
+
+/**
+ * Ingests grades asynchronously: each submission is acknowledged with an
+ * IngestionTicket and placed on a bounded queue, which a scheduled writer
+ * drains in batches, each written in one transaction.
+ *
+ * A submission is refused when the queue is full, so that callers back off
+ * rather than the backlog growing without bound. A batch resolves its
+ * students, modules, registrations and existing grades with one query
+ * each, rejects the submissions that can no longer be saved, and records
+ * the rest together in the grade aggregates. If the batch fails for any
+ * reason, its submissions are written again one at a time, so that one bad
+ * submission cannot reject the others, and a submission that fails alone
+ * is rejected, so that no ticket stays QUEUED. Tickets are kept for
+ * gms.ingestion.ticket-retention after their last change.
+ */
+@Service
+public class GradeIngestionService {
+
+  /** Repository for Grade entities. */
+  private final GradeRepository gradeRepository;
+  /** Repository for Student entities. */
+  private final StudentRepository studentRepository;
+  /** Repository for Module entities. */
+  private final ModuleRepository moduleRepository;
+  /** Repository for Registration entities. */
+  private final RegistrationRepository registrationRepository;
+  /** Service maintaining the grade aggregates. */
+  private final GradeAggregateService aggregateService;
+  /** Entity manager used to persist the grades. */
+  private final EntityManager entityManager;
+  /** Runs each batch in its own transaction. */
+  private final TransactionTemplate transaction;
+  /** The submissions waiting to be written. */
+  private final BlockingQueue<Submission> queue;
+  /** The tickets issued, by ID. */
+  private final Cache<String, IngestionTicket> tickets;
+  /** The maximum number of submissions written per transaction. */
+  private final int batchSize;
+
+  /**
+   * Constructs a GradeIngestionService.
+   *
+   * @param gRepo         the repository for Grade entities
+   * @param studRepo      the repository for Student entities
+   * @param modRepo       the repository for Module entities
+   * @param regRepo       the repository for Registration entities
+   * @param aggService    the service maintaining the grade aggregates
+   * @param em            the entity manager
+   * @param txManager     the transaction manager
+   * @param capacity      the maximum number of submissions queued
+   * @param newBatchSize  the maximum number of submissions written per
+   *                      transaction
+   * @param retention     how long a ticket is kept after its last change
+   */
+  public GradeIngestionService(final GradeRepository gRepo,
+      final StudentRepository studRepo,
+      final ModuleRepository modRepo,
+      final RegistrationRepository regRepo,
+      final GradeAggregateService aggService,
+      final EntityManager em,
+      final PlatformTransactionManager txManager,
+      @Value("${gms.ingestion.queue-capacity:10000}") final int capacity,
+      @Value("${gms.ingestion.batch-size:500}") final int newBatchSize,
+      @Value("${gms.ingestion.ticket-retention:PT1H}")
+      final Duration retention) {
+    this.gradeRepository = gRepo;
+    this.studentRepository = studRepo;
+    this.moduleRepository = modRepo;
+    this.registrationRepository = regRepo;
+    this.aggregateService = aggService;
+    this.entityManager = em;
+    this.transaction = new TransactionTemplate(txManager);
+    this.queue = new ArrayBlockingQueue<>(capacity);
+    this.tickets = Caffeine.newBuilder().expireAfterWrite(retention).build();
+    this.batchSize = newBatchSize;
+  }
+
+  /**
+   * Queues a grade to be written.
+   *
+   * @param studentId    the ID of the student awarded the grade
+   * @param moduleCode   the code of the module the grade is for
+   * @param score        the score
+   * @param academicYear the academic year
+   * @return the QUEUED ticket, or empty if the queue is full
+   */
+  public Optional<IngestionTicket> submit(final Long studentId,
+      final String moduleCode, final int score, final String academicYear) {
+    IngestionTicket ticket =
+        IngestionTicket.queued(UUID.randomUUID().toString());
+    tickets.put(ticket.getId(), ticket);
+    if (!queue.offer(new Submission(ticket.getId(), studentId, moduleCode,
+        score, academicYear))) {
+      tickets.invalidate(ticket.getId());
+      return Optional.empty();
+    }
+    return Optional.of(ticket);
+  }
+
+  /**
+   * Returns the current state of a ticket.
+   *
+   * @param id the ticket ID
+   * @return the ticket, or empty if no such ticket was issued or it has
+   *         expired
+   */
+  public Optional<IngestionTicket> find(final String id) {
+    return Optional.ofNullable(tickets.getIfPresent(id));
+  }
+
+  /**
+   * Writes every queued submission, in batches. Runs periodically, and
+   * once more on shutdown so that no acknowledged submission is dropped.
+   */
+  @Scheduled(fixedDelayString = "${gms.ingestion.flush-interval:PT0.1S}")
+  @PreDestroy
+  public void flush() {
+    List<Submission> batch = new ArrayList<>(batchSize);
+    while (queue.drainTo(batch, batchSize) > 0) {
+      write(batch);
+      batch.clear();
+    }
+  }
+
+  /**
+   * Writes a batch of submissions in one transaction, then updates their
+   * tickets. If the batch fails, whether in the database or in mapping a
+   * submission to its row, a batch of several submissions is written again
+   * one at a time, and a single submission is rejected.
+   *
+   * @param batch the submissions to write
+   */
+  private void write(final List<Submission> batch) {
+    Map<String, Long> saved = new HashMap<>();
+    Map<String, String> rejected = new HashMap<>();
+    try {
+      Set<Long> studentIds = new HashSet<>();
+      Set<String> codes = new HashSet<>();
+      for (Submission s : batch) {
+        studentIds.add(s.studentId);
+        codes.add(s.moduleCode);
+      }
+      aggregateService.ensureExists(studentIds, codes);
+      transaction.executeWithoutResult(status ->
+          writeBatch(batch, studentIds, codes, saved, rejected));
+    } catch (RuntimeException e) {
+      if (batch.size() > 1) {
+        for (Submission s : batch) {
+          write(List.of(s));
+        }
+        return;
+      }
+      saved.clear();
+      rejected.clear();
+      rejected.put(batch.get(0).ticket, rootCauseMessage(e));
+    }
+    saved.forEach((ticket, gradeId) -> tickets.asMap()
+        .computeIfPresent(ticket, (k, t) -> t.committed(gradeId)));
+    rejected.forEach((ticket, reason) -> tickets.asMap()
+        .computeIfPresent(ticket, (k, t) -> t.rejected(reason)));
+  }
+
+  /**
+   * Saves the submissions of a batch that can still be saved, and records
+   * them in the grade aggregates.
+   *
+   * @param batch      the submissions to write
+   * @param studentIds the IDs of the batch's students
+   * @param codes      the codes of the batch's modules
+   * @param saved      collects the ID of each saved grade, by ticket
+   * @param rejected   collects the reason for each rejection, by ticket
+   */
+  private void writeBatch(final List<Submission> batch,
+      final Set<Long> studentIds, final Set<String> codes,
+      final Map<String, Long> saved, final Map<String, String> rejected) {
+    Map<Long, Student> students = new HashMap<>();
+    studentRepository.findAllById(studentIds)
+        .forEach(st -> students.put(st.getId(), st));
+    Map<String, Module> modules = new HashMap<>();
+    moduleRepository.findAllById(codes)
+        .forEach(m -> modules.put(m.getCode(), m));
+    Set<List<Object>> registered = new HashSet<>();
+    for (RegistrationKey key
+        : registrationRepository.findKeysByStudentIds(studentIds)) {
+      registered.add(List.of(key.getStudentId(), key.getModuleCode()));
+    }
+    Set<List<Object>> recorded = new HashSet<>();
+    for (GradeKey key : gradeRepository.findKeysByStudentIds(studentIds)) {
+      recorded.add(List.of(key.getStudentId(), key.getModuleCode(),
+          key.getAcademicYear()));
+    }
+
+    List<Grade> grades = new ArrayList<>(batch.size());
+    List<String> gradeTickets = new ArrayList<>(batch.size());
+    for (Submission s : batch) {
+      Student student = students.get(s.studentId);
+      Module module = modules.get(s.moduleCode);
+      if (student == null) {
+        rejected.put(s.ticket, "Student " + s.studentId + " not found");
+      } else if (module == null) {
+        rejected.put(s.ticket, "Module " + s.moduleCode + " not found");
+      } else if (!registered.contains(List.of(s.studentId, s.moduleCode))) {
+        rejected.put(s.ticket, "Student " + s.studentId
+            + " not registered in " + s.moduleCode);
+      } else if (!recorded.add(
+          List.of(s.studentId, s.moduleCode, s.academicYear))) {
+        rejected.put(s.ticket, "Student " + s.studentId + " already has a"
+            + " grade in " + s.moduleCode + " for " + s.academicYear);
+      } else {
+        Grade g = new Grade();
+        g.setStudent(student);
+        g.setModule(module);
+        g.setScore(s.score);
+        g.setAcademicYear(s.academicYear);
+        entityManager.persist(g);
+        grades.add(g);
+        gradeTickets.add(s.ticket);
+      }
+    }
+    aggregateService.recordAdded(grades);
+    entityManager.flush();
+    for (int i = 0; i < grades.size(); i++) {
+      saved.put(gradeTickets.get(i), grades.get(i).getId());
+    }
+  }
+
+  /**
+   * Returns the message of the innermost cause of an exception, or the
+   * name of its class if it has no message.
+   *
+   * @param e the exception
+   * @return the root cause's message
+   */
+  private static String rootCauseMessage(final Throwable e) {
+    Throwable cause = e;
+    while (cause.getCause() != null && cause.getCause() != cause) {
+      cause = cause.getCause();
+    }
+    return cause.getMessage() != null ? cause.getMessage()
+        : cause.getClass().getSimpleName();
+  }
+
+  /**
+   * A grade waiting to be written, with the ID of its ticket.
+   */
+  private static final class Submission {
+
+    /** The ticket ID. */
+    private final String ticket;
+
+    /** The ID of the student awarded the grade. */
+    private final Long studentId;
+
+    /** The code of the module the grade is for. */
+    private final String moduleCode;
+
+    /** The score. */
+    private final int score;
+
+    /** The academic year. */
+    private final String academicYear;
+
+    /**
+     * Constructs a Submission.
+     *
+     * @param ticketId the ticket ID
+     * @param student  the ID of the student awarded the grade
+     * @param code     the code of the module the grade is for
+     * @param value    the score
+     * @param year     the academic year
+     */
+    Submission(final String ticketId, final Long student, final String code,
+        final int value, final String year) {
+      this.ticket = ticketId;
+      this.studentId = student;
+      this.moduleCode = code;
+      this.score = value;
+      this.academicYear = year;
+    }
+  }
+}
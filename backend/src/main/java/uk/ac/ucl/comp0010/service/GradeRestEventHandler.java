@@ -0,0 +1,187 @@
+package uk.ac.ucl.comp0010.service;
+
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import org.springframework.data.rest.core.RepositoryConstraintViolationException;
+import org.springframework.data.rest.core.annotation.HandleAfterCreate;
+import org.springframework.data.rest.core.annotation.HandleAfterSave;
+import org.springframework.data.rest.core.annotation.HandleBeforeCreate;
+import org.springframework.data.rest.core.annotation.HandleBeforeSave;
+import org.springframework.data.rest.core.annotation.RepositoryEventHandler;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.Errors;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import uk.ac.ucl.comp0010.model.AcademicYear;
+import uk.ac.ucl.comp0010.model.Grade;
+
+/**
+ * Keeps the grade aggregates in step with grades written through the REST
+ * repository endpoints (POST /grades and PATCH /grades/{id}), which bypass
+ * GradeService.
+ *
+ * These writes commit before the events fire, so the aggregates of the
+ * grade's student and module are recomputed from their grades rather
+ * than adjusted. An update may move a grade to another student or
+ * module, so the student and module it held before are read as it is
+ * saved, and their aggregates are recomputed too.
+ *
+ * Grades are also validated before they are written, as GradeController
+ * does, so that an invalid academic year is refused with 400 Bad Request
+ * instead of failing in the converter that stores it.
+ */
+@Component
+@RepositoryEventHandler
+public class GradeRestEventHandler {
+
+  /** The request attribute holding the keys a grade held before saving. */
+  private static final String PREVIOUS_KEYS =
+      GradeRestEventHandler.class.getName() + ".previousKeys";
+
+  /** Service maintaining the grade aggregates. */
+  private final GradeAggregateService aggregateService;
+
+  /** Reads the keys of a grade as committed, bypassing Hibernate. */
+  private final JdbcTemplate jdbc;
+
+  /**
+   * Constructs a GradeRestEventHandler.
+   *
+   * @param aggService   the service maintaining the grade aggregates
+   * @param jdbcTemplate reads the keys of a grade as committed
+   */
+  public GradeRestEventHandler(final GradeAggregateService aggService,
+      final JdbcTemplate jdbcTemplate) {
+    this.aggregateService = aggService;
+    this.jdbc = jdbcTemplate;
+  }
+
+  /**
+   * Validates a grade about to be created through the REST repository
+   * endpoints.
+   *
+   * @param grade the grade about to be created
+   * @throws RepositoryConstraintViolationException if the grade is invalid
+   */
+  @HandleBeforeCreate
+  public void handleGradeCreating(final Grade grade) {
+    validate(grade);
+  }
+
+  /**
+   * Recomputes the aggregates affected by a grade created through the REST
+   * repository endpoints.
+   *
+   * @param grade the grade written
+   */
+  @HandleAfterCreate
+  public void handleGradeCreated(final Grade grade) {
+    if (grade.getStudent() == null || grade.getModule() == null) {
+      return;
+    }
+    aggregateService.refresh(List.of(grade.getStudent().getId()),
+        List.of(grade.getModule().getCode()));
+  }
+
+  /**
+   * Records the student and module a grade held before an update through
+   * the REST repository endpoints.
+   *
+   * The grade passed in already holds the new values, and may be managed
+   * by the session of the request, so the keys are read from the database
+   * with plain JDBC, which neither flushes the change nor sees it.
+   *
+   * @param grade the grade about to be saved
+   * @throws RepositoryConstraintViolationException if the grade is invalid
+   */
+  @HandleBeforeSave
+  public void handleGradeSaving(final Grade grade) {
+    validate(grade);
+    RequestAttributes attributes =
+        RequestContextHolder.getRequestAttributes();
+    if (attributes == null || grade.getId() == null) {
+      return;
+    }
+    List<Keys> keys = jdbc.query(
+        "SELECT student_id, module_code FROM grade WHERE id = ?",
+        (rs, row) -> new Keys(rs.getLong(1), rs.getString(2)),
+        grade.getId());
+    if (!keys.isEmpty()) {
+      attributes.setAttribute(PREVIOUS_KEYS, keys.get(0),
+          RequestAttributes.SCOPE_REQUEST);
+    }
+  }
+
+  /**
+   * Recomputes the aggregates affected by a grade updated through the REST
+   * repository endpoints: those of its student and module, and of the
+   * student and module it held before, if it moved.
+   *
+   * @param grade the grade written
+   */
+  @HandleAfterSave
+  public void handleGradeSaved(final Grade grade) {
+    Set<Long> studentIds = new TreeSet<>();
+    Set<String> codes = new TreeSet<>();
+    if (grade.getStudent() != null) {
+      studentIds.add(grade.getStudent().getId());
+    }
+    if (grade.getModule() != null) {
+      codes.add(grade.getModule().getCode());
+    }
+    RequestAttributes attributes =
+        RequestContextHolder.getRequestAttributes();
+    if (attributes != null && attributes.getAttribute(PREVIOUS_KEYS,
+        RequestAttributes.SCOPE_REQUEST) instanceof Keys previous) {
+      attributes.removeAttribute(PREVIOUS_KEYS,
+          RequestAttributes.SCOPE_REQUEST);
+      studentIds.add(previous.studentId);
+      codes.add(previous.moduleCode);
+    }
+    aggregateService.refresh(studentIds, codes);
+  }
+
+  /**
+   * Rejects a grade whose academic year does not name two consecutive
+   * years, such as "2024/2025". A grade without an academic year is left
+   * to the schema.
+   *
+   * @param grade the grade to validate
+   * @throws RepositoryConstraintViolationException if the grade is invalid
+   */
+  private static void validate(final Grade grade) {
+    String year = grade.getAcademicYear();
+    if (year != null && !AcademicYear.isValid(year)) {
+      Errors errors = new BeanPropertyBindingResult(grade, "grade");
+      errors.rejectValue("academicYear", "invalid",
+          "Invalid academic year '" + year + "'");
+      throw new RepositoryConstraintViolationException(errors);
+    }
+  }
+
+  /**
+   * The student and module a grade held.
+   */
+  private static final class Keys {
+
+    /** The ID of the student. */
+    private final Long studentId;
+
+    /** The code of the module. */
+    private final String moduleCode;
+
+    /**
+     * Constructs Keys.
+     *
+     * @param student the ID of the student
+     * @param module  the code of the module
+     */
+    Keys(final Long student, final String module) {
+      this.studentId = student;
+      this.moduleCode = module;
+    }
+  }
+}
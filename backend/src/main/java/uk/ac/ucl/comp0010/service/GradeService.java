@@ -0,0 +1,195 @@
+package uk.ac.ucl.comp0010.service;
+
+import java.util.List;
+import java.util.Optional;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import uk.ac.ucl.comp0010.model.AcademicYear;
+import uk.ac.ucl.comp0010.model.Grade;
+import uk.ac.ucl.comp0010.model.Module;
+import uk.ac.ucl.comp0010.model.Student;
+import uk.ac.ucl.comp0010.repository.GradeRepository;
+
+/**
+ * Adds, updates and deletes grades, keeping the grade aggregates of the
+ * affected student and module in step within the same transaction.
+ */
+@Service
+public class GradeService {
+
+  /** The number of attempts made to upsert a grade. */
+  private static final int UPSERT_ATTEMPTS = 3;
+
+  /** Repository for Grade entities. */
+  private final GradeRepository gradeRepository;
+  /** Service maintaining the grade aggregates. */
+  private final GradeAggregateService aggregateService;
+  /** Runs each add, and each upsert attempt, in its own transaction. */
+  private final TransactionTemplate transaction;
+
+  /**
+   * Constructs a GradeService.
+   *
+   * @param gradeRepo  the repository for Grade entities
+   * @param aggService the service maintaining the grade aggregates
+   * @param txManager  the transaction manager
+   */
+  public GradeService(final GradeRepository gradeRepo,
+      final GradeAggregateService aggService,
+      final PlatformTransactionManager txManager) {
+    this.gradeRepository = gradeRepo;
+    this.aggregateService = aggService;
+    this.transaction = new TransactionTemplate(txManager);
+  }
+
+  /**
+   * Returns a grade.
+   *
+   * @param id the ID of the grade
+   * @return the grade, or empty if no such grade exists
+   */
+  public Optional<Grade> find(final Long id) {
+    return gradeRepository.findById(id);
+  }
+
+  /**
+   * Saves a new grade.
+   *
+   * The aggregates of the student and module are created beforehand if
+   * missing, so the transaction saving the grade needs no other
+   * connection. Otherwise the first grades of many students at once could
+   * each hold a connection while waiting for a second, exhausting the
+   * pool.
+   *
+   * @param student      the student awarded the grade
+   * @param module       the module the grade is for
+   * @param score        the score
+   * @param academicYear the academic year
+   * @return the saved grade
+   */
+  public Grade add(final Student student, final Module module,
+      final int score, final String academicYear) {
+    aggregateService.ensureExists(student.getId(), module.getCode());
+    return transaction.execute(status -> {
+      Grade g = new Grade();
+      g.setStudent(student);
+      g.setModule(module);
+      g.setScore(score);
+      g.setAcademicYear(academicYear);
+
+      Grade saved = gradeRepository.save(g);
+      aggregateService.recordAdded(List.of(saved));
+      return saved;
+    });
+  }
+
+  /**
+   * Saves the grade of a student in a module for an academic year,
+   * replacing the score of the grade already recorded for that year if
+   * there is one. The grade is written with a single MERGE, so repeating
+   * the call leaves one grade holding the last score.
+   *
+   * The aggregates of the student and module are created beforehand if
+   * missing, so the transaction holding the grade's lock needs no other
+   * connection. If a concurrent upsert inserts the same grade first, or
+   * holds its lock for too long, the attempt fails and is retried in a new
+   * transaction, where it updates that grade.
+   *
+   * @param student      the student awarded the grade
+   * @param module       the module the grade is for
+   * @param score        the score
+   * @param academicYear the academic year
+   * @return the saved grade
+   */
+  public Grade upsert(final Student student, final Module module,
+      final int score, final String academicYear) {
+    aggregateService.ensureExists(student.getId(), module.getCode());
+    for (int attempt = 1;; attempt++) {
+      try {
+        return transaction.execute(status -> {
+          List<Integer> previous = gradeRepository.upsert(student.getId(),
+              module.getCode(), AcademicYear.startYear(academicYear), score);
+          Grade saved = gradeRepository.findByKey(student.getId(),
+              module.getCode(), academicYear).orElseThrow();
+          if (previous.isEmpty()) {
+            aggregateService.recordAdded(List.of(saved));
+          } else {
+            aggregateService.recordScoreChanged(saved, previous.get(0));
+          }
+          return saved;
+        });
+      } catch (DataIntegrityViolationException
+          | ConcurrencyFailureException e) {
+        if (attempt == UPSERT_ATTEMPTS) {
+          throw e;
+        }
+      }
+    }
+  }
+
+  /**
+   * Updates the score and/or academic year of a grade.
+   *
+   * The grade's version guards the update: it fails if the grade is not at
+   * the expected version, or if another update of the grade commits first.
+   *
+   * @param id              the ID of the grade
+   * @param expectedVersion the version the update is based on, or null to
+   *                        update whichever version is current
+   * @param score           the new score, or null to keep the current one
+   * @param academicYear    the new academic year, or null to keep the
+   *                        current one
+   * @return the updated grade, or empty if no such grade exists
+   * @throws OptimisticLockingFailureException if the grade is not at the
+   *                                           expected version, or was
+   *                                           updated concurrently
+   */
+  @Transactional
+  public Optional<Grade> update(final Long id, final Long expectedVersion,
+      final Integer score, final String academicYear) {
+    Optional<Grade> gradeOpt = gradeRepository.findById(id);
+    if (!gradeOpt.isPresent()) {
+      return Optional.empty();
+    }
+
+    Grade grade = gradeOpt.get();
+    if (expectedVersion != null && expectedVersion != grade.getVersion()) {
+      throw new ObjectOptimisticLockingFailureException(Grade.class, id);
+    }
+    int oldScore = grade.getScore();
+    if (score != null) {
+      grade.setScore(score);
+    }
+    if (academicYear != null) {
+      grade.setAcademicYear(academicYear);
+    }
+
+    Grade saved = gradeRepository.save(grade);
+    aggregateService.recordScoreChanged(saved, oldScore);
+    return Optional.of(saved);
+  }
+
+  /**
+   * Deletes a grade.
+   *
+   * @param id the ID of the grade
+   * @return true if the grade existed and was deleted
+   */
+  @Transactional
+  public boolean delete(final Long id) {
+    Optional<Grade> gradeOpt = gradeRepository.findById(id);
+    if (!gradeOpt.isPresent()) {
+      return false;
+    }
+
+    gradeRepository.delete(gradeOpt.get());
+    aggregateService.recordRemoved(gradeOpt.get());
+    return true;
+  }
+}
@@ -0,0 +1,171 @@
+package uk.ac.ucl.comp0010.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Summarises the outcome of a bulk import: how many rows were read and
+ * imported, which rows were rejected and why, and the import throughput.
+ *
+ * Only the first MAX_REPORTED_ERRORS rejections are listed, so that a
+ * badly malformed file cannot make the report itself unbounded; the
+ * rowsRejected count always covers every rejected row.
+ */
+public final class ImportReport {
+
+  /** The maximum number of row errors listed in a report. */
+  public static final int MAX_REPORTED_ERRORS = 100;
+
+  /** The number of data rows read, excluding the header. */
+  private long rowsRead;
+
+  /** The number of rows written to the database. */
+  private long rowsImported;
+
+  /** The number of rows rejected. */
+  private long rowsRejected;
+
+  /** The first rejected rows, with the reason for each. */
+  private final List<RowError> errors = new ArrayList<>();
+
+  /** The wall-clock duration of the import in milliseconds. */
+  private long elapsedMillis;
+
+  /**
+   * Records that a data row has been read.
+   */
+  void rowRead() {
+    rowsRead++;
+  }
+
+  /**
+   * Records that a number of rows have been written.
+   *
+   * @param count the number of rows written
+   */
+  void rowsImported(final long count) {
+    rowsImported += count;
+  }
+
+  /**
+   * Records that a row has been rejected.
+   *
+   * @param line    the line number of the rejected row
+   * @param message the reason the row was rejected
+   */
+  void reject(final long line, final String message) {
+    rowsRejected++;
+    if (errors.size() < MAX_REPORTED_ERRORS) {
+      errors.add(new RowError(line, message));
+    }
+  }
+
+  /**
+   * Records the total duration of the import and orders the listed errors
+   * by line number.
+   *
+   * @param millis the duration in milliseconds
+   */
+  void finish(final long millis) {
+    this.elapsedMillis = millis;
+    errors.sort(Comparator.comparingLong(RowError::getLine));
+  }
+
+  /**
+   * Returns the number of data rows read, excluding the header.
+   *
+   * @return the number of rows read
+   */
+  public long getRowsRead() {
+    return rowsRead;
+  }
+
+  /**
+   * Returns the number of rows written to the database.
+   *
+   * @return the number of rows imported
+   */
+  public long getRowsImported() {
+    return rowsImported;
+  }
+
+  /**
+   * Returns the number of rows rejected.
+   *
+   * @return the number of rows rejected
+   */
+  public long getRowsRejected() {
+    return rowsRejected;
+  }
+
+  /**
+   * Returns the first rejected rows, with the reason for each.
+   *
+   * @return an unmodifiable list of at most MAX_REPORTED_ERRORS errors
+   */
+  public List<RowError> getErrors() {
+    return Collections.unmodifiableList(errors);
+  }
+
+  /**
+   * Returns the wall-clock duration of the import.
+   *
+   * @return the duration in milliseconds
+   */
+  public long getElapsedMillis() {
+    return elapsedMillis;
+  }
+
+  /**
+   * Returns the import throughput.
+   *
+   * @return the number of rows read per second of import time
+   */
+  public double getRowsPerSecond() {
+    return elapsedMillis == 0
+        ? rowsRead : rowsRead * 1000.0 / elapsedMillis;
+  }
+
+  /**
+   * A rejected row of an import.
+   */
+  public static final class RowError {
+
+    /** The line number of the rejected row. */
+    private final long line;
+
+    /** The reason the row was rejected. */
+    private final String message;
+
+    /**
+     * Constructs a RowError.
+     *
+     * @param newLine    the line number of the rejected row
+     * @param newMessage the reason the row was rejected
+     */
+    RowError(final long newLine, final String newMessage) {
+      this.line = newLine;
+      this.message = newMessage;
+    }
+
+    /**
+     * Returns the line number of the rejected row.
+     *
+     * @return the 1-based line number
+     */
+    public long getLine() {
+      return line;
+    }
+
+    /**
+     * Returns the reason the row was rejected.
+     *
+     * @return the error message
+     */
+    public String getMessage() {
+      return message;
+    }
+  }
+}
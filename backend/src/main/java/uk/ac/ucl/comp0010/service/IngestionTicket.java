@@ -0,0 +1,118 @@
+package uk.ac.ucl.comp0010.service;
+
+/**
+ * Acknowledges a grade submitted for asynchronous ingestion, and reports
+ * whether it has been committed yet.
+ *
+ * A ticket is QUEUED until the writer has handled its grade, then
+ * COMMITTED with the ID of the saved grade once the transaction writing it
+ * has committed, or REJECTED with the reason it could not be saved.
+ */
+public final class IngestionTicket {
+
+  /**
+   * The states of a ticket.
+   */
+  public enum Status {
+    /** The grade is waiting to be written. */
+    QUEUED,
+    /** The grade has been saved and committed. */
+    COMMITTED,
+    /** The grade could not be saved. */
+    REJECTED
+  }
+
+  /** The ticket ID. */
+  private final String id;
+
+  /** The state of the ticket. */
+  private final Status status;
+
+  /** The ID of the saved grade, or null unless committed. */
+  private final Long gradeId;
+
+  /** The reason the grade was rejected, or null unless rejected. */
+  private final String reason;
+
+  /**
+   * Constructs an IngestionTicket.
+   *
+   * @param ticketId    the ticket ID
+   * @param state       the state of the ticket
+   * @param savedId     the ID of the saved grade, or null
+   * @param whyRejected the reason the grade was rejected, or null
+   */
+  private IngestionTicket(final String ticketId, final Status state,
+      final Long savedId, final String whyRejected) {
+    this.id = ticketId;
+    this.status = state;
+    this.gradeId = savedId;
+    this.reason = whyRejected;
+  }
+
+  /**
+   * Returns a ticket for a grade waiting to be written.
+   *
+   * @param id the ticket ID
+   * @return the ticket
+   */
+  static IngestionTicket queued(final String id) {
+    return new IngestionTicket(id, Status.QUEUED, null, null);
+  }
+
+  /**
+   * Returns this ticket, marked committed.
+   *
+   * @param savedId the ID of the saved grade
+   * @return the committed ticket
+   */
+  IngestionTicket committed(final Long savedId) {
+    return new IngestionTicket(id, Status.COMMITTED, savedId, null);
+  }
+
+  /**
+   * Returns this ticket, marked rejected.
+   *
+   * @param whyRejected the reason the grade was rejected
+   * @return the rejected ticket
+   */
+  IngestionTicket rejected(final String whyRejected) {
+    return new IngestionTicket(id, Status.REJECTED, null, whyRejected);
+  }
+
+  /**
+   * Returns the ticket ID.
+   *
+   * @return the ticket ID
+   */
+  public String getId() {
+    return id;
+  }
+
+  /**
+   * Returns the state of the ticket.
+   *
+   * @return the state
+   */
+  public Status getStatus() {
+    return status;
+  }
+
+  /**
+   * Returns the ID of the saved grade.
+   *
+   * @return the grade ID, or null unless committed
+   */
+  public Long getGradeId() {
+    return gradeId;
+  }
+
+  /**
+   * Returns the reason the grade was rejected.
+   *
+   * @return the reason, or null unless rejected
+   */
+  public String getReason() {
+    return reason;
+  }
+}
@@ -0,0 +1,144 @@
+package uk.ac.ucl.comp0010.service;
+
+import java.util.Arrays;
+import java.util.List;
+import uk.ac.ucl.comp0010.model.AcademicYear;
+import uk.ac.ucl.comp0010.projection.ScoreDistribution;
+
+/**
+ * Statistics of the scores awarded in a module in one academic year: the
+ * mean, median, standard deviation, quartiles, range, pass rate and a
+ * 10-bucket histogram.
+ */
+public final class ModuleStatistics {
+
+  /** The number of histogram buckets. */
+  public static final int BUCKETS = 10;
+
+  /** The summary statistics computed by the database. */
+  private final ScoreDistribution distribution;
+
+  /** The number of scores in each histogram bucket. */
+  private final long[] histogram = new long[BUCKETS];
+
+  /**
+   * Constructs a ModuleStatistics with an empty histogram.
+   *
+   * @param newDistribution the summary statistics for the year
+   */
+  ModuleStatistics(final ScoreDistribution newDistribution) {
+    this.distribution = newDistribution;
+  }
+
+  /**
+   * Sets the number of scores in a histogram bucket.
+   *
+   * @param bucket the bucket index
+   * @param count  the number of scores
+   */
+  void setBucket(final int bucket, final long count) {
+    histogram[bucket] = count;
+  }
+
+  /**
+   * Returns the academic year the scores were awarded in.
+   *
+   * @return the academic year (e.g., "2024/2025")
+   */
+  public String getAcademicYear() {
+    return AcademicYear.label(distribution.getAcademicYear());
+  }
+
+  /**
+   * Returns the number of grades.
+   *
+   * @return the grade count
+   */
+  public long getGradeCount() {
+    return distribution.getGradeCount();
+  }
+
+  /**
+   * Returns the mean score.
+   *
+   * @return the mean
+   */
+  public Double getMean() {
+    return distribution.getMean();
+  }
+
+  /**
+   * Returns the median score.
+   *
+   * @return the median
+   */
+  public Double getMedian() {
+    return distribution.getMedian();
+  }
+
+  /**
+   * Returns the population standard deviation of the scores.
+   *
+   * @return the standard deviation
+   */
+  public Double getStandardDeviation() {
+    return distribution.getStandardDeviation();
+  }
+
+  /**
+   * Returns the first quartile.
+   *
+   * @return the 25th percentile
+   */
+  public Double getLowerQuartile() {
+    return distribution.getLowerQuartile();
+  }
+
+  /**
+   * Returns the third quartile.
+   *
+   * @return the 75th percentile
+   */
+  public Double getUpperQuartile() {
+    return distribution.getUpperQuartile();
+  }
+
+  /**
+   * Returns the lowest score.
+   *
+   * @return the minimum
+   */
+  public Integer getMinScore() {
+    return distribution.getMinScore();
+  }
+
+  /**
+   * Returns the highest score.
+   *
+   * @return the maximum
+   */
+  public Integer getMaxScore() {
+    return distribution.getMaxScore();
+  }
+
+  /**
+   * Returns the fraction of grades at or above the pass mark.
+   *
+   * @return the pass rate, between 0 and 1
+   */
+  public double getPassRate() {
+    long count = distribution.getGradeCount();
+    return count == 0 ? 0 : (double) distribution.getPassed() / count;
+  }
+
+  /**
+   * Returns the number of scores in each of the 10 histogram buckets. The
+   * bucket at index i holds scores from 10 * i to 10 * i + 9, and the last
+   * bucket also holds scores of 100.
+   *
+   * @return the bucket counts
+   */
+  public List<Long> getHistogram() {
+    return Arrays.stream(histogram).boxed().toList();
+  }
+}
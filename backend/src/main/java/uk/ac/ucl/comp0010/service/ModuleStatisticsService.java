@@ -0,0 +1,90 @@
+package uk.ac.ucl.comp0010.service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import uk.ac.ucl.comp0010.model.AcademicYear;
+import uk.ac.ucl.comp0010.projection.ScoreBucket;
+import uk.ac.ucl.comp0010.projection.ScoreDistribution;
+import uk.ac.ucl.comp0010.repository.GradeRepository;
+
+/**
+ * Computes per-year score statistics for a module.
+ *
+ * All aggregation happens in the database, with one GROUP BY query for
+ * the summary statistics and percentiles and one for the histogram, so
+ * the cost in the JVM depends on the number of academic years rather than
+ * on the number of grades. Statistics for one year use queries matching
+ * the year exactly, which read only that year's grades.
+ */
+@Service
+public class ModuleStatisticsService {
+
+  /** Repository for Grade entities. */
+  private final GradeRepository gradeRepository;
+
+  /** The lowest passing score. */
+  private final int passMark;
+
+  /**
+   * Constructs a ModuleStatisticsService.
+   *
+   * @param gradeRepo   the repository for Grade entities
+   * @param newPassMark the lowest passing score
+   */
+  public ModuleStatisticsService(final GradeRepository gradeRepo,
+      @Value("${gms.statistics.pass-mark:40}") final int newPassMark) {
+    this.gradeRepository = gradeRepo;
+    this.passMark = newPassMark;
+  }
+
+  /**
+   * Returns the lowest passing score used for pass rates.
+   *
+   * @return the pass mark
+   */
+  public int getPassMark() {
+    return passMark;
+  }
+
+  /**
+   * Returns the score statistics of a module for each academic year in
+   * which it has grades.
+   *
+   * @param code         the module code
+   * @param academicYear the academic year to restrict to, or null for all
+   * @return the statistics of each academic year, in year order
+   * @throws IllegalArgumentException if the academic year is not valid
+   */
+  @Transactional(readOnly = true)
+  public List<ModuleStatistics> statistics(final String code,
+      final String academicYear) {
+    List<ScoreDistribution> distributions;
+    List<ScoreBucket> buckets;
+    if (academicYear == null) {
+      distributions = gradeRepository.findScoreDistributions(code, passMark);
+      buckets = gradeRepository.findScoreHistogram(code);
+    } else {
+      short startYear = AcademicYear.startYear(academicYear);
+      distributions = gradeRepository.findScoreDistributionsInYear(code,
+          startYear, passMark);
+      buckets = gradeRepository.findScoreHistogramInYear(code, startYear);
+    }
+
+    Map<Short, ModuleStatistics> byYear = new LinkedHashMap<>();
+    for (ScoreDistribution d : distributions) {
+      byYear.put(d.getAcademicYear(), new ModuleStatistics(d));
+    }
+    for (ScoreBucket b : buckets) {
+      ModuleStatistics stats = byYear.get(b.getAcademicYear());
+      if (stats != null) {
+        stats.setBucket(b.getBucket(), b.getGradeCount());
+      }
+    }
+    return new ArrayList<>(byYear.values());
+  }
+}
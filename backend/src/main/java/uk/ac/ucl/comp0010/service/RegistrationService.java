@@ -0,0 +1,242 @@
+package uk.ac.ucl.comp0010.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import uk.ac.ucl.comp0010.exception.ModuleFullException;
+import uk.ac.ucl.comp0010.model.Module;
+import uk.ac.ucl.comp0010.model.Registration;
+import uk.ac.ucl.comp0010.model.Student;
+import uk.ac.ucl.comp0010.projection.ModuleEnrolment;
+import uk.ac.ucl.comp0010.repository.ModuleRepository;
+import uk.ac.ucl.comp0010.repository.RegistrationRepository;
+import uk.ac.ucl.comp0010.repository.StudentRepository;
+
+/**
+ * Registers students in modules, one at a time or many at once.
+ *
+ * Every operation first takes a row lock on the modules it registers into
+ * (SELECT ... FOR UPDATE), then counts their seats with a query and
+ * inserts. Concurrent registrations into the same module therefore queue
+ * on the lock and each sees the seats taken by the ones before it, so a
+ * module can never be overbooked, including when several application
+ * instances share the database. The module's registration collection is
+ * never loaded.
+ *
+ * Bulk operations run a fixed number of statements whatever the size of
+ * the cohort: the requested IDs are checked against the students and the
+ * existing registrations in bulk, capacity is checked once against
+ * maxSeats, and the registrations are written with a single
+ * INSERT ... SELECT. Capacity is all-or-nothing: if any module would be
+ * overfilled, no student is registered.
+ */
+@Service
+public class RegistrationService {
+
+  /** The outcome of registering a single student. */
+  public enum Outcome {
+    /** The student was registered. */
+    REGISTERED,
+    /** The student was already registered in the module. */
+    ALREADY_REGISTERED,
+    /** The module or the student does not exist. */
+    NOT_FOUND
+  }
+
+  /** Repository for Student entities. */
+  private final StudentRepository studentRepository;
+  /** Repository for Module entities. */
+  private final ModuleRepository moduleRepository;
+  /** Repository for Registration entities. */
+  private final RegistrationRepository registrationRepository;
+
+  /**
+   * Constructs a RegistrationService with the required repositories.
+   *
+   * @param studRepo the repository for Student entities
+   * @param modRepo  the repository for Module entities
+   * @param regRepo  the repository for Registration entities
+   */
+  public RegistrationService(final StudentRepository studRepo,
+      final ModuleRepository modRepo,
+      final RegistrationRepository regRepo) {
+    this.studentRepository = studRepo;
+    this.moduleRepository = modRepo;
+    this.registrationRepository = regRepo;
+  }
+
+  /**
+   * Registers a student in a module if the module has a free seat and the
+   * student is not already registered.
+   *
+   * @param code      the module code
+   * @param studentId the ID of the student to register
+   * @return the outcome of the registration
+   * @throws ModuleFullException if the module has no free seat
+   */
+  @Transactional
+  public Outcome register(final String code, final Long studentId)
+      throws ModuleFullException {
+    Optional<Module> modOpt = moduleRepository.findByIdForUpdate(code);
+    Optional<Student> studOpt = studentRepository.findById(studentId);
+    if (!modOpt.isPresent() || !studOpt.isPresent()) {
+      return Outcome.NOT_FOUND;
+    }
+    Module module = modOpt.get();
+
+    if (registrationRepository.countByModuleCode(code)
+        >= module.getMaxSeats()) {
+      throw new ModuleFullException("Module capacity reached");
+    }
+    if (registrationRepository.existsByStudentIdAndModuleCode(studentId,
+        code)) {
+      return Outcome.ALREADY_REGISTERED;
+    }
+
+    Registration r = new Registration();
+    r.setStudent(studOpt.get());
+    r.setModule(module);
+    registrationRepository.save(r);
+    return Outcome.REGISTERED;
+  }
+
+  /**
+   * Registers the given students in a module. Students already registered
+   * are skipped, as are IDs that do not match any student.
+   *
+   * @param code       the module code
+   * @param studentIds the IDs of the students to register
+   * @return the outcome, or empty if the module does not exist
+   * @throws ModuleFullException if the new registrations would exceed the
+   *                             module's maxSeats
+   */
+  @Transactional
+  public Optional<BulkRegistration> registerAll(final String code,
+      final Collection<Long> studentIds) throws ModuleFullException {
+    Optional<Module> modOpt = moduleRepository.findByIdForUpdate(code);
+    if (!modOpt.isPresent()) {
+      return Optional.empty();
+    }
+    Module module = modOpt.get();
+
+    Set<Long> requested = new LinkedHashSet<>(studentIds);
+    List<Long> existing = existingStudents(requested);
+    List<Long> unknown = unknownStudents(requested, existing);
+    if (existing.isEmpty()) {
+      return Optional.of(
+          new BulkRegistration(List.of(code), 0, 0, unknown));
+    }
+
+    int already = registrationRepository
+        .findRegisteredStudentIds(code, existing).size();
+    long free = module.getMaxSeats()
+        - registrationRepository.countByModuleCode(code);
+    int wanted = existing.size() - already;
+    if (wanted > free) {
+      throw new ModuleFullException("Module capacity reached: "
+          + Math.max(free, 0) + " seats free in " + code + ", "
+          + wanted + " requested");
+    }
+
+    int created = wanted > 0
+        ? registrationRepository.insertAll(code, existing)
+        : 0;
+    return Optional.of(
+        new BulkRegistration(List.of(code), created, already, unknown));
+  }
+
+  /**
+   * Registers the given cohort in every mandatory non-condonable (MNC)
+   * module. Existing registrations are skipped, as are IDs that do not
+   * match any student.
+   *
+   * @param studentIds the IDs of the students to register
+   * @return the outcome
+   * @throws ModuleFullException if any MNC module would exceed its maxSeats
+   */
+  @Transactional
+  public BulkRegistration registerAllInMncModules(
+      final Collection<Long> studentIds) throws ModuleFullException {
+    List<Module> modules = moduleRepository.findMncForUpdate();
+    Set<Long> requested = new LinkedHashSet<>(studentIds);
+    List<Long> existing = existingStudents(requested);
+    List<Long> unknown = unknownStudents(requested, existing);
+    List<String> codes = new ArrayList<>();
+    for (Module m : modules) {
+      codes.add(m.getCode());
+    }
+    if (existing.isEmpty() || modules.isEmpty()) {
+      return new BulkRegistration(codes, 0, 0, unknown);
+    }
+
+    Map<String, Long> already = new HashMap<>();
+    for (ModuleEnrolment e
+        : registrationRepository.countMncRegistrationsOf(existing)) {
+      already.put(e.getModuleCode(), e.getEnrolled());
+    }
+    Map<String, Long> enrolled = new HashMap<>();
+    for (ModuleEnrolment e : registrationRepository.countByModuleCodes(codes)) {
+      enrolled.put(e.getModuleCode(), e.getEnrolled());
+    }
+
+    List<String> full = new ArrayList<>();
+    long alreadyTotal = 0;
+    for (Module m : modules) {
+      long skipped = already.getOrDefault(m.getCode(), 0L);
+      long wanted = existing.size() - skipped;
+      alreadyTotal += skipped;
+      if (enrolled.getOrDefault(m.getCode(), 0L) + wanted
+          > m.getMaxSeats()) {
+        full.add(m.getCode());
+      }
+    }
+    if (!full.isEmpty()) {
+      throw new ModuleFullException("Module capacity reached: "
+          + String.join(", ", full));
+    }
+
+    int created = registrationRepository.insertAllIntoMncModules(existing);
+    return new BulkRegistration(codes, created, (int) alreadyTotal, unknown);
+  }
+
+  /**
+   * Returns which of the requested IDs belong to existing students.
+   *
+   * @param requested the requested IDs
+   * @return the IDs of existing students
+   */
+  private List<Long> existingStudents(final Set<Long> requested) {
+    if (requested.isEmpty()) {
+      return List.of();
+    }
+    return studentRepository.findExistingIds(requested);
+  }
+
+  /**
+   * Returns the requested IDs that do not belong to any student, in
+   * request order.
+   *
+   * @param requested the requested IDs
+   * @param existing  the IDs of existing students
+   * @return the unknown IDs
+   */
+  private static List<Long> unknownStudents(final Set<Long> requested,
+      final List<Long> existing) {
+    Set<Long> known = new HashSet<>(existing);
+    List<Long> unknown = new ArrayList<>();
+    for (Long id : requested) {
+      if (!known.contains(id)) {
+        unknown.add(id);
+      }
+    }
+    return unknown;
+  }
+}
@@ -0,0 +1,317 @@
+package uk.ac.ucl.comp0010.service;
+
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+/**
+ * Generates a synthetic population of modules, students, registrations and
+ * grades, of a given size, for exercising the system at production scale.
+ *
+ * The population is deterministic: the same sizes and random seed always
+ * generate the same rows, in the same order. Module sizes are skewed, as
+ * real ones are: most modules are small and a few are large. Seats are
+ * scaled up where needed so that every student fits, with a tenth left
+ * free. Each student is registered in enough distinct modules for their
+ * share of the grades, and the grades are spread evenly over the
+ * registrations, at most one per registration. The academic years of a
+ * student's grades follow the order of their registrations, so each year
+ * holds a share of them. Scores are normally distributed around a mean of
+ * 62.
+ *
+ * The dataset holds only the seat plan and the modules of each
+ * registration, about one int per seat and per registration; the rows are
+ * generated as they are passed to the sink.
+ */
+public final class SyntheticDataset {
+
+  /** The median number of seats of a module before scaling. */
+  private static final double MEDIAN_SEATS = 60;
+
+  /** The spread of module sizes, as the sigma of a log-normal law. */
+  private static final double SEATS_SIGMA = 0.8;
+
+  /** The fewest seats a module has before scaling. */
+  private static final int MIN_SEATS = 10;
+
+  /** The most seats a module has before scaling. */
+  private static final int MAX_SEATS = 1000;
+
+  /** The share of seats left free once every student is registered. */
+  private static final double FREE_SEATS = 0.1;
+
+  /** One module in this many is mandatory (MNC). */
+  private static final int MNC_EVERY = 20;
+
+  /** The mean score. */
+  private static final double MEAN_SCORE = 62;
+
+  /** The standard deviation of scores. */
+  private static final double SCORE_SIGMA = 13;
+
+  /** The highest score. */
+  private static final int MAX_SCORE = 100;
+
+  /** First names, picked at random. */
+  private static final String[] FIRST_NAMES = {"Amelia", "Ben", "Chloe",
+      "Daniel", "Emily", "Farah", "George", "Hannah", "Isaac", "Jia",
+      "Kwame", "Layla", "Mohammed", "Nina", "Oliver", "Priya", "Quentin",
+      "Rosa", "Samuel", "Yusuf"};
+
+  /** Last names, picked at random. */
+  private static final String[] LAST_NAMES = {"Adams", "Brown", "Chen",
+      "Davies", "Evans", "Fernandez", "Green", "Hughes", "Iqbal", "Jones",
+      "Khan", "Lewis", "Murphy", "Nowak", "Okafor", "Patel", "Roberts",
+      "Smith", "Taylor", "Wilson"};
+
+  /** The number of students. */
+  private final int students;
+
+  /** The number of modules. */
+  private final int modules;
+
+  /** The number of grades requested. */
+  private final long grades;
+
+  /** The number of academic years the grades span. */
+  private final int years;
+
+  /** The first academic year, as the calendar year it starts in. */
+  private final int firstYear;
+
+  /** The seed of the random generator. */
+  private final long seed;
+
+  /**
+   * Constructs a SyntheticDataset.
+   *
+   * @param studentCount the number of students
+   * @param moduleCount  the number of modules
+   * @param gradeCount   the number of grades, at most one per registration
+   * @param yearCount    the number of academic years the grades span
+   * @param startYear    the calendar year the first academic year starts in
+   * @param randomSeed   the seed of the random generator
+   * @throws IllegalArgumentException if the number of students, modules
+   *         or years is not positive, or the number of grades is negative
+   */
+  public SyntheticDataset(final int studentCount, final int moduleCount,
+      final long gradeCount, final int yearCount, final int startYear,
+      final long randomSeed) {
+    if (studentCount <= 0 || moduleCount <= 0 || yearCount <= 0) {
+      throw new IllegalArgumentException(
+          "Students, modules and years must be positive");
+    }
+    if (gradeCount < 0) {
+      throw new IllegalArgumentException("Grades must not be negative");
+    }
+    this.students = studentCount;
+    this.modules = moduleCount;
+    this.grades = gradeCount;
+    this.years = yearCount;
+    this.firstYear = startYear;
+    this.seed = randomSeed;
+  }
+
+  /**
+   * Returns the code of a module.
+   *
+   * @param index the index of the module, from zero
+   * @return the module code
+   */
+  public static String moduleCode(final int index) {
+    return String.format("SYN%05d", index + 1);
+  }
+
+  /**
+   * Generates the dataset, passing every module, then every student, then
+   * every registration, then every grade to the sink. Students are
+   * numbered from 1, and registrations and grades from 1 in the order
+   * generated.
+   *
+   * @param sink receives the rows
+   */
+  public void generate(final Sink sink) {
+    SplittableRandom random = new SplittableRandom(seed);
+    int perStudent = (int) Math.min(modules,
+        Math.max(1, (grades + students - 1) / students));
+
+    int[] seats = seats(random, (long) students * perStudent);
+    String[] codes = new String[modules];
+    for (int m = 0; m < modules; m++) {
+      codes[m] = moduleCode(m);
+      sink.module(codes[m], "Module " + (m + 1),
+          m % MNC_EVERY == 0, seats[m]);
+    }
+
+    for (long id = 1; id <= students; id++) {
+      String first = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)];
+      String last = LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+      String username = (first.charAt(0) + last + id)
+          .toLowerCase(Locale.ROOT);
+      sink.student(id, first, last, username, username + "@ucl.ac.uk");
+    }
+
+    int[] plan = shuffledSeatPlan(random, seats);
+    int[] taken = new int[students];
+    int[] registered = new int[students * perStudent];
+    int cursor = 0;
+    long registrations = 0;
+    for (int s = 0; s < students; s++) {
+      int base = s * perStudent;
+      while (taken[s] < perStudent && cursor < plan.length) {
+        int free = nextNotTaken(plan, cursor, registered, base, taken[s]);
+        if (free < 0) {
+          break;
+        }
+        int m = plan[free];
+        plan[free] = plan[cursor];
+        plan[cursor++] = m;
+        registered[base + taken[s]++] = m;
+        sink.registration(++registrations, s + 1, codes[m]);
+      }
+    }
+
+    long k = 0;
+    long graded = 0;
+    for (int s = 0; s < students; s++) {
+      int base = s * perStudent;
+      for (int j = 0; j < taken[s]; j++, k++) {
+        if ((k + 1) * grades / registrations == k * grades / registrations) {
+          continue;
+        }
+        int year = firstYear + j * years / taken[s];
+        int score = (int) Math.round(
+            MEAN_SCORE + SCORE_SIGMA * random.nextGaussian());
+        sink.grade(++graded, s + 1, codes[registered[base + j]],
+            Math.max(0, Math.min(MAX_SCORE, score)), (short) year);
+      }
+    }
+  }
+
+  /**
+   * Draws the number of seats of each module, and scales them up if they
+   * do not hold the registrations with seats to spare.
+   *
+   * @param random        the random generator
+   * @param registrations the number of registrations to hold
+   * @return the seats of each module
+   */
+  private int[] seats(final SplittableRandom random,
+      final long registrations) {
+    double[] drawn = new double[modules];
+    double total = 0;
+    for (int m = 0; m < modules; m++) {
+      drawn[m] = Math.max(MIN_SEATS, Math.min(MAX_SEATS, MEDIAN_SEATS
+          * Math.exp(SEATS_SIGMA * random.nextGaussian())));
+      total += drawn[m];
+    }
+    double scale = Math.max(1, registrations * (1 + FREE_SEATS) / total);
+    int[] seats = new int[modules];
+    for (int m = 0; m < modules; m++) {
+      seats[m] = (int) Math.ceil(drawn[m] * scale);
+    }
+    return seats;
+  }
+
+  /**
+   * Returns every seat as the index of its module, in random order.
+   *
+   * @param random the random generator
+   * @param seats  the seats of each module
+   * @return the seats
+   */
+  private static int[] shuffledSeatPlan(final SplittableRandom random,
+      final int[] seats) {
+    long total = 0;
+    for (int s : seats) {
+      total += s;
+    }
+    int[] plan = new int[Math.toIntExact(total)];
+    int i = 0;
+    for (int m = 0; m < seats.length; m++) {
+      for (int s = 0; s < seats[m]; s++) {
+        plan[i++] = m;
+      }
+    }
+    for (int j = plan.length - 1; j > 0; j--) {
+      int r = random.nextInt(j + 1);
+      int swap = plan[j];
+      plan[j] = plan[r];
+      plan[r] = swap;
+    }
+    return plan;
+  }
+
+  /**
+   * Returns the first seat, from a position onwards, in a module the
+   * student is not registered in yet.
+   *
+   * @param plan       the seats
+   * @param from       the position of the first free seat
+   * @param registered the modules of every student's registrations
+   * @param base       the position of the student's first registration
+   * @param count      the number of registrations of the student
+   * @return the position of the seat, or -1 if there is none
+   */
+  private static int nextNotTaken(final int[] plan, final int from,
+      final int[] registered, final int base, final int count) {
+    for (int i = from; i < plan.length; i++) {
+      boolean taken = false;
+      for (int j = base; j < base + count && !taken; j++) {
+        taken = registered[j] == plan[i];
+      }
+      if (!taken) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Receives the rows of a dataset as they are generated.
+   */
+  public interface Sink {
+
+    /**
+     * Receives a module.
+     *
+     * @param code     the module code
+     * @param name     the module name
+     * @param mnc      whether the module is mandatory
+     * @param maxSeats the number of seats
+     */
+    void module(String code, String name, boolean mnc, int maxSeats);
+
+    /**
+     * Receives a student.
+     *
+     * @param id        the student ID
+     * @param firstName the first name
+     * @param lastName  the last name
+     * @param username  the username
+     * @param email     the email address
+     */
+    void student(long id, String firstName, String lastName,
+        String username, String email);
+
+    /**
+     * Receives a registration.
+     *
+     * @param id        the registration ID
+     * @param studentId the student ID
+     * @param code      the module code
+     */
+    void registration(long id, long studentId, String code);
+
+    /**
+     * Receives a grade.
+     *
+     * @param id        the grade ID
+     * @param studentId the student ID
+     * @param code      the module code
+     * @param score     the score
+     * @param startYear the calendar year the academic year starts in
+     */
+    void grade(long id, long studentId, String code, int score,
+        short startYear);
+  }
+}
@@ -0,0 +1,303 @@
+package uk.ac.ucl.comp0010.service;
+
+import java.util.List;
+
+/**
+ * A student's transcript: the modules they are registered in or hold
+ * grades for, their grades grouped by academic year, and the average score
+ * of each year and overall.
+ */
+public final class Transcript {
+
+  /** The ID of the student. */
+  private final Long studentId;
+
+  /** The first name of the student. */
+  private final String firstName;
+
+  /** The last name of the student. */
+  private final String lastName;
+
+  /** The student's modules, in module code order. */
+  private final List<ModuleEntry> modules;
+
+  /** The student's grades in each academic year, in year order. */
+  private final List<Year> years;
+
+  /** The number of grades the student holds. */
+  private final int gradeCount;
+
+  /** The average score of all the student's grades, or null if none. */
+  private final Double average;
+
+  /**
+   * Constructs a Transcript.
+   *
+   * @param id           the ID of the student
+   * @param first        the first name of the student
+   * @param last         the last name of the student
+   * @param moduleList   the student's modules, in module code order
+   * @param yearList     the student's grades in each academic year, in
+   *                     year order
+   * @param count        the number of grades
+   * @param averageScore the average score, or null if there are no grades
+   */
+  Transcript(final Long id, final String first, final String last,
+      final List<ModuleEntry> moduleList, final List<Year> yearList,
+      final int count, final Double averageScore) {
+    this.studentId = id;
+    this.firstName = first;
+    this.lastName = last;
+    this.modules = List.copyOf(moduleList);
+    this.years = List.copyOf(yearList);
+    this.gradeCount = count;
+    this.average = averageScore;
+  }
+
+  /**
+   * Returns the ID of the student.
+   *
+   * @return the student's ID
+   */
+  public Long getStudentId() {
+    return studentId;
+  }
+
+  /**
+   * Returns the first name of the student.
+   *
+   * @return the student's first name
+   */
+  public String getFirstName() {
+    return firstName;
+  }
+
+  /**
+   * Returns the last name of the student.
+   *
+   * @return the student's last name
+   */
+  public String getLastName() {
+    return lastName;
+  }
+
+  /**
+   * Returns the modules the student is registered in or holds grades for.
+   *
+   * @return the modules, in module code order
+   */
+  public List<ModuleEntry> getModules() {
+    return modules;
+  }
+
+  /**
+   * Returns the student's grades in each academic year they hold grades
+   * for.
+   *
+   * @return the years, in year order
+   */
+  public List<Year> getYears() {
+    return years;
+  }
+
+  /**
+   * Returns the number of grades the student holds.
+   *
+   * @return the grade count
+   */
+  public int getGradeCount() {
+    return gradeCount;
+  }
+
+  /**
+   * Returns the average score of all the student's grades.
+   *
+   * @return the average, or null if the student has no grades
+   */
+  public Double getAverage() {
+    return average;
+  }
+
+  /**
+   * A module on a transcript.
+   */
+  public static final class ModuleEntry {
+
+    /** The module code. */
+    private final String code;
+
+    /** The module name. */
+    private final String name;
+
+    /** Whether the student is currently registered in the module. */
+    private final boolean registered;
+
+    /**
+     * Constructs a ModuleEntry.
+     *
+     * @param moduleCode   the module code
+     * @param moduleName   the module name
+     * @param isRegistered whether the student is registered in the module
+     */
+    ModuleEntry(final String moduleCode, final String moduleName,
+        final boolean isRegistered) {
+      this.code = moduleCode;
+      this.name = moduleName;
+      this.registered = isRegistered;
+    }
+
+    /**
+     * Returns the module code.
+     *
+     * @return the module code
+     */
+    public String getCode() {
+      return code;
+    }
+
+    /**
+     * Returns the module name.
+     *
+     * @return the module name
+     */
+    public String getName() {
+      return name;
+    }
+
+    /**
+     * Returns whether the student is currently registered in the module.
+     * A student keeps their grades for a module they have left.
+     *
+     * @return true if the student is registered
+     */
+    public boolean isRegistered() {
+      return registered;
+    }
+  }
+
+  /**
+   * The grades of a transcript awarded in one academic year.
+   */
+  public static final class Year {
+
+    /** The academic year. */
+    private final String academicYear;
+
+    /** The grades awarded in the year, in module code order. */
+    private final List<GradeEntry> grades;
+
+    /** The average score of the year's grades. */
+    private final double average;
+
+    /**
+     * Constructs a Year.
+     *
+     * @param year      the academic year
+     * @param gradeList the grades awarded in the year, in module code order
+     * @param mean      the average score of the grades
+     */
+    Year(final String year, final List<GradeEntry> gradeList,
+        final double mean) {
+      this.academicYear = year;
+      this.grades = List.copyOf(gradeList);
+      this.average = mean;
+    }
+
+    /**
+     * Returns the academic year.
+     *
+     * @return the academic year (e.g., "2024/2025")
+     */
+    public String getAcademicYear() {
+      return academicYear;
+    }
+
+    /**
+     * Returns the grades awarded in the year.
+     *
+     * @return the grades, in module code order
+     */
+    public List<GradeEntry> getGrades() {
+      return grades;
+    }
+
+    /**
+     * Returns the average score of the year's grades.
+     *
+     * @return the average
+     */
+    public double getAverage() {
+      return average;
+    }
+  }
+
+  /**
+   * A grade on a transcript.
+   */
+  public static final class GradeEntry {
+
+    /** The ID of the grade. */
+    private final Long id;
+
+    /** The code of the module the grade was awarded in. */
+    private final String moduleCode;
+
+    /** The name of the module the grade was awarded in. */
+    private final String moduleName;
+
+    /** The score. */
+    private final int score;
+
+    /**
+     * Constructs a GradeEntry.
+     *
+     * @param gradeId the ID of the grade
+     * @param code    the code of the module
+     * @param name    the name of the module
+     * @param value   the score
+     */
+    GradeEntry(final Long gradeId, final String code, final String name,
+        final int value) {
+      this.id = gradeId;
+      this.moduleCode = code;
+      this.moduleName = name;
+      this.score = value;
+    }
+
+    /**
+     * Returns the ID of the grade.
+     *
+     * @return the grade's ID
+     */
+    public Long getId() {
+      return id;
+    }
+
+    /**
+     * Returns the code of the module the grade was awarded in.
+     *
+     * @return the module code
+     */
+    public String getModuleCode() {
+      return moduleCode;
+    }
+
+    /**
+     * Returns the name of the module the grade was awarded in.
+     *
+     * @return the module name
+     */
+    public String getModuleName() {
+      return moduleName;
+    }
+
+    /**
+     * Returns the score.
+     *
+     * @return the score
+     */
+    public int getScore() {
+      return score;
+    }
+  }
+}
@@ -0,0 +1,93 @@
+package uk.ac.ucl.comp0010.service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import uk.ac.ucl.comp0010.model.Module;
+import uk.ac.ucl.comp0010.projection.TranscriptEntry;
+import uk.ac.ucl.comp0010.repository.GradeRepository;
+import uk.ac.ucl.comp0010.repository.RegistrationRepository;
+import uk.ac.ucl.comp0010.repository.StudentRepository;
+
+/**
+ * Builds student transcripts.
+ *
+ * A transcript is read with two queries, both driven by the student's
+ * index: one joining the student's grades with their modules, and one
+ * joining the student's registrations with their modules. The student
+ * itself is read through the second-level cache. Neither of the student's
+ * lazy collections is touched, so the number of statements does not
+ * depend on how many modules or grades the student has.
+ */
+@Service
+public class TranscriptService {
+
+  /** Repository for Student entities. */
+  private final StudentRepository studentRepository;
+  /** Repository for Grade entities. */
+  private final GradeRepository gradeRepository;
+  /** Repository for Registration entities. */
+  private final RegistrationRepository registrationRepository;
+
+  /**
+   * Constructs a TranscriptService.
+   *
+   * @param studRepo  the repository for Student entities
+   * @param gradeRepo the repository for Grade entities
+   * @param regRepo   the repository for Registration entities
+   */
+  public TranscriptService(final StudentRepository studRepo,
+      final GradeRepository gradeRepo,
+      final RegistrationRepository regRepo) {
+    this.studentRepository = studRepo;
+    this.gradeRepository = gradeRepo;
+    this.registrationRepository = regRepo;
+  }
+
+  /**
+   * Returns the transcript of a student.
+   *
+   * @param studentId the student ID
+   * @return the transcript, or empty if no such student exists
+   */
+  @Transactional(readOnly = true)
+  public Optional<Transcript> getTranscript(final Long studentId) {
+    return studentRepository.findById(studentId).map(student -> {
+      Map<String, Transcript.ModuleEntry> modules = new TreeMap<>();
+      for (Module m
+          : registrationRepository.findModulesByStudentId(studentId)) {
+        modules.put(m.getCode(),
+            new Transcript.ModuleEntry(m.getCode(), m.getName(), true));
+      }
+
+      Map<String, List<Transcript.GradeEntry>> byYear =
+          new LinkedHashMap<>();
+      long total = 0;
+      int count = 0;
+      for (TranscriptEntry e
+          : gradeRepository.findTranscriptByStudentId(studentId)) {
+        modules.computeIfAbsent(e.getModuleCode(), code ->
+            new Transcript.ModuleEntry(code, e.getModuleName(), false));
+        byYear.computeIfAbsent(e.getAcademicYear(), y -> new ArrayList<>())
+            .add(new Transcript.GradeEntry(e.getGradeId(), e.getModuleCode(),
+                e.getModuleName(), e.getScore()));
+        total += e.getScore();
+        count++;
+      }
+
+      List<Transcript.Year> years = new ArrayList<>(byYear.size());
+      byYear.forEach((year, grades) -> years.add(new Transcript.Year(year,
+          grades, grades.stream()
+              .mapToInt(Transcript.GradeEntry::getScore).average()
+              .orElseThrow())));
+      return new Transcript(student.getId(), student.getFirstName(),
+          student.getLastName(), new ArrayList<>(modules.values()), years,
+          count, count == 0 ? null : (double) total / count);
+    });
+  }
+}
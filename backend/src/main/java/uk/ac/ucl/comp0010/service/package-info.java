@@ -0,0 +1,5 @@
+/**
+ * This package contains services holding business operations that span
+ * several repositories or requests, such as bulk imports.
+ */
+package uk.ac.ucl.comp0010.service;
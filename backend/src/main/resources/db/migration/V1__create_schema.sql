@@ -0,0 +1,79 @@
+-- Tables of the Grade Management System, with the indexes behind every
+-- lookup by student or by module, and the constraints that keep the data
+-- consistent. Hibernate validates the entities against this schema.
+
+CREATE TABLE student (
+  id BIGINT NOT NULL,
+  first_name VARCHAR(255),
+  last_name VARCHAR(255),
+  username VARCHAR(255),
+  email VARCHAR(255),
+  CONSTRAINT pk_student PRIMARY KEY (id)
+);
+
+CREATE TABLE module (
+  code VARCHAR(32) NOT NULL,
+  name VARCHAR(255),
+  mnc BOOLEAN NOT NULL,
+  max_seats INTEGER NOT NULL,
+  CONSTRAINT pk_module PRIMARY KEY (code)
+);
+
+-- A student is registered in a module at most once. The unique key also
+-- serves lookups by module, alone or with a student.
+CREATE TABLE registration (
+  id BIGINT GENERATED BY DEFAULT AS IDENTITY,
+  student_id BIGINT NOT NULL,
+  module_code VARCHAR(32) NOT NULL,
+  CONSTRAINT pk_registration PRIMARY KEY (id),
+  CONSTRAINT uq_registration_module_student
+    UNIQUE (module_code, student_id),
+  CONSTRAINT fk_registration_student FOREIGN KEY (student_id)
+    REFERENCES student (id),
+  CONSTRAINT fk_registration_module FOREIGN KEY (module_code)
+    REFERENCES module (code)
+);
+
+CREATE INDEX idx_registration_student
+  ON registration (student_id, module_code);
+
+CREATE TABLE grade (
+  id BIGINT GENERATED BY DEFAULT AS IDENTITY,
+  score INTEGER NOT NULL,
+  academic_year VARCHAR(32),
+  student_id BIGINT NOT NULL,
+  module_code VARCHAR(32) NOT NULL,
+  CONSTRAINT pk_grade PRIMARY KEY (id),
+  CONSTRAINT fk_grade_student FOREIGN KEY (student_id)
+    REFERENCES student (id),
+  CONSTRAINT fk_grade_module FOREIGN KEY (module_code)
+    REFERENCES module (code)
+);
+
+-- Serves a module's grades, alone or with a student.
+CREATE INDEX idx_grade_module_student
+  ON grade (module_code, student_id);
+
+-- Serves a student's grades, alone, in a module, or in a module and year.
+CREATE INDEX idx_grade_student_module_year
+  ON grade (student_id, module_code, academic_year);
+
+CREATE TABLE student_grade_aggregate (
+  student_id BIGINT NOT NULL,
+  grade_count BIGINT NOT NULL,
+  score_sum BIGINT NOT NULL,
+  score_sum_squares BIGINT NOT NULL,
+  min_score INTEGER,
+  max_score INTEGER,
+  CONSTRAINT pk_student_grade_aggregate PRIMARY KEY (student_id)
+);
+
+CREATE TABLE module_grade_aggregate (
+  module_code VARCHAR(32) NOT NULL,
+  grade_count BIGINT NOT NULL,
+  score_sum BIGINT NOT NULL,
+  score_sum_squares BIGINT NOT NULL,
+  min_score INTEGER,
+  max_score INTEGER,
+  CONSTRAINT pk_module_grade_aggregate PRIMARY KEY (module_code)
+);
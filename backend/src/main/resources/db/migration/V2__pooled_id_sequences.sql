@@ -0,0 +1,20 @@
+-- Grade and registration IDs come from sequences instead of identity
+-- columns, so that Hibernate can assign them before inserting and batch
+-- the inserts. Hibernate reserves a block of 50 IDs per call (the pooled
+-- optimizer), taking each value returned as the highest ID of its block,
+-- so the sequences increment by 50 and restart 50 past the highest ID in
+-- use. Inserts outside Hibernate take their IDs from the same sequences,
+-- one value each, which Hibernate never hands out.
+
+ALTER TABLE grade ALTER COLUMN id DROP IDENTITY;
+CREATE SEQUENCE grade_seq START WITH 50 INCREMENT BY 50;
+ALTER SEQUENCE grade_seq
+  RESTART WITH (SELECT COALESCE(MAX(id), 0) + 50 FROM grade);
+ALTER TABLE grade ALTER COLUMN id SET DEFAULT NEXT VALUE FOR grade_seq;
+
+ALTER TABLE registration ALTER COLUMN id DROP IDENTITY;
+CREATE SEQUENCE registration_seq START WITH 50 INCREMENT BY 50;
+ALTER SEQUENCE registration_seq
+  RESTART WITH (SELECT COALESCE(MAX(id), 0) + 50 FROM registration);
+ALTER TABLE registration ALTER COLUMN id
+  SET DEFAULT NEXT VALUE FOR registration_seq;
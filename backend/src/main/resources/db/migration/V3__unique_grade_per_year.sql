@@ -0,0 +1,42 @@
+-- A student holds at most one grade per module and academic year, so
+-- re-submitting a mark replaces it instead of adding a second row. Where
+-- duplicates exist, the most recently inserted grade is kept, and the
+-- grade aggregates are recomputed without the others.
+
+DELETE FROM grade g WHERE EXISTS (
+  SELECT 1 FROM grade n
+  WHERE n.student_id = g.student_id
+    AND n.module_code = g.module_code
+    AND n.academic_year = g.academic_year
+    AND n.id > g.id);
+
+UPDATE student_grade_aggregate a SET
+  grade_count = (SELECT COUNT(*) FROM grade g
+    WHERE g.student_id = a.student_id),
+  score_sum = (SELECT COALESCE(SUM(g.score), 0) FROM grade g
+    WHERE g.student_id = a.student_id),
+  score_sum_squares = (SELECT COALESCE(SUM(g.score * g.score), 0)
+    FROM grade g WHERE g.student_id = a.student_id),
+  min_score = (SELECT MIN(g.score) FROM grade g
+    WHERE g.student_id = a.student_id),
+  max_score = (SELECT MAX(g.score) FROM grade g
+    WHERE g.student_id = a.student_id);
+
+UPDATE module_grade_aggregate a SET
+  grade_count = (SELECT COUNT(*) FROM grade g
+    WHERE g.module_code = a.module_code),
+  score_sum = (SELECT COALESCE(SUM(g.score), 0) FROM grade g
+    WHERE g.module_code = a.module_code),
+  score_sum_squares = (SELECT COALESCE(SUM(g.score * g.score), 0)
+    FROM grade g WHERE g.module_code = a.module_code),
+  min_score = (SELECT MIN(g.score) FROM grade g
+    WHERE g.module_code = a.module_code),
+  max_score = (SELECT MAX(g.score) FROM grade g
+    WHERE g.module_code = a.module_code);
+
+-- The unique key replaces the index on the same columns, and serves the
+-- same lookups.
+DROP INDEX idx_grade_student_module_year;
+
+ALTER TABLE grade ADD CONSTRAINT uq_grade_student_module_year
+  UNIQUE (student_id, module_code, academic_year);
@@ -0,0 +1,7 @@
+-- Students, modules and grades carry a version, incremented by every
+-- update, so that an update based on an outdated copy is rejected instead
+-- of silently overwriting a concurrent one.
+
+ALTER TABLE student ADD COLUMN version BIGINT DEFAULT 0 NOT NULL;
+ALTER TABLE module ADD COLUMN version BIGINT DEFAULT 0 NOT NULL;
+ALTER TABLE grade ADD COLUMN version BIGINT DEFAULT 0 NOT NULL;
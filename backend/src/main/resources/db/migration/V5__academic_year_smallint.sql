@@ -0,0 +1,23 @@
+-- Academic years are stored as the calendar year they start in, so that
+-- "2024/2025" takes two bytes instead of a string, and compares and sorts
+-- as a number. Every label names two consecutive years, so the label is
+-- recovered exactly from the year it starts in.
+--
+-- Nearly all reads are for the current year, so grades are also indexed
+-- by year first. A query for one year, alone or with a module, reads only
+-- that year's entries however many earlier years accumulate, and the
+-- score in the index answers module statistics without reading the rows.
+
+ALTER TABLE grade DROP CONSTRAINT uq_grade_student_module_year;
+
+ALTER TABLE grade ADD COLUMN start_year SMALLINT;
+UPDATE grade
+  SET start_year = CAST(SUBSTRING(academic_year, 1, 4) AS SMALLINT);
+ALTER TABLE grade DROP COLUMN academic_year;
+ALTER TABLE grade RENAME COLUMN start_year TO academic_year;
+
+ALTER TABLE grade ADD CONSTRAINT uq_grade_student_module_year
+  UNIQUE (student_id, module_code, academic_year);
+
+CREATE INDEX idx_grade_year_module
+  ON grade (academic_year, module_code, score);
@@ -0,0 +1,14 @@
+-- The version of the data as a whole, advanced after every committed
+-- write, so that every instance sharing the database tags and caches its
+-- responses by the same version. The single row also records when it was
+-- created, so that tags issued for an earlier database never match.
+
+CREATE TABLE data_version (
+    id SMALLINT PRIMARY KEY CHECK (id = 1),
+    created TIMESTAMP WITH TIME ZONE NOT NULL,
+    version BIGINT NOT NULL,
+    last_modified TIMESTAMP WITH TIME ZONE NOT NULL
+);
+
+INSERT INTO data_version (id, created, version, last_modified)
+VALUES (1, CURRENT_TIMESTAMP, 0, CURRENT_TIMESTAMP);
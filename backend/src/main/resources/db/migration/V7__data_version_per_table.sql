@@ -0,0 +1,19 @@
+-- Versions are kept per table, so that a write advances only the versions
+-- of the tables it changed, and an endpoint's tag and cached responses
+-- depend only on the tables it reads. Writers of different tables thereby
+-- no longer update the same row.
+
+DROP TABLE data_version;
+
+CREATE TABLE data_version (
+    table_name VARCHAR(64) PRIMARY KEY,
+    created TIMESTAMP WITH TIME ZONE NOT NULL,
+    version BIGINT NOT NULL,
+    last_modified TIMESTAMP WITH TIME ZONE NOT NULL
+);
+
+INSERT INTO data_version (table_name, created, version, last_modified)
+VALUES ('student', CURRENT_TIMESTAMP, 0, CURRENT_TIMESTAMP),
+       ('module', CURRENT_TIMESTAMP, 0, CURRENT_TIMESTAMP),
+       ('registration', CURRENT_TIMESTAMP, 0, CURRENT_TIMESTAMP),
+       ('grade', CURRENT_TIMESTAMP, 0, CURRENT_TIMESTAMP);
@@ -0,0 +1,116 @@
+package uk.ac.ucl.comp0010.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import uk.ac.ucl.comp0010.model.Grade;
+import uk.ac.ucl.comp0010.model.Module;
+import uk.ac.ucl.comp0010.model.Student;
+
+/**
+ * Compares the hash-indexed lookups of Student with the linear scans they
+ * replace, for students of growing size. Each lookup targets the last
+ * element, the worst case for a scan.
+ *
+ * Run with: mvn -Pbenchmark test -Dtest=DomainIndexBenchmark
+ */
+@Tag("benchmark")
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DomainIndexBenchmark {
+
+  /** The number of modules the student holds. */
+  @Param({"10", "100", "1000", "10000"})
+  private int size;
+
+  /** A student registered and graded in size modules. */
+  private Student student;
+
+  /** The module looked up in the student. */
+  private Module lastModule;
+
+  /**
+   * Builds the student.
+   *
+   * @throws Exception if a grade cannot be added
+   */
+  @Setup
+  public void setUp() throws Exception {
+    student = new Student();
+    student.setId(0L);
+    for (int i = 0; i < size; i++) {
+      Module m = new Module();
+      m.setCode(String.format("MOD%05d", i));
+      student.registerModule(m);
+      Grade g = new Grade();
+      g.setModule(m);
+      g.setScore(i % 101);
+      student.addGrade(g);
+      lastModule = m;
+    }
+  }
+
+  /**
+   * Finds a grade by module through the student's index.
+   *
+   * @return the grade
+   * @throws Exception if the student holds no such grade
+   */
+  @Benchmark
+  public Grade gradeByModuleIndexed() throws Exception {
+    return student.getGrade(lastModule);
+  }
+
+  /**
+   * Finds a grade by module with the scans Student.getGrade used to do.
+   *
+   * @return the grade
+   */
+  @Benchmark
+  public Grade gradeByModuleScan() {
+    String code = lastModule.getCode();
+    boolean registered = student.getRegistrations().stream()
+        .anyMatch(reg -> reg.getModule().getCode().equals(code));
+    if (!registered) {
+      return null;
+    }
+    return student.getGrades().stream()
+        .filter(g -> g.getModule().getCode().equals(code))
+        .findFirst()
+        .orElse(null);
+  }
+
+  /**
+   * Runs the benchmarks of this class with JMH.
+   *
+   * @throws RunnerException if JMH fails
+   */
+  @Test
+  @DisplayName("Domain lookups: hash index vs linear scan")
+  public void runBenchmarks() throws RunnerException {
+    new Runner(new OptionsBuilder()
+        .include(DomainIndexBenchmark.class.getName())
+        .build()).run();
+  }
+}
@@ -0,0 +1,393 @@
+package uk.ac.ucl.comp0010.benchmark;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.http.ResponseEntity;
+
+import uk.ac.ucl.comp0010.controller.ModuleController;
+import uk.ac.ucl.comp0010.model.Grade;
+import uk.ac.ucl.comp0010.model.Module;
+import uk.ac.ucl.comp0010.model.Student;
+import uk.ac.ucl.comp0010.projection.RosterEntry;
+import uk.ac.ucl.comp0010.repository.ModuleRepository;
+import uk.ac.ucl.comp0010.repository.RegistrationRepository;
+
+/**
+ * Measures the hot paths of the domain model and of roster assembly:
+ * Student.computeAverage, Student.getGrade, Student.addGrade,
+ * Module.computeAverageGrade and ModuleController.getModuleRegistrations,
+ * for students holding 10 to 100k grades and rosters of 10 to 5k
+ * registrations.
+ *
+ * The roster is assembled from rows returned by stubbed repositories, so
+ * only the work done in the JVM is measured, not the query. JMH runs with
+ * the GC profiler, so every result carries its allocation rate per
+ * operation (gc.alloc.rate.norm), and the results are written as JSON to
+ * target/jmh/DomainModelBenchmark.json, or to the file named by the
+ * jmh.result system property, for comparison between runs.
+ *
+ * Run with: mvn -Pbenchmark test -Dtest=DomainModelBenchmark
+ */
+@Tag("benchmark")
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DomainModelBenchmark {
+
+  /** The number of grades added in each single-shot addGrade batch. */
+  private static final int ADDED = 1000;
+
+  /** The module code of the roster. */
+  private static final String ROSTER_CODE = "BENCH01";
+
+  /**
+   * A student registered and graded in a growing number of modules.
+   */
+  @State(Scope.Benchmark)
+  public static class StudentState {
+
+    /** The number of grades the student holds. */
+    @Param({"10", "100", "1000", "10000", "100000"})
+    private int grades;
+
+    /** The student. */
+    private Student student;
+
+    /** The grades of the student, as a module would hold them. */
+    private List<Grade> gradeList;
+
+    /** The module of the student's last grade. */
+    private Module lastModule;
+
+    /**
+     * Builds the student.
+     *
+     * @throws Exception if a grade cannot be added
+     */
+    @Setup
+    public void setUp() throws Exception {
+      student = gradedStudent(grades);
+      gradeList = new ArrayList<>(student.getGrades());
+      lastModule = gradeList.get(grades - 1).getModule();
+    }
+  }
+
+  /**
+   * A student holding a growing number of grades, refreshed before each
+   * iteration, together with grades not yet added for modules the student
+   * is registered in.
+   */
+  @State(Scope.Thread)
+  public static class AddGradeState {
+
+    /** The number of grades the student holds before the batch. */
+    @Param({"10", "100", "1000", "10000", "100000"})
+    private int grades;
+
+    /** The student. */
+    private Student student;
+
+    /** The grades to add, in order. */
+    private Grade[] pending;
+
+    /** The index of the next grade to add. */
+    private int next;
+
+    /**
+     * Builds the student and the grades to add.
+     *
+     * @throws Exception if a grade cannot be added
+     */
+    @Setup(Level.Iteration)
+    public void setUp() throws Exception {
+      student = gradedStudent(grades);
+      pending = new Grade[ADDED];
+      for (int i = 0; i < ADDED; i++) {
+        Module m = module(grades + i);
+        student.registerModule(m);
+        pending[i] = grade(m, i);
+      }
+      next = 0;
+    }
+  }
+
+  /**
+   * The rows of a module roster of growing size, and a controller whose
+   * repositories return them.
+   */
+  @State(Scope.Benchmark)
+  public static class RosterState {
+
+    /** The number of registrations in the roster. */
+    @Param({"10", "100", "1000", "5000"})
+    private int registrations;
+
+    /** The controller assembling the roster. */
+    private ModuleController controller;
+
+    /**
+     * Builds the roster rows and stubs the repositories returning them.
+     */
+    @Setup
+    public void setUp() {
+      List<RosterEntry> rows = new ArrayList<>(registrations);
+      for (long id = 1; id <= registrations; id++) {
+        rows.add(new Row(id, (int) (id % 101)));
+      }
+      ModuleRepository moduleRepository = mock(ModuleRepository.class);
+      when(moduleRepository.existsById(ROSTER_CODE)).thenReturn(true);
+      RegistrationRepository registrationRepository =
+          mock(RegistrationRepository.class);
+      when(registrationRepository.findRosterByModuleCode(ROSTER_CODE))
+          .thenReturn(rows);
+      controller = new ModuleController(moduleRepository, null,
+          registrationRepository, null, null, null, null);
+    }
+  }
+
+  /**
+   * Averages every grade of the student.
+   *
+   * @param state the student
+   * @return the average
+   * @throws Exception if the student holds no grades
+   */
+  @Benchmark
+  public float studentComputeAverage(final StudentState state)
+      throws Exception {
+    return state.student.computeAverage();
+  }
+
+  /**
+   * Finds the student's grade in the module of their last grade.
+   *
+   * @param state the student
+   * @return the grade
+   * @throws Exception if the student holds no such grade
+   */
+  @Benchmark
+  public Grade studentGetGrade(final StudentState state) throws Exception {
+    return state.student.getGrade(state.lastModule);
+  }
+
+  /**
+   * Averages the student's grades as a module would.
+   *
+   * @param state the student
+   * @return the average
+   * @throws Exception if there are no grades
+   */
+  @Benchmark
+  public float moduleComputeAverageGrade(final StudentState state)
+      throws Exception {
+    return state.lastModule.computeAverageGrade(state.gradeList);
+  }
+
+  /**
+   * Adds one grade to a student already holding the given number of
+   * grades. Each iteration adds a batch of ADDED grades, timed as one
+   * shot, so the student does not grow without bound.
+   *
+   * @param state the student and the grades to add
+   * @return the student
+   * @throws Exception if the student is not registered for the module
+   */
+  @Benchmark
+  @BenchmarkMode(Mode.SingleShotTime)
+  @OutputTimeUnit(TimeUnit.MICROSECONDS)
+  @Warmup(iterations = 10, batchSize = ADDED)
+  @Measurement(iterations = 20, batchSize = ADDED)
+  public Student studentAddGrade(final AddGradeState state) throws Exception {
+    state.student.addGrade(state.pending[state.next++]);
+    return state.student;
+  }
+
+  /**
+   * Returns the student without adding anything, with the same state and
+   * batches as studentAddGrade. The GC profiler counts the allocations of
+   * the per-iteration setup in both, so studentAddGrade allocates what it
+   * reports minus what this reports.
+   *
+   * @param state the student and the grades to add
+   * @return the student
+   */
+  @Benchmark
+  @BenchmarkMode(Mode.SingleShotTime)
+  @OutputTimeUnit(TimeUnit.MICROSECONDS)
+  @Warmup(iterations = 10, batchSize = ADDED)
+  @Measurement(iterations = 20, batchSize = ADDED)
+  public Student studentAddGradeBaseline(final AddGradeState state) {
+    state.next++;
+    return state.student;
+  }
+
+  /**
+   * Assembles the roster response of a module from its rows.
+   *
+   * @param state the controller and roster rows
+   * @return the roster response
+   */
+  @Benchmark
+  public ResponseEntity<?> moduleControllerRoster(final RosterState state) {
+    return state.controller.getModuleRegistrations(ROSTER_CODE);
+  }
+
+  /**
+   * Runs the benchmarks of this class with JMH, profiling allocation and
+   * writing the results as JSON.
+   *
+   * @throws RunnerException if JMH fails
+   */
+  @Test
+  @DisplayName("Domain model and roster hot paths")
+  public void runBenchmarks() throws RunnerException {
+    String result = System.getProperty("jmh.result",
+        "target/jmh/DomainModelBenchmark.json");
+    new File(result).getAbsoluteFile().getParentFile().mkdirs();
+    new Runner(new OptionsBuilder()
+        .include(DomainModelBenchmark.class.getName())
+        .addProfiler(GCProfiler.class)
+        .resultFormat(ResultFormatType.JSON)
+        .result(result)
+        .build()).run();
+  }
+
+  /**
+   * Returns a student registered and graded in the given number of
+   * modules.
+   *
+   * @param count the number of grades
+   * @return the student
+   * @throws Exception if a grade cannot be added
+   */
+  private static Student gradedStudent(final int count) throws Exception {
+    Student s = new Student();
+    s.setId(0L);
+    for (int i = 0; i < count; i++) {
+      Module m = module(i);
+      s.registerModule(m);
+      s.addGrade(grade(m, i));
+    }
+    return s;
+  }
+
+  /**
+   * Returns a module with a code derived from an index.
+   *
+   * @param i the index
+   * @return the module
+   */
+  private static Module module(final int i) {
+    Module m = new Module();
+    m.setCode(String.format("MOD%06d", i));
+    return m;
+  }
+
+  /**
+   * Returns a grade in a module, with a score derived from an index.
+   *
+   * @param m the module
+   * @param i the index
+   * @return the grade
+   */
+  private static Grade grade(final Module m, final int i) {
+    Grade g = new Grade();
+    g.setModule(m);
+    g.setScore(i % 101);
+    return g;
+  }
+
+  /**
+   * A roster row of a student with a grade. Its strings are built once, so
+   * that reading the row allocates nothing.
+   */
+  private static final class Row implements RosterEntry {
+
+    /** The student ID. */
+    private final Long id;
+
+    /** The first name. */
+    private final String firstName;
+
+    /** The last name. */
+    private final String lastName;
+
+    /** The email. */
+    private final String email;
+
+    /** The score. */
+    private final Integer score;
+
+    /**
+     * Constructs a Row.
+     *
+     * @param studentId the student ID
+     * @param value     the score
+     */
+    Row(final Long studentId, final Integer value) {
+      this.id = studentId;
+      this.firstName = "First" + studentId;
+      this.lastName = "Last" + studentId;
+      this.email = "user" + studentId + "@example.com";
+      this.score = value;
+    }
+
+    @Override
+    public Long getId() {
+      return id;
+    }
+
+    @Override
+    public String getFirstName() {
+      return firstName;
+    }
+
+    @Override
+    public String getLastName() {
+      return lastName;
+    }
+
+    @Override
+    public String getEmail() {
+      return email;
+    }
+
+    @Override
+    public Integer getGrade() {
+      return score;
+    }
+
+    @Override
+    public Long getGradeId() {
+      return id;
+    }
+  }
+}
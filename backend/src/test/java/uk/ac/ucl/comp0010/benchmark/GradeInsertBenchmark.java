@@ -0,0 +1,177 @@
+package uk.ac.ucl.comp0010.benchmark;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+
+import uk.ac.ucl.comp0010.model.Grade;
+import uk.ac.ucl.comp0010.model.Module;
+import uk.ac.ucl.comp0010.model.Student;
+
+/**
+ * Measures the throughput of inserting grades through JPA, in chunks of
+ * CHUNK_SIZE per transaction as bulk marking does, and how many JDBC
+ * statements the inserts take.
+ *
+ * Run with: mvn -Pbenchmark test -Dtest=GradeInsertBenchmark
+ * The number of grades defaults to 100,000 and can be changed with
+ * -Dgms.benchmark.grades=N.
+ */
+@Tag("benchmark")
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(locations = "classpath:application.properties",
+    properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+public final class GradeInsertBenchmark {
+
+  /** The number of modules the grades are spread over. */
+  private static final int MODULES = 20;
+
+  /** The number of grades persisted per transaction. */
+  private static final int CHUNK_SIZE = 1000;
+
+  /** The number of untimed runs before measuring. */
+  private static final int WARMUP_RUNS = 1;
+
+  /** The number of timed runs. */
+  private static final int MEASURED_RUNS = 3;
+
+  /** The number of grades inserted per run. */
+  @Value("${gms.benchmark.grades:100000}")
+  private int gradeCount;
+
+  /** Used to seed and clear the benchmark data. */
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  /** Used to persist the grades. */
+  @Autowired
+  private EntityManager entityManager;
+
+  /** Used to read Hibernate statement statistics. */
+  @Autowired
+  private EntityManagerFactory entityManagerFactory;
+
+  /** Used to run each chunk in a transaction. */
+  @Autowired
+  private PlatformTransactionManager transactionManager;
+
+  /**
+   * Clears all data and seeds MODULES modules and one student per
+   * MODULES grades.
+   */
+  @BeforeEach
+  public void setUp() {
+    clear();
+    jdbcTemplate.update("INSERT INTO module (code, name, mnc, max_seats)"
+        + " SELECT 'BENCH' || X, 'Benchmark ' || X, FALSE, 1000000"
+        + " FROM SYSTEM_RANGE(1, ?)", MODULES);
+    jdbcTemplate.update("INSERT INTO student"
+        + " (id, first_name, last_name, username, email)"
+        + " SELECT X, 'First', 'Last', 'user' || X, 'user' || X || '@x.com'"
+        + " FROM SYSTEM_RANGE(1, ?)", students());
+    entityManagerFactory.getCache().evictAll();
+  }
+
+  /**
+   * Times inserting gradeCount grades, and reports the statements one run
+   * prepares. Batched inserts prepare one statement per batch.
+   */
+  @Test
+  @DisplayName("Grade inserts: throughput and JDBC batching")
+  public void benchmarkInserts() {
+    Statistics stats = entityManagerFactory.unwrap(SessionFactory.class)
+        .getStatistics();
+    for (int i = 0; i < WARMUP_RUNS; i++) {
+      insertGrades();
+      jdbcTemplate.update("DELETE FROM grade");
+    }
+
+    List<Double> rates = new ArrayList<>();
+    long statements = 0;
+    for (int i = 0; i < MEASURED_RUNS; i++) {
+      stats.clear();
+      long start = System.nanoTime();
+      insertGrades();
+      double seconds = (System.nanoTime() - start) / 1e9;
+      statements = stats.getPrepareStatementCount();
+      rates.add(gradeCount / seconds);
+      assertEquals(gradeCount, jdbcTemplate.queryForObject(
+          "SELECT COUNT(*) FROM grade", Long.class));
+      jdbcTemplate.update("DELETE FROM grade");
+    }
+    rates.sort(null);
+
+    System.out.printf("GradeInsertBenchmark grades=%d chunk=%d%n",
+        gradeCount, CHUNK_SIZE);
+    System.out.printf("  median throughput:   %.0f grades/s%n",
+        rates.get(MEASURED_RUNS / 2));
+    System.out.printf("  statements prepared: %d (%.3f per grade)%n",
+        statements, (double) statements / gradeCount);
+    clear();
+  }
+
+  /**
+   * Persists gradeCount grades in transactions of CHUNK_SIZE.
+   */
+  private void insertGrades() {
+    TransactionTemplate tx = new TransactionTemplate(transactionManager);
+    for (int from = 0; from < gradeCount; from += CHUNK_SIZE) {
+      int to = Math.min(from + CHUNK_SIZE, gradeCount);
+      int first = from;
+      tx.executeWithoutResult(status -> {
+        for (int i = first; i < to; i++) {
+          Grade g = new Grade();
+          g.setScore(i % 101);
+          g.setAcademicYear("2024/2025");
+          g.setStudent(entityManager.getReference(Student.class,
+              (long) (i / MODULES + 1)));
+          g.setModule(entityManager.getReference(Module.class,
+              "BENCH" + (i % MODULES + 1)));
+          entityManager.persist(g);
+        }
+        entityManager.flush();
+        entityManager.clear();
+      });
+    }
+  }
+
+  /**
+   * Returns the number of students seeded.
+   *
+   * @return one student per MODULES grades
+   */
+  private int students() {
+    return (gradeCount + MODULES - 1) / MODULES;
+  }
+
+  /**
+   * Deletes all data.
+   */
+  private void clear() {
+    jdbcTemplate.update("DELETE FROM registration");
+    jdbcTemplate.update("DELETE FROM grade");
+    jdbcTemplate.update("DELETE FROM student");
+    jdbcTemplate.update("DELETE FROM module");
+    entityManagerFactory.getCache().evictAll();
+  }
+}
@@ -0,0 +1,298 @@
+package uk.ac.ucl.comp0010.benchmark;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.LockModeType;
+
+import uk.ac.ucl.comp0010.model.Grade;
+import uk.ac.ucl.comp0010.service.GradeAggregateService;
+import uk.ac.ucl.comp0010.service.GradeService;
+
+/**
+ * Measures the throughput of concurrent grade updates contending for a
+ * small set of hot grades along three paths: conditional updates, which
+ * read a grade's version and update it if it still holds, as a client
+ * sending If-Match does; unconditional updates through the same service,
+ * which only fail when another update commits between their read and
+ * write; and updates that take a pessimistic row lock first. Writers on
+ * the first two paths retry after losing a race.
+ *
+ * Run with: mvn -Pbenchmark test -Dtest=GradeUpdateContentionBenchmark
+ * The defaults of 8 threads, 16 hot grades and 5 seconds per path can be
+ * changed with -Dgms.benchmark.threads=N, -Dgms.benchmark.hot-grades=N
+ * and -Dgms.benchmark.seconds=N.
+ */
+@Tag("benchmark")
+@SpringBootTest
+@ActiveProfiles("test")
+public final class GradeUpdateContentionBenchmark {
+
+  /** The number of writer threads. */
+  @Value("${gms.benchmark.threads:8}")
+  private int threads;
+
+  /** The number of grades the writers contend for. */
+  @Value("${gms.benchmark.hot-grades:16}")
+  private int hotGrades;
+
+  /** The measured duration of each path, in seconds. */
+  @Value("${gms.benchmark.seconds:5}")
+  private int seconds;
+
+  /** Used to seed and clear the benchmark data. */
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  /** The service whose optimistic updates are measured. */
+  @Autowired
+  private GradeService gradeService;
+
+  /** Keeps the aggregates in step on the pessimistic path. */
+  @Autowired
+  private GradeAggregateService aggregateService;
+
+  /** Used to lock grades on the pessimistic path. */
+  @Autowired
+  private EntityManager entityManager;
+
+  /** Used to evict cached entities after seeding. */
+  @Autowired
+  private EntityManagerFactory entityManagerFactory;
+
+  /** Used to run the pessimistic updates in transactions. */
+  @Autowired
+  private PlatformTransactionManager transactionManager;
+
+  /** The IDs of the hot grades. */
+  private List<Long> gradeIds;
+
+  /**
+   * Clears all data and seeds the hot grades, each held by its own student
+   * in its own module, so that writers contend for the grades rather than
+   * for the aggregates of a shared student or module.
+   */
+  @BeforeEach
+  public void setUp() {
+    clear();
+    jdbcTemplate.update("INSERT INTO module (code, name, mnc, max_seats)"
+        + " SELECT 'MOD' || X, 'Module ' || X, FALSE, 1"
+        + " FROM SYSTEM_RANGE(1, ?)", hotGrades);
+    jdbcTemplate.update("INSERT INTO student"
+        + " (id, first_name, last_name, username, email)"
+        + " SELECT X, 'First', 'Last', 'user' || X, 'user' || X || '@x.com'"
+        + " FROM SYSTEM_RANGE(1, ?)", hotGrades);
+    jdbcTemplate.update("INSERT INTO registration (student_id, module_code)"
+        + " SELECT X, 'MOD' || X FROM SYSTEM_RANGE(1, ?)", hotGrades);
+    jdbcTemplate.update("INSERT INTO grade"
+        + " (score, academic_year, student_id, module_code)"
+        + " SELECT 50, 2024, X, 'MOD' || X FROM SYSTEM_RANGE(1, ?)",
+        hotGrades);
+    gradeIds = jdbcTemplate.queryForList("SELECT id FROM grade ORDER BY id",
+        Long.class);
+    entityManagerFactory.getCache().evictAll();
+    aggregateService.reconcile();
+  }
+
+  /**
+   * Deletes the benchmark data.
+   */
+  @AfterEach
+  public void tearDown() {
+    clear();
+  }
+
+  /**
+   * Times the three paths, and checks that the conditional and pessimistic
+   * paths lost no update: every update they completed must have advanced
+   * the version of its grade.
+   *
+   * @throws Exception if a writer fails
+   */
+  @Test
+  @DisplayName("Contended grade updates: optimistic vs pessimistic")
+  public void benchmarkContention() throws Exception {
+    AtomicLong conflicts = new AtomicLong();
+    Writer conditional = () -> {
+      Long id = randomGrade();
+      while (true) {
+        Grade g = gradeService.find(id).orElseThrow();
+        try {
+          gradeService.update(id, g.getVersion(), nextScore(g), null);
+          return;
+        } catch (OptimisticLockingFailureException e) {
+          conflicts.incrementAndGet();
+        }
+      }
+    };
+    Writer unconditional = () -> {
+      Long id = randomGrade();
+      while (true) {
+        try {
+          gradeService.update(id, null,
+              ThreadLocalRandom.current().nextInt(101), null);
+          return;
+        } catch (OptimisticLockingFailureException e) {
+          conflicts.incrementAndGet();
+        }
+      }
+    };
+    TransactionTemplate tx = new TransactionTemplate(transactionManager);
+    Writer pessimistic = () -> tx.executeWithoutResult(status -> {
+      Grade g = entityManager.find(Grade.class, randomGrade(),
+          LockModeType.PESSIMISTIC_WRITE);
+      int oldScore = g.getScore();
+      g.setScore(nextScore(g));
+      aggregateService.recordScoreChanged(g, oldScore);
+    });
+
+    long updates = run(conditional, 1);
+    conflicts.set(0);
+    long conditionalUpdates = run(conditional, seconds);
+    long conditionalConflicts = conflicts.get();
+    updates += conditionalUpdates;
+    assertEquals(updates, versionTotal());
+
+    run(unconditional, 1);
+    conflicts.set(0);
+    long unconditionalUpdates = run(unconditional, seconds);
+    long unconditionalConflicts = conflicts.get();
+    // An unconditional update may rewrite a grade's current score, leaving
+    // its version as it was, so only the other paths are checked.
+    updates = versionTotal();
+
+    updates += run(pessimistic, 1);
+    long pessimisticUpdates = run(pessimistic, seconds);
+    updates += pessimisticUpdates;
+    assertEquals(updates, versionTotal());
+
+    System.out.printf("GradeUpdateContentionBenchmark threads=%d"
+        + " hotGrades=%d seconds=%d%n", threads, hotGrades, seconds);
+    report("conditional (If-Match)", conditionalUpdates,
+        conditionalConflicts);
+    report("unconditional", unconditionalUpdates, unconditionalConflicts);
+    report("pessimistic (row lock)", pessimisticUpdates, 0);
+  }
+
+  /**
+   * Prints the throughput and conflict rate of a path.
+   *
+   * @param path      the name of the path
+   * @param updates   the number of updates completed
+   * @param conflicts the number of updates retried
+   */
+  private void report(final String path, final long updates,
+      final long conflicts) {
+    System.out.printf("  %-24s %8.0f updates/s, %.3f conflicts per update%n",
+        path + ":", (double) updates / seconds, (double) conflicts / updates);
+  }
+
+  /**
+   * Runs a writer on every thread for a number of seconds.
+   *
+   * @param writer        the writer
+   * @param runForSeconds how long to run for
+   * @return the number of updates completed
+   * @throws Exception if a writer fails
+   */
+  private long run(final Writer writer, final int runForSeconds)
+      throws Exception {
+    long end = System.nanoTime() + runForSeconds * 1_000_000_000L;
+    AtomicLong updates = new AtomicLong();
+    ExecutorService pool = Executors.newFixedThreadPool(threads);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int i = 0; i < threads; i++) {
+        futures.add(pool.submit(() -> {
+          while (System.nanoTime() < end) {
+            writer.write();
+            updates.incrementAndGet();
+          }
+        }));
+      }
+      for (Future<?> f : futures) {
+        f.get();
+      }
+    } finally {
+      pool.shutdown();
+    }
+    return updates.get();
+  }
+
+  /**
+   * Returns the total of the versions of the hot grades, which start at 0.
+   *
+   * @return the total
+   */
+  private long versionTotal() {
+    return jdbcTemplate.queryForObject("SELECT SUM(version) FROM grade",
+        Long.class);
+  }
+
+  /**
+   * Returns the ID of a random hot grade.
+   *
+   * @return the grade ID
+   */
+  private Long randomGrade() {
+    return gradeIds.get(ThreadLocalRandom.current().nextInt(hotGrades));
+  }
+
+  /**
+   * Returns a score different from a grade's current score.
+   *
+   * @param g the grade
+   * @return the next score
+   */
+  private static int nextScore(final Grade g) {
+    return (g.getScore() + 1) % 101;
+  }
+
+  /**
+   * Deletes all data.
+   */
+  private void clear() {
+    jdbcTemplate.update("DELETE FROM registration");
+    jdbcTemplate.update("DELETE FROM grade");
+    jdbcTemplate.update("DELETE FROM student");
+    jdbcTemplate.update("DELETE FROM module");
+    jdbcTemplate.update("DELETE FROM student_grade_aggregate");
+    jdbcTemplate.update("DELETE FROM module_grade_aggregate");
+    entityManagerFactory.getCache().evictAll();
+  }
+
+  /**
+   * Performs one grade update.
+   */
+  @FunctionalInterface
+  private interface Writer {
+
+    /**
+     * Updates a grade.
+     */
+    void write();
+  }
+}
@@ -0,0 +1,165 @@
+package uk.ac.ucl.comp0010.benchmark;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import uk.ac.ucl.comp0010.model.Grade;
+import uk.ac.ucl.comp0010.model.Module;
+import uk.ac.ucl.comp0010.repository.ModuleRepository;
+import uk.ac.ucl.comp0010.service.ModuleStatistics;
+import uk.ac.ucl.comp0010.service.ModuleStatisticsService;
+
+/**
+ * Compares computing a module's statistics in the database with the Java
+ * path of Module.computeAverageGrade over the module's loaded grades.
+ *
+ * Run with: mvn -Pbenchmark test -Dtest=ModuleStatisticsBenchmark
+ * The number of grades defaults to 100,000 and can be changed with
+ * -Dgms.benchmark.grades=N.
+ */
+@Tag("benchmark")
+@SpringBootTest
+@ActiveProfiles("test")
+public final class ModuleStatisticsBenchmark {
+
+  /** The code of the benchmark module. */
+  private static final String CODE = "BENCH01";
+
+  /** The number of grades held by each benchmark student. */
+  private static final int GRADES_PER_STUDENT = 50;
+
+  /** The number of untimed runs before measuring. */
+  private static final int WARMUP_RUNS = 3;
+
+  /** The number of timed runs. */
+  private static final int MEASURED_RUNS = 10;
+
+  /** The number of grades in the benchmark module. */
+  @Value("${gms.benchmark.grades:100000}")
+  private int gradeCount;
+
+  /** Used to seed the benchmark data in batches. */
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  /** Repository for managing Module entities. */
+  @Autowired
+  private ModuleRepository moduleRepository;
+
+  /** The service under benchmark. */
+  @Autowired
+  private ModuleStatisticsService statisticsService;
+
+  /** Used to run the Java path in a transaction. */
+  @Autowired
+  private PlatformTransactionManager transactionManager;
+
+  /**
+   * Clears all data and seeds one module with gradeCount grades, spread
+   * over students holding GRADES_PER_STUDENT grades each.
+   */
+  @BeforeEach
+  public void setUp() {
+    jdbcTemplate.update("DELETE FROM registration");
+    jdbcTemplate.update("DELETE FROM grade");
+    jdbcTemplate.update("DELETE FROM student");
+    jdbcTemplate.update("DELETE FROM module");
+
+    Module module = new Module();
+    module.setCode(CODE);
+    module.setName("Benchmark Module");
+    module.setMnc(false);
+    module.setMaxSeats(gradeCount);
+    moduleRepository.save(module);
+
+    int students = (gradeCount + GRADES_PER_STUDENT - 1) / GRADES_PER_STUDENT;
+    List<Object[]> studentRows = new ArrayList<>();
+    for (long id = 1; id <= students; id++) {
+      studentRows.add(new Object[] {id, "First" + id, "Last" + id,
+          "user" + id, "user" + id + "@example.com"});
+    }
+    jdbcTemplate.batchUpdate("INSERT INTO student"
+        + " (id, first_name, last_name, username, email)"
+        + " VALUES (?, ?, ?, ?, ?)", studentRows);
+
+    List<Object[]> gradeRows = new ArrayList<>();
+    for (int i = 0; i < gradeCount; i++) {
+      gradeRows.add(new Object[] {(i * 37) % 101, 2024,
+          (long) (i / GRADES_PER_STUDENT + 1), CODE});
+    }
+    jdbcTemplate.batchUpdate("INSERT INTO grade"
+        + " (score, academic_year, student_id, module_code)"
+        + " VALUES (?, ?, ?, ?)", gradeRows);
+  }
+
+  /**
+   * Times both paths and checks that they agree on the mean.
+   */
+  @Test
+  @DisplayName("Module statistics: database aggregation vs Java average")
+  public void benchmarkStatistics() {
+    TransactionTemplate tx = new TransactionTemplate(transactionManager);
+    Supplier<Double> javaPath = () -> tx.execute(status -> {
+      Module m = moduleRepository.findById(CODE).orElseThrow();
+      List<Grade> grades = m.getGrades();
+      try {
+        return (double) m.computeAverageGrade(grades);
+      } catch (Exception e) {
+        throw new IllegalStateException(e);
+      }
+    });
+    Supplier<Double> sqlPath = () -> {
+      List<ModuleStatistics> stats = statisticsService.statistics(CODE, null);
+      return stats.get(0).getMean();
+    };
+
+    double javaMean = javaPath.get();
+    double sqlMean = sqlPath.get();
+    assertEquals(javaMean, sqlMean, 1e-3);
+
+    double javaMillis = medianMillis(javaPath);
+    double sqlMillis = medianMillis(sqlPath);
+    System.out.printf("ModuleStatisticsBenchmark grades=%d%n", gradeCount);
+    System.out.printf("  java computeAverageGrade (mean only): %.2f ms%n",
+        javaMillis);
+    System.out.printf("  sql statistics (all measures):       %.2f ms%n",
+        sqlMillis);
+    System.out.printf("  speed-up: %.1fx%n", javaMillis / sqlMillis);
+  }
+
+  /**
+   * Runs a task WARMUP_RUNS times untimed, then MEASURED_RUNS times timed.
+   *
+   * @param task the task to time
+   * @return the median duration of the timed runs, in milliseconds
+   */
+  private static double medianMillis(final Supplier<?> task) {
+    for (int i = 0; i < WARMUP_RUNS; i++) {
+      task.get();
+    }
+    double[] millis = new double[MEASURED_RUNS];
+    for (int i = 0; i < MEASURED_RUNS; i++) {
+      long start = System.nanoTime();
+      task.get();
+      millis[i] = (System.nanoTime() - start) / 1e6;
+    }
+    Arrays.sort(millis);
+    return millis[MEASURED_RUNS / 2];
+  }
+}
@@ -0,0 +1,280 @@
+package uk.ac.ucl.comp0010.benchmark;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntFunction;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import jakarta.persistence.EntityManagerFactory;
+
+import uk.ac.ucl.comp0010.Application;
+
+/**
+ * Compares the throughput and latency of addGrade and
+ * getModuleRegistrations when Tomcat serves requests on platform threads
+ * and on virtual threads (spring.threads.virtual.enabled), under load
+ * from many concurrent HTTP clients.
+ *
+ * The application is started once per mode on a random port, and each
+ * client sends one request at a time for the measured duration: addGrade
+ * for the next academic year of a student registered in one of a few
+ * modules, and getModuleRegistrations for that module.
+ *
+ * Run with: mvn -Pbenchmark test -Dtest=ThreadModeLoadBenchmark
+ * The defaults of 2000 clients and 10 seconds per endpoint can be changed
+ * with -Dgms.benchmark.clients=N and -Dgms.benchmark.seconds=N.
+ */
+@Tag("benchmark")
+public final class ThreadModeLoadBenchmark {
+
+  /** The number of concurrent clients. */
+  private static final int CLIENTS =
+      Integer.getInteger("gms.benchmark.clients", 2000);
+
+  /** The measured duration of each endpoint, in seconds. */
+  private static final int SECONDS =
+      Integer.getInteger("gms.benchmark.seconds", 10);
+
+  /** The duration of the warm-up before each measurement, in seconds. */
+  private static final int WARMUP_SECONDS = 3;
+
+  /** The number of modules the students are spread across. */
+  private static final int MODULES = 20;
+
+  /** How long a request may take before it counts as failed. */
+  private static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+  /** Sends the requests, each on its own virtual thread. */
+  private final HttpClient http = HttpClient.newBuilder()
+      .executor(Executors.newVirtualThreadPerTaskExecutor())
+      .build();
+
+  /** The first academic year of the grades added by each client. */
+  private static final int FIRST_YEAR = 2000;
+
+  /**
+   * Runs both endpoints in both modes and prints the results.
+   *
+   * @throws Exception if the application or a client fails
+   */
+  @Test
+  @DisplayName("Platform vs virtual request threads under load")
+  public void benchmarkThreadModes() throws Exception {
+    List<String> report = new ArrayList<>();
+    for (boolean virtual : new boolean[] {false, true}) {
+      try (ConfigurableApplicationContext app = start(virtual)) {
+        seed(app);
+        AtomicIntegerArray added = new AtomicIntegerArray(CLIENTS);
+        String base = "http://localhost:"
+            + ((WebServerApplicationContext) app).getWebServer().getPort();
+        String mode = virtual ? "virtual" : "platform";
+
+        IntFunction<HttpRequest> addGrade = c -> {
+          int year = FIRST_YEAR + added.getAndIncrement(c);
+          return HttpRequest.newBuilder(URI.create(base + "/grades/addGrade"))
+              .header("Content-Type", "application/json")
+              .timeout(TIMEOUT)
+              .POST(HttpRequest.BodyPublishers.ofString(String.format(
+                  "{\"student_id\":\"%d\",\"module_code\":\"%s\","
+                      + "\"score\":\"%d\",\"academic_year\":\"%d/%d\"}",
+                  c + 1, module(c), year % 101, year, year + 1)))
+              .build();
+        };
+        IntFunction<HttpRequest> roster = c -> HttpRequest.newBuilder(
+            URI.create(base + "/modules/" + module(c) + "/registrations"))
+            .timeout(TIMEOUT)
+            .build();
+
+        load(addGrade, WARMUP_SECONDS);
+        report.add(load(addGrade, SECONDS).format(mode, "addGrade"));
+        load(roster, WARMUP_SECONDS);
+        report.add(load(roster, SECONDS)
+            .format(mode, "getModuleRegistrations"));
+      }
+    }
+
+    System.out.printf("ThreadModeLoadBenchmark clients=%d seconds=%d%n",
+        CLIENTS, SECONDS);
+    report.forEach(System.out::println);
+  }
+
+  /**
+   * Starts the application on a random port.
+   *
+   * @param virtual whether to serve requests on virtual threads
+   * @return the application context
+   */
+  private static ConfigurableApplicationContext start(final boolean virtual) {
+    return new SpringApplicationBuilder(Application.class)
+        .profiles("test")
+        .properties("server.port=0",
+            "spring.threads.virtual.enabled=" + virtual)
+        .run();
+  }
+
+  /**
+   * Clears all data, and seeds one student per client, registered in one
+   * of the modules.
+   *
+   * @param app the application context
+   */
+  private static void seed(final ConfigurableApplicationContext app) {
+    JdbcTemplate jdbc = new JdbcTemplate(app.getBean(DataSource.class));
+    jdbc.update("DELETE FROM registration");
+    jdbc.update("DELETE FROM grade");
+    jdbc.update("DELETE FROM student");
+    jdbc.update("DELETE FROM module");
+    jdbc.update("DELETE FROM student_grade_aggregate");
+    jdbc.update("DELETE FROM module_grade_aggregate");
+    jdbc.update("INSERT INTO module (code, name, mnc, max_seats)"
+        + " SELECT 'LOAD' || LPAD(X, 2, '0'), 'Module ' || X, FALSE, ?"
+        + " FROM SYSTEM_RANGE(1, ?)", CLIENTS, MODULES);
+    jdbc.update("INSERT INTO student"
+        + " (id, first_name, last_name, username, email)"
+        + " SELECT X, 'First', 'Last', 'user' || X, 'user' || X || '@x.com'"
+        + " FROM SYSTEM_RANGE(1, ?)", CLIENTS);
+    jdbc.update("INSERT INTO registration (student_id, module_code)"
+        + " SELECT X, 'LOAD' || LPAD(MOD(X - 1, ?) + 1, 2, '0')"
+        + " FROM SYSTEM_RANGE(1, ?)", MODULES, CLIENTS);
+    app.getBean(EntityManagerFactory.class).getCache().evictAll();
+  }
+
+  /**
+   * Returns the code of the module a client's student is registered in.
+   *
+   * @param client the client index
+   * @return the module code
+   */
+  private static String module(final int client) {
+    return String.format("LOAD%02d", client % MODULES + 1);
+  }
+
+  /**
+   * Sends requests from every client, one at a time each, for a number of
+   * seconds.
+   *
+   * @param request       builds the next request of a client
+   * @param runForSeconds how long to run for
+   * @return the latencies and failures
+   * @throws Exception if a client fails
+   */
+  private Result load(final IntFunction<HttpRequest> request,
+      final int runForSeconds) throws Exception {
+    long start = System.nanoTime();
+    long end = start + runForSeconds * 1_000_000_000L;
+    AtomicLong failures = new AtomicLong();
+    List<Future<long[]>> clients = new ArrayList<>();
+    try (ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor()) {
+      for (int i = 0; i < CLIENTS; i++) {
+        int client = i;
+        clients.add(pool.submit(() -> {
+          long[] latencies = new long[64];
+          int n = 0;
+          while (System.nanoTime() < end) {
+            long sent = System.nanoTime();
+            try {
+              HttpResponse<Void> response = http.send(request.apply(client),
+                  HttpResponse.BodyHandlers.discarding());
+              if (response.statusCode() != 200) {
+                failures.incrementAndGet();
+              }
+            } catch (java.io.IOException e) {
+              failures.incrementAndGet();
+            }
+            if (n == latencies.length) {
+              latencies = Arrays.copyOf(latencies, n * 2);
+            }
+            latencies[n++] = System.nanoTime() - sent;
+          }
+          return Arrays.copyOf(latencies, n);
+        }));
+      }
+    }
+    long elapsed = System.nanoTime() - start;
+
+    List<long[]> all = new ArrayList<>();
+    for (Future<long[]> f : clients) {
+      all.add(f.get());
+    }
+    long[] latencies = all.stream().flatMapToLong(Arrays::stream).sorted()
+        .toArray();
+    assertTrue(latencies.length > 0, "No request completed");
+    return new Result(latencies, failures.get(), elapsed);
+  }
+
+  /**
+   * The latencies and failures of a run.
+   */
+  private static final class Result {
+
+    /** The latency of every request, in nanoseconds, in ascending order. */
+    private final long[] latencies;
+
+    /** The number of requests that failed. */
+    private final long failures;
+
+    /** The duration of the run, in nanoseconds. */
+    private final long elapsed;
+
+    /**
+     * Constructs a Result.
+     *
+     * @param sortedLatencies the latencies, in ascending order
+     * @param failed          the number of requests that failed
+     * @param elapsedNanos    the duration of the run
+     */
+    Result(final long[] sortedLatencies, final long failed,
+        final long elapsedNanos) {
+      this.latencies = sortedLatencies;
+      this.failures = failed;
+      this.elapsed = elapsedNanos;
+    }
+
+    /**
+     * Formats the throughput, median and p99 latency, and failures.
+     *
+     * @param mode     the thread mode
+     * @param endpoint the endpoint
+     * @return the formatted result
+     */
+    String format(final String mode, final String endpoint) {
+      return String.format("  %-8s %-22s %8.0f req/s  p50 %7.1f ms"
+          + "  p99 %7.1f ms  failed %d/%d", mode, endpoint,
+          latencies.length / (elapsed / 1e9), percentile(0.50),
+          percentile(0.99), failures, latencies.length);
+    }
+
+    /**
+     * Returns a percentile of the latencies, in milliseconds.
+     *
+     * @param p the percentile, between 0 and 1
+     * @return the latency
+     */
+    private double percentile(final double p) {
+      int i = (int) Math.ceil(p * latencies.length) - 1;
+      return latencies[Math.max(i, 0)] / 1e6;
+    }
+  }
+}
@@ -0,0 +1,420 @@
+package uk.ac.ucl.comp0010.benchmark;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongFunction;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import uk.ac.ucl.comp0010.Application;
+import uk.ac.ucl.comp0010.service.DatasetSeeder;
+import uk.ac.ucl.comp0010.service.SyntheticDataset;
+
+/**
+ * Drives a mix of REST endpoints at fixed arrival rates against one node,
+ * and reports the throughput and latency percentiles of each: addGrade,
+ * updateGrade, registerStudent, the module roster and the /grades listing.
+ *
+ * The application is started on a random port and seeded with a
+ * synthetic dataset of students, modules, registrations and grades over
+ * three academic years. Every endpoint then receives
+ * requests at its own fixed rate, whether or not earlier ones have
+ * completed, so a slow endpoint builds a queue instead of slowing its own
+ * arrivals. Latency is measured from the time a request was due, not the
+ * time it was sent, so that queueing in the client counts as well
+ * (coordinated omission). Latencies are recorded in HdrHistograms, whose
+ * full percentile distributions are written to target/load as .hgrm files.
+ *
+ * Run with: mvn -Pbenchmark test -Dtest=WorkloadMixLoadBenchmark
+ * The mix is set in requests per second with
+ * -Dgms.load.mix=addGrade=50,updateGrade=50,registerStudent=20,roster=100,
+ * grades=20 (an endpoint left out receives no requests), the duration with
+ * -Dgms.load.seconds=N, and the dataset with -Dgms.load.students=N,
+ * -Dgms.load.modules=N and -Dgms.load.grades=N.
+ */
+@Tag("benchmark")
+public final class WorkloadMixLoadBenchmark {
+
+  /** The arrival rate of each endpoint, in requests per second. */
+  private static final String MIX = System.getProperty("gms.load.mix",
+      "addGrade=50,updateGrade=50,registerStudent=20,roster=100,grades=20");
+
+  /** The measured duration, in seconds. */
+  private static final int SECONDS =
+      Integer.getInteger("gms.load.seconds", 20);
+
+  /** The duration of the warm-up before the measurement, in seconds. */
+  private static final int WARMUP_SECONDS =
+      Integer.getInteger("gms.load.warmup-seconds", 5);
+
+  /** The number of students seeded. */
+  private static final int STUDENTS =
+      Integer.getInteger("gms.load.students", 5000);
+
+  /** The number of modules the students are spread across. */
+  private static final int MODULES =
+      Integer.getInteger("gms.load.modules", 50);
+
+  /** The number of grades seeded. */
+  private static final int GRADES =
+      Integer.getInteger("gms.load.grades", 25000);
+
+  /** The number of academic years the seeded grades span. */
+  private static final int YEARS = 3;
+
+  /** The first academic year of the seeded grades. */
+  private static final int FIRST_YEAR = 2022;
+
+  /** The directory the latency distributions are written to. */
+  private static final String OUTPUT =
+      System.getProperty("gms.load.output", "target/load");
+
+  /** The number of /grades pages read in turn. */
+  private static final int PAGES = 50;
+
+  /** How long a request may take before it counts as failed. */
+  private static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+  /** Sends the requests, each on its own virtual thread. */
+  private final HttpClient http = HttpClient.newBuilder()
+      .version(HttpClient.Version.HTTP_1_1)
+      .executor(Executors.newVirtualThreadPerTaskExecutor())
+      .build();
+
+  /**
+   * Seeds the application, warms it up with the mix, then runs the mix
+   * and prints the results.
+   *
+   * @throws Exception if the application fails
+   */
+  @Test
+  @DisplayName("Throughput and latency of a fixed-rate workload mix")
+  public void benchmarkWorkloadMix() throws Exception {
+    try (ConfigurableApplicationContext app = start()) {
+      JdbcTemplate jdbc = app.getBean(JdbcTemplate.class);
+      seed(app, jdbc);
+      String base = "http://localhost:"
+          + ((WebServerApplicationContext) app).getWebServer().getPort();
+      Map<String, LongFunction<HttpRequest>> requests = requests(base, jdbc);
+
+      List<Endpoint> endpoints = new ArrayList<>();
+      for (String entry : MIX.split(",")) {
+        String[] pair = entry.trim().split("=");
+        LongFunction<HttpRequest> request = requests.get(pair[0]);
+        if (request == null) {
+          throw new IllegalArgumentException("Unknown endpoint " + pair[0]
+              + " in gms.load.mix, expected one of " + requests.keySet());
+        }
+        endpoints.add(new Endpoint(pair[0], Double.parseDouble(pair[1]),
+            request));
+      }
+
+      run(endpoints, WARMUP_SECONDS);
+      endpoints.forEach(Endpoint::reset);
+      long elapsed = run(endpoints, SECONDS);
+
+      System.out.printf("WorkloadMixLoadBenchmark students=%d modules=%d"
+          + " seconds=%d%n", STUDENTS, MODULES, SECONDS);
+      System.out.printf("  %-16s %8s %8s %8s %8s %8s %8s %8s %9s%n",
+          "endpoint", "target/s", "done/s", "p50 ms", "p90 ms", "p99 ms",
+          "p99.9 ms", "max ms", "failed");
+      new File(OUTPUT).mkdirs();
+      long completed = 0;
+      for (Endpoint e : endpoints) {
+        System.out.println(e.format(elapsed));
+        e.write(new File(OUTPUT, e.name + ".hgrm"));
+        completed += e.latencies.getTotalCount();
+      }
+      assertTrue(completed > 0, "No request completed");
+    }
+  }
+
+  /**
+   * Starts the application on a random port.
+   *
+   * @return the application context
+   */
+  private static ConfigurableApplicationContext start() {
+    return new SpringApplicationBuilder(Application.class)
+        .profiles("test")
+        .properties("server.port=0")
+        .run();
+  }
+
+  /**
+   * Clears all data, and seeds the synthetic dataset.
+   *
+   * @param app  the application context
+   * @param jdbc the template querying the database
+   */
+  private static void seed(final ConfigurableApplicationContext app,
+      final JdbcTemplate jdbc) {
+    jdbc.update("DELETE FROM registration");
+    jdbc.update("DELETE FROM grade");
+    jdbc.update("DELETE FROM student");
+    jdbc.update("DELETE FROM module");
+    jdbc.update("DELETE FROM student_grade_aggregate");
+    jdbc.update("DELETE FROM module_grade_aggregate");
+    app.getBean(DatasetSeeder.class).seed(new SyntheticDataset(STUDENTS,
+        MODULES, GRADES, YEARS, FIRST_YEAR, 42));
+  }
+
+  /**
+   * Returns the request builder of every endpoint, by name. Each builds its
+   * n-th request, spreading the requests over the seeded data so that
+   * writes do not collide: addGrade grades each registration in a new
+   * academic year in turn, and registerStudent registers each student in
+   * another module they are not registered in, in turn.
+   *
+   * @param base the base URL of the application
+   * @param jdbc the template querying the seeded data
+   * @return the request builders
+   */
+  private static Map<String, LongFunction<HttpRequest>> requests(
+      final String base, final JdbcTemplate jdbc) {
+    long[] gradeIds = jdbc.queryForList("SELECT id FROM grade ORDER BY id",
+        Long.class).stream().mapToLong(Long::longValue).toArray();
+    List<Map<String, Object>> registrations = jdbc.queryForList(
+        "SELECT student_id, module_code FROM registration ORDER BY id");
+    Set<String> registered = new HashSet<>();
+    for (Map<String, Object> r : registrations) {
+      registered.add(r.get("student_id") + "/" + r.get("module_code"));
+    }
+
+    Map<String, LongFunction<HttpRequest>> requests = new LinkedHashMap<>();
+    requests.put("addGrade", n -> {
+      Map<String, Object> r =
+          registrations.get((int) (n % registrations.size()));
+      long year = FIRST_YEAR + YEARS + n / registrations.size();
+      return json(base + "/grades/addGrade", "POST", String.format(
+          "{\"student_id\":\"%s\",\"module_code\":\"%s\",\"score\":\"%d\","
+              + "\"academic_year\":\"%d/%d\"}",
+          r.get("student_id"), r.get("module_code"), n % 101, year,
+          year + 1));
+    });
+    requests.put("updateGrade", n -> json(
+        base + "/grades/" + gradeIds[(int) (n % gradeIds.length)], "PUT",
+        "{\"score\":\"" + n % 101 + "\"}"));
+    requests.put("registerStudent", n -> {
+      long student = n % STUDENTS + 1;
+      long skip = n / STUDENTS;
+      int module = (int) (student % MODULES);
+      for (int tried = 0; tried < MODULES; tried++) {
+        if (!registered.contains(student + "/" + module(module))
+            && skip-- == 0) {
+          break;
+        }
+        module = (module + 1) % MODULES;
+      }
+      return json(base + "/modules/" + module(module) + "/registerStudent",
+          "POST", "{\"studentId\":\"" + student + "\"}");
+    });
+    requests.put("roster", n -> HttpRequest.newBuilder(
+        URI.create(base + "/modules/" + module(n) + "/registrations"))
+        .timeout(TIMEOUT)
+        .build());
+    requests.put("grades", n -> HttpRequest.newBuilder(
+        URI.create(base + "/grades?size=20&page=" + n % PAGES))
+        .timeout(TIMEOUT)
+        .build());
+    return requests;
+  }
+
+  /**
+   * Returns a request with a JSON body.
+   *
+   * @param url    the URL
+   * @param method the HTTP method
+   * @param body   the JSON body
+   * @return the request
+   */
+  private static HttpRequest json(final String url, final String method,
+      final String body) {
+    return HttpRequest.newBuilder(URI.create(url))
+        .header("Content-Type", "application/json")
+        .timeout(TIMEOUT)
+        .method(method, HttpRequest.BodyPublishers.ofString(body))
+        .build();
+  }
+
+  /**
+   * Returns the code of a seeded module.
+   *
+   * @param index the index of the module, wrapped around the modules
+   * @return the module code
+   */
+  private static String module(final long index) {
+    return SyntheticDataset.moduleCode((int) (index % MODULES));
+  }
+
+  /**
+   * Sends requests to every endpoint at its arrival rate for a number of
+   * seconds, and waits for them to complete.
+   *
+   * @param endpoints     the endpoints
+   * @param runForSeconds how long to send requests for
+   * @return the duration of the run, in nanoseconds
+   */
+  private long run(final List<Endpoint> endpoints, final int runForSeconds) {
+    long start = System.nanoTime();
+    long end = start + TimeUnit.SECONDS.toNanos(runForSeconds);
+    try (ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor();
+        ExecutorService schedulers = Executors.newFixedThreadPool(
+            endpoints.size())) {
+      for (Endpoint e : endpoints) {
+        schedulers.execute(() -> {
+          long interval = (long) (1e9 / e.rate);
+          for (long due = start; due < end; due += interval) {
+            long wait = due - System.nanoTime();
+            if (wait > 0) {
+              LockSupport.parkNanos(wait);
+            }
+            long dueAt = due;
+            HttpRequest request = e.request.apply(e.sent.getAndIncrement());
+            senders.execute(() -> send(e, request, dueAt));
+          }
+        });
+      }
+    }
+    return System.nanoTime() - start;
+  }
+
+  /**
+   * Sends a request and records its latency from the time it was due.
+   *
+   * @param endpoint the endpoint
+   * @param request  the request
+   * @param due      when the request was due, in System.nanoTime() terms
+   */
+  private void send(final Endpoint endpoint, final HttpRequest request,
+      final long due) {
+    boolean ok;
+    try {
+      int status = http.send(request, HttpResponse.BodyHandlers.discarding())
+          .statusCode();
+      ok = status >= 200 && status < 300;
+    } catch (IOException e) {
+      ok = false;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return;
+    }
+    endpoint.latencies.recordValue(
+        TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - due));
+    if (!ok) {
+      endpoint.failures.incrementAndGet();
+    }
+  }
+
+  /**
+   * An endpoint of the mix, with its arrival rate and the latencies of its
+   * requests.
+   */
+  private static final class Endpoint {
+
+    /** The name of the endpoint. */
+    private final String name;
+
+    /** The arrival rate, in requests per second. */
+    private final double rate;
+
+    /** Builds the n-th request to the endpoint. */
+    private final LongFunction<HttpRequest> request;
+
+    /** The number of requests built, across runs. */
+    private final AtomicLong sent = new AtomicLong();
+
+    /** The latency of every completed request, in microseconds. */
+    private final Histogram latencies = new ConcurrentHistogram(3);
+
+    /** The number of requests that failed. */
+    private final AtomicLong failures = new AtomicLong();
+
+    /**
+     * Constructs an Endpoint.
+     *
+     * @param endpointName the name of the endpoint
+     * @param perSecond    the arrival rate, in requests per second
+     * @param builder      builds the n-th request to the endpoint
+     */
+    Endpoint(final String endpointName, final double perSecond,
+        final LongFunction<HttpRequest> builder) {
+      this.name = endpointName;
+      this.rate = perSecond;
+      this.request = builder;
+    }
+
+    /**
+     * Discards the latencies and failures recorded so far.
+     */
+    void reset() {
+      latencies.reset();
+      failures.set(0);
+    }
+
+    /**
+     * Formats the throughput, latency percentiles and failures.
+     *
+     * @param elapsed the duration of the run, in nanoseconds
+     * @return the formatted result
+     */
+    String format(final long elapsed) {
+      return String.format("  %-16s %8.0f %8.1f %8.1f %8.1f %8.1f %8.1f"
+          + " %8.1f %4d/%-4d", name, rate,
+          latencies.getTotalCount() / (elapsed / 1e9), millis(50),
+          millis(90), millis(99), millis(99.9), latencies.getMaxValue() / 1e3,
+          failures.get(), latencies.getTotalCount());
+    }
+
+    /**
+     * Writes the percentile distribution of the latencies, in
+     * milliseconds.
+     *
+     * @param file the file to write to
+     * @throws IOException if the file cannot be written
+     */
+    void write(final File file) throws IOException {
+      try (PrintStream out = new PrintStream(new FileOutputStream(file))) {
+        latencies.outputPercentileDistribution(out, 1e3);
+      }
+    }
+
+    /**
+     * Returns a percentile of the latencies, in milliseconds.
+     *
+     * @param percentile the percentile, between 0 and 100
+     * @return the latency
+     */
+    private double millis(final double percentile) {
+      return latencies.getValueAtPercentile(percentile) / 1e3;
+    }
+  }
+}
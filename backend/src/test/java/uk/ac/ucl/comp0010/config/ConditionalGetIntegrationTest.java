@@ -0,0 +1,274 @@
+package uk.ac.ucl.comp0010.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.List;
+import java.util.Map;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.persistence.EntityManagerFactory;
+
+import uk.ac.ucl.comp0010.model.Module;
+import uk.ac.ucl.comp0010.model.Student;
+import uk.ac.ucl.comp0010.repository.GradeRepository;
+import uk.ac.ucl.comp0010.repository.ModuleRepository;
+import uk.ac.ucl.comp0010.repository.RegistrationRepository;
+import uk.ac.ucl.comp0010.repository.StudentRepository;
+
+/**
+ * Integration tests for conditional GET requests: the student and module
+ * collections, their keyset pages and module rosters are tagged with the
+ * version of the tables they read, a request holding the current tag is
+ * answered with 304 without querying the entities, and every committed
+ * write, whether through entities, native SQL or another instance sharing
+ * the database, changes the tags of the endpoints reading the tables it
+ * wrote, and only those.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@TestPropertySource(locations = "classpath:application.properties",
+    properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+public final class ConditionalGetIntegrationTest {
+
+  /** The endpoints answered conditionally. */
+  private static final List<String> PATHS =
+      List.of("/students", "/modules", "/students/search/first",
+          "/students/search/after?after=1", "/modules/search/first",
+          "/modules/search/after?after=MOD000",
+          "/modules/MOD001/registrations");
+
+  /** The module collection, which reads modules and registrations. */
+  private static final String MODULES = "/modules";
+
+  /** The student collection, which reads students only. */
+  private static final String STUDENTS = "/students";
+
+  /** A transcript, which reads every tracked table. */
+  private static final String TRANSCRIPT = "/students/1/transcript";
+
+  /** A module roster. */
+  private static final String ROSTER = "/modules/MOD001/registrations";
+
+  /** Provides the ability to perform MVC requests in tests. */
+  @Autowired
+  private MockMvc mockMvc;
+
+  /** Used to serialize/deserialize objects to/from JSON. */
+  @Autowired
+  private ObjectMapper objectMapper;
+
+  /** Repository for managing Student entities. */
+  @Autowired
+  private StudentRepository studentRepository;
+
+  /** Repository for managing Module entities. */
+  @Autowired
+  private ModuleRepository moduleRepository;
+
+  /** Repository for managing Grade entities. */
+  @Autowired
+  private GradeRepository gradeRepository;
+
+  /** Repository for managing Registration entities. */
+  @Autowired
+  private RegistrationRepository registrationRepository;
+
+  /** Used to write to the database as another instance would. */
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  /** Used to read Hibernate statistics. */
+  @Autowired
+  private EntityManagerFactory entityManagerFactory;
+
+  /**
+   * Clears all data, so that no registrations outlive the test.
+   */
+  @AfterEach
+  public void tearDown() {
+    registrationRepository.deleteAll();
+    gradeRepository.deleteAll();
+    studentRepository.deleteAll();
+    moduleRepository.deleteAll();
+  }
+
+  /**
+   * Clears all data, and saves two students and one module.
+   */
+  @BeforeEach
+  public void setUp() {
+    tearDown();
+
+    for (long id = 1; id <= 2; id++) {
+      Student s = new Student();
+      s.setId(id);
+      s.setFirstName("First" + id);
+      s.setLastName("Last" + id);
+      s.setUsername("user" + id);
+      s.setEmail("user" + id + "@example.com");
+      studentRepository.save(s);
+    }
+
+    Module m = new Module();
+    m.setCode("MOD001");
+    m.setName("Software Engineering");
+    m.setMnc(true);
+    m.setMaxSeats(10);
+    moduleRepository.save(m);
+  }
+
+  /**
+   * Tests that each endpoint is tagged, and that a request holding the
+   * current tag is answered with an empty 304 without querying the
+   * entities; only the data versions are read, outside Hibernate.
+   *
+   * @throws Exception if a request fails
+   */
+  @Test
+  @DisplayName("Unchanged collections are answered with 304 without queries")
+  public void testNotModifiedWithoutSql() throws Exception {
+    Statistics stats = entityManagerFactory.unwrap(SessionFactory.class)
+        .getStatistics();
+    for (String path : PATHS) {
+      String etag = mockMvc.perform(get(path))
+          .andExpect(status().isOk())
+          .andExpect(header().exists(HttpHeaders.LAST_MODIFIED))
+          .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache"))
+          .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+      assertNotNull(etag, path);
+
+      stats.clear();
+      mockMvc.perform(get(path).header(HttpHeaders.IF_NONE_MATCH, etag))
+          .andExpect(status().isNotModified())
+          .andExpect(header().string(HttpHeaders.ETAG, etag))
+          .andExpect(content().string(""));
+      assertEquals(0, stats.getPrepareStatementCount(), path);
+    }
+  }
+
+  /**
+   * Tests that entity writes, native registration inserts and native
+   * grade upserts each change the tags of the endpoints reading the table
+   * written, that they leave the tags of the other endpoints unchanged,
+   * and that reads change no tag.
+   *
+   * @throws Exception if a request fails
+   */
+  @Test
+  @DisplayName("Committed writes change the tags reading them, reads do not")
+  public void testWritesChangeTag() throws Exception {
+    String modules = currentTag(MODULES);
+    String students = currentTag(STUDENTS);
+    String transcript = currentTag(TRANSCRIPT);
+    mockMvc.perform(get("/modules/MOD001/average"))
+        .andExpect(status().isOk());
+    mockMvc.perform(get("/students/1"))
+        .andExpect(status().isOk());
+    assertEquals(modules, currentTag(MODULES));
+
+    mockMvc.perform(put("/modules/MOD001")
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(objectMapper.writeValueAsString(Map.of(
+            "name", "Advanced Software Engineering"))))
+        .andExpect(status().isOk());
+    modules = assertChanged(MODULES, modules);
+    assertEquals(students, currentTag(STUDENTS));
+
+    mockMvc.perform(post("/modules/MOD001/registerStudents")
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(objectMapper.writeValueAsString(
+            Map.of("studentIds", List.of(1L, 2L)))))
+        .andExpect(status().isOk());
+    modules = assertChanged(MODULES, modules);
+    transcript = assertChanged(TRANSCRIPT, transcript);
+    assertEquals(students, currentTag(STUDENTS));
+
+    mockMvc.perform(put("/grades/upsertGrade")
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(objectMapper.writeValueAsString(Map.of(
+            "student_id", "1",
+            "module_code", "MOD001",
+            "score", "70",
+            "academic_year", "2024/2025"))))
+        .andExpect(status().isOk());
+    transcript = assertChanged(TRANSCRIPT, transcript);
+    assertEquals(modules, currentTag(MODULES));
+    assertEquals(students, currentTag(STUDENTS));
+
+    mockMvc.perform(get("/modules/MOD001/registrations")
+        .header(HttpHeaders.IF_NONE_MATCH, currentTag(ROSTER)))
+        .andExpect(status().isNotModified());
+  }
+
+  /**
+   * Tests that a write committed by another instance sharing the database,
+   * which advances the version row of the table it wrote, changes the tag.
+   *
+   * @throws Exception if a request fails
+   */
+  @Test
+  @DisplayName("Writes by other instances change the tag")
+  public void testOtherInstanceWriteChangesTag() throws Exception {
+    String etag = currentTag(MODULES);
+    jdbcTemplate.update("UPDATE data_version"
+        + " SET version = version + 1 WHERE table_name = 'module'");
+    assertChanged(MODULES, etag);
+  }
+
+  /**
+   * Asserts that a request holding a tag is answered in full, with a new
+   * tag.
+   *
+   * @param path the endpoint requested
+   * @param etag the tag held
+   * @return the new tag
+   * @throws Exception if the request fails
+   */
+  private String assertChanged(final String path, final String etag)
+      throws Exception {
+    String next = mockMvc.perform(get(path)
+        .header(HttpHeaders.IF_NONE_MATCH, etag))
+        .andExpect(status().isOk())
+        .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+    assertNotEquals(etag, next, path);
+    return next;
+  }
+
+  /**
+   * Returns the tag of an endpoint.
+   *
+   * @param path the endpoint requested
+   * @return the tag
+   * @throws Exception if the request fails
+   */
+  private String currentTag(final String path) throws Exception {
+    return mockMvc.perform(get(path))
+        .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+  }
+}
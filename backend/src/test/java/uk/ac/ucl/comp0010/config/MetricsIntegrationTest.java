@@ -0,0 +1,184 @@
+package uk.ac.ucl.comp0010.config;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import uk.ac.ucl.comp0010.model.Module;
+import uk.ac.ucl.comp0010.model.Student;
+import uk.ac.ucl.comp0010.repository.GradeRepository;
+import uk.ac.ucl.comp0010.repository.ModuleRepository;
+import uk.ac.ucl.comp0010.repository.RegistrationRepository;
+import uk.ac.ucl.comp0010.repository.StudentRepository;
+
+/**
+ * Integration tests for the metrics endpoint: request latency is recorded
+ * per endpoint, including Spring Data REST query methods and requests
+ * answered by filters, with percentiles, and repository call timings,
+ * connection pool use and Hibernate entity loads are published.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+public final class MetricsIntegrationTest {
+
+  /** Provides the ability to perform MVC requests in tests. */
+  @Autowired
+  private MockMvc mockMvc;
+
+  /** Used to read the metrics returned. */
+  @Autowired
+  private ObjectMapper objectMapper;
+
+  /** Repository for managing Student entities. */
+  @Autowired
+  private StudentRepository studentRepository;
+
+  /** Repository for managing Module entities. */
+  @Autowired
+  private ModuleRepository moduleRepository;
+
+  /** Repository for managing Grade entities. */
+  @Autowired
+  private GradeRepository gradeRepository;
+
+  /** Repository for managing Registration entities. */
+  @Autowired
+  private RegistrationRepository registrationRepository;
+
+  /**
+   * Clears all data.
+   */
+  @AfterEach
+  public void tearDown() {
+    registrationRepository.deleteAll();
+    gradeRepository.deleteAll();
+    studentRepository.deleteAll();
+    moduleRepository.deleteAll();
+  }
+
+  /**
+   * Clears all data, and saves a student and a module.
+   */
+  @BeforeEach
+  public void setUp() {
+    tearDown();
+
+    Student s = new Student();
+    s.setId(1L);
+    s.setFirstName("First");
+    s.setLastName("Last");
+    s.setUsername("user1");
+    s.setEmail("user1@example.com");
+    studentRepository.save(s);
+
+    Module m = new Module();
+    m.setCode("MOD001");
+    m.setName("Software Engineering");
+    m.setMnc(true);
+    m.setMaxSeats(10);
+    moduleRepository.save(m);
+  }
+
+  @Test
+  @DisplayName("Requests are timed per endpoint, with percentiles")
+  public void testRequestsTimedPerEndpoint() throws Exception {
+    mockMvc.perform(get("/modules/MOD001/average"))
+        .andExpect(status().isOk());
+
+    assertTrue(count("http.server.requests",
+        "uri:/modules/{code}/average") >= 1);
+    mockMvc.perform(get("/actuator/metrics/http.server.requests.percentile")
+        .param("tag", "uri:/modules/{code}/average")
+        .param("tag", "phi:0.99"))
+        .andExpect(status().isOk());
+  }
+
+  @Test
+  @DisplayName("Spring Data REST requests are timed per query method")
+  public void testRepositoryRequestsTimedPerMethod() throws Exception {
+    mockMvc.perform(get("/grades")).andExpect(status().isOk());
+    mockMvc.perform(get("/students/search/byUsername")
+        .param("username", "user1"))
+        .andExpect(status().isOk());
+
+    assertTrue(count("http.server.requests", "uri:/grades") >= 1);
+    assertTrue(count("http.server.requests",
+        "uri:/students/search/byUsername") >= 1);
+  }
+
+  @Test
+  @DisplayName("Requests answered by a filter are timed per endpoint")
+  public void testFilteredRequestsTimedPerEndpoint() throws Exception {
+    String etag = mockMvc.perform(get("/modules/MOD001/registrations"))
+        .andExpect(status().isOk())
+        .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+    mockMvc.perform(get("/modules/MOD001/registrations")
+        .header(HttpHeaders.IF_NONE_MATCH, etag))
+        .andExpect(status().isNotModified());
+
+    assertTrue(count("http.server.requests",
+        "uri:/modules/{code}/registrations", "status:304") >= 1);
+  }
+
+  @Test
+  @DisplayName("Repository calls, pool use and entity loads are published")
+  public void testRepositoryPoolAndHibernateMetrics() throws Exception {
+    double prepared = count("hibernate.statements.prepared");
+    studentRepository.findById(1L).orElseThrow();
+    mockMvc.perform(get("/students/1/average"))
+        .andExpect(status().isOk());
+
+    assertTrue(count("spring.data.repository.invocations",
+        "repository:StudentRepository", "method:findById") >= 1);
+    mockMvc.perform(get("/actuator/metrics/hikaricp.connections.pending"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.measurements[0].value").isNumber());
+    mockMvc.perform(get("/actuator/metrics/hikaricp.connections.active"))
+        .andExpect(status().isOk());
+    mockMvc.perform(get("/actuator/metrics/hibernate.entity.loads")
+        .param("tag", "entity:Student"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.measurements[0].value").isNumber());
+    assertTrue(count("hibernate.statements.prepared") > prepared);
+  }
+
+  /**
+   * Returns the first measurement of a metric, which is the count for
+   * timers and counters.
+   *
+   * @param metric the name of the metric
+   * @param tags   the tags to select, as name:value
+   * @return the measurement
+   * @throws Exception if the metric does not exist
+   */
+  private double count(final String metric, final String... tags)
+      throws Exception {
+    MockHttpServletRequestBuilder request =
+        get("/actuator/metrics/" + metric);
+    if (tags.length > 0) {
+      request.param("tag", tags);
+    }
+    String body = mockMvc.perform(request)
+        .andExpect(status().isOk())
+        .andReturn().getResponse().getContentAsString();
+    JsonNode json = objectMapper.readTree(body);
+    return json.get("measurements").get(0).get("value").asDouble();
+  }
+}
@@ -0,0 +1,404 @@
+package uk.ac.ucl.comp0010.config;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import uk.ac.ucl.comp0010.model.Module;
+import uk.ac.ucl.comp0010.model.Student;
+import uk.ac.ucl.comp0010.repository.GradeRepository;
+import uk.ac.ucl.comp0010.repository.ModuleRepository;
+import uk.ac.ucl.comp0010.repository.RegistrationRepository;
+import uk.ac.ucl.comp0010.repository.StudentRepository;
+
+/**
+ * Integration tests for the response cache: repeated reads of the module
+ * collection and rosters are served without SQL, writes through Spring
+ * Data REST and the custom controllers are visible to the next read,
+ * responses are only shared between requests addressed to the same origin,
+ * and concurrent requests missing the cache render the response once,
+ * unless its rendering is too slow.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@TestPropertySource(locations = "classpath:application.properties",
+    properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+public final class ResponseCacheIntegrationTest {
+
+  /** The number of modules seeded. */
+  private static final int MODULES = 50;
+
+  /** Provides the ability to perform MVC requests in tests. */
+  @Autowired
+  private MockMvc mockMvc;
+
+  /** Used to serialize/deserialize objects to/from JSON. */
+  @Autowired
+  private ObjectMapper objectMapper;
+
+  /** Repository for managing Student entities. */
+  @Autowired
+  private StudentRepository studentRepository;
+
+  /** Repository for managing Module entities. */
+  @Autowired
+  private ModuleRepository moduleRepository;
+
+  /** Repository for managing Grade entities. */
+  @Autowired
+  private GradeRepository gradeRepository;
+
+  /** Repository for managing Registration entities. */
+  @Autowired
+  private RegistrationRepository registrationRepository;
+
+  /** Provides the data version to filters built by the tests. */
+  @Autowired
+  private DataVersionTracker tracker;
+
+  /** Used to read Hibernate statistics. */
+  @Autowired
+  private EntityManagerFactory entityManagerFactory;
+
+  private Statistics stats;
+
+  /**
+   * Clears all data, so that no registrations outlive the test.
+   */
+  @AfterEach
+  public void tearDown() {
+    registrationRepository.deleteAll();
+    gradeRepository.deleteAll();
+    studentRepository.deleteAll();
+    moduleRepository.deleteAll();
+  }
+
+  /**
+   * Clears all data, and saves one student and some modules.
+   */
+  @BeforeEach
+  public void setUp() {
+    tearDown();
+
+    Student s = new Student();
+    s.setId(1L);
+    s.setFirstName("John");
+    s.setLastName("Doe");
+    s.setUsername("jdoe");
+    s.setEmail("jdoe@example.com");
+    studentRepository.save(s);
+
+    for (int i = 1; i <= MODULES; i++) {
+      Module m = new Module();
+      m.setCode(String.format("MOD%03d", i));
+      m.setName("Module " + i);
+      m.setMnc(false);
+      m.setMaxSeats(10);
+      moduleRepository.save(m);
+    }
+
+    stats = entityManagerFactory.unwrap(SessionFactory.class)
+        .getStatistics();
+  }
+
+  /**
+   * Tests that a repeated read is served from the cache, byte for byte and
+   * with the current tag, without any SQL.
+   *
+   * @throws Exception if a request fails
+   */
+  @Test
+  @DisplayName("Repeated reads are served from the cache without SQL")
+  public void testRepeatedReadsAreCached() throws Exception {
+    for (String path : List.of("/modules", "/modules/MOD001/registrations")) {
+      String body = read(path);
+
+      stats.clear();
+      String etag = mockMvc.perform(get(path))
+          .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+      mockMvc.perform(get(path))
+          .andExpect(status().isOk())
+          .andExpect(header().string(HttpHeaders.ETAG, etag))
+          .andExpect(header().string(HttpHeaders.CONTENT_TYPE,
+              containsString("json")));
+      assertEquals(body, read(path));
+      assertEquals(0, stats.getPrepareStatementCount(), path);
+    }
+  }
+
+  /**
+   * Tests that a module created through Spring Data REST and a student
+   * registered through the module controller appear in the next read.
+   *
+   * @throws Exception if a request fails
+   */
+  @Test
+  @DisplayName("Writes through either API invalidate cached responses")
+  public void testWritesInvalidate() throws Exception {
+    assertFalse(read("/modules?size=100").contains("NEW001"));
+    mockMvc.perform(post("/modules")
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(objectMapper.writeValueAsString(Map.of(
+            "code", "NEW001",
+            "name", "New Module",
+            "mnc", false,
+            "maxSeats", 5))))
+        .andExpect(status().isCreated());
+    assertTrue(read("/modules?size=100").contains("NEW001"));
+
+    assertFalse(read("/modules/MOD001/registrations").contains("jdoe"));
+    mockMvc.perform(post("/modules/MOD001/registerStudent")
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(objectMapper.writeValueAsString(Map.of("studentId", 1))))
+        .andExpect(status().isOk());
+    assertTrue(read("/modules/MOD001/registrations").contains("jdoe"));
+  }
+
+  /**
+   * Tests that a grade write re-renders the transcript, which reads
+   * grades, while the module collection, which does not, is still served
+   * from the cache without any SQL.
+   *
+   * @throws Exception if a request fails
+   */
+  @Test
+  @DisplayName("Writes keep responses not reading the written table")
+  public void testWritesKeepUnrelatedResponses() throws Exception {
+    registerStudent("MOD001");
+    String modules = read("/modules");
+    assertFalse(read("/students/1/transcript").contains("2024/2025"));
+    mockMvc.perform(put("/grades/upsertGrade")
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(objectMapper.writeValueAsString(Map.of(
+            "student_id", "1",
+            "module_code", "MOD001",
+            "score", "70",
+            "academic_year", "2024/2025"))))
+        .andExpect(status().isOk());
+
+    stats.clear();
+    assertEquals(modules, read("/modules"));
+    assertEquals(0, stats.getPrepareStatementCount());
+    assertTrue(read("/students/1/transcript").contains("2024/2025"));
+  }
+
+  /**
+   * Tests that responses other than OK are not cached.
+   *
+   * @throws Exception if a request fails
+   */
+  @Test
+  @DisplayName("Responses other than OK are not cached")
+  public void testErrorsAreNotCached() throws Exception {
+    mockMvc.perform(get("/modules/NOPE/registrations"))
+        .andExpect(status().isNotFound());
+    stats.clear();
+    mockMvc.perform(get("/modules/NOPE/registrations"))
+        .andExpect(status().isNotFound());
+    assertTrue(stats.getPrepareStatementCount() > 0);
+  }
+
+  /**
+   * Tests that concurrent requests missing the cache issue the statements
+   * of a single rendering between them.
+   *
+   * @throws Exception if a request fails
+   */
+  @Test
+  @DisplayName("Concurrent misses render the response once")
+  public void testConcurrentMissesAreCoalesced() throws Exception {
+    String expected = read("/modules");
+    registerStudent("MOD002");
+    stats.clear();
+    read("/modules");
+    long statementsPerRender = stats.getPrepareStatementCount();
+    assertTrue(statementsPerRender > 0);
+
+    registerStudent("MOD003");
+    int threads = 16;
+    CountDownLatch start = new CountDownLatch(1);
+    ExecutorService pool = Executors.newFixedThreadPool(threads);
+    try {
+      List<Future<String>> bodies = new ArrayList<>();
+      for (int i = 0; i < threads; i++) {
+        bodies.add(pool.submit(() -> {
+          start.await();
+          return read("/modules");
+        }));
+      }
+      stats.clear();
+      start.countDown();
+      String first = bodies.get(0).get();
+      for (Future<String> body : bodies) {
+        assertEquals(first, body.get());
+      }
+      assertEquals(expected.length(), first.length());
+    } finally {
+      pool.shutdown();
+    }
+    assertEquals(statementsPerRender, stats.getPrepareStatementCount());
+  }
+
+  /**
+   * Tests that requests addressed to another host, or through a proxy to
+   * another origin, are not served a body whose links name the first.
+   *
+   * @throws Exception if a request fails
+   */
+  @Test
+  @DisplayName("Responses are only shared within an origin")
+  public void testResponsesAreKeyedByOrigin() throws Exception {
+    String first = mockMvc.perform(get("/modules")
+        .header(HttpHeaders.HOST, "one.example"))
+        .andExpect(status().isOk())
+        .andReturn().getResponse().getContentAsString();
+    assertTrue(first.contains("http://one.example/modules"));
+
+    String second = mockMvc.perform(get("/modules")
+        .header(HttpHeaders.HOST, "two.example"))
+        .andExpect(status().isOk())
+        .andReturn().getResponse().getContentAsString();
+    assertTrue(second.contains("http://two.example/modules"));
+    assertFalse(second.contains("one.example"));
+
+    stats.clear();
+    mockMvc.perform(get("/modules")
+        .header(HttpHeaders.HOST, "one.example")
+        .header("X-Forwarded-Proto", "https"))
+        .andExpect(status().isOk());
+    assertTrue(stats.getPrepareStatementCount() > 0);
+  }
+
+  /**
+   * Tests that a request waiting for another to render the same response
+   * gives up after the wait timeout and renders it itself, and that the
+   * slow rendering still fills the cache.
+   *
+   * @throws Exception if a request fails
+   */
+  @Test
+  @DisplayName("Waiting for a slow rendering times out")
+  public void testSlowRenderingTimesOut() throws Exception {
+    ResponseCacheFilter filter = new ResponseCacheFilter(tracker,
+        List.of("/modules"), Caffeine.newBuilder().buildAsync(),
+        Duration.ofMillis(100));
+    CountDownLatch rendering = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    ExecutorService pool = Executors.newSingleThreadExecutor();
+    try {
+      Future<String> slow = pool.submit(() -> serve(filter, "slow", () -> {
+        rendering.countDown();
+        release.await();
+      }));
+      rendering.await();
+
+      assertEquals("fast", serve(filter, "fast", () -> { }));
+      release.countDown();
+      assertEquals("slow", slow.get());
+      assertEquals("slow", serve(filter, "other", () -> { }));
+    } finally {
+      release.countDown();
+      pool.shutdown();
+    }
+  }
+
+  /**
+   * Serves GET /modules through a response cache filter, whose endpoint
+   * runs an action and then writes the given body.
+   *
+   * @param filter the filter
+   * @param body   the body the endpoint writes
+   * @param before the action the endpoint runs first
+   * @return the body served
+   * @throws Exception if the request fails
+   */
+  private static String serve(final ResponseCacheFilter filter,
+      final String body, final SqlStatementCounter.Action before)
+      throws Exception {
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    filter.doFilter(new MockHttpServletRequest("GET", "/modules"), response,
+        new MockFilterChain(new HttpServlet() {
+          @Override
+          protected void doGet(final HttpServletRequest req,
+              final HttpServletResponse resp) throws IOException {
+            try {
+              before.run();
+            } catch (Exception e) {
+              throw new IOException(e);
+            }
+            resp.setContentType(MediaType.TEXT_PLAIN_VALUE);
+            resp.getWriter().write(body);
+          }
+        }));
+    return response.getContentAsString();
+  }
+
+  /**
+   * Registers the student in a module through the API.
+   *
+   * @param code the module code
+   * @throws Exception if the request fails
+   */
+  private void registerStudent(final String code) throws Exception {
+    mockMvc.perform(post("/modules/" + code + "/registerStudent")
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(objectMapper.writeValueAsString(Map.of("studentId", 1))))
+        .andExpect(status().isOk());
+  }
+
+  /**
+   * Returns the body of an OK response to a GET request.
+   *
+   * @param path the path
+   * @return the body
+   * @throws Exception if the request fails
+   */
+  private String read(final String path) throws Exception {
+    return mockMvc.perform(get(path))
+        .andExpect(status().isOk())
+        .andReturn().getResponse().getContentAsString();
+  }
+}
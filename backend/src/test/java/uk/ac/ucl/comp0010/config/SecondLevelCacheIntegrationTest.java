@@ -0,0 +1,271 @@
+package uk.ac.ucl.comp0010.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.Map;
+import java.util.OptionalLong;
+
+import javax.cache.CacheManager;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+
+import jakarta.persistence.EntityManagerFactory;
+
+import uk.ac.ucl.comp0010.model.Module;
+import uk.ac.ucl.comp0010.model.Student;
+import uk.ac.ucl.comp0010.repository.GradeRepository;
+import uk.ac.ucl.comp0010.repository.ModuleRepository;
+import uk.ac.ucl.comp0010.repository.RegistrationRepository;
+import uk.ac.ucl.comp0010.repository.StudentRepository;
+
+/**
+ * Integration tests for the second-level cache of students and modules:
+ * repeated lookups are served without SQL, writes through both the custom
+ * controllers and Spring Data REST invalidate them, and the cache
+ * counters are published as metrics.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@TestPropertySource(locations = "classpath:application.properties",
+    properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+public final class SecondLevelCacheIntegrationTest {
+
+  /** Provides the ability to perform MVC requests in tests. */
+  @Autowired
+  private MockMvc mockMvc;
+
+  /** Used to serialize/deserialize objects to/from JSON. */
+  @Autowired
+  private ObjectMapper objectMapper;
+
+  /** Repository for managing Student entities. */
+  @Autowired
+  private StudentRepository studentRepository;
+
+  /** Repository for managing Module entities. */
+  @Autowired
+  private ModuleRepository moduleRepository;
+
+  /** Repository for managing Grade entities. */
+  @Autowired
+  private GradeRepository gradeRepository;
+
+  /** Repository for managing Registration entities. */
+  @Autowired
+  private RegistrationRepository registrationRepository;
+
+  /** Used to read Hibernate statistics and clear the cache. */
+  @Autowired
+  private EntityManagerFactory entityManagerFactory;
+
+  /** The cache manager holding the second-level cache regions. */
+  @Autowired
+  private CacheManager cacheManager;
+
+  private Statistics stats;
+
+  /**
+   * Clears all data and the cache, and saves one student and one module.
+   */
+  @BeforeEach
+  public void setUp() {
+    registrationRepository.deleteAll();
+    gradeRepository.deleteAll();
+    studentRepository.deleteAll();
+    moduleRepository.deleteAll();
+    entityManagerFactory.getCache().evictAll();
+
+    Student s = new Student();
+    s.setId(1L);
+    s.setFirstName("John");
+    s.setLastName("Doe");
+    s.setUsername("jdoe");
+    s.setEmail("jdoe@example.com");
+    studentRepository.save(s);
+
+    Module m = new Module();
+    m.setCode("MOD001");
+    m.setName("Software Engineering");
+    m.setMnc(true);
+    m.setMaxSeats(10);
+    moduleRepository.save(m);
+
+    stats = entityManagerFactory.unwrap(SessionFactory.class)
+        .getStatistics();
+    stats.clear();
+  }
+
+  /**
+   * Tests that once loaded, students and modules are found by ID without
+   * any SQL.
+   */
+  @Test
+  @DisplayName("Repeated lookups by ID are served from the cache")
+  public void testLookupsByIdAreCached() {
+    entityManagerFactory.getCache().evictAll();
+    studentRepository.findById(1L).orElseThrow();
+    moduleRepository.findById("MOD001").orElseThrow();
+    long statements = stats.getPrepareStatementCount();
+
+    for (int i = 0; i < 10; i++) {
+      studentRepository.findById(1L).orElseThrow();
+      moduleRepository.findById("MOD001").orElseThrow();
+    }
+
+    assertEquals(statements, stats.getPrepareStatementCount());
+    assertEquals(20, stats.getDomainDataRegionStatistics("students")
+        .getHitCount() + stats.getDomainDataRegionStatistics("modules")
+        .getHitCount());
+  }
+
+  /**
+   * Tests that lookups by username and email are cached until a student is
+   * written, and then see the change.
+   *
+   * @throws Exception if an MVC request fails
+   */
+  @Test
+  @DisplayName("Username and email lookups are cached and invalidated")
+  public void testNaturalKeyLookups() throws Exception {
+    assertEquals(1, studentRepository.findByUsername("jdoe").size());
+    long statements = stats.getPrepareStatementCount();
+    assertEquals(1, studentRepository.findByUsername("jdoe").size());
+    assertEquals(1, studentRepository.findByUsername("jdoe").size());
+    assertEquals(statements, stats.getPrepareStatementCount());
+
+    mockMvc.perform(put("/students/1")
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(objectMapper.writeValueAsString(
+            Map.of("email", "john@example.com"))))
+        .andExpect(status().isOk());
+
+    assertEquals(0, studentRepository.findByEmail("jdoe@example.com").size());
+    assertEquals(1, studentRepository.findByEmail("john@example.com").size());
+
+    mockMvc.perform(post("/students")
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(objectMapper.writeValueAsString(Map.of("id", 1,
+            "firstName", "John", "lastName", "Doe",
+            "username", "jdoe2", "email", "john@example.com",
+            "version", 1))))
+        .andExpect(status().is2xxSuccessful());
+
+    assertEquals(0, studentRepository.findByUsername("jdoe").size());
+    mockMvc.perform(get("/students/search/byUsername")
+        .param("username", "jdoe2"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$._embedded.students[0].email")
+            .value("john@example.com"));
+  }
+
+  /**
+   * Tests that updates through the custom controllers and through Spring
+   * Data REST (which saves over an existing entity on POST, given its
+   * current version) are both seen by later cached lookups.
+   *
+   * @throws Exception if an MVC request fails
+   */
+  @Test
+  @DisplayName("Writes through either API invalidate cached modules")
+  public void testWritesInvalidate() throws Exception {
+    moduleRepository.findById("MOD001").orElseThrow();
+
+    mockMvc.perform(put("/modules/MOD001")
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(objectMapper.writeValueAsString(
+            Map.of("name", "Advanced Software Engineering"))))
+        .andExpect(status().isOk());
+    assertEquals("Advanced Software Engineering",
+        moduleRepository.findById("MOD001").orElseThrow().getName());
+
+    mockMvc.perform(post("/modules")
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(objectMapper.writeValueAsString(Map.of("code", "MOD001",
+            "name", "Advanced Software Engineering", "mnc", true,
+            "maxSeats", 42, "version", 1))))
+        .andExpect(status().is2xxSuccessful());
+    assertEquals(42,
+        moduleRepository.findById("MOD001").orElseThrow().getMaxSeats());
+
+    mockMvc.perform(post("/students")
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(objectMapper.writeValueAsString(Map.of("id", 1,
+            "firstName", "John", "lastName", "Smith",
+            "username", "jdoe", "email", "jdoe@example.com",
+            "version", 0))))
+        .andExpect(status().is2xxSuccessful());
+    assertEquals("Smith",
+        studentRepository.findById(1L).orElseThrow().getLastName());
+
+    studentRepository.deleteById(1L);
+    assertEquals(false, studentRepository.findById(1L).isPresent());
+  }
+
+  /**
+   * Tests that the entity regions are bounded as configured.
+   */
+  @Test
+  @DisplayName("Entity regions are bounded")
+  public void testRegionsAreBounded() {
+    assertEquals(OptionalLong.of(10000), maximumSizeOf("students"));
+    assertEquals(OptionalLong.of(1000), maximumSizeOf("modules"));
+  }
+
+  /**
+   * Returns the maximum size configured for a cache region.
+   *
+   * The warning is suppressed because getConfiguration expects a class of
+   * a Configuration typed like the cache, and a class literal can only
+   * name the raw CaffeineConfiguration. The cast it implies is unchecked
+   * but safe, since the result is only read.
+   *
+   * @param region the name of the region
+   * @return the region's maximum size, if bounded
+   */
+  @SuppressWarnings("unchecked")
+  private OptionalLong maximumSizeOf(final String region) {
+    return cacheManager.getCache(region)
+        .getConfiguration(CaffeineConfiguration.class).getMaximumSize();
+  }
+
+  /**
+   * Tests that the cache hit and miss counters are published as metrics.
+   *
+   * @throws Exception if an MVC request fails
+   */
+  @Test
+  @DisplayName("Cache counters are exposed as metrics")
+  public void testCacheMetrics() throws Exception {
+    studentRepository.findById(1L).orElseThrow();
+    studentRepository.findById(1L).orElseThrow();
+
+    mockMvc.perform(get("/actuator/metrics/cache.gets")
+        .param("tag", "cache:students")
+        .param("tag", "result:hit"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.measurements[0].value").isNumber());
+    mockMvc.perform(get("/actuator/metrics/cache.evictions")
+        .param("tag", "cache:modules"))
+        .andExpect(status().isOk());
+  }
+}
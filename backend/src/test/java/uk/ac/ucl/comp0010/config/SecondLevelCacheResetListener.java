@@ -0,0 +1,33 @@
+package uk.ac.ucl.comp0010.config;
+
+import jakarta.persistence.EntityManagerFactory;
+
+import org.springframework.test.context.TestContext;
+import org.springframework.test.context.support.AbstractTestExecutionListener;
+
+/**
+ * Empties the second-level cache of a test's application context before
+ * the test class runs.
+ *
+ * Test contexts are cached and reused, and several of them share one
+ * in-memory database. While one context's tests run, they may change rows
+ * that another context holds in its cache, so that context would serve
+ * stale rows when its own tests run next. The listener is registered for
+ * every test in META-INF/spring.factories.
+ */
+public class SecondLevelCacheResetListener
+    extends AbstractTestExecutionListener {
+
+  /**
+   * Evicts every entity, collection and query cached by the test's
+   * persistence unit, if it has one.
+   *
+   * @param testContext the context of the test class about to run
+   */
+  @Override
+  public void beforeTestClass(final TestContext testContext) {
+    testContext.getApplicationContext()
+        .getBeanProvider(EntityManagerFactory.class)
+        .ifAvailable(emf -> emf.getCache().evictAll());
+  }
+}
@@ -0,0 +1,251 @@
+package uk.ac.ucl.comp0010.config;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+/**
+ * Counts the SQL statements run by a request or a repository call, so that
+ * tests can bound them and catch N+1 queries, such as a lazy association
+ * read once per row.
+ *
+ * Imported into a test, it wraps the DataSource, so that statements run by
+ * Hibernate and by JdbcTemplate are both counted. Only statements run by
+ * the calling thread are counted, which includes every statement of a
+ * MockMvc request, but not those of scheduled or asynchronous work running
+ * at the same time. Each execution counts once, including a batch.
+ *
+ * Typical use bounds an endpoint by a constant, and checks that the count
+ * does not grow with the data:
+ *
+ * <pre>
+ * sqlStatementCounter.assertAtMost(2,
+ *     () -&gt; mockMvc.perform(get("/modules/MOD001/registrations")));
+ * </pre>
+ */
+@TestConfiguration(proxyBeanMethods = false)
+public class SqlStatementCounter implements BeanPostProcessor {
+
+  /** The statements run by each thread, while it is counting. */
+  private final ThreadLocal<List<String>> recorded = new ThreadLocal<>();
+
+  /**
+   * An action whose statements are counted.
+   */
+  @FunctionalInterface
+  public interface Action {
+
+    /**
+     * Runs the action.
+     *
+     * @throws Exception if the action fails
+     */
+    void run() throws Exception;
+  }
+
+  /**
+   * Wraps the DataSource so its statements are counted.
+   *
+   * @param bean     the bean
+   * @param beanName the name of the bean
+   * @return the wrapped DataSource, or the bean if it is not a DataSource
+   */
+  @Override
+  public Object postProcessAfterInitialization(final Object bean,
+      final String beanName) {
+    if (bean instanceof DataSource dataSource
+        && !(bean instanceof CountingDataSource)) {
+      return new CountingDataSource(dataSource);
+    }
+    return bean;
+  }
+
+  /**
+   * Returns the SQL statements the calling thread runs during an action,
+   * in the order they ran. Calls may be nested, in which case the outer
+   * call includes the statements of the inner.
+   *
+   * @param action the action
+   * @return the statements run
+   * @throws Exception if the action fails
+   */
+  public List<String> statementsOf(final Action action) throws Exception {
+    List<String> outer = recorded.get();
+    List<String> statements = new ArrayList<>();
+    recorded.set(statements);
+    try {
+      action.run();
+    } finally {
+      if (outer == null) {
+        recorded.remove();
+      } else {
+        outer.addAll(statements);
+        recorded.set(outer);
+      }
+    }
+    return statements;
+  }
+
+  /**
+   * Returns the number of SQL statements the calling thread runs during an
+   * action.
+   *
+   * @param action the action
+   * @return the number of statements run
+   * @throws Exception if the action fails
+   */
+  public int count(final Action action) throws Exception {
+    return statementsOf(action).size();
+  }
+
+  /**
+   * Asserts that an action runs at most the given number of SQL statements,
+   * listing them if it runs more.
+   *
+   * @param max    the largest number of statements allowed
+   * @param action the action
+   * @return the number of statements run
+   * @throws Exception if the action fails
+   */
+  public int assertAtMost(final int max, final Action action)
+      throws Exception {
+    List<String> statements = statementsOf(action);
+    assertTrue(statements.size() <= max, () -> "Expected at most " + max
+        + " SQL statements, but " + statements.size() + " ran:\n"
+        + String.join("\n", statements));
+    return statements.size();
+  }
+
+  /**
+   * Records a statement run by the calling thread, if it is counting.
+   *
+   * @param sql the SQL of the statement, or null if unknown
+   */
+  private void record(final String sql) {
+    List<String> statements = recorded.get();
+    if (statements != null) {
+      statements.add(sql == null ? "<unknown>" : sql);
+    }
+  }
+
+  /**
+   * Calls a method of a JDBC object on behalf of its proxy, answering
+   * equals and hashCode by the identity of the proxy.
+   *
+   * @param proxy  the proxy
+   * @param target the JDBC object
+   * @param method the method
+   * @param args   the arguments
+   * @return the result of the method
+   * @throws Throwable the exception thrown by the method
+   */
+  private static Object call(final Object proxy, final Object target,
+      final Method method, final Object[] args) throws Throwable {
+    if (method.getName().equals("equals") && args.length == 1) {
+      return proxy == args[0];
+    }
+    if (method.getName().equals("hashCode") && args == null) {
+      return System.identityHashCode(proxy);
+    }
+    try {
+      return method.invoke(target, args);
+    } catch (InvocationTargetException e) {
+      throw e.getCause();
+    }
+  }
+
+  /**
+   * Wraps a connection, so that the statements it creates are counted.
+   *
+   * @param target the connection
+   * @return the wrapped connection
+   */
+  private Connection connection(final Connection target) {
+    return (Connection) Proxy.newProxyInstance(
+        Connection.class.getClassLoader(), new Class<?>[] {Connection.class},
+        (proxy, method, args) -> {
+          Object result = call(proxy, target, method, args);
+          if (result instanceof Statement statement
+              && Statement.class.isAssignableFrom(method.getReturnType())) {
+            String sql = args != null && args.length > 0
+                && args[0] instanceof String s ? s : null;
+            return statement(statement, method.getReturnType(), sql);
+          }
+          return result;
+        });
+  }
+
+  /**
+   * Wraps a statement, so that its executions are counted.
+   *
+   * @param target the statement
+   * @param type   the interface of the statement
+   * @param sql    the SQL the statement was prepared with, or null
+   * @return the wrapped statement
+   */
+  private Statement statement(final Statement target, final Class<?> type,
+      final String sql) {
+    return (Statement) Proxy.newProxyInstance(
+        Statement.class.getClassLoader(), new Class<?>[] {type},
+        (proxy, method, args) -> {
+          if (method.getName().startsWith("execute")) {
+            record(args != null && args.length > 0
+                && args[0] instanceof String s ? s : sql);
+          }
+          return call(proxy, target, method, args);
+        });
+  }
+
+  /**
+   * A DataSource whose connections count the statements they run.
+   */
+  private final class CountingDataSource extends DelegatingDataSource {
+
+    /**
+     * Constructs a CountingDataSource.
+     *
+     * @param target the DataSource
+     */
+    CountingDataSource(final DataSource target) {
+      super(target);
+    }
+
+    /**
+     * Returns a connection of the DataSource, counting its statements.
+     *
+     * @return the connection
+     * @throws SQLException if no connection can be obtained
+     */
+    @Override
+    public Connection getConnection() throws SQLException {
+      return connection(super.getConnection());
+    }
+
+    /**
+     * Returns a connection of the DataSource, counting its statements.
+     *
+     * @param username the user
+     * @param password the password
+     * @return the connection
+     * @throws SQLException if no connection can be obtained
+     */
+    @Override
+    public Connection getConnection(final String username,
+        final String password) throws SQLException {
+      return connection(super.getConnection(username, password));
+    }
+  }
+}
@@ -1,13 +1,19 @@
 package uk.ac.ucl.comp0010.controller;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.junit.jupiter.api.BeforeEach;
@@ -16,13 +22,19 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;  
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;  
+import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.web.servlet.MockMvc;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
+import jakarta.persistence.EntityManagerFactory;
+
+import uk.ac.ucl.comp0010.config.SqlStatementCounter;
 import uk.ac.ucl.comp0010.model.Grade;
 import uk.ac.ucl.comp0010.model.Module;
 import uk.ac.ucl.comp0010.model.Student;
@@ -40,11 +52,18 @@ import uk.ac.ucl.comp0010.repository.StudentRepository;
  * - Registering students to modules, removing students, and retrieving
  *   module registrations via ModuleController.
  * - Updating student information via StudentController.
+ * - Conditional updates of grades, students and modules via If-Match.
+ * - Serializing grades, students and modules without cycles.
+ * - Reading grades and statistics scoped to an academic year.
+ * - Reading a student's transcript via StudentController.
+ * - Bounding the SQL statements of requests, so that they do not grow
+ *   with the data.
  */
 @SpringBootTest
 @AutoConfigureMockMvc
 @ActiveProfiles("test")
 @TestPropertySource(locations = "classpath:application.properties")
+@Import(SqlStatementCounter.class)
 public final class ControllerIntegrationTest {
 
   /** Provides the ability to perform MVC requests in tests. */
@@ -71,6 +90,14 @@ public final class ControllerIntegrationTest {
   @Autowired
   private RegistrationRepository registrationRepository;
 
+  /** Counts the SQL statements of requests and repository calls. */
+  @Autowired
+  private SqlStatementCounter sqlStatementCounter;
+
+  /** Used to clear the second-level cache. */
+  @Autowired
+  private EntityManagerFactory entityManagerFactory;
+
   private Student student;
   private Module module;
   private Grade grade;
@@ -134,6 +161,56 @@ public final class ControllerIntegrationTest {
         .andExpect(status().isOk());
   }
 
+  /**
+   * Tests that adding a grade takes a constant number of SQL statements,
+   * regardless of how many modules the student is registered in or holds
+   * grades for. The second-level cache is cleared first, so that the
+   * student and module are read from the database.
+   *
+   * @throws Exception if an MVC request fails
+   */
+  @Test
+  @DisplayName("Test GradeController addGrade endpoint - constant query count")
+  public void testAddGradeQueryCount() throws Exception {
+    Student busy = new Student();
+    busy.setId(2L);
+    busy.setFirstName("Busy");
+    busy.setLastName("Student");
+    busy.setUsername("busy");
+    busy.setEmail("busy@example.com");
+    studentRepository.save(busy);
+    for (int i = 0; i < 20; i++) {
+      Module m = new Module();
+      m.setCode(String.format("BUSY%02d", i));
+      m.setName("Module " + i);
+      m.setMnc(false);
+      m.setMaxSeats(10);
+      moduleRepository.save(m);
+      busy.registerModule(m);
+
+      Grade g = new Grade();
+      g.setScore(50 + i);
+      g.setAcademicYear("2024/2025");
+      g.setStudent(busy);
+      g.setModule(m);
+      gradeRepository.save(g);
+    }
+    registrationRepository.saveAll(busy.getRegistrations());
+
+    // The first grade of a student or module also creates its aggregate.
+    addGrade("1", "MOD001", "2025/2026");
+    addGrade("2", "BUSY00", "2025/2026");
+
+    // The bound includes advancing the data version after the commit.
+    entityManagerFactory.getCache().evictAll();
+    int one = sqlStatementCounter.assertAtMost(10,
+        () -> addGrade("1", "MOD001", "2026/2027"));
+    entityManagerFactory.getCache().evictAll();
+    int twenty = sqlStatementCounter.assertAtMost(10,
+        () -> addGrade("2", "BUSY00", "2026/2027"));
+    assertEquals(one, twenty);
+  }
+
   /**
    * Tests adding a grade with missing parameters.
    *
@@ -233,6 +310,35 @@ public final class ControllerIntegrationTest {
         .andExpect(status().isOk());
   }
 
+  /**
+   * Tests that moving a grade into an academic year in which the student
+   * already has a grade for the module is refused as a conflict, leaving
+   * the grade unchanged.
+   *
+   * @throws Exception if an MVC request fails
+   */
+  @Test
+  @DisplayName("Test GradeController updateGrade endpoint - duplicate year")
+  public void testUpdateGradeOntoExistingYear() throws Exception {
+    Grade other = new Grade();
+    other.setScore(40);
+    other.setAcademicYear("2025/2026");
+    other.setStudent(student);
+    other.setModule(module);
+    gradeRepository.save(other);
+
+    Map<String, String> params = new HashMap<>();
+    params.put("academic_year", "2025/2026");
+
+    mockMvc.perform(put("/grades/" + grade.getId())
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(objectMapper.writeValueAsString(params)))
+        .andExpect(status().isConflict());
+
+    assertEquals("2024/2025", gradeRepository.findById(grade.getId())
+        .orElseThrow().getAcademicYear());
+  }
+
   /**
    * Tests updating a non-existent grade.
    *
@@ -247,6 +353,223 @@ public final class ControllerIntegrationTest {
         .andExpect(status().isNotFound());
   }
 
+  /**
+   * Tests that the /grades collection inlines student and module details
+   * and a page is served with a constant number of SQL statements (the
+   * content query and, at most, a count query).
+   *
+   * @throws Exception if an MVC request fails
+   */
+  @Test
+  @DisplayName("Test /grades collection - inline excerpt in one query")
+  public void testGradesCollectionInlinesStudentAndModule() throws Exception {
+    for (long id = 100; id < 120; id++) {
+      Student s = new Student();
+      s.setId(id);
+      s.setFirstName("First" + id);
+      s.setLastName("Last" + id);
+      s.setUsername("user" + id);
+      s.setEmail("user" + id + "@example.com");
+      studentRepository.save(s);
+
+      Grade g = new Grade();
+      g.setScore(50);
+      g.setAcademicYear("2024/2025");
+      g.setStudent(s);
+      g.setModule(module);
+      gradeRepository.save(g);
+    }
+
+    sqlStatementCounter.assertAtMost(2, () -> mockMvc.perform(
+        get("/grades?size=50"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$._embedded.grades.length()").value(21))
+        .andExpect(jsonPath("$._embedded.grades[0].studentFirstName")
+            .value("John"))
+        .andExpect(jsonPath("$._embedded.grades[0].studentId").value(1))
+        .andExpect(jsonPath("$._embedded.grades[0].moduleCode")
+            .value("MOD001"))
+        .andExpect(jsonPath("$._embedded.grades[0].moduleName")
+            .value("Software Engineering")));
+  }
+
+  /**
+   * Tests that a page of the /modules collection, which embeds each
+   * module's grades and enrolled count, is served with the same number of
+   * SQL statements whether it holds one module or many.
+   *
+   * @throws Exception if an MVC request fails
+   */
+  @Test
+  @DisplayName("Test /modules collection - constant query count")
+  public void testModulesCollectionQueryCount() throws Exception {
+    // The bound includes reading the data version.
+    int one = sqlStatementCounter.assertAtMost(4, () -> mockMvc.perform(
+        get("/modules?size=50"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$._embedded.modules.length()").value(1)));
+
+    for (long id = 100; id < 130; id++) {
+      Module m = new Module();
+      m.setCode("MOD" + id);
+      m.setName("Module " + id);
+      m.setMnc(false);
+      m.setMaxSeats(10);
+      moduleRepository.save(m);
+
+      Student s = new Student();
+      s.setId(id);
+      s.setFirstName("First" + id);
+      s.setLastName("Last" + id);
+      s.setUsername("user" + id);
+      s.setEmail("user" + id + "@example.com");
+      studentRepository.save(s);
+      s.registerModule(m);
+      registrationRepository.saveAll(s.getRegistrations());
+
+      Grade g = new Grade();
+      g.setScore(60);
+      g.setAcademicYear("2024/2025");
+      g.setStudent(s);
+      g.setModule(m);
+      gradeRepository.save(g);
+    }
+
+    int thirtyOne = sqlStatementCounter.assertAtMost(4, () -> mockMvc.perform(
+        get("/modules?size=50"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$._embedded.modules.length()").value(31))
+        .andExpect(jsonPath("$._embedded.modules[1].enrolledCount")
+            .value(1)));
+    assertEquals(one, thirtyOne);
+  }
+
+  /**
+   * Tests that the /students collection is paged and that the keyset
+   * searches return the first students, and those after a given ID, in ID
+   * order.
+   *
+   * @throws Exception if an MVC request fails
+   */
+  @Test
+  @DisplayName("Test /students paging and keyset search")
+  public void testStudentsPagingAndKeysetSearch() throws Exception {
+    for (long id = 100; id < 110; id++) {
+      Student s = new Student();
+      s.setId(id);
+      s.setFirstName("First" + id);
+      s.setLastName("Last" + id);
+      s.setUsername("user" + id);
+      s.setEmail("user" + id + "@example.com");
+      studentRepository.save(s);
+    }
+
+    mockMvc.perform(get("/students?page=1&size=4&sort=id"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$._embedded.students.length()").value(4))
+        .andExpect(jsonPath("$._embedded.students[0].id").value(103))
+        .andExpect(jsonPath("$.page.totalElements").value(11));
+
+    mockMvc.perform(get("/students/search/after?after=104&size=3"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$._embedded.students.length()").value(3))
+        .andExpect(jsonPath("$._embedded.students[0].id").value(105))
+        .andExpect(jsonPath("$._embedded.students[2].id").value(107));
+
+    mockMvc.perform(get("/students/search/first?size=2"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$._embedded.students[0].id").value(1))
+        .andExpect(jsonPath("$._embedded.students[1].id").value(100));
+  }
+
+  /**
+   * Tests that the grade keyset search by academic year and ID continues
+   * across years and keeps the inline excerpt.
+   *
+   * @throws Exception if an MVC request fails
+   */
+  @Test
+  @DisplayName("Test /grades keyset search by academic year")
+  public void testGradesKeysetSearchByYear() throws Exception {
+    Grade older = new Grade();
+    older.setScore(40);
+    older.setAcademicYear("2023/2024");
+    older.setStudent(student);
+    older.setModule(module);
+    gradeRepository.save(older);
+
+    Grade newer = new Grade();
+    newer.setScore(60);
+    newer.setAcademicYear("2025/2026");
+    newer.setStudent(student);
+    newer.setModule(module);
+    gradeRepository.save(newer);
+
+    mockMvc.perform(get("/grades/search/firstByYear?size=2"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$._embedded.grades.length()").value(2))
+        .andExpect(jsonPath("$._embedded.grades[0].academicYear")
+            .value("2023/2024"))
+        .andExpect(jsonPath("$._embedded.grades[1].id").value(grade.getId()))
+        .andExpect(jsonPath("$._embedded.grades[1].studentFirstName")
+            .value("John"));
+
+    mockMvc.perform(get("/grades/search/afterYear?year=2024/2025&after="
+        + grade.getId() + "&size=2"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$._embedded.grades.length()").value(1))
+        .andExpect(jsonPath("$._embedded.grades[0].id").value(newer.getId()));
+  }
+
+  /**
+   * Tests that the grades and statistics scoped to an academic year hold
+   * only that year's grades, and that invalid academic years are refused.
+   *
+   * @throws Exception if an MVC request fails
+   */
+  @Test
+  @DisplayName("Test grade and statistics endpoints scoped to a year")
+  public void testYearScopedEndpoints() throws Exception {
+    Grade older = new Grade();
+    older.setScore(40);
+    older.setAcademicYear("2023/2024");
+    older.setStudent(student);
+    older.setModule(module);
+    gradeRepository.save(older);
+
+    mockMvc.perform(get("/grades/search/firstInYear?year=2024/2025"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$._embedded.grades.length()").value(1))
+        .andExpect(jsonPath("$._embedded.grades[0].id").value(grade.getId()));
+    mockMvc.perform(get("/grades/search/inYear?year=2024/2025&after="
+        + grade.getId()))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$._embedded.grades.length()").value(0));
+    mockMvc.perform(get("/modules/MOD001/grades?academicYear=2023/2024"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.length()").value(1))
+        .andExpect(jsonPath("$[0].score").value(40))
+        .andExpect(jsonPath("$[0].student.id").value(1));
+    mockMvc.perform(get("/modules/MOD001/statistics?academicYear=2024/2025"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.years.length()").value(1))
+        .andExpect(jsonPath("$.years[0].academicYear").value("2024/2025"))
+        .andExpect(jsonPath("$.years[0].gradeCount").value(1));
+
+    mockMvc.perform(get("/modules/MOD001/grades?academicYear=2024"))
+        .andExpect(status().isBadRequest());
+    mockMvc.perform(get("/modules/MOD001/statistics?academicYear=2024/2026"))
+        .andExpect(status().isBadRequest());
+    mockMvc.perform(post("/grades/addGrade")
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(objectMapper.writeValueAsString(Map.of(
+            "student_id", "1",
+            "module_code", "MOD001",
+            "score", "70",
+            "academic_year", "2025-26"))))
+        .andExpect(status().isBadRequest());
+  }
+
   // ModuleController tests
 
   /**
@@ -376,6 +699,133 @@ public final class ControllerIntegrationTest {
         .andExpect(status().isBadRequest());
   }
 
+  /**
+   * Tests registering many students at once: new students are registered
+   * with a fixed number of statements, while existing registrations and
+   * unknown IDs are skipped.
+   *
+   * @throws Exception if an MVC request fails
+   */
+  @Test
+  @DisplayName("Test registerStudents endpoint - success")
+  public void testRegisterStudentsSuccess() throws Exception {
+    Module big = new Module();
+    big.setCode("BIG002");
+    big.setName("Large Cohort");
+    big.setMnc(false);
+    big.setMaxSeats(60);
+    moduleRepository.save(big);
+
+    List<Long> ids = new ArrayList<>();
+    ids.add(1L);
+    for (long id = 200; id < 250; id++) {
+      saveStudent(id);
+      ids.add(id);
+    }
+    ids.add(999L);
+    student.registerModule(big);
+    registrationRepository.saveAll(student.getRegistrations());
+
+    sqlStatementCounter.assertAtMost(6, () -> mockMvc.perform(
+        post("/modules/BIG002/registerStudents")
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(objectMapper.writeValueAsString(
+            Map.of("studentIds", ids))))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.registered").value(50))
+        .andExpect(jsonPath("$.alreadyRegistered").value(1))
+        .andExpect(jsonPath("$.unknownStudents[0]").value(999)));
+    assertTrue(registrationRepository.countByModuleCode("BIG002") == 51);
+  }
+
+  /**
+   * Tests that a bulk registration not fitting in the free seats registers
+   * no student.
+   *
+   * @throws Exception if an MVC request fails
+   */
+  @Test
+  @DisplayName("Test registerStudents endpoint - module full")
+  public void testRegisterStudentsModuleFull() throws Exception {
+    saveStudent(3L);
+    saveStudent(4L);
+
+    mockMvc.perform(post("/modules/MOD001/registerStudents")
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(objectMapper.writeValueAsString(
+            Map.of("studentIds", List.of(3L, 4L)))))
+        .andExpect(status().isBadRequest());
+
+    assertTrue(registrationRepository.countByModuleCode("MOD001") == 1);
+  }
+
+  /**
+   * Tests bulk registration with a missing parameter or unknown module.
+   *
+   * @throws Exception if an MVC request fails
+   */
+  @Test
+  @DisplayName("Test registerStudents endpoint - bad request and not found")
+  public void testRegisterStudentsInvalid() throws Exception {
+    mockMvc.perform(post("/modules/MOD001/registerStudents")
+        .contentType(MediaType.APPLICATION_JSON)
+        .content("{}"))
+        .andExpect(status().isBadRequest());
+
+    mockMvc.perform(post("/modules/XYZ999/registerStudents")
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(objectMapper.writeValueAsString(
+            Map.of("studentIds", List.of(1L)))))
+        .andExpect(status().isNotFound());
+  }
+
+  /**
+   * Tests enrolling a cohort in every MNC module, leaving other modules
+   * untouched, and that a full MNC module blocks the whole enrolment.
+   *
+   * @throws Exception if an MVC request fails
+   */
+  @Test
+  @DisplayName("Test registerStudentsInMncModules endpoint")
+  public void testRegisterStudentsInMncModules() throws Exception {
+    Module mnc = new Module();
+    mnc.setCode("MNC002");
+    mnc.setName("Mandatory");
+    mnc.setMnc(true);
+    mnc.setMaxSeats(10);
+    moduleRepository.save(mnc);
+
+    Module optional = new Module();
+    optional.setCode("OPT001");
+    optional.setName("Optional");
+    optional.setMnc(false);
+    optional.setMaxSeats(10);
+    moduleRepository.save(optional);
+
+    saveStudent(3L);
+    mockMvc.perform(post("/modules/mnc/registerStudents")
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(objectMapper.writeValueAsString(
+            Map.of("studentIds", List.of(1L, 3L)))))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.modules.length()").value(2))
+        .andExpect(jsonPath("$.registered").value(3))
+        .andExpect(jsonPath("$.alreadyRegistered").value(1));
+
+    assertTrue(registrationRepository.countByModuleCode("MOD001") == 2);
+    assertTrue(registrationRepository.countByModuleCode("MNC002") == 2);
+    assertTrue(registrationRepository.countByModuleCode("OPT001") == 0);
+
+    // MOD001 is now full, so student 4 is not enrolled anywhere
+    saveStudent(4L);
+    mockMvc.perform(post("/modules/mnc/registerStudents")
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(objectMapper.writeValueAsString(
+            Map.of("studentIds", List.of(4L)))))
+        .andExpect(status().isBadRequest());
+    assertTrue(registrationRepository.countByModuleCode("MNC002") == 2);
+  }
+
   /**
    * Tests removing a student from a module successfully.
    *
@@ -444,6 +894,104 @@ public final class ControllerIntegrationTest {
         .andExpect(status().isOk());
   }
 
+  /**
+   * Tests that the module roster is read with a constant number of SQL
+   * statements, regardless of how many students are enrolled.
+   *
+   * @throws Exception if an MVC request fails
+   */
+  @Test
+  @DisplayName("Test getModuleRegistrations endpoint - constant query count")
+  public void testGetModuleRegistrationsQueryCount() throws Exception {
+    Module big = new Module();
+    big.setCode("BIG001");
+    big.setName("Large Cohort");
+    big.setMnc(false);
+    big.setMaxSeats(100);
+    moduleRepository.save(big);
+
+    for (long id = 100; id < 140; id++) {
+      Student s = new Student();
+      s.setId(id);
+      s.setFirstName("First" + id);
+      s.setLastName("Last" + id);
+      s.setUsername("user" + id);
+      s.setEmail("user" + id + "@example.com");
+      studentRepository.save(s);
+      s.registerModule(big);
+      registrationRepository.saveAll(s.getRegistrations());
+
+      Grade g = new Grade();
+      g.setScore((int) id % 100);
+      g.setAcademicYear("2024/2025");
+      g.setStudent(s);
+      g.setModule(big);
+      gradeRepository.save(g);
+    }
+
+    // The bound includes reading the data version the response is tagged
+    // with.
+    int one = sqlStatementCounter.assertAtMost(3, () -> mockMvc.perform(
+        get("/modules/MOD001/registrations"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.enrolledStudents.length()").value(1)));
+    int forty = sqlStatementCounter.assertAtMost(3, () -> mockMvc.perform(
+        get("/modules/BIG001/registrations"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.enrolledStudents.length()").value(40))
+        .andExpect(jsonPath("$.enrolledStudents[0].grade").value(0))
+        .andExpect(jsonPath("$.enrolledStudents[0].gradeId").exists()));
+    assertEquals(one, forty);
+    sqlStatementCounter.assertAtMost(1,
+        () -> registrationRepository.findRosterByModuleCode("BIG001"));
+  }
+
+  /**
+   * Tests the per-year module statistics computed in the database.
+   *
+   * @throws Exception if an MVC request fails
+   */
+  @Test
+  @DisplayName("Test getStatistics endpoint - per-year statistics")
+  public void testGetStatistics() throws Exception {
+    // setUp() already holds a score of 90 in 2024/2025; a student holds one
+    // grade per year, so the other scores are held by other students
+    long id = 2;
+    for (int score : new int[] {10, 35, 50, 100}) {
+      saveStudent(id);
+      saveGrade(id++, score, "2024/2025");
+    }
+    saveGrade(1L, 70, "2023/2024");
+
+    mockMvc.perform(get("/modules/MOD001/statistics"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.passMark").value(40))
+        .andExpect(jsonPath("$.years.length()").value(2))
+        .andExpect(jsonPath("$.years[0].academicYear").value("2023/2024"))
+        .andExpect(jsonPath("$.years[0].median").value(70.0))
+        .andExpect(jsonPath("$.years[1].gradeCount").value(5))
+        .andExpect(jsonPath("$.years[1].mean").value(57.0))
+        .andExpect(jsonPath("$.years[1].median").value(50.0))
+        .andExpect(jsonPath("$.years[1].lowerQuartile").value(35.0))
+        .andExpect(jsonPath("$.years[1].upperQuartile").value(90.0))
+        .andExpect(jsonPath("$.years[1].minScore").value(10))
+        .andExpect(jsonPath("$.years[1].maxScore").value(100))
+        .andExpect(jsonPath("$.years[1].passRate").value(0.6))
+        .andExpect(jsonPath("$.years[1].histogram[1]").value(1))
+        .andExpect(jsonPath("$.years[1].histogram[3]").value(1))
+        .andExpect(jsonPath("$.years[1].histogram[5]").value(1))
+        .andExpect(jsonPath("$.years[1].histogram[9]").value(2));
+
+    mockMvc.perform(get("/modules/MOD001/statistics")
+        .param("academicYear", "2023/2024"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.years.length()").value(1))
+        .andExpect(jsonPath("$.years[0].histogram[7]").value(1));
+
+    mockMvc.perform(get("/modules/XYZ999/statistics"))
+        .andExpect(status().isNotFound());
+  }
+
   /**
    * Tests retrieving registrations for a non-existent module.
    *
@@ -578,4 +1126,268 @@ public final class ControllerIntegrationTest {
         .content(objectMapper.writeValueAsString(new Student())))
         .andExpect(status().isOk());
   }
+
+  /**
+   * Tests that a transcript lists the modules a student is registered in
+   * or holds grades for, and their grades and averages by academic year,
+   * using a fixed number of statements.
+   *
+   * @throws Exception if an MVC request fails
+   */
+  @Test
+  @DisplayName("Test getTranscript endpoint - modules, years and averages")
+  public void testGetTranscript() throws Exception {
+    Module left = new Module();
+    left.setCode("MOD002");
+    left.setName("Algorithms");
+    left.setMnc(false);
+    left.setMaxSeats(10);
+    moduleRepository.save(left);
+    Module ungraded = new Module();
+    ungraded.setCode("MOD003");
+    ungraded.setName("Databases");
+    ungraded.setMnc(false);
+    ungraded.setMaxSeats(10);
+    moduleRepository.save(ungraded);
+    mockMvc.perform(post("/modules/MOD003/registerStudent")
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(objectMapper.writeValueAsString(Map.of("studentId", 1))))
+        .andExpect(status().isOk());
+
+    int[] scores = {60, 60};
+    Module[] modules = {module, left};
+    String[] years = {"2023/2024", "2024/2025"};
+    for (int i = 0; i < scores.length; i++) {
+      Grade g = new Grade();
+      g.setScore(scores[i]);
+      g.setAcademicYear(years[i]);
+      g.setStudent(student);
+      g.setModule(modules[i]);
+      gradeRepository.save(g);
+    }
+
+    // The bound includes reading the data version.
+    sqlStatementCounter.assertAtMost(4, () -> mockMvc.perform(
+        get("/students/1/transcript"))
+        .andExpect(status().isOk())
+        .andExpect(header().exists("ETag"))
+        .andExpect(jsonPath("$.studentId").value(1))
+        .andExpect(jsonPath("$.firstName").value("John"))
+        .andExpect(jsonPath("$.gradeCount").value(3))
+        .andExpect(jsonPath("$.average").value(70.0))
+        .andExpect(jsonPath("$.modules.length()").value(3))
+        .andExpect(jsonPath("$.modules[0].code").value("MOD001"))
+        .andExpect(jsonPath("$.modules[0].registered").value(true))
+        .andExpect(jsonPath("$.modules[1].name").value("Algorithms"))
+        .andExpect(jsonPath("$.modules[1].registered").value(false))
+        .andExpect(jsonPath("$.modules[2].code").value("MOD003"))
+        .andExpect(jsonPath("$.modules[2].registered").value(true))
+        .andExpect(jsonPath("$.years.length()").value(2))
+        .andExpect(jsonPath("$.years[0].academicYear").value("2023/2024"))
+        .andExpect(jsonPath("$.years[0].average").value(60.0))
+        .andExpect(jsonPath("$.years[1].academicYear").value("2024/2025"))
+        .andExpect(jsonPath("$.years[1].average").value(75.0))
+        .andExpect(jsonPath("$.years[1].grades.length()").value(2))
+        .andExpect(jsonPath("$.years[1].grades[0].moduleCode")
+            .value("MOD001"))
+        .andExpect(jsonPath("$.years[1].grades[1].moduleName")
+            .value("Algorithms")));
+  }
+
+  /**
+   * Tests that the transcript of an unknown student is not found, and that
+   * a student without grades has an empty transcript.
+   *
+   * @throws Exception if an MVC request fails
+   */
+  @Test
+  @DisplayName("Test getTranscript endpoint - unknown and ungraded students")
+  public void testGetTranscriptWithoutGrades() throws Exception {
+    mockMvc.perform(get("/students/9999/transcript"))
+        .andExpect(status().isNotFound());
+
+    gradeRepository.deleteAll();
+    mockMvc.perform(get("/students/1/transcript"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.gradeCount").value(0))
+        .andExpect(jsonPath("$.average").doesNotExist())
+        .andExpect(jsonPath("$.years.length()").value(0))
+        .andExpect(jsonPath("$.modules.length()").value(1));
+  }
+
+  /**
+   * Tests that the grades GradeController returns are serialized with
+   * their student and module, but not with their grades and
+   * registrations, which would lead back to the grade, and that the REST
+   * repository still serves a grade with links to them.
+   *
+   * @throws Exception if an MVC request fails
+   */
+  @Test
+  @DisplayName("Test grade JSON - no cycle through student or module")
+  public void testGradeJsonIsNotCyclic() throws Exception {
+    mockMvc.perform(get("/grades/" + grade.getId()))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.score").value(grade.getScore()))
+        .andExpect(jsonPath("$._links.student.href").exists())
+        .andExpect(jsonPath("$._links.module.href").exists());
+
+    Map<String, String> params = new HashMap<>();
+    params.put("student_id", "1");
+    params.put("module_code", "MOD001");
+    params.put("score", "85");
+    params.put("academic_year", "2025/2026");
+    mockMvc.perform(post("/grades/addGrade")
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(objectMapper.writeValueAsString(params)))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.student.firstName").value("John"))
+        .andExpect(jsonPath("$.student.grades").doesNotExist());
+  }
+
+  /**
+   * Tests that a registered student and a module with registrations and
+   * grades, whether read or updated, are returned as complete JSON rather
+   * than nesting through their registrations until serialization fails.
+   *
+   * @throws Exception if an MVC request fails
+   */
+  @Test
+  @DisplayName("Test student and module JSON - no cycle via registrations")
+  public void testStudentAndModuleJsonAreNotCyclic() throws Exception {
+    List<MockHttpServletResponse> responses = new ArrayList<>();
+    responses.add(mockMvc.perform(get("/students/1"))
+        .andExpect(status().isOk()).andReturn().getResponse());
+    responses.add(mockMvc.perform(get("/modules/MOD001"))
+        .andExpect(status().isOk()).andReturn().getResponse());
+    responses.add(mockMvc.perform(put("/students/1")
+        .contentType(MediaType.APPLICATION_JSON)
+        .content("{\"lastName\": \"Doe\"}"))
+        .andExpect(status().isOk()).andReturn().getResponse());
+    responses.add(mockMvc.perform(put("/modules/MOD001")
+        .contentType(MediaType.APPLICATION_JSON)
+        .content("{\"name\": \"Software Engineering\"}"))
+        .andExpect(status().isOk()).andReturn().getResponse());
+
+    for (MockHttpServletResponse response : responses) {
+      JsonNode body = objectMapper.readTree(response.getContentAsString());
+      assertTrue(body.isObject());
+      assertTrue(response.getContentAsString().length() < 4096,
+          "Unexpectedly large body: " + response.getContentAsString()
+              .length());
+    }
+  }
+
+  /**
+   * Tests that updates carrying an If-Match header are applied only to
+   * the version they name, and that responses carry the new ETag.
+   *
+   * @throws Exception if an MVC request fails
+   */
+  @Test
+  @DisplayName("Test conditional updates - If-Match and ETag")
+  public void testConditionalUpdates() throws Exception {
+    mockMvc.perform(get("/grades/" + grade.getId()))
+        .andExpect(status().isOk())
+        .andExpect(header().string("ETag", "\"0\""));
+
+    mockMvc.perform(put("/grades/" + grade.getId())
+        .header("If-Match", "\"0\"")
+        .contentType(MediaType.APPLICATION_JSON)
+        .content("{\"score\":\"70\"}"))
+        .andExpect(status().isOk())
+        .andExpect(header().string("ETag", "\"1\""));
+    mockMvc.perform(put("/grades/" + grade.getId())
+        .header("If-Match", "\"0\"")
+        .contentType(MediaType.APPLICATION_JSON)
+        .content("{\"score\":\"80\"}"))
+        .andExpect(status().isPreconditionFailed());
+    mockMvc.perform(put("/grades/" + grade.getId())
+        .contentType(MediaType.APPLICATION_JSON)
+        .content("{\"score\":\"85\"}"))
+        .andExpect(status().isOk())
+        .andExpect(header().string("ETag", "\"2\""));
+    assertEquals(85, gradeRepository.findById(grade.getId()).get()
+        .getScore());
+
+    mockMvc.perform(put("/students/1")
+        .header("If-Match", "\"5\"")
+        .contentType(MediaType.APPLICATION_JSON)
+        .content("{\"lastName\":\"Smith\"}"))
+        .andExpect(status().isPreconditionFailed());
+    mockMvc.perform(put("/students/1")
+        .header("If-Match", "\"0\"")
+        .contentType(MediaType.APPLICATION_JSON)
+        .content("{\"lastName\":\"Smith\"}"))
+        .andExpect(status().isOk())
+        .andExpect(header().string("ETag", "\"1\""));
+
+    mockMvc.perform(put("/modules/MOD001")
+        .header("If-Match", "W/\"0\"")
+        .contentType(MediaType.APPLICATION_JSON)
+        .content("{\"name\":\"Advanced Software Engineering\"}"))
+        .andExpect(status().isOk())
+        .andExpect(header().string("ETag", "\"1\""));
+    mockMvc.perform(put("/modules/MOD001")
+        .header("If-Match", "\"0\"")
+        .contentType(MediaType.APPLICATION_JSON)
+        .content("{\"name\":\"Software Engineering\"}"))
+        .andExpect(status().isPreconditionFailed());
+    assertEquals("Advanced Software Engineering",
+        moduleRepository.findById("MOD001").get().getName());
+  }
+
+  /**
+   * Adds a grade through the addGrade endpoint, expecting it to succeed.
+   *
+   * @param studentId    the student ID
+   * @param moduleCode   the module code
+   * @param academicYear the academic year
+   * @throws Exception if an MVC request fails
+   */
+  private void addGrade(final String studentId, final String moduleCode,
+      final String academicYear) throws Exception {
+    Map<String, String> params = new HashMap<>();
+    params.put("student_id", studentId);
+    params.put("module_code", moduleCode);
+    params.put("score", "85");
+    params.put("academic_year", academicYear);
+
+    mockMvc.perform(post("/grades/addGrade")
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(objectMapper.writeValueAsString(params)))
+        .andExpect(status().isOk());
+  }
+
+  /**
+   * Saves a student with the given ID and derived names.
+   *
+   * @param id the student ID
+   */
+  private void saveStudent(final long id) {
+    Student s = new Student();
+    s.setId(id);
+    s.setFirstName("First" + id);
+    s.setLastName("Last" + id);
+    s.setUsername("user" + id);
+    s.setEmail("user" + id + "@example.com");
+    studentRepository.save(s);
+  }
+
+  /**
+   * Saves a grade for a student in the default module.
+   *
+   * @param studentId    the student ID
+   * @param score        the score
+   * @param academicYear the academic year
+   */
+  private void saveGrade(final long studentId, final int score,
+      final String academicYear) {
+    Grade g = new Grade();
+    g.setScore(score);
+    g.setAcademicYear(academicYear);
+    g.setStudent(studentRepository.findById(studentId).orElseThrow());
+    g.setModule(module);
+    gradeRepository.save(g);
+  }
 }
@@ -0,0 +1,442 @@
+package uk.ac.ucl.comp0010.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.rest.core.RepositoryConstraintViolationException;
+import org.springframework.data.rest.core.event.AfterSaveEvent;
+import org.springframework.data.rest.core.event.BeforeSaveEvent;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.persistence.EntityManagerFactory;
+
+import uk.ac.ucl.comp0010.model.Grade;
+import uk.ac.ucl.comp0010.model.Module;
+import uk.ac.ucl.comp0010.model.Student;
+import uk.ac.ucl.comp0010.repository.GradeRepository;
+import uk.ac.ucl.comp0010.repository.ModuleGradeAggregateRepository;
+import uk.ac.ucl.comp0010.repository.ModuleRepository;
+import uk.ac.ucl.comp0010.repository.RegistrationRepository;
+import uk.ac.ucl.comp0010.repository.StudentGradeAggregateRepository;
+import uk.ac.ucl.comp0010.repository.StudentRepository;
+import uk.ac.ucl.comp0010.service.GradeAggregateService;
+
+/**
+ * Integration tests for the per-student and per-module grade aggregates:
+ * their maintenance as grades are added, upserted, updated and deleted,
+ * the average endpoints reading them, and the reconciliation of drift.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@TestPropertySource(locations = "classpath:application.properties",
+    properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+public final class GradeAggregateIntegrationTest {
+
+  /** Provides the ability to perform MVC requests in tests. */
+  @Autowired
+  private MockMvc mockMvc;
+
+  /** Used to serialize/deserialize objects to/from JSON. */
+  @Autowired
+  private ObjectMapper objectMapper;
+
+  /** Repository for managing Student entities. */
+  @Autowired
+  private StudentRepository studentRepository;
+
+  /** Repository for managing Module entities. */
+  @Autowired
+  private ModuleRepository moduleRepository;
+
+  /** Repository for managing Grade entities. */
+  @Autowired
+  private GradeRepository gradeRepository;
+
+  /** Repository for managing Registration entities. */
+  @Autowired
+  private RegistrationRepository registrationRepository;
+
+  /** Repository for per-student grade aggregates. */
+  @Autowired
+  private StudentGradeAggregateRepository studentAggregateRepository;
+
+  /** Repository for per-module grade aggregates. */
+  @Autowired
+  private ModuleGradeAggregateRepository moduleAggregateRepository;
+
+  /** Service maintaining the grade aggregates. */
+  @Autowired
+  private GradeAggregateService aggregateService;
+
+  /** Publishes the events Spring Data REST raises around a save. */
+  @Autowired
+  private ApplicationEventPublisher eventPublisher;
+
+  /** Used to read Hibernate statement statistics. */
+  @Autowired
+  private EntityManagerFactory entityManagerFactory;
+
+  private Student student;
+  private Module module;
+
+  /** The number of grades added through addGrade. */
+  private int gradesAdded;
+
+  /**
+   * Clears all data and registers one student in one module.
+   */
+  @BeforeEach
+  public void setUp() {
+    registrationRepository.deleteAll();
+    gradeRepository.deleteAll();
+    studentRepository.deleteAll();
+    moduleRepository.deleteAll();
+    studentAggregateRepository.deleteAll();
+    moduleAggregateRepository.deleteAll();
+
+    student = new Student();
+    student.setId(1L);
+    student.setFirstName("John");
+    student.setLastName("Doe");
+    student.setUsername("jdoe");
+    student.setEmail("jdoe@example.com");
+    studentRepository.save(student);
+
+    module = new Module();
+    module.setCode("MOD001");
+    module.setName("Software Engineering");
+    module.setMnc(true);
+    module.setMaxSeats(10);
+    moduleRepository.save(module);
+
+    student.registerModule(module);
+    registrationRepository.saveAll(student.getRegistrations());
+  }
+
+  /**
+   * Tests that adding, updating and deleting grades keeps both averages in
+   * step, including the lowest and highest score.
+   *
+   * @throws Exception if an MVC request fails
+   */
+  @Test
+  @DisplayName("Aggregates follow grade adds, updates and deletes")
+  public void testAggregatesFollowGradeWrites() throws Exception {
+    long first = addGrade(60);
+    addGrade(80);
+    long third = addGrade(70);
+
+    mockMvc.perform(get("/students/1/average"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.gradeCount").value(3))
+        .andExpect(jsonPath("$.average").value(70.0))
+        .andExpect(jsonPath("$.minScore").value(60))
+        .andExpect(jsonPath("$.maxScore").value(80));
+
+    mockMvc.perform(put("/grades/" + first)
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(objectMapper.writeValueAsString(Map.of("score", "90"))))
+        .andExpect(status().isOk());
+
+    mockMvc.perform(get("/modules/MOD001/average"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.gradeCount").value(3))
+        .andExpect(jsonPath("$.average").value(80.0))
+        .andExpect(jsonPath("$.minScore").value(70))
+        .andExpect(jsonPath("$.maxScore").value(90));
+
+    mockMvc.perform(delete("/grades/" + third))
+        .andExpect(status().isNoContent());
+    mockMvc.perform(delete("/grades/" + third))
+        .andExpect(status().isNotFound());
+
+    mockMvc.perform(get("/students/1/average"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.gradeCount").value(2))
+        .andExpect(jsonPath("$.average").value(85.0))
+        .andExpect(jsonPath("$.minScore").value(80))
+        .andExpect(jsonPath("$.standardDeviation").value(5.0));
+
+    assertEquals(0, aggregateService.reconcile());
+  }
+
+  /**
+   * Tests that moving a grade to another student through a Spring Data
+   * REST save updates the aggregates of both students. The save is driven
+   * through the events Spring Data REST publishes around it, within a
+   * request, as GradeController answers PUT and PATCH on /grades/{id}.
+   *
+   * @throws Exception if an MVC request fails
+   */
+  @Test
+  @DisplayName("Moving a grade through the REST API updates both sides")
+  public void testMovedGradeUpdatesBothStudents() throws Exception {
+    Student other = new Student();
+    other.setId(2L);
+    other.setFirstName("Jane");
+    other.setLastName("Roe");
+    other.setUsername("jroe");
+    other.setEmail("jroe@example.com");
+    studentRepository.save(other);
+    long id = addGrade(60);
+
+    Grade grade = gradeRepository.findById(id).orElseThrow();
+    grade.setStudent(other);
+    RequestContextHolder.setRequestAttributes(
+        new ServletRequestAttributes(new MockHttpServletRequest()));
+    try {
+      eventPublisher.publishEvent(new BeforeSaveEvent(grade));
+      gradeRepository.save(grade);
+      eventPublisher.publishEvent(new AfterSaveEvent(grade));
+    } finally {
+      RequestContextHolder.resetRequestAttributes();
+    }
+
+    mockMvc.perform(get("/students/1/average"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.gradeCount").value(0));
+    mockMvc.perform(get("/students/2/average"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.gradeCount").value(1))
+        .andExpect(jsonPath("$.average").value(60.0));
+    assertEquals(0, aggregateService.reconcile());
+  }
+
+  /**
+   * Tests that grades written through the REST repository endpoints with
+   * a malformed academic year are refused before they reach the database,
+   * as a bad request rather than a server error.
+   *
+   * @throws Exception if an MVC request fails
+   */
+  @Test
+  @DisplayName("REST grade writes reject malformed academic years")
+  public void testRestWritesRejectMalformedYears() throws Exception {
+    String body = "{\"score\": 70, \"academicYear\": \"%s\","
+        + " \"student\": \"/students/1\", \"module\": \"/modules/MOD001\"}";
+    mockMvc.perform(post("/grades").contentType(MediaType.APPLICATION_JSON)
+        .content(body.formatted("2024")))
+        .andExpect(status().isBadRequest());
+    assertEquals(0, gradeRepository.count());
+    mockMvc.perform(post("/grades").contentType(MediaType.APPLICATION_JSON)
+        .content(body.formatted("2024/2025")))
+        .andExpect(status().isCreated());
+
+    Grade grade = gradeRepository.findAll().iterator().next();
+    grade.setAcademicYear("2024/2026");
+    assertThrows(RepositoryConstraintViolationException.class,
+        () -> eventPublisher.publishEvent(new BeforeSaveEvent(grade)));
+  }
+
+  /**
+   * Tests that the average endpoints read a single row, and report no
+   * average for students and modules without grades.
+   *
+   * @throws Exception if an MVC request fails
+   */
+  @Test
+  @DisplayName("Average endpoints answer without reading grades")
+  public void testAverageEndpoints() throws Exception {
+    mockMvc.perform(get("/students/1/average"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.gradeCount").value(0))
+        .andExpect(jsonPath("$.average").isEmpty());
+    mockMvc.perform(get("/students/999/average"))
+        .andExpect(status().isNotFound());
+    mockMvc.perform(get("/modules/XYZ999/average"))
+        .andExpect(status().isNotFound());
+
+    for (int i = 0; i < 20; i++) {
+      addGrade(50 + i);
+    }
+
+    Statistics stats = entityManagerFactory.unwrap(SessionFactory.class)
+        .getStatistics();
+    stats.clear();
+
+    mockMvc.perform(get("/modules/MOD001/average"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.gradeCount").value(20));
+
+    assertEquals(0, stats.getEntityLoadCount()
+        - stats.getEntityStatistics(Module.class.getName()).getLoadCount()
+        - stats.getEntityStatistics(
+            "uk.ac.ucl.comp0010.model.ModuleGradeAggregate").getLoadCount());
+    assertTrue(stats.getPrepareStatementCount() <= 2,
+        "Average should take at most 2 statements, took "
+            + stats.getPrepareStatementCount());
+  }
+
+  /**
+   * Tests that re-submitting a grade replaces its score instead of adding
+   * a second grade, and that adding a second grade for the same year is
+   * rejected.
+   *
+   * @throws Exception if an MVC request fails
+   */
+  @Test
+  @DisplayName("Upserting a grade twice keeps one grade")
+  public void testUpsertReplacesScore() throws Exception {
+    upsertGrade(60).andExpect(status().isOk());
+    long id = gradeRepository.findAll().iterator().next().getId();
+    upsertGrade(75).andExpect(status().isOk());
+    upsertGrade(75).andExpect(status().isOk());
+
+    assertEquals(1, gradeRepository.count());
+    assertEquals(75, gradeRepository.findById(id).get().getScore());
+    mockMvc.perform(get("/students/1/average"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.gradeCount").value(1))
+        .andExpect(jsonPath("$.average").value(75.0));
+
+    mockMvc.perform(post("/grades/addGrade")
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(objectMapper.writeValueAsString(Map.of(
+            "student_id", "1",
+            "module_code", "MOD001",
+            "score", "90",
+            "academic_year", "2024/2025"))))
+        .andExpect(status().isBadRequest());
+    mockMvc.perform(put("/grades/upsertGrade")
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(objectMapper.writeValueAsString(Map.of(
+            "student_id", "1",
+            "module_code", "MOD001"))))
+        .andExpect(status().isBadRequest());
+
+    assertEquals(1, gradeRepository.count());
+    assertEquals(0, aggregateService.reconcile());
+  }
+
+  /**
+   * Tests that parallel upserts of the same grade leave a single grade,
+   * with the aggregates counting it once.
+   *
+   * @throws Exception if a request fails
+   */
+  @Test
+  @DisplayName("Parallel upserts of a grade keep one grade")
+  public void testParallelUpserts() throws Exception {
+    List<Callable<Integer>> requests = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      int score = i % 101;
+      requests.add(() -> upsertGrade(score).andReturn().getResponse()
+          .getStatus());
+    }
+
+    ExecutorService pool = Executors.newFixedThreadPool(16);
+    try {
+      for (Future<Integer> f : pool.invokeAll(requests)) {
+        assertEquals(200, f.get());
+      }
+    } finally {
+      pool.shutdown();
+    }
+
+    assertEquals(1, gradeRepository.count());
+    assertEquals(1, studentAggregateRepository.findById(1L).get()
+        .getGradeCount());
+    assertEquals(0, aggregateService.reconcile());
+  }
+
+  /**
+   * Tests that reconciliation detects and repairs grades written behind the
+   * aggregates' back.
+   */
+  @Test
+  @DisplayName("Reconciliation repairs drifted aggregates")
+  public void testReconcileRepairsDrift() {
+    Grade g = new Grade();
+    g.setScore(42);
+    g.setAcademicYear("2024/2025");
+    g.setStudent(student);
+    g.setModule(module);
+    gradeRepository.save(g);
+
+    assertEquals(2, aggregateService.reconcile());
+    assertEquals(1, studentAggregateRepository.findById(1L).get()
+        .getGradeCount());
+    assertEquals(42, moduleAggregateRepository.findById("MOD001").get()
+        .getMaxScore());
+    assertEquals(0, aggregateService.reconcile());
+  }
+
+  /**
+   * Upserts the grade of the student in the module for 2024/2025 through
+   * the API.
+   *
+   * @param score the score
+   * @return the result of the request
+   * @throws Exception if the MVC request fails
+   */
+  private ResultActions upsertGrade(final int score) throws Exception {
+    return mockMvc.perform(put("/grades/upsertGrade")
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(objectMapper.writeValueAsString(Map.of(
+            "student_id", "1",
+            "module_code", "MOD001",
+            "score", String.valueOf(score),
+            "academic_year", "2024/2025"))));
+  }
+
+  /**
+   * Adds a grade for the student in the module through the API, in the
+   * academic year after that of the previous grade added, since a student
+   * holds one grade per module and year.
+   *
+   * @param score the score
+   * @return the ID of the new grade
+   * @throws Exception if the MVC request fails
+   */
+  private long addGrade(final int score) throws Exception {
+    mockMvc.perform(post("/grades/addGrade")
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(objectMapper.writeValueAsString(Map.of(
+            "student_id", "1",
+            "module_code", "MOD001",
+            "score", String.valueOf(score),
+            "academic_year", (2000 + gradesAdded) + "/"
+                + (2001 + gradesAdded++)))))
+        .andExpect(status().isOk());
+
+    long newest = 0;
+    for (Grade g : gradeRepository.findAll()) {
+      newest = Math.max(newest, g.getId());
+    }
+    return newest;
+  }
+}
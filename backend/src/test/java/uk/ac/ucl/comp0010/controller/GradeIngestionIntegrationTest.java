@@ -0,0 +1,316 @@
+package uk.ac.ucl.comp0010.controller;
+
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import uk.ac.ucl.comp0010.model.Module;
+import uk.ac.ucl.comp0010.model.Student;
+import uk.ac.ucl.comp0010.repository.GradeRepository;
+import uk.ac.ucl.comp0010.repository.ModuleGradeAggregateRepository;
+import uk.ac.ucl.comp0010.repository.ModuleRepository;
+import uk.ac.ucl.comp0010.repository.RegistrationRepository;
+import uk.ac.ucl.comp0010.repository.StudentGradeAggregateRepository;
+import uk.ac.ucl.comp0010.repository.StudentRepository;
+import uk.ac.ucl.comp0010.service.GradeIngestionService;
+
+/**
+ * Integration tests for asynchronous grade ingestion: submissions are
+ * validated and acknowledged with a ticket, written in batches when the
+ * queue is flushed, refused with 503 while the queue is full, and
+ * rejected individually when they can no longer be saved.
+ *
+ * The scheduled flush is slowed down so that each test flushes the queue
+ * itself.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@TestPropertySource(locations = "classpath:application.properties",
+    properties = {"gms.ingestion.queue-capacity=3",
+        "gms.ingestion.batch-size=2",
+        "gms.ingestion.flush-interval=PT1H"})
+public final class GradeIngestionIntegrationTest {
+
+  /** Provides the ability to perform MVC requests in tests. */
+  @Autowired
+  private MockMvc mockMvc;
+
+  /** Used to serialize/deserialize objects to/from JSON. */
+  @Autowired
+  private ObjectMapper objectMapper;
+
+  /** Repository for managing Student entities. */
+  @Autowired
+  private StudentRepository studentRepository;
+
+  /** Repository for managing Module entities. */
+  @Autowired
+  private ModuleRepository moduleRepository;
+
+  /** Repository for managing Grade entities. */
+  @Autowired
+  private GradeRepository gradeRepository;
+
+  /** Repository for managing Registration entities. */
+  @Autowired
+  private RegistrationRepository registrationRepository;
+
+  /** Repository for managing per-student grade aggregates. */
+  @Autowired
+  private StudentGradeAggregateRepository studentAggregateRepository;
+
+  /** Repository for managing per-module grade aggregates. */
+  @Autowired
+  private ModuleGradeAggregateRepository moduleAggregateRepository;
+
+  /** The service ingesting submitted grades. */
+  @Autowired
+  private GradeIngestionService ingestionService;
+
+  /**
+   * Writes anything left queued, and clears all data.
+   */
+  @AfterEach
+  public void tearDown() {
+    ingestionService.flush();
+    registrationRepository.deleteAll();
+    gradeRepository.deleteAll();
+    studentRepository.deleteAll();
+    moduleRepository.deleteAll();
+    studentAggregateRepository.deleteAll();
+    moduleAggregateRepository.deleteAll();
+  }
+
+  /**
+   * Clears all data, and registers two students in one module.
+   *
+   * @throws Exception if a request fails
+   */
+  @BeforeEach
+  public void setUp() throws Exception {
+    tearDown();
+
+    for (long id = 1; id <= 2; id++) {
+      Student s = new Student();
+      s.setId(id);
+      s.setFirstName("First" + id);
+      s.setLastName("Last" + id);
+      s.setUsername("user" + id);
+      s.setEmail("user" + id + "@example.com");
+      studentRepository.save(s);
+    }
+
+    Module m = new Module();
+    m.setCode("MOD001");
+    m.setName("Software Engineering");
+    m.setMnc(true);
+    m.setMaxSeats(10);
+    moduleRepository.save(m);
+
+    mockMvc.perform(post("/modules/MOD001/registerStudents")
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(objectMapper.writeValueAsString(
+            Map.of("studentIds", List.of(1L, 2L)))))
+        .andExpect(status().isOk());
+  }
+
+  /**
+   * Tests that submitted grades stay queued until flushed, are then
+   * committed and counted in the module average, and that a duplicate in
+   * the same batch is rejected.
+   *
+   * @throws Exception if a request fails
+   */
+  @Test
+  @DisplayName("Submitted grades are committed in batches when flushed")
+  public void testSubmittedGradesAreCommitted() throws Exception {
+    String first = ticket(submit(1, "2024/2025", 60)
+        .andExpect(status().isAccepted())
+        .andExpect(header().string(HttpHeaders.LOCATION,
+            startsWith("/grades/submissions/")))
+        .andExpect(jsonPath("$.status").value("QUEUED")));
+    String second = ticket(submit(2, "2024/2025", 80));
+    String duplicate = ticket(submit(1, "2024/2025", 70));
+
+    mockMvc.perform(get("/grades/submissions/" + first))
+        .andExpect(jsonPath("$.status").value("QUEUED"));
+    assertEquals(0, gradeRepository.count());
+
+    ingestionService.flush();
+
+    for (String ticket : List.of(first, second)) {
+      long gradeId = objectMapper.readTree(mockMvc.perform(
+          get("/grades/submissions/" + ticket))
+          .andExpect(status().isOk())
+          .andExpect(jsonPath("$.status").value("COMMITTED"))
+          .andReturn().getResponse().getContentAsString())
+          .get("gradeId").asLong();
+      assertTrue(gradeRepository.existsById(gradeId));
+    }
+    mockMvc.perform(get("/grades/submissions/" + duplicate))
+        .andExpect(jsonPath("$.status").value("REJECTED"))
+        .andExpect(jsonPath("$.reason").value(
+            "Student 1 already has a grade in MOD001 for 2024/2025"));
+    assertEquals(2, gradeRepository.count());
+
+    mockMvc.perform(get("/modules/MOD001/average"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.gradeCount").value(2))
+        .andExpect(jsonPath("$.average").value(70.0));
+  }
+
+  /**
+   * Tests that submissions are validated before being queued, and that an
+   * unknown ticket is not found.
+   *
+   * @throws Exception if a request fails
+   */
+  @Test
+  @DisplayName("Invalid submissions are refused before being queued")
+  public void testInvalidSubmissionsAreRefused() throws Exception {
+    mockMvc.perform(post("/grades/submitGrade")
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(objectMapper.writeValueAsString(Map.of(
+            "student_id", "1", "module_code", "MOD001"))))
+        .andExpect(status().isBadRequest());
+    submit(3, "2024/2025", 50).andExpect(status().isNotFound());
+
+    registrationRepository.deleteAll();
+    submit(1, "2024/2025", 50).andExpect(status().isBadRequest());
+
+    mockMvc.perform(get("/grades/submissions/unknown"))
+        .andExpect(status().isNotFound());
+  }
+
+  /**
+   * Tests that submissions are refused with 503 and Retry-After while the
+   * queue is full, and accepted again once it has been flushed.
+   *
+   * @throws Exception if a request fails
+   */
+  @Test
+  @DisplayName("A full queue refuses submissions with 503")
+  public void testFullQueueRefusesSubmissions() throws Exception {
+    for (int year = 2020; year < 2023; year++) {
+      submit(1, year + "/" + (year + 1), 50)
+          .andExpect(status().isAccepted());
+    }
+    submit(1, "2023/2024", 50)
+        .andExpect(status().isServiceUnavailable())
+        .andExpect(header().exists(HttpHeaders.RETRY_AFTER));
+
+    ingestionService.flush();
+    submit(1, "2023/2024", 50).andExpect(status().isAccepted());
+  }
+
+  /**
+   * Tests that a submission which can no longer be saved when written is
+   * rejected without rejecting the rest of its batch.
+   *
+   * @throws Exception if a request fails
+   */
+  @Test
+  @DisplayName("A failed submission does not reject its batch")
+  public void testFailedSubmissionIsRejectedAlone() throws Exception {
+    String kept = ticket(submit(1, "2024/2025", 60));
+    String lost = ticket(submit(2, "2024/2025", 80));
+    registrationRepository.deleteAll();
+    studentRepository.deleteById(2L);
+    mockMvc.perform(post("/modules/MOD001/registerStudent")
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(objectMapper.writeValueAsString(Map.of("studentId", 1))))
+        .andExpect(status().isOk());
+
+    ingestionService.flush();
+
+    mockMvc.perform(get("/grades/submissions/" + kept))
+        .andExpect(jsonPath("$.status").value("COMMITTED"));
+    mockMvc.perform(get("/grades/submissions/" + lost))
+        .andExpect(jsonPath("$.status").value("REJECTED"));
+    assertEquals(1, gradeRepository.count());
+  }
+
+  /**
+   * Tests that a submission failing with an error other than a database
+   * error, here a missing academic year, which the controller would have
+   * refused, is rejected alone rather than left queued with its batch.
+   *
+   * @throws Exception if a request fails
+   */
+  @Test
+  @DisplayName("A submission failing outside the database is rejected")
+  public void testUnexpectedFailureIsRejected() throws Exception {
+    String kept = ticket(submit(1, "2024/2025", 60));
+    String bad = ingestionService.submit(2L, "MOD001", 80, null)
+        .orElseThrow().getId();
+
+    ingestionService.flush();
+
+    mockMvc.perform(get("/grades/submissions/" + kept))
+        .andExpect(jsonPath("$.status").value("COMMITTED"));
+    mockMvc.perform(get("/grades/submissions/" + bad))
+        .andExpect(jsonPath("$.status").value("REJECTED"))
+        .andExpect(jsonPath("$.reason").isNotEmpty());
+    assertEquals(1, gradeRepository.count());
+  }
+
+  /**
+   * Submits a grade for ingestion.
+   *
+   * @param studentId    the student ID
+   * @param academicYear the academic year
+   * @param score        the score
+   * @return the result of the request
+   * @throws Exception if the request fails
+   */
+  private ResultActions submit(final long studentId,
+      final String academicYear, final int score) throws Exception {
+    return mockMvc.perform(post("/grades/submitGrade")
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(objectMapper.writeValueAsString(Map.of(
+            "student_id", String.valueOf(studentId),
+            "module_code", "MOD001",
+            "score", String.valueOf(score),
+            "academic_year", academicYear))));
+  }
+
+  /**
+   * Returns the ID of the ticket in an accepted response.
+   *
+   * @param result the result of the request
+   * @return the ticket ID
+   * @throws Exception if the response cannot be read
+   */
+  private String ticket(final ResultActions result) throws Exception {
+    JsonNode body = objectMapper.readTree(result
+        .andExpect(status().isAccepted())
+        .andReturn().getResponse().getContentAsString());
+    return body.get("id").asText();
+  }
+}
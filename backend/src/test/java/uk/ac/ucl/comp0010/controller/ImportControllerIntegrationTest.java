@@ -0,0 +1,284 @@
+package uk.ac.ucl.comp0010.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doThrow;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import uk.ac.ucl.comp0010.model.Module;
+import uk.ac.ucl.comp0010.model.Student;
+import uk.ac.ucl.comp0010.repository.GradeRepository;
+import uk.ac.ucl.comp0010.repository.ModuleGradeAggregateRepository;
+import uk.ac.ucl.comp0010.repository.ModuleRepository;
+import uk.ac.ucl.comp0010.repository.RegistrationRepository;
+import uk.ac.ucl.comp0010.repository.StudentGradeAggregateRepository;
+import uk.ac.ucl.comp0010.repository.StudentRepository;
+
+/**
+ * Integration tests for the CSV import endpoints of ImportController.
+ *
+ * The chunk size is set to 2 so that every test spans several chunks and
+ * transactions.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@TestPropertySource(locations = "classpath:application.properties",
+    properties = "gms.import.chunk-size=2")
+public final class ImportControllerIntegrationTest {
+
+  /** The CSV media type. */
+  private static final MediaType CSV = MediaType.valueOf("text/csv");
+
+  /** Provides the ability to perform MVC requests in tests. */
+  @Autowired
+  private MockMvc mockMvc;
+
+  /** Repository for managing Student entities. */
+  @Autowired
+  private StudentRepository studentRepository;
+
+  /** Repository for managing Module entities. */
+  @Autowired
+  private ModuleRepository moduleRepository;
+
+  /** Repository for managing Grade entities. */
+  @Autowired
+  private GradeRepository gradeRepository;
+
+  /** Repository for managing Registration entities. */
+  @Autowired
+  private RegistrationRepository registrationRepository;
+
+  /** Repository for per-student grade aggregates. */
+  @Autowired
+  private StudentGradeAggregateRepository studentAggregateRepository;
+
+  /** Repository for per-module grade aggregates. */
+  @Autowired
+  private ModuleGradeAggregateRepository moduleAggregateRepository;
+
+  /** The entity manager the import writes with, spied to inject failures. */
+  @SpyBean
+  private EntityManager entityManager;
+
+  /**
+   * Clears all data and creates one module with two seats.
+   */
+  @BeforeEach
+  public void setUp() {
+    registrationRepository.deleteAll();
+    gradeRepository.deleteAll();
+    studentRepository.deleteAll();
+    moduleRepository.deleteAll();
+    studentAggregateRepository.deleteAll();
+    moduleAggregateRepository.deleteAll();
+
+    Module module = new Module();
+    module.setCode("MOD001");
+    module.setName("Software Engineering");
+    module.setMnc(true);
+    module.setMaxSeats(2);
+    moduleRepository.save(module);
+  }
+
+  /**
+   * Tests importing students, including a duplicate ID, an invalid ID and
+   * a short row, which are rejected without aborting the import.
+   *
+   * @throws Exception if an MVC request fails
+   */
+  @Test
+  @DisplayName("Import students - valid rows saved, invalid rows reported")
+  public void testImportStudents() throws Exception {
+    String csv = "id,firstName,lastName,username,email\n"
+        + "1,John,Doe,jdoe,jdoe@example.com\n"
+        + "2,\"Smith, Jr.\",Jane,jsmith,jsmith@example.com\n"
+        + "1,Dup,Licate,dup,dup@example.com\n"
+        + "x,Bad,Id,bad,bad@example.com\n"
+        + "3,Short\n"
+        + "\n"
+        + "4,Alice,Green,agreen,agreen@example.com\n";
+
+    mockMvc.perform(post("/import/students").contentType(CSV).content(csv))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.rowsRead").value(6))
+        .andExpect(jsonPath("$.rowsImported").value(3))
+        .andExpect(jsonPath("$.rowsRejected").value(3))
+        .andExpect(jsonPath("$.errors[0].line").value(4))
+        .andExpect(jsonPath("$.rowsPerSecond").exists());
+
+    assertEquals(3, studentRepository.count());
+    assertEquals("Smith, Jr.",
+        studentRepository.findById(2L).orElseThrow().getFirstName());
+  }
+
+  /**
+   * Tests that a row failing in the database, here with a username longer
+   * than its column, is rejected on its own, while the valid row in the
+   * same chunk is still imported.
+   *
+   * @throws Exception if an MVC request fails
+   */
+  @Test
+  @DisplayName("Import students - failed chunk retried row by row")
+  public void testFailedChunkRetriedPerRow() throws Exception {
+    String csv = "id,firstName,lastName,username,email\n"
+        + "1,John,Doe,jdoe,jdoe@example.com\n"
+        + "2,Jane,Smith," + "j".repeat(300) + ",jsmith@example.com\n"
+        + "3,Alice,Green,agreen,agreen@example.com\n"
+        + "4,Bob,,bblue,bblue@example.com\n";
+
+    mockMvc.perform(post("/import/students").contentType(CSV).content(csv))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.rowsImported").value(2))
+        .andExpect(jsonPath("$.rowsRejected").value(2))
+        .andExpect(jsonPath("$.errors[0].line").value(3))
+        .andExpect(jsonPath("$.errors[1].line").value(5))
+        .andExpect(jsonPath("$.errors[1].message").value("Missing lastName"));
+
+    assertEquals(2, studentRepository.count());
+    assertEquals("jdoe",
+        studentRepository.findById(1L).orElseThrow().getUsername());
+  }
+
+  /**
+   * Tests that a chunk whose writer fails partway through, here while
+   * persisting the first of its two rows, has the row it never reached
+   * retried, so that every row read is either imported or rejected.
+   *
+   * @throws Exception if an MVC request fails
+   */
+  @Test
+  @DisplayName("Import students - rows after a failing row retried")
+  public void testRowsAfterFailingRowRetried() throws Exception {
+    doThrow(new PersistenceException("Lock timeout"))
+        .when(entityManager).persist(argThat(
+            e -> e instanceof Student s && s.getId() == 3L));
+    String csv = "id,firstName,lastName,username,email\n"
+        + "1,John,Doe,jdoe,jdoe@example.com\n"
+        + "2,Jane,Smith,jsmith,jsmith@example.com\n"
+        + "3,Alice,Green,agreen,agreen@example.com\n"
+        + "4,Bob,Blue,bblue,bblue@example.com\n"
+        + "5,Carol,Black,cblack,cblack@example.com\n";
+
+    mockMvc.perform(post("/import/students").contentType(CSV).content(csv))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.rowsRead").value(5))
+        .andExpect(jsonPath("$.rowsImported").value(4))
+        .andExpect(jsonPath("$.rowsRejected").value(1))
+        .andExpect(jsonPath("$.errors[0].line").value(4))
+        .andExpect(jsonPath("$.errors[0].message").value("Lock timeout"));
+
+    assertEquals(4, studentRepository.count());
+    assertEquals("bblue",
+        studentRepository.findById(4L).orElseThrow().getUsername());
+  }
+
+  /**
+   * Tests importing registrations and grades, rejecting unknown modules,
+   * duplicate registrations, full modules, unregistered and duplicate
+   * grades, and that imported grades update the grade aggregates.
+   *
+   * @throws Exception if an MVC request fails
+   */
+  @Test
+  @DisplayName("Import registrations and grades - membership validated")
+  public void testImportRegistrationsAndGrades() throws Exception {
+    mockMvc.perform(post("/import/students").contentType(CSV).content(
+        "id,firstName,lastName,username,email\n"
+            + "1,A,A,a,a@example.com\n"
+            + "2,B,B,b,b@example.com\n"
+            + "3,C,C,c,c@example.com\n"))
+        .andExpect(status().isOk());
+
+    mockMvc.perform(post("/import/registrations").contentType(CSV).content(
+        "module_code,student_id\n"
+            + "MOD001,1\n"
+            + "MOD001,1\n"
+            + "NOPE,2\n"
+            + "MOD001,2\n"
+            + "MOD001,3\n"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.rowsImported").value(2))
+        .andExpect(jsonPath("$.rowsRejected").value(3))
+        .andExpect(jsonPath("$.errors[0].message")
+            .value("Student 1 already registered in MOD001"))
+        .andExpect(jsonPath("$.errors[1].message")
+            .value("Module NOPE not found"))
+        .andExpect(jsonPath("$.errors[2].message")
+            .value("Module MOD001 capacity reached"));
+
+    mockMvc.perform(post("/import/grades").contentType(CSV).content(
+        "student_id,module_code,score,academic_year\n"
+            + "1,MOD001,70,2024/2025\n"
+            + "2,MOD001,65,2024/2025\n"
+            + "3,MOD001,50,2024/2025\n"
+            + "9,MOD001,50,2024/2025\n"
+            + "1,MOD001,abc,2024/2025\n"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.rowsImported").value(2))
+        .andExpect(jsonPath("$.rowsRejected").value(3))
+        .andExpect(jsonPath("$.errors[0].message")
+            .value("Student 3 not registered in MOD001"))
+        .andExpect(jsonPath("$.errors[1].message")
+            .value("Student 9 not found"));
+
+    assertEquals(2, registrationRepository.count());
+    assertEquals(2, gradeRepository.count());
+
+    mockMvc.perform(get("/modules/MOD001/average"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.gradeCount").value(2))
+        .andExpect(jsonPath("$.average").value(67.5));
+    mockMvc.perform(get("/students/2/average"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.maxScore").value(65));
+
+    mockMvc.perform(post("/import/grades").contentType(CSV).content(
+        "student_id,module_code,score,academic_year\n"
+            + "1,MOD001,80,2024/2025\n"
+            + "1,MOD001,80,2023/2024\n"
+            + "2,MOD001,101,2023/2024\n"
+            + "2,MOD001,-1,2022/2023\n"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.rowsImported").value(1))
+        .andExpect(jsonPath("$.errors[0].message")
+            .value("Student 1 already has a grade in MOD001 for 2024/2025"))
+        .andExpect(jsonPath("$.errors[1].message")
+            .value("Score 101 is not between 0 and 100"))
+        .andExpect(jsonPath("$.errors[2].message")
+            .value("Score -1 is not between 0 and 100"));
+    assertEquals(3, gradeRepository.count());
+  }
+
+  /**
+   * Tests that an import whose header lacks a required column is rejected.
+   *
+   * @throws Exception if an MVC request fails
+   */
+  @Test
+  @DisplayName("Import grades - missing column rejected")
+  public void testImportMissingColumn() throws Exception {
+    mockMvc.perform(post("/import/grades").contentType(CSV)
+        .content("student_id,module_code,score\n1,MOD001,70\n"))
+        .andExpect(status().isBadRequest());
+  }
+}
@@ -0,0 +1,179 @@
+package uk.ac.ucl.comp0010.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import uk.ac.ucl.comp0010.model.Module;
+import uk.ac.ucl.comp0010.model.Student;
+import uk.ac.ucl.comp0010.repository.GradeRepository;
+import uk.ac.ucl.comp0010.repository.ModuleRepository;
+import uk.ac.ucl.comp0010.repository.RegistrationRepository;
+import uk.ac.ucl.comp0010.repository.StudentRepository;
+
+/**
+ * Concurrency tests for module registration, firing many parallel
+ * registerStudent requests at a small module and checking that it is never
+ * overbooked and that no student is registered twice.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+public final class RegistrationConcurrencyIntegrationTest {
+
+  /** The number of parallel request threads. */
+  private static final int THREADS = 32;
+
+  /** The number of students competing for seats. */
+  private static final int STUDENTS = 2000;
+
+  /** The number of seats in the contested module. */
+  private static final int SEATS = 25;
+
+  /** Provides the ability to perform MVC requests in tests. */
+  @Autowired
+  private MockMvc mockMvc;
+
+  /** Repository for managing Student entities. */
+  @Autowired
+  private StudentRepository studentRepository;
+
+  /** Repository for managing Module entities. */
+  @Autowired
+  private ModuleRepository moduleRepository;
+
+  /** Repository for managing Grade entities. */
+  @Autowired
+  private GradeRepository gradeRepository;
+
+  /** Repository for managing Registration entities. */
+  @Autowired
+  private RegistrationRepository registrationRepository;
+
+  /**
+   * Clears all data and creates the competing students and a module with
+   * SEATS seats.
+   */
+  @BeforeEach
+  public void setUp() {
+    registrationRepository.deleteAll();
+    gradeRepository.deleteAll();
+    studentRepository.deleteAll();
+    moduleRepository.deleteAll();
+
+    List<Student> students = new ArrayList<>();
+    for (long id = 1; id <= STUDENTS; id++) {
+      Student s = new Student();
+      s.setId(id);
+      s.setFirstName("First" + id);
+      s.setLastName("Last" + id);
+      s.setUsername("user" + id);
+      s.setEmail("user" + id + "@example.com");
+      students.add(s);
+    }
+    studentRepository.saveAll(students);
+
+    Module module = new Module();
+    module.setCode("RUSH01");
+    module.setName("Popular Module");
+    module.setMnc(false);
+    module.setMaxSeats(SEATS);
+    moduleRepository.save(module);
+  }
+
+  /**
+   * Tests that thousands of parallel registrations fill the module exactly
+   * to capacity.
+   *
+   * @throws Exception if a request fails
+   */
+  @Test
+  @DisplayName("Parallel registrations never overbook a module")
+  public void testParallelRegistrationsRespectCapacity() throws Exception {
+    List<Callable<Integer>> requests = new ArrayList<>();
+    for (long id = 1; id <= STUDENTS; id++) {
+      requests.add(registration(id));
+    }
+
+    int accepted = countAccepted(requests);
+
+    assertEquals(SEATS, accepted);
+    assertEquals(SEATS, registrationRepository.countByModuleCode("RUSH01"));
+  }
+
+  /**
+   * Tests that parallel registrations of the same student register them
+   * only once.
+   *
+   * @throws Exception if a request fails
+   */
+  @Test
+  @DisplayName("Parallel duplicate registrations register a student once")
+  public void testParallelDuplicateRegistrations() throws Exception {
+    List<Callable<Integer>> requests = new ArrayList<>();
+    for (int i = 0; i < 200; i++) {
+      requests.add(registration(1L));
+    }
+
+    int accepted = countAccepted(requests);
+
+    assertEquals(1, accepted);
+    assertEquals(1, registrationRepository.countByModuleCode("RUSH01"));
+  }
+
+  /**
+   * Returns a request registering a student in the contested module.
+   *
+   * @param studentId the student ID
+   * @return the request, yielding its HTTP status
+   */
+  private Callable<Integer> registration(final long studentId) {
+    return () -> mockMvc.perform(post("/modules/RUSH01/registerStudent")
+        .contentType(MediaType.APPLICATION_JSON)
+        .content("{\"studentId\":\"" + studentId + "\"}"))
+        .andReturn().getResponse().getStatus();
+  }
+
+  /**
+   * Runs requests in parallel and counts those answered with OK. Every
+   * other request must have been rejected with BAD_REQUEST.
+   *
+   * @param requests the requests to run
+   * @return the number of requests answered with OK
+   * @throws Exception if a request fails
+   */
+  private int countAccepted(final List<Callable<Integer>> requests)
+      throws Exception {
+    ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+    try {
+      int accepted = 0;
+      for (Future<Integer> f : pool.invokeAll(requests)) {
+        int status = f.get();
+        if (status == 200) {
+          accepted++;
+        } else {
+          assertEquals(400, status);
+        }
+      }
+      return accepted;
+    } finally {
+      pool.shutdown();
+    }
+  }
+}
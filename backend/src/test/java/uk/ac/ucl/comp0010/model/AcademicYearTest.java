@@ -0,0 +1,51 @@
+package uk.ac.ucl.comp0010.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for AcademicYear and AcademicYearConverter, verifying that
+ * labels of consecutive years are stored as their starting year and read
+ * back unchanged, and that other labels are refused.
+ */
+public final class AcademicYearTest {
+
+  /**
+   * Tests that valid labels convert to their starting year and back.
+   */
+  @Test
+  @DisplayName("Valid labels round-trip through the starting year")
+  public void testValidLabelsRoundTrip() {
+    AcademicYearConverter converter = new AcademicYearConverter();
+    for (String label : new String[] {"2024/2025", "1999/2000"}) {
+      assertTrue(AcademicYear.isValid(label), label);
+      Short stored = converter.convertToDatabaseColumn(label);
+      assertEquals(Short.parseShort(label.substring(0, 4)), stored);
+      assertEquals(label, converter.convertToEntityAttribute(stored));
+    }
+    assertNull(converter.convertToDatabaseColumn(null));
+    assertNull(converter.convertToEntityAttribute(null));
+  }
+
+  /**
+   * Tests that labels not naming two consecutive four-digit years are
+   * refused.
+   */
+  @Test
+  @DisplayName("Invalid labels are refused")
+  public void testInvalidLabelsRefused() {
+    for (String label : new String[] {"2024/2026", "2024", "24/25",
+        "2024-2025", "2024/2025 ", ""}) {
+      assertFalse(AcademicYear.isValid(label), label);
+      assertThrows(IllegalArgumentException.class,
+          () -> AcademicYear.startYear(label), label);
+    }
+    assertFalse(AcademicYear.isValid(null));
+  }
+}
@@ -75,11 +75,9 @@ public final class ModelIntegrationTest {
     grade.setModule(module);
     gradeRepository.save(grade);
 
-    // For completeness, create a standalone registration
-    registration = new Registration();
-    registration.setStudent(student);
-    registration.setModule(module);
-    registrationRepository.save(registration);
+    // A student can be registered in a module only once, so keep the
+    // registration saved above
+    registration = student.getRegistrations().get(0);
   }
 
   @Test
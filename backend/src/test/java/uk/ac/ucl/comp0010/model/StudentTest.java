@@ -149,4 +149,47 @@ public final class StudentTest {
     assertThrows(NoGradeAvailableException.class, student::computeAverage,
         "Should throw NoGradeAvailableException when no grades are available");
   }
+
+  /**
+   * Tests that registration and grade lookups by module stay correct as
+   * registrations and grades are added after earlier lookups, and that the
+   * first grade recorded for a module is returned.
+   */
+  @Test
+  @DisplayName("Should keep module lookups current as grades are added")
+  public void testLookupsFollowAdditions() throws Exception {
+    student.registerModule(module1);
+    assertEquals(true, student.isRegisteredFor("MOD001"));
+    assertEquals(false, student.isRegisteredFor("MOD002"));
+    assertThrows(NoGradeAvailableException.class,
+        () -> student.getGrade(module1));
+
+    student.registerModule(module2);
+    assertEquals(true, student.isRegisteredFor("MOD002"));
+
+    Grade first = new Grade();
+    first.setScore(40);
+    first.setModule(module2);
+    student.addGrade(first);
+    Grade second = new Grade();
+    second.setScore(60);
+    second.setModule(module2);
+    student.addGrade(second);
+
+    assertEquals(first, student.getGrade(module2),
+        "The first grade recorded for a module should be returned");
+
+    Registration direct = new Registration();
+    Module module3 = new Module();
+    module3.setCode("MOD003");
+    direct.setModule(module3);
+    assertThrows(UnsupportedOperationException.class,
+        () -> student.getRegistrations().add(direct),
+        "Registrations should only be added through registerModule");
+    assertThrows(UnsupportedOperationException.class,
+        () -> student.getGrades().set(0, second),
+        "Grades should only be added through addGrade");
+    assertEquals(false, student.isRegisteredFor("MOD003"));
+    assertEquals(first, student.getGrade(module2));
+  }
 }
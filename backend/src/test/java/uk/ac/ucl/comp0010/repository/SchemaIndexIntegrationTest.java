@@ -0,0 +1,308 @@
+package uk.ac.ucl.comp0010.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.regex.Pattern;
+import java.util.stream.LongStream;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+
+import uk.ac.ucl.comp0010.config.SqlStatementCounter;
+import uk.ac.ucl.comp0010.model.Grade;
+import uk.ac.ucl.comp0010.model.Module;
+import uk.ac.ucl.comp0010.model.Registration;
+import uk.ac.ucl.comp0010.model.Student;
+
+/**
+ * Tests that the migrated schema backs lookups by student and by module
+ * with its indexes, that keyset pages seek their index from the last key
+ * read, rejects duplicate registrations, and hands out IDs that let
+ * Hibernate batch its inserts alongside inserts made in SQL.
+ *
+ * The query plans are read with EXPLAIN after the tables are filled and
+ * analysed, so the planner chooses between indexes as it would in use.
+ * Repository queries are explained as Hibernate generates them, with
+ * their parameters unbound, as the planner sees a prepared statement.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(locations = "classpath:application.properties",
+    properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Import(SqlStatementCounter.class)
+public final class SchemaIndexIntegrationTest {
+
+  /** The number of students seeded. */
+  private static final int STUDENTS = 500;
+
+  /** The number of modules seeded. */
+  private static final int MODULES = 20;
+
+  /** Used to seed the tables and read query plans. */
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @Autowired
+  private StudentRepository studentRepository;
+
+  @Autowired
+  private ModuleRepository moduleRepository;
+
+  @Autowired
+  private RegistrationRepository registrationRepository;
+
+  @Autowired
+  private GradeRepository gradeRepository;
+
+  /** Used to persist grades in one flush. */
+  @Autowired
+  private EntityManager entityManager;
+
+  /** Used to read Hibernate statement statistics. */
+  @Autowired
+  private EntityManagerFactory entityManagerFactory;
+
+  /** Captures the SQL that repository queries generate. */
+  @Autowired
+  private SqlStatementCounter sqlStatementCounter;
+
+  /** Used to run the inserts in a transaction. */
+  @Autowired
+  private PlatformTransactionManager transactionManager;
+
+  /**
+   * Clears all data, then registers every seeded student in every seeded
+   * module with a grade for each of two years.
+   */
+  @BeforeEach
+  public void setUp() {
+    registrationRepository.deleteAll();
+    gradeRepository.deleteAll();
+    studentRepository.deleteAll();
+    moduleRepository.deleteAll();
+
+    jdbcTemplate.update("INSERT INTO module (code, name, mnc, max_seats)"
+        + " SELECT 'MOD' || X, 'Module ' || X, FALSE, ? FROM SYSTEM_RANGE(1, ?)",
+        STUDENTS, MODULES);
+    jdbcTemplate.update("INSERT INTO student"
+        + " (id, first_name, last_name, username, email)"
+        + " SELECT X, 'First', 'Last', 'user' || X, 'user' || X || '@x.com'"
+        + " FROM SYSTEM_RANGE(1, ?)", STUDENTS);
+    jdbcTemplate.update("INSERT INTO registration (student_id, module_code)"
+        + " SELECT s.X, 'MOD' || m.X"
+        + " FROM SYSTEM_RANGE(1, ?) s, SYSTEM_RANGE(1, ?) m",
+        STUDENTS, MODULES);
+    jdbcTemplate.update("INSERT INTO grade"
+        + " (score, academic_year, student_id, module_code)"
+        + " SELECT MOD(s.X * m.X, 101), y.Y, s.X, 'MOD' || m.X"
+        + " FROM SYSTEM_RANGE(1, ?) s, SYSTEM_RANGE(1, ?) m,"
+        + " (VALUES 2023, 2024) y(Y)",
+        STUDENTS, MODULES);
+    jdbcTemplate.execute("ANALYZE");
+    entityManagerFactory.getCache().evictAll();
+  }
+
+  /**
+   * Tests that registrations are found by module and student, by module,
+   * and by student through indexes.
+   */
+  @Test
+  @DisplayName("Registration lookups use indexes")
+  public void testRegistrationLookupsUseIndexes() {
+    assertUsesIndex("uq_registration_module_student",
+        "SELECT id FROM registration"
+            + " WHERE student_id = 7 AND module_code = 'MOD3'");
+    assertNoTableScan(
+        "SELECT COUNT(*) FROM registration WHERE module_code = 'MOD3'");
+    assertNoTableScan("SELECT module_code FROM registration"
+        + " WHERE student_id IN (7, 8, 9)");
+  }
+
+  /**
+   * Tests that grades are found by student, module and year, by module and
+   * student, by module, and by student through indexes.
+   */
+  @Test
+  @DisplayName("Grade lookups use indexes")
+  public void testGradeLookupsUseIndexes() {
+    assertUsesIndex("uq_grade_student_module_year",
+        "SELECT id FROM grade WHERE student_id = 7"
+            + " AND module_code = 'MOD3' AND academic_year = 2024");
+    assertNoTableScan("SELECT score FROM grade"
+        + " WHERE module_code = 'MOD3' AND student_id = 7");
+    assertNoTableScan("SELECT academic_year, AVG(score) FROM grade"
+        + " WHERE module_code = 'MOD3' GROUP BY academic_year");
+    assertNoTableScan("SELECT student_id, COUNT(*) FROM grade"
+        + " WHERE student_id IN (7, 8, 9) GROUP BY student_id");
+  }
+
+  /**
+   * Tests that the grades of one academic year, alone or in a module, are
+   * read through the index leading with the year.
+   */
+  @Test
+  @DisplayName("Year-scoped grade queries use the year index")
+  public void testYearScopedQueriesUseYearIndex() {
+    assertUsesIndex("idx_grade_year_module",
+        "SELECT COUNT(*), AVG(score), MIN(score), MAX(score) FROM grade"
+            + " WHERE module_code = 'MOD3' AND academic_year = 2024");
+    assertUsesIndex("idx_grade_year_module",
+        "SELECT module_code, COUNT(*) FROM grade"
+            + " WHERE academic_year = 2024 GROUP BY module_code");
+  }
+
+  /**
+   * Tests that each keyset page after the first seeks its index from the
+   * key it was given, rather than reading the index from its start and
+   * filtering, so that a deep page costs no more than the first.
+   *
+   * @throws Exception if a query fails
+   */
+  @Test
+  @DisplayName("Keyset pages seek from the last key read")
+  public void testKeysetPagesSeek() throws Exception {
+    Pageable page = PageRequest.ofSize(50);
+    assertSeeks("PRIMARY_KEY", "ID > ?",
+        () -> studentRepository.findPageAfter(250L, page));
+    assertSeeks("PRIMARY_KEY", "CODE > ?",
+        () -> moduleRepository.findPageAfter("MOD5", page));
+    assertSeeks("PRIMARY_KEY", "ID > ?",
+        () -> registrationRepository.findPageAfter(100L, page));
+    assertSeeks("PRIMARY_KEY", "ID > ?",
+        () -> gradeRepository.findPageAfter(100L, page));
+    assertSeeks("IDX_GRADE_YEAR_MODULE", "ACADEMIC_YEAR >= ?",
+        () -> gradeRepository.findPageAfterYear("2023/2024", 100L, page));
+    assertSeeks("IDX_GRADE_YEAR_MODULE", "ACADEMIC_YEAR = ?",
+        () -> gradeRepository.findPageInYear("2024/2025", 100L, page));
+  }
+
+  /**
+   * Tests that the database rejects a second registration of a student in
+   * a module.
+   */
+  @Test
+  @DisplayName("Duplicate registrations are rejected")
+  public void testDuplicateRegistrationRejected() {
+    Student student = studentRepository.findById(1L).orElseThrow();
+    Module module = moduleRepository.findById("MOD1").orElseThrow();
+
+    Registration duplicate = new Registration();
+    duplicate.setStudent(student);
+    duplicate.setModule(module);
+
+    assertThrows(DataIntegrityViolationException.class,
+        () -> registrationRepository.save(duplicate));
+  }
+
+  /**
+   * Tests that grades persisted together are inserted in JDBC batches,
+   * with IDs that do not collide with those of the rows inserted in SQL.
+   */
+  @Test
+  @DisplayName("Grade inserts are batched")
+  public void testGradeInsertsAreBatched() {
+    int count = 120;
+    long before = gradeRepository.count();
+    // Student and Module are final, so Hibernate cannot proxy them;
+    // loading them first lets the references come from the cache.
+    studentRepository.findAllById(LongStream.rangeClosed(1, count)
+        .boxed().toList());
+    moduleRepository.findById("MOD1");
+    Statistics stats = entityManagerFactory.unwrap(SessionFactory.class)
+        .getStatistics();
+    stats.clear();
+
+    new TransactionTemplate(transactionManager).executeWithoutResult(tx -> {
+      for (int i = 0; i < count; i++) {
+        Grade g = new Grade();
+        g.setScore(i % 101);
+        g.setAcademicYear("2025/2026");
+        g.setStudent(entityManager.getReference(Student.class,
+            (long) (i + 1)));
+        g.setModule(entityManager.getReference(Module.class, "MOD1"));
+        entityManager.persist(g);
+      }
+      entityManager.flush();
+      entityManager.clear();
+    });
+
+    assertEquals(before + count, gradeRepository.count());
+    assertTrue(stats.getPrepareStatementCount() <= 6,
+        count + " inserts should take at most 3 batches and 3 sequence"
+            + " calls, took " + stats.getPrepareStatementCount()
+            + " statements");
+  }
+
+  /**
+   * Asserts that the plan of a query reads through the given index.
+   *
+   * @param index the index name
+   * @param sql   the query
+   */
+  private void assertUsesIndex(final String index, final String sql) {
+    String plan = explain(sql);
+    assertTrue(plan.contains(index.toUpperCase()),
+        "Expected " + index + " in plan:\n" + plan);
+  }
+
+  /**
+   * Asserts that the plan of the first statement a repository query runs
+   * reads its table through the given index, sought with the given
+   * condition.
+   *
+   * @param index     the start of the index name
+   * @param condition the condition the index is sought with
+   * @param query     the repository query
+   * @throws Exception if the query fails
+   */
+  private void assertSeeks(final String index, final String condition,
+      final SqlStatementCounter.Action query) throws Exception {
+    String sql = sqlStatementCounter.statementsOf(query).get(0);
+    String plan = explain(sql);
+    assertTrue(Pattern.compile("/\\* PUBLIC\\." + index + "\\w*: "
+        + Pattern.quote(condition)).matcher(plan).find(),
+        "Expected " + index + " sought with " + condition + " in plan:\n"
+            + plan);
+  }
+
+  /**
+   * Asserts that the plan of a query reads every table through an index.
+   *
+   * @param sql the query
+   */
+  private void assertNoTableScan(final String sql) {
+    String plan = explain(sql);
+    assertFalse(plan.contains("tableScan"),
+        "Expected no table scan in plan:\n" + plan);
+  }
+
+  /**
+   * Returns the plan of a query.
+   *
+   * @param sql the query
+   * @return the plan
+   */
+  private String explain(final String sql) {
+    return jdbcTemplate.queryForObject("EXPLAIN " + sql, String.class);
+  }
+}
@@ -0,0 +1,198 @@
+package uk.ac.ucl.comp0010.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+/**
+ * Integration tests for the synthetic dataset and its seeding: the same
+ * seed generates the same rows, and the seeded data satisfies the schema
+ * and the rules the REST API enforces, with consistent aggregates, so the
+ * application can write to it at once.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+public final class DatasetSeederIntegrationTest {
+
+  /** The number of students seeded. */
+  private static final int STUDENTS = 500;
+
+  /** The number of modules seeded. */
+  private static final int MODULES = 20;
+
+  /** The number of grades seeded. */
+  private static final int GRADES = 3000;
+
+  /** The number of academic years the grades span. */
+  private static final int YEARS = 3;
+
+  /** The first academic year. */
+  private static final int FIRST_YEAR = 2022;
+
+  /** Provides the ability to perform MVC requests in tests. */
+  @Autowired
+  private MockMvc mockMvc;
+
+  /** The seeder under test. */
+  @Autowired
+  private DatasetSeeder seeder;
+
+  /** The service maintaining the grade aggregates. */
+  @Autowired
+  private GradeAggregateService aggregateService;
+
+  /** Queries the seeded tables. */
+  @Autowired
+  private JdbcTemplate jdbc;
+
+  /**
+   * Clears all data.
+   */
+  @BeforeEach
+  @AfterEach
+  public void clear() {
+    jdbc.update("DELETE FROM registration");
+    jdbc.update("DELETE FROM grade");
+    jdbc.update("DELETE FROM student");
+    jdbc.update("DELETE FROM module");
+    jdbc.update("DELETE FROM student_grade_aggregate");
+    jdbc.update("DELETE FROM module_grade_aggregate");
+  }
+
+  @Test
+  @DisplayName("The same seed generates the same rows")
+  public void testGenerationIsDeterministic() {
+    assertEquals(rows(dataset(7)), rows(dataset(7)));
+    assertNotEquals(rows(dataset(7)), rows(dataset(8)));
+  }
+
+  @Test
+  @DisplayName("Seeded data fits module capacity with aggregates in step")
+  public void testSeededDataIsConsistent() {
+    long rows = seeder.seed(dataset(42));
+
+    assertEquals(STUDENTS, count("SELECT COUNT(*) FROM student"));
+    assertEquals(MODULES, count("SELECT COUNT(*) FROM module"));
+    assertEquals(GRADES, count("SELECT COUNT(*) FROM grade"));
+    long registrations = count("SELECT COUNT(*) FROM registration");
+    assertEquals(STUDENTS + MODULES + registrations + GRADES, rows);
+    assertEquals(0, count("SELECT COUNT(*) FROM module m WHERE m.max_seats"
+        + " < (SELECT COUNT(*) FROM registration r"
+        + " WHERE r.module_code = m.code)"));
+    assertEquals(0, count("SELECT COUNT(*) FROM grade g WHERE NOT EXISTS"
+        + " (SELECT 1 FROM registration r WHERE r.student_id = g.student_id"
+        + " AND r.module_code = g.module_code)"));
+    assertEquals(YEARS, count("SELECT COUNT(DISTINCT academic_year)"
+        + " FROM grade"));
+    assertEquals(0, aggregateService.reconcile());
+    assertFalse(seeder.isEmpty());
+  }
+
+  @Test
+  @DisplayName("The API writes to seeded data with fresh IDs")
+  public void testApiWritesAfterSeeding() throws Exception {
+    seeder.seed(dataset(42));
+    long maxId = count("SELECT MAX(id) FROM grade");
+    String code = jdbc.queryForObject(
+        "SELECT module_code FROM registration WHERE student_id = 1"
+            + " ORDER BY id LIMIT 1", String.class);
+
+    mockMvc.perform(post("/grades/addGrade")
+        .contentType(MediaType.APPLICATION_JSON)
+        .content("{\"student_id\":\"1\",\"module_code\":\"" + code
+            + "\",\"score\":\"70\",\"academic_year\":\"2030/2031\"}"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.score").value(70));
+
+    assertTrue(count("SELECT MAX(id) FROM grade") > maxId);
+    assertEquals(0, aggregateService.reconcile());
+  }
+
+  @Test
+  @DisplayName("Seeding refuses a database holding data")
+  public void testSeedingRequiresEmptyDatabase() {
+    seeder.seed(dataset(42));
+    assertThrows(IllegalStateException.class,
+        () -> seeder.seed(dataset(42)));
+  }
+
+  /**
+   * Returns a dataset of the test's sizes.
+   *
+   * @param seed the random seed
+   * @return the dataset
+   */
+  private static SyntheticDataset dataset(final long seed) {
+    return new SyntheticDataset(STUDENTS, MODULES, GRADES, YEARS, FIRST_YEAR,
+        seed);
+  }
+
+  /**
+   * Returns every row a dataset generates, as text.
+   *
+   * @param dataset the dataset
+   * @return the rows
+   */
+  private static List<String> rows(final SyntheticDataset dataset) {
+    List<String> rows = new ArrayList<>();
+    dataset.generate(new SyntheticDataset.Sink() {
+      @Override
+      public void module(final String code, final String name,
+          final boolean mnc, final int maxSeats) {
+        rows.add(code + "," + name + "," + mnc + "," + maxSeats);
+      }
+
+      @Override
+      public void student(final long id, final String firstName,
+          final String lastName, final String username, final String email) {
+        rows.add(id + "," + firstName + "," + lastName + "," + username
+            + "," + email);
+      }
+
+      @Override
+      public void registration(final long id, final long studentId,
+          final String code) {
+        rows.add(id + "," + studentId + "," + code);
+      }
+
+      @Override
+      public void grade(final long id, final long studentId,
+          final String code, final int score, final short startYear) {
+        rows.add(id + "," + studentId + "," + code + "," + score + ","
+            + startYear);
+      }
+    });
+    return rows;
+  }
+
+  /**
+   * Runs a query returning a single number.
+   *
+   * @param sql the query
+   * @return the number
+   */
+  private long count(final String sql) {
+    return jdbc.queryForObject(sql, Long.class);
+  }
+}
@@ -15,6 +15,7 @@ import {
   EntityModelModule,
 } from '../api/index';
 import { API_ENDPOINT } from '../config';
+import { fetchAll } from '../paging';
 
 function AddGrade(props: { update: () => void }) {
   // State to hold the grade data
@@ -28,23 +29,20 @@ function AddGrade(props: { update: () => void }) {
 
   // Fetch students and modules when the component mounts
   React.useEffect(() => {
-    axios
-      .get(`${API_ENDPOINT}/students`)
-      .then((response) => {
-        setStudents(response.data._embedded.students);
-      })
+    fetchAll<EntityModelStudent>('students', (s) => s.id)
+      .then(setStudents)
       .catch((response) => setError(response.message));
 
-    axios
-      .get(`${API_ENDPOINT}/modules`)
-      .then((response) => setModules(response.data._embedded.modules))
+    fetchAll<EntityModelModule>('modules', (m) => m.code)
+      .then(setModules)
       .catch((response) => setError(response.message));
   }, []);
 
-  // Function to handle the request to add a grade
+  // Function to handle the request to add a grade, replacing the score of
+  // any grade already recorded for the same module and academic year
   function request() {
     axios
-      .post(`${API_ENDPOINT}/grades/addGrade`, grade)
+      .put(`${API_ENDPOINT}/grades/upsertGrade`, grade)
       .then(() => {
         props.update();
       })
@@ -81,9 +81,10 @@ function AddOrEditGrade({
         })
         .catch((res) => setError(res.message));
     } else {
-      // If adding a new grade, send a POST request
+      // If adding a grade, send a PUT request, which replaces the score of
+      // a grade already recorded for the same module and academic year
       axios
-        .post(`${API_ENDPOINT}/grades/addGrade`, payload)
+        .put(`${API_ENDPOINT}/grades/upsertGrade`, payload)
         .then(() => {
           update();
           onClose();
@@ -1,37 +1,40 @@
 import React from "react";
-import axios from "axios";
-import { Breadcrumbs, Link, Typography, Alert, Grid } from "@mui/material";
-import App from "../App.tsx";
 import {
-  EntityModelGrade,
-  EntityModelStudent,
-  EntityModelModule,
-} from "../api/index";
-import { API_ENDPOINT } from "../config.ts";
+  Breadcrumbs,
+  Link,
+  Typography,
+  Alert,
+  Grid,
+  Button,
+} from "@mui/material";
+import App from "../App.tsx";
+import { EntityModelGrade } from "../api/index";
+import { fetchPageAfter } from "../paging.ts";
 import AddGrade from "./AddGrade.tsx";
 
-function GradeRow(props: { grade: EntityModelGrade }) {
-  const { grade } = props;
-  const [student, setStudent] = React.useState<EntityModelStudent>();
-  const [module, setModule] = React.useState<EntityModelModule>();
-
-  React.useEffect(() => {
-    axios
-      .get(grade._links!.module!.href!)
-      .then((response) => setModule(response.data));
+/**
+ * A grade as listed in the /grades collection, which inlines the student
+ * and module details through the gradeSummary excerpt.
+ */
+type GradeSummary = EntityModelGrade & {
+  academicYear?: string;
+  studentId?: number;
+  studentFirstName?: string;
+  studentLastName?: string;
+  moduleCode?: string;
+  moduleName?: string;
+};
 
-    axios
-      .get(grade._links!.student!.href!)
-      .then((response) => setStudent(response.data));
-  }, [grade]);
+function GradeRow(props: { grade: GradeSummary }) {
+  const { grade } = props;
 
   return (
     <Grid key={grade.id} container style={{ padding: "10px 0" }}>
       <Grid item xs={4}>
-        {student && `${student.firstName} ${student.lastName} (${student.id})`}
+        {`${grade.studentFirstName} ${grade.studentLastName} (${grade.studentId})`}
       </Grid>
       <Grid item xs={4}>
-        {module && `${module.code} ${module.name}`}
+        {`${grade.moduleCode} ${grade.moduleName}`}
       </Grid>
       <Grid item xs={4}>
         {grade.score}
@@ -41,18 +44,30 @@ function GradeRow(props: { grade: EntityModelGrade }) {
 }
 
 function Grades() {
-  const [grades, setGrades] = React.useState<EntityModelGrade[]>([]);
+  const [grades, setGrades] = React.useState<GradeSummary[]>([]);
   const [error, setError] = React.useState<string>();
+  const [hasMore, setHasMore] = React.useState(false);
 
   React.useEffect(() => {
     updateGrades();
   }, []);
 
   function updateGrades() {
-    axios
-      .get(`${API_ENDPOINT}/grades`)
-      .then((response) => {
-        setGrades(response.data._embedded.grades);
+    fetchPageAfter<GradeSummary>("grades")
+      .then((page) => {
+        setGrades(page.items);
+        setHasMore(page.hasMore);
+      })
+      .catch((response) => {
+        setError(response.message);
+      });
+  }
+
+  function loadMoreGrades() {
+    fetchPageAfter<GradeSummary>("grades", grades[grades.length - 1]?.id)
+      .then((page) => {
+        setGrades([...grades, ...page.items]);
+        setHasMore(page.hasMore);
       })
       .catch((response) => {
         setError(response.message);
@@ -83,8 +98,9 @@ function Grades() {
             </Grid>
           </Grid>
           {grades.map((g) => {
-            return <GradeRow grade={g} />;
+            return <GradeRow key={g.id} grade={g} />;
           })}
+          {hasMore && <Button onClick={loadMoreGrades}>Load more</Button>}
         </>
       )}
       <br />
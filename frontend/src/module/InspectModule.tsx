@@ -20,6 +20,7 @@ import DeleteIcon from '@mui/icons-material/Delete';
 import GradeIcon from '@mui/icons-material/Grade';
 import { EntityModelModule } from '../api/entityModelModule';
 import { API_ENDPOINT } from '../config';
+import { fetchAll } from '../paging';
 import axios from 'axios';
 import EditStudent from '../student/EditStudent';
 import AddOrEditGrade from '../grade/AddOrEditGrade';
@@ -63,12 +64,12 @@ function InspectModule({ open, onClose, module, update }: InspectModuleProps) {
   // Function to fetch data from API
   const fetchData = React.useCallback(async () => {
     try {
-      const [allStudentsRes, moduleDetailsRes] = await Promise.all([
-        axios.get(`${API_ENDPOINT}/students`),
+      const [allStudents, moduleDetailsRes] = await Promise.all([
+        fetchAll<Student>('students', (s) => s.id),
         axios.get(`${API_ENDPOINT}/modules/${module.code}/registrations`), // assume endpoint returns enrolled students + grades
       ]);
 
-      setStudents(allStudentsRes.data._embedded.students);
+      setStudents(allStudents);
 
       // moduleDetailsRes should contain enrolled students and their grades
       setEnrolled(moduleDetailsRes.data.enrolledStudents); // {id, firstName, lastName, gradeIfAny}
@@ -21,6 +21,7 @@ import SearchIcon from '@mui/icons-material/Search';
 import App from '../App';
 import { EntityModelModule } from '../api/entityModelModule';
 import { API_ENDPOINT } from '../config';
+import { fetchPageAfter } from '../paging';
 import AddModule from './AddModule';
 import EditModule from './EditModule';
 import InspectModule from './InspectModule';
@@ -39,6 +40,7 @@ function Modules() {
     React.useState<EntityModelModule>();
   const [showInspectModal, setShowInspectModal] = React.useState(false);
   const [inspectModule, setInspectModule] = React.useState<EntityModelModule>();
+  const [hasMore, setHasMore] = React.useState(false);
 
   React.useEffect(() => {
     updateModules();
@@ -59,10 +61,21 @@ function Modules() {
   }, [searchTerm, modules, filterModules]);
 
   function updateModules() {
-    axios
-      .get(`${API_ENDPOINT}/modules`)
-      .then((response) => {
-        setModules(response.data._embedded.modules);
+    fetchPageAfter<EntityModelModule>('modules')
+      .then((page) => {
+        setModules(page.items);
+        setHasMore(page.hasMore);
+      })
+      .catch((response) => {
+        setError(response.message);
+      });
+  }
+
+  function loadMoreModules() {
+    fetchPageAfter<EntityModelModule>('modules', modules[modules.length - 1]?.code)
+      .then((page) => {
+        setModules([...modules, ...page.items]);
+        setHasMore(page.hasMore);
       })
       .catch((response) => {
         setError(response.message);
@@ -211,6 +224,9 @@ function Modules() {
                       </Grid>
                     ))}
                   </div>
+                  {hasMore && (
+                    <Button onClick={loadMoreModules}>Load more</Button>
+                  )}
                 </div>
               )}
             </CardContent>
@@ -0,0 +1,71 @@
+import axios from "axios";
+import { API_ENDPOINT } from "./config";
+
+/** Number of rows the list pages read per request. */
+export const PAGE_SIZE = 50;
+
+/**
+ * Largest page the backend serves; used by `fetchAll` to read a whole
+ * collection in as few requests as possible.
+ */
+export const MAX_PAGE_SIZE = 1000;
+
+/** One keyset page of a collection. */
+export interface KeysetPage<T> {
+  items: T[];
+  hasMore: boolean;
+}
+
+/**
+ * Reads the page of `collection` that follows the key `after`, using the
+ * backend's keyset searches (`/{collection}/search/first` for the first
+ * page, `/{collection}/search/after` for the rest). Unlike page-number
+ * paging, the cost of a request does not grow with how deep into the
+ * collection it reads.
+ *
+ * @param collection the collection name, e.g. "students"
+ * @param after the key of the last row already read, or undefined for the
+ *              first page
+ * @param size the number of rows to read
+ */
+export async function fetchPageAfter<T>(
+  collection: string,
+  after?: string | number,
+  size: number = PAGE_SIZE
+): Promise<KeysetPage<T>> {
+  const params: Record<string, string | number> = { size };
+  if (after !== undefined) {
+    params.after = after;
+  }
+  const search = after === undefined ? "first" : "after";
+  const response = await axios.get(
+    `${API_ENDPOINT}/${collection}/search/${search}`,
+    { params }
+  );
+  const items: T[] = response.data._embedded?.[collection] ?? [];
+  return { items, hasMore: items.length === size };
+}
+
+/**
+ * Reads every row of `collection` in key order, following the keyset
+ * cursor page by page, for pickers that must offer every entry however
+ * large the collection grows.
+ *
+ * @param collection the collection name, e.g. "students"
+ * @param keyOf returns the key of a row: its ID, or its code for modules
+ */
+export async function fetchAll<T>(
+  collection: string,
+  keyOf: (item: T) => string | number | undefined
+): Promise<T[]> {
+  const all: T[] = [];
+  let after: string | number | undefined;
+  for (;;) {
+    const page = await fetchPageAfter<T>(collection, after, MAX_PAGE_SIZE);
+    all.push(...page.items);
+    if (!page.hasMore || page.items.length === 0) {
+      return all;
+    }
+    after = keyOf(page.items[page.items.length - 1]);
+  }
+}
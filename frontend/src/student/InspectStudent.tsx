@@ -1,5 +1,16 @@
 import React from "react";
-import { Dialog, DialogTitle, DialogContent, DialogActions, TextField, Button, Grid } from "@mui/material";
+import {
+  Dialog,
+  DialogTitle,
+  DialogContent,
+  DialogActions,
+  TextField,
+  Button,
+  Grid,
+  Typography,
+  Divider,
+  Alert,
+} from "@mui/material";
 import axios from "axios";
 import { API_ENDPOINT } from "../config";
 import { EntityModelStudent } from "../api/index";
@@ -11,8 +22,33 @@ interface InspectStudentProps {
   update: () => void;
 }
 
+/** One grade on a transcript. */
+interface TranscriptGrade {
+  id: number;
+  moduleCode: string;
+  moduleName: string;
+  score: number;
+}
+
+/** The grades of a transcript awarded in one academic year. */
+interface TranscriptYear {
+  academicYear: string;
+  grades: TranscriptGrade[];
+  average: number;
+}
+
+/** A student's transcript, as returned by `/students/{id}/transcript`. */
+interface Transcript {
+  modules: { code: string; name: string; registered: boolean }[];
+  years: TranscriptYear[];
+  gradeCount: number;
+  average: number | null;
+}
+
 /**
- * InspectStudent component allows editing an existing student's details.
+ * InspectStudent component allows editing an existing student's details,
+ * and shows the student's transcript: their modules, and their grades and
+ * averages by academic year, read with a single request.
  * After saving, calls `update()` to refresh the main list.
  */
 function InspectStudent({ open, onClose, student, update }: InspectStudentProps) {
@@ -21,6 +57,8 @@ function InspectStudent({ open, onClose, student, update }: InspectStudentProps)
   const [email, setEmail] = React.useState(student.email ?? "");
   const [firstName, setFirstName] = React.useState(student.firstName ?? "");
   const [lastName, setLastName] = React.useState(student.lastName ?? "");
+  const [transcript, setTranscript] = React.useState<Transcript>();
+  const [error, setError] = React.useState<string>();
 
   React.useEffect(() => {
     // Reset fields when the student or open changes
@@ -33,6 +71,17 @@ function InspectStudent({ open, onClose, student, update }: InspectStudentProps)
     }
   }, [open, student]);
 
+  React.useEffect(() => {
+    if (!open || student.id === undefined) {
+      return;
+    }
+    setError(undefined);
+    axios
+      .get<Transcript>(`${API_ENDPOINT}/students/${student.id}/transcript`)
+      .then((res) => setTranscript(res.data))
+      .catch((err) => setError(err.message));
+  }, [open, student]);
+
   function handleSave() {
     const updatedStudent: Partial<EntityModelStudent> = {
       id: id ? parseInt(id, 10) : undefined,
@@ -113,6 +162,54 @@ function InspectStudent({ open, onClose, student, update }: InspectStudentProps)
             />
           </Grid>
         </Grid>
+
+        <Divider sx={{ marginY: "20px" }} />
+
+        <Typography variant="h6" sx={{ marginBottom: "10px" }}>
+          Transcript
+        </Typography>
+        {error && <Alert severity="error">{error}</Alert>}
+        {transcript && (
+          <>
+            <Typography variant="body2" sx={{ marginBottom: "10px" }}>
+              Modules:{" "}
+              {transcript.modules.length > 0
+                ? transcript.modules
+                    .map((m) => `${m.code}${m.registered ? "" : " (left)"}`)
+                    .join(", ")
+                : "None"}
+              <br />
+              Overall average:{" "}
+              {transcript.average !== null
+                ? transcript.average.toFixed(1)
+                : "N/A"}{" "}
+              ({transcript.gradeCount} grades)
+            </Typography>
+            {transcript.years.length < 1 && (
+              <Alert severity="info">No grades recorded.</Alert>
+            )}
+            {transcript.years.map((y) => (
+              <div key={y.academicYear} style={{ marginBottom: "10px" }}>
+                <Typography variant="subtitle2">
+                  {y.academicYear} (average {y.average.toFixed(1)})
+                </Typography>
+                {y.grades.map((g) => (
+                  <Grid container key={g.id}>
+                    <Grid item xs={3}>
+                      {g.moduleCode}
+                    </Grid>
+                    <Grid item xs={7}>
+                      {g.moduleName}
+                    </Grid>
+                    <Grid item xs={2} sx={{ textAlign: "right" }}>
+                      {g.score}
+                    </Grid>
+                  </Grid>
+                ))}
+              </div>
+            ))}
+          </>
+        )}
       </DialogContent>
       <DialogActions>
         <Button onClick={onClose} color="inherit">
@@ -1,5 +1,4 @@
 import React from "react";
-import axios from "axios";
 import { 
  
   Typography, 
@@ -9,7 +8,8 @@ import {
   Container, 
   Card, 
   Divider, 
-  Grid 
+  Grid,
+  Button
 } from "@mui/material";
 import RefreshIcon from "@mui/icons-material/Refresh";
 import SearchIcon from "@mui/icons-material/Search";
@@ -20,7 +20,7 @@ import Navbar from "../components/Navbar";
 import AddStudent from "./AddStudent";
 import InspectStudent from "./InspectStudent";
 import { EntityModelStudent } from "../api/index";
-import { API_ENDPOINT } from "../config";
+import { fetchPageAfter } from "../paging";
 
 /**
  * The Students page allows:
@@ -38,6 +38,7 @@ function Students() {
 
   const [showInspect, setShowInspect] = React.useState(false);
   const [selectedStudent, setSelectedStudent] = React.useState<EntityModelStudent>();
+  const [hasMore, setHasMore] = React.useState(false);
 
   React.useEffect(() => {
     updateStudents();
@@ -57,10 +58,21 @@ function Students() {
   }, [searchTerm, students]);
 
   function updateStudents() {
-    axios
-      .get(`${API_ENDPOINT}/students`)
-      .then((response) => {
-        setStudents(response.data._embedded?.students ?? []);
+    fetchPageAfter<EntityModelStudent>("students")
+      .then((page) => {
+        setStudents(page.items);
+        setHasMore(page.hasMore);
+      })
+      .catch((err) => {
+        setError(err.message);
+      });
+  }
+
+  function loadMoreStudents() {
+    fetchPageAfter<EntityModelStudent>("students", students[students.length - 1]?.id)
+      .then((page) => {
+        setStudents([...students, ...page.items]);
+        setHasMore(page.hasMore);
       })
       .catch((err) => {
         setError(err.message);
@@ -144,6 +156,8 @@ function Students() {
             </div>
           )}
 
+          {hasMore && <Button onClick={loadMoreStudents}>Load more</Button>}
+
           {showInspect && selectedStudent && (
             <InspectStudent
               open={showInspect}